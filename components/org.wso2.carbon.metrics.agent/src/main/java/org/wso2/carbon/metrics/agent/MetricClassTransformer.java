@@ -0,0 +1,285 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.agent;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Transforms the classes with methods annotated with metric annotations. The metrics of each class are kept in
+ * static fields added to the class, which are initialized with the class. The annotated methods use these fields
+ * directly.
+ * <p>
+ * Only the classes being loaded are transformed, since fields cannot be added when redefining classes. Interfaces are
+ * not transformed.
+ */
+public class MetricClassTransformer implements ClassFileTransformer {
+
+    private static final Logger logger = Logger.getLogger(MetricClassTransformer.class.getName());
+
+    private static final String ANNOTATION_DESC_PREFIX = "Lorg/wso2/carbon/metrics/core/annotation/";
+
+    /**
+     * Levels in the order of {@code org.wso2.carbon.metrics.core.annotation.Level}
+     */
+    private static final List<String> LEVELS = Arrays.asList("OFF", "INFO", "DEBUG", "TRACE", "ALL");
+
+    private static final String[] EXCLUDED_PREFIXES = {"java/", "javax/", "sun/", "com/sun/", "jdk/"};
+
+    private final int levelThreshold;
+
+    private final List<String> packagePrefixes;
+
+    /**
+     * @param level    The highest level of metrics to instrument
+     * @param packages The packages to instrument. All packages are instrumented if empty.
+     */
+    public MetricClassTransformer(String level, List<String> packages) {
+        this.levelThreshold = LEVELS.indexOf(level);
+        if (levelThreshold == -1) {
+            throw new IllegalArgumentException("Invalid level: " + level);
+        }
+        List<String> packagePrefixes = new ArrayList<>(packages.size());
+        for (String packageName : packages) {
+            packagePrefixes.add(packageName.replace('.', '/') + '/');
+        }
+        this.packagePrefixes = Collections.unmodifiableList(packagePrefixes);
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                            ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        if (className == null || classBeingRedefined != null || !isIncluded(className)) {
+            return null;
+        }
+        try {
+            ClassReader reader = new ClassReader(classfileBuffer);
+            MetricCollector collector = new MetricCollector();
+            reader.accept(collector, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            if (collector.interfaceType || collector.methodMetrics.isEmpty()) {
+                return null;
+            }
+            ClassWriter writer = new LoaderClassWriter(reader, loader);
+            reader.accept(new MetricClassVisitor(writer, collector.methodMetrics), ClassReader.EXPAND_FRAMES);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine(String.format("Instrumented metrics in %s", className));
+            }
+            return writer.toByteArray();
+        } catch (RuntimeException e) {
+            // The class will be loaded without metrics
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.log(Level.WARNING, String.format("Couldn't instrument metrics in %s", className), e);
+            }
+            return null;
+        }
+    }
+
+    private boolean isIncluded(String className) {
+        for (String prefix : EXCLUDED_PREFIXES) {
+            if (className.startsWith(prefix)) {
+                return false;
+            }
+        }
+        if (packagePrefixes.isEmpty()) {
+            return true;
+        }
+        for (String prefix : packagePrefixes) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects the metrics of annotated methods without reading the code
+     */
+    private class MetricCollector extends ClassVisitor {
+
+        private final Map<String, List<MetricClassVisitor.MethodMetric>> methodMetrics = new HashMap<>();
+
+        private final Map<String, String> fieldNames = new LinkedHashMap<>();
+
+        private String className;
+
+        private boolean interfaceType;
+
+        private MetricCollector() {
+            super(Opcodes.ASM5);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName,
+                          String[] interfaces) {
+            this.className = name.replace('/', '.');
+            this.interfaceType = (access & Opcodes.ACC_INTERFACE) != 0;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature,
+                                         String[] exceptions) {
+            if (interfaceType || (access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE)) != 0
+                    || name.startsWith("<")) {
+                return null;
+            }
+            return new MethodVisitor(Opcodes.ASM5) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String annotationDesc, boolean visible) {
+                    if (!annotationDesc.startsWith(ANNOTATION_DESC_PREFIX)) {
+                        return null;
+                    }
+                    MetricClassVisitor.MetricType type = MetricClassVisitor.MetricType.fromAnnotation(
+                            annotationDesc.substring(ANNOTATION_DESC_PREFIX.length(), annotationDesc.length() - 1));
+                    return type != null ? new MetricAnnotationVisitor(type, name, name + desc) : null;
+                }
+            };
+        }
+
+        private void addMetric(String methodKey, MetricClassVisitor.MetricType type, String metricName,
+                               String level) {
+            int levelIndex = LEVELS.indexOf(level);
+            if (levelIndex <= 0 || levelIndex > levelThreshold) {
+                // Metrics with level OFF are never enabled
+                return;
+            }
+            String fieldName = fieldNames.computeIfAbsent(type.name() + ':' + metricName,
+                    key -> "$metrics$" + fieldNames.size());
+            methodMetrics.computeIfAbsent(methodKey, key -> new ArrayList<>())
+                    .add(new MetricClassVisitor.MethodMetric(type, metricName, level, fieldName));
+        }
+
+        /**
+         * Reads the annotation values and builds the name in the same way as {@code MetricAnnotation}
+         */
+        private class MetricAnnotationVisitor extends AnnotationVisitor {
+
+            private final MetricClassVisitor.MetricType type;
+
+            private final String methodName;
+
+            private final String methodKey;
+
+            private String name = "";
+
+            private boolean absolute;
+
+            private String level = "INFO";
+
+            private MetricAnnotationVisitor(MetricClassVisitor.MetricType type, String methodName, String methodKey) {
+                super(Opcodes.ASM5);
+                this.type = type;
+                this.methodName = methodName;
+                this.methodKey = methodKey;
+            }
+
+            @Override
+            public void visit(String name, Object value) {
+                if ("name".equals(name)) {
+                    this.name = (String) value;
+                } else if ("absolute".equals(name)) {
+                    this.absolute = (Boolean) value;
+                }
+            }
+
+            @Override
+            public void visitEnum(String name, String desc, String value) {
+                if ("level".equals(name)) {
+                    this.level = value;
+                }
+            }
+
+            @Override
+            public void visitEnd() {
+                String metricName;
+                if (!name.isEmpty()) {
+                    metricName = absolute ? name : className + '.' + methodName + '.' + name;
+                } else {
+                    metricName = className + '.' + methodName;
+                }
+                addMetric(methodKey, type, metricName, level);
+            }
+        }
+    }
+
+    /**
+     * Computes frames using the class loader of the transformed class. Classes which cannot be loaded are treated as
+     * {@link Object}.
+     */
+    private static class LoaderClassWriter extends ClassWriter {
+
+        private final ClassLoader loader;
+
+        private final String className;
+
+        private final String superName;
+
+        private LoaderClassWriter(ClassReader reader, ClassLoader loader) {
+            super(reader, ClassWriter.COMPUTE_FRAMES);
+            this.loader = loader;
+            this.className = reader.getClassName();
+            this.superName = reader.getSuperName();
+        }
+
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            if (type1.equals(type2)) {
+                return type1;
+            }
+            // The class being transformed cannot be loaded. A subclass of it cannot be loaded before it either.
+            if (type1.equals(className)) {
+                return getCommonSuperClass(superName, type2);
+            }
+            if (type2.equals(className)) {
+                return getCommonSuperClass(type1, superName);
+            }
+            try {
+                Class<?> class1 = Class.forName(type1.replace('/', '.'), false, loader);
+                Class<?> class2 = Class.forName(type2.replace('/', '.'), false, loader);
+                if (class1.isAssignableFrom(class2)) {
+                    return type1;
+                }
+                if (class2.isAssignableFrom(class1)) {
+                    return type2;
+                }
+                if (class1.isInterface() || class2.isInterface()) {
+                    return "java/lang/Object";
+                }
+                do {
+                    class1 = class1.getSuperclass();
+                } while (!class1.isAssignableFrom(class2));
+                return class1.getName().replace('.', '/');
+            } catch (ClassNotFoundException | LinkageError e) {
+                return "java/lang/Object";
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.agent;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.AdviceAdapter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds a static field for each metric to the class and records the metrics in the annotated methods
+ */
+class MetricClassVisitor extends ClassVisitor {
+
+    private static final String CORE_PACKAGE = "org/wso2/carbon/metrics/core/";
+
+    private static final String LEVEL_TYPE = CORE_PACKAGE + "Level";
+
+    private static final String METRIC_MANAGER_TYPE = CORE_PACKAGE + "MetricManager";
+
+    private static final String TIMER_CONTEXT_TYPE = CORE_PACKAGE + "Timer$Context";
+
+    private static final int FIELD_ACCESS = Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL
+            | Opcodes.ACC_SYNTHETIC;
+
+    /**
+     * The metric annotations
+     */
+    enum MetricType {
+        TIMER("Timed", "Timer", "timer", "(Ljava/lang/String;L" + LEVEL_TYPE + ";)"),
+        METER("Metered", "Meter", "meter", "(Ljava/lang/String;L" + LEVEL_TYPE + ";[L" + LEVEL_TYPE + ";)"),
+        COUNTER("Counted", "Counter", "counter", "(Ljava/lang/String;L" + LEVEL_TYPE + ";[L" + LEVEL_TYPE + ";)");
+
+        private final String annotationName;
+
+        private final String internalName;
+
+        private final String factoryMethod;
+
+        private final String factoryDesc;
+
+        MetricType(String annotationName, String className, String factoryMethod, String factoryParameters) {
+            this.annotationName = annotationName;
+            this.internalName = CORE_PACKAGE + className;
+            this.factoryMethod = factoryMethod;
+            this.factoryDesc = factoryParameters + "L" + internalName + ";";
+        }
+
+        static MetricType fromAnnotation(String annotationName) {
+            for (MetricType type : values()) {
+                if (type.annotationName.equals(annotationName)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+
+        private String fieldDesc() {
+            return "L" + internalName + ";";
+        }
+    }
+
+    /**
+     * A metric recorded in a method
+     */
+    static class MethodMetric {
+
+        private final MetricType type;
+
+        private final String metricName;
+
+        private final String level;
+
+        private final String fieldName;
+
+        MethodMetric(MetricType type, String metricName, String level, String fieldName) {
+            this.type = type;
+            this.metricName = metricName;
+            this.level = level;
+            this.fieldName = fieldName;
+        }
+    }
+
+    private final Map<String, List<MethodMetric>> methodMetrics;
+
+    private final Map<String, MethodMetric> fields = new LinkedHashMap<>();
+
+    private String owner;
+
+    private boolean classInitializerFound;
+
+    /**
+     * @param classVisitor  The next visitor
+     * @param methodMetrics The metrics for each method. The key is the method name and the descriptor.
+     */
+    MetricClassVisitor(ClassVisitor classVisitor, Map<String, List<MethodMetric>> methodMetrics) {
+        super(Opcodes.ASM5, classVisitor);
+        this.methodMetrics = methodMetrics;
+        for (List<MethodMetric> metrics : methodMetrics.values()) {
+            for (MethodMetric metric : metrics) {
+                fields.putIfAbsent(metric.fieldName, metric);
+            }
+        }
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName,
+                      String[] interfaces) {
+        super.visit(version, access, name, signature, superName, interfaces);
+        this.owner = name;
+        for (MethodMetric metric : fields.values()) {
+            super.visitField(FIELD_ACCESS, metric.fieldName, metric.type.fieldDesc(), null, null).visitEnd();
+        }
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+        MethodVisitor methodVisitor = super.visitMethod(access, name, desc, signature, exceptions);
+        if ("<clinit>".equals(name)) {
+            classInitializerFound = true;
+            return new MethodVisitor(Opcodes.ASM5, methodVisitor) {
+                @Override
+                public void visitCode() {
+                    super.visitCode();
+                    initializeFields(mv);
+                }
+            };
+        }
+        List<MethodMetric> metrics = methodMetrics.get(name + desc);
+        if (metrics != null) {
+            return new MetricMethodAdapter(methodVisitor, access, name, desc, metrics);
+        }
+        return methodVisitor;
+    }
+
+    @Override
+    public void visitEnd() {
+        if (!classInitializerFound) {
+            MethodVisitor methodVisitor = super.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+            methodVisitor.visitCode();
+            initializeFields(methodVisitor);
+            methodVisitor.visitInsn(Opcodes.RETURN);
+            methodVisitor.visitMaxs(0, 0);
+            methodVisitor.visitEnd();
+        }
+        super.visitEnd();
+    }
+
+    /**
+     * Get the metrics from the {@code MetricManager} before the existing class initialization code
+     */
+    private void initializeFields(MethodVisitor methodVisitor) {
+        for (MethodMetric metric : fields.values()) {
+            methodVisitor.visitLdcInsn(metric.metricName);
+            methodVisitor.visitFieldInsn(Opcodes.GETSTATIC, LEVEL_TYPE, metric.level, "L" + LEVEL_TYPE + ";");
+            if (metric.type != MetricType.TIMER) {
+                methodVisitor.visitInsn(Opcodes.ICONST_0);
+                methodVisitor.visitTypeInsn(Opcodes.ANEWARRAY, LEVEL_TYPE);
+            }
+            methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, METRIC_MANAGER_TYPE, metric.type.factoryMethod,
+                    metric.type.factoryDesc, false);
+            methodVisitor.visitFieldInsn(Opcodes.PUTSTATIC, owner, metric.fieldName, metric.type.fieldDesc());
+        }
+    }
+
+    /**
+     * Marks meters and increments counters at the start of the method. Timers are started at the start of the method
+     * and stopped when the method returns or throws an exception.
+     */
+    private class MetricMethodAdapter extends AdviceAdapter {
+
+        private final List<MethodMetric> metrics;
+
+        private final Label tryStart = new Label();
+
+        private int[] timerContexts;
+
+        private MetricMethodAdapter(MethodVisitor methodVisitor, int access, String name, String desc,
+                                    List<MethodMetric> metrics) {
+            super(Opcodes.ASM5, methodVisitor, access, name, desc);
+            this.metrics = metrics;
+        }
+
+        @Override
+        protected void onMethodEnter() {
+            int timers = 0;
+            for (MethodMetric metric : metrics) {
+                if (metric.type == MetricType.TIMER) {
+                    timers++;
+                } else {
+                    visitFieldInsn(GETSTATIC, owner, metric.fieldName, metric.type.fieldDesc());
+                    visitMethodInsn(INVOKEINTERFACE, metric.type.internalName,
+                            metric.type == MetricType.METER ? "mark" : "inc", "()V", true);
+                }
+            }
+            timerContexts = new int[timers];
+            int index = 0;
+            for (MethodMetric metric : metrics) {
+                if (metric.type == MetricType.TIMER) {
+                    visitFieldInsn(GETSTATIC, owner, metric.fieldName, metric.type.fieldDesc());
+                    visitMethodInsn(INVOKEINTERFACE, metric.type.internalName, "start",
+                            "()L" + TIMER_CONTEXT_TYPE + ";", true);
+                    timerContexts[index] = newLocal(Type.getObjectType(TIMER_CONTEXT_TYPE));
+                    storeLocal(timerContexts[index]);
+                    index++;
+                }
+            }
+            if (timers > 0) {
+                visitLabel(tryStart);
+            }
+        }
+
+        @Override
+        protected void onMethodExit(int opcode) {
+            // Exceptions are handled by the handler added at the end
+            if (opcode != ATHROW) {
+                stopTimers();
+            }
+        }
+
+        @Override
+        public void visitMaxs(int maxStack, int maxLocals) {
+            if (timerContexts.length > 0) {
+                Label tryEnd = new Label();
+                Label handler = new Label();
+                visitLabel(tryEnd);
+                visitTryCatchBlock(tryStart, tryEnd, handler, null);
+                visitLabel(handler);
+                stopTimers();
+                visitInsn(ATHROW);
+            }
+            super.visitMaxs(maxStack, maxLocals);
+        }
+
+        private void stopTimers() {
+            for (int timerContext : timerContexts) {
+                loadLocal(timerContext);
+                visitMethodInsn(INVOKEINTERFACE, TIMER_CONTEXT_TYPE, "stop", "()J", true);
+                visitInsn(POP2);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.agent;
+
+import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Java agent instrumenting methods annotated with {@code @Timed}, {@code @Metered} and {@code @Counted} when the
+ * classes are loaded. Use as {@code -javaagent:org.wso2.carbon.metrics.agent.jar[=options]}.
+ * <p>
+ * The options are separated by ';'.
+ * <ul>
+ * <li>{@code level=<level>}: Instrument only the metrics with the given level or a lower level. The default is
+ * {@code ALL}. Metrics with level {@code OFF} are never instrumented.</li>
+ * <li>{@code packages=<package>,<package>}: Instrument only the classes in the given packages and their
+ * sub-packages</li>
+ * </ul>
+ */
+public final class MetricsAgent {
+
+    private static final Logger logger = Logger.getLogger(MetricsAgent.class.getName());
+
+    private MetricsAgent() {
+    }
+
+    public static void premain(String agentArgs, Instrumentation instrumentation) {
+        String level = "ALL";
+        List<String> packages = new ArrayList<>();
+        if (agentArgs != null) {
+            for (String option : agentArgs.split(";")) {
+                int index = option.indexOf('=');
+                String key = index != -1 ? option.substring(0, index).trim() : option.trim();
+                String value = index != -1 ? option.substring(index + 1).trim() : "";
+                if ("level".equals(key)) {
+                    level = value.toUpperCase(Locale.ENGLISH);
+                } else if ("packages".equals(key)) {
+                    for (String packageName : value.split(",")) {
+                        if (!packageName.trim().isEmpty()) {
+                            packages.add(packageName.trim());
+                        }
+                    }
+                } else if (!key.isEmpty()) {
+                    throw new IllegalArgumentException("Unknown metrics agent option: " + key);
+                }
+            }
+        }
+        instrumentation.addTransformer(new MetricClassTransformer(level, packages));
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(String.format("Metrics agent started. Level: %s, Packages: %s", level, packages));
+        }
+    }
+}
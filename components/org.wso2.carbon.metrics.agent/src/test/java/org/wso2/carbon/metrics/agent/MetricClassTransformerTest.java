@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.agent;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.MetricManager;
+import org.wso2.carbon.metrics.core.MetricNotFoundException;
+import org.wso2.carbon.metrics.core.annotation.Counted;
+import org.wso2.carbon.metrics.core.annotation.Level;
+import org.wso2.carbon.metrics.core.annotation.Metered;
+import org.wso2.carbon.metrics.core.annotation.Timed;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+
+/**
+ * Test Cases for {@link MetricClassTransformer}
+ */
+public class MetricClassTransformerTest {
+
+    private static final String SERVICE_NAME = Service.class.getName();
+
+    /**
+     * The class to instrument
+     */
+    public static class Service {
+
+        @Counted
+        public int count(int value) {
+            return value + 1;
+        }
+
+        @Metered(name = "requests", absolute = true)
+        public void mark() {
+        }
+
+        @Timed
+        @Counted(name = "calls")
+        public long time(long value) {
+            if (value < 0) {
+                throw new IllegalArgumentException("Negative value");
+            }
+            long result = 0;
+            for (long i = 0; i < value; i++) {
+                result += i;
+            }
+            return result;
+        }
+
+        @Counted(name = "off", level = Level.OFF)
+        public void off() {
+        }
+
+        @Counted(name = "trace", level = Level.TRACE)
+        public void trace() {
+        }
+    }
+
+    /**
+     * A class without metric annotations
+     */
+    public static class Plain {
+    }
+
+    @BeforeClass
+    public void init() {
+        // Set Carbon Home to load configs
+        System.setProperty("carbon.home", "target");
+        System.setProperty("metrics.enabled", "true");
+        System.setProperty("metrics.rootLevel", "ALL");
+        MetricManager.getMetricService().enable();
+        MetricManager.getMetricService().setRootLevel(org.wso2.carbon.metrics.core.Level.ALL);
+    }
+
+    @Test
+    public void testInstrumentation() throws Exception {
+        Object service = load(new MetricClassTransformer("ALL", Collections.emptyList())).getConstructor()
+                .newInstance();
+
+        Assert.assertEquals(invoke(service, "count", int.class, 1), 2);
+        invoke(service, "count", int.class, 2);
+        Assert.assertEquals(MetricManager.getCounter(SERVICE_NAME + ".count").getCount(), 2L);
+
+        invoke(service, "mark", null, null);
+        Assert.assertEquals(MetricManager.getMeter("requests").getCount(), 1L);
+
+        Assert.assertEquals(invoke(service, "time", long.class, 5L), 10L);
+        try {
+            invoke(service, "time", long.class, -1L);
+            Assert.fail("Exception should be thrown");
+        } catch (InvocationTargetException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        Assert.assertEquals(MetricManager.getTimer(SERVICE_NAME + ".time").getCount(), 2L);
+        Assert.assertEquals(MetricManager.getCounter(SERVICE_NAME + ".time.calls").getCount(), 2L);
+
+        invoke(service, "trace", null, null);
+        Assert.assertEquals(MetricManager.getCounter(SERVICE_NAME + ".trace.trace").getCount(), 1L);
+
+        invoke(service, "off", null, null);
+        try {
+            MetricManager.getCounter(SERVICE_NAME + ".off.off");
+            Assert.fail("Metrics with level OFF should not be instrumented");
+        } catch (MetricNotFoundException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testLevelAndPackages() throws Exception {
+        Assert.assertNull(new MetricClassTransformer("INFO", Collections.singletonList("org.example"))
+                .transform(getClass().getClassLoader(), internalName(Service.class), null, null,
+                        readClass(Service.class)));
+        Assert.assertNull(new MetricClassTransformer("ALL", Collections.emptyList())
+                .transform(getClass().getClassLoader(), internalName(Plain.class), null, null,
+                        readClass(Plain.class)));
+        // The class is loaded again in a new class loader
+        MetricManager.remove(SERVICE_NAME + ".trace.trace");
+        Object service = load(new MetricClassTransformer("INFO", Collections.singletonList("org.wso2.carbon.metrics")))
+                .getConstructor().newInstance();
+        invoke(service, "trace", null, null);
+        try {
+            MetricManager.getCounter(SERVICE_NAME + ".trace.trace");
+            Assert.fail("Metrics above the agent level should not be instrumented");
+        } catch (MetricNotFoundException e) {
+            // Expected
+        }
+    }
+
+    private static Object invoke(Object target, String name, Class<?> parameterType, Object argument)
+            throws ReflectiveOperationException {
+        if (parameterType == null) {
+            return target.getClass().getMethod(name).invoke(target);
+        }
+        return target.getClass().getMethod(name, parameterType).invoke(target, argument);
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static byte[] readClass(Class<?> type) throws IOException {
+        try (InputStream in = type.getResourceAsStream('/' + internalName(type) + ".class")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private Class<?> load(MetricClassTransformer transformer) throws IOException, ClassNotFoundException {
+        byte[] classfile = readClass(Service.class);
+        byte[] transformed = transformer.transform(getClass().getClassLoader(), internalName(Service.class), null,
+                null, classfile);
+        Assert.assertNotNull(transformed);
+        return new ClassLoader(getClass().getClassLoader()) {
+            {
+                defineClass(SERVICE_NAME, transformed, 0, transformed.length);
+            }
+
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                Class<?> loadedClass = findLoadedClass(name);
+                return loadedClass != null ? loadedClass : super.loadClass(name, resolve);
+            }
+        }.loadClass(SERVICE_NAME);
+    }
+}
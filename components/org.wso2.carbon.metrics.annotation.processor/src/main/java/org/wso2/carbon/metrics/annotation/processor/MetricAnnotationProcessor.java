@@ -0,0 +1,226 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.annotation.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Annotation processor generating a metric holder class for each type with methods annotated with {@code @Timed},
+ * {@code @Metered} or {@code @Counted}.
+ * <p>
+ * The holder class is generated in the same package with the name {@code <Type>_Metrics}. It has a static final field
+ * for each metric, named after the method and the metric type. For example, the timer of a method named "process"
+ * can be used as {@code Type_Metrics.processTimer}. The metric names and levels are the same as the names and levels
+ * used by {@code MetricAnnotation}.
+ * <p>
+ * The annotation types are referred by name, so that this processor does not depend on the metrics core at compile
+ * time.
+ */
+public class MetricAnnotationProcessor extends AbstractProcessor {
+
+    private static final String ANNOTATION_PACKAGE = "org.wso2.carbon.metrics.core.annotation.";
+
+    private static final String CORE_PACKAGE = "org.wso2.carbon.metrics.core.";
+
+    static final String HOLDER_CLASS_SUFFIX = "_Metrics";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> annotationTypes = new HashSet<>();
+        for (MetricType metricType : MetricType.values()) {
+            annotationTypes.add(metricType.annotationName);
+        }
+        return Collections.unmodifiableSet(annotationTypes);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<TypeElement, Map<String, MetricField>> typeFields = new LinkedHashMap<>();
+        for (MetricType metricType : MetricType.values()) {
+            TypeElement annotationType = processingEnv.getElementUtils().getTypeElement(metricType.annotationName);
+            if (annotationType == null || !annotations.contains(annotationType)) {
+                continue;
+            }
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotationType)) {
+                if (element.getKind() != ElementKind.METHOD) {
+                    continue;
+                }
+                ExecutableElement method = (ExecutableElement) element;
+                TypeElement type = (TypeElement) method.getEnclosingElement();
+                AnnotationMirror annotation = getAnnotationMirror(method, annotationType);
+                addField(typeFields.computeIfAbsent(type, t -> new LinkedHashMap<>()), metricType,
+                        method.getSimpleName().toString(), buildName(type, method, annotation), getLevel(annotation));
+            }
+        }
+        for (Map.Entry<TypeElement, Map<String, MetricField>> entry : typeFields.entrySet()) {
+            writeHolderClass(entry.getKey(), entry.getValue());
+        }
+        // Do not claim the annotations. These are also used at runtime
+        return false;
+    }
+
+    private AnnotationMirror getAnnotationMirror(Element element, TypeElement annotationType) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (annotation.getAnnotationType().asElement().equals(annotationType)) {
+                return annotation;
+            }
+        }
+        throw new IllegalStateException("Annotation " + annotationType + " is not present in " + element);
+    }
+
+    private Object getValue(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private String getLevel(AnnotationMirror annotation) {
+        Object level = getValue(annotation, "level");
+        if (level instanceof VariableElement) {
+            return ((VariableElement) level).getSimpleName().toString();
+        }
+        return "INFO";
+    }
+
+    /**
+     * Build the metric name in the same way as {@code MetricAnnotation}
+     */
+    private String buildName(TypeElement type, ExecutableElement method, AnnotationMirror annotation) {
+        Object explicitName = getValue(annotation, "name");
+        String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String methodName = method.getSimpleName().toString();
+        if (explicitName != null && !explicitName.toString().isEmpty()) {
+            if (Boolean.TRUE.equals(getValue(annotation, "absolute"))) {
+                return explicitName.toString();
+            }
+            return className + '.' + methodName + '.' + explicitName;
+        }
+        return className + '.' + methodName;
+    }
+
+    private void addField(Map<String, MetricField> fields, MetricType metricType, String methodName, String metricName,
+                          String level) {
+        // Overloaded methods use the same metric
+        for (MetricField field : fields.values()) {
+            if (field.type == metricType && field.metricName.equals(metricName)) {
+                return;
+            }
+        }
+        String baseName = methodName + metricType.className;
+        String fieldName = baseName;
+        for (int i = 2; fields.containsKey(fieldName); i++) {
+            fieldName = baseName + i;
+        }
+        fields.put(fieldName, new MetricField(metricType, metricName, level));
+    }
+
+    private void writeHolderClass(TypeElement type, Map<String, MetricField> fields) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String holderName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                .replace('$', '_') + HOLDER_CLASS_SUFFIX;
+        String qualifiedHolderName = packageName.isEmpty() ? holderName : packageName + '.' + holderName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedHolderName, type);
+            try (Writer writer = file.openWriter(); PrintWriter out = new PrintWriter(writer)) {
+                if (!packageName.isEmpty()) {
+                    out.printf("package %s;%n%n", packageName);
+                }
+                out.printf("/**%n * Metrics for the annotated methods in {@link %s}%n */%n",
+                        type.getQualifiedName());
+                out.printf("public final class %s {%n", holderName);
+                for (Map.Entry<String, MetricField> entry : fields.entrySet()) {
+                    MetricField field = entry.getValue();
+                    out.printf("%n    public static final %s%s %s =%n", CORE_PACKAGE, field.type.className,
+                            entry.getKey());
+                    out.printf("            %sMetricManager.%s(\"%s\", %sLevel.%s);%n", CORE_PACKAGE,
+                            field.type.methodName, escape(field.metricName), CORE_PACKAGE, field.level);
+                }
+                out.printf("%n    private %s() {%n    }%n}%n", holderName);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Couldn't generate metrics holder class " + qualifiedHolderName + ": " + e.getMessage(), type);
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private enum MetricType {
+        TIMER("Timed", "Timer", "timer"),
+        METER("Metered", "Meter", "meter"),
+        COUNTER("Counted", "Counter", "counter");
+
+        private final String annotationName;
+
+        private final String className;
+
+        private final String methodName;
+
+        MetricType(String annotation, String className, String methodName) {
+            this.annotationName = ANNOTATION_PACKAGE + annotation;
+            this.className = className;
+            this.methodName = methodName;
+        }
+    }
+
+    private static class MetricField {
+
+        private final MetricType type;
+
+        private final String metricName;
+
+        private final String level;
+
+        private MetricField(MetricType type, String metricName, String level) {
+            this.type = type;
+            this.metricName = metricName;
+            this.level = level;
+        }
+    }
+}
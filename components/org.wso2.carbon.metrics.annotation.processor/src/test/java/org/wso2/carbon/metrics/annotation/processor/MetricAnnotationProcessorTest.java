@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.annotation.processor;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.MetricManager;
+import org.wso2.carbon.metrics.core.annotation.Timed;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Test Cases for {@link MetricAnnotationProcessor}
+ */
+public class MetricAnnotationProcessorTest {
+
+    private static final String SOURCE = "package org.example;\n"
+            + "import org.wso2.carbon.metrics.core.annotation.*;\n"
+            + "public class Service {\n"
+            + "    @Timed public void process() {}\n"
+            + "    @Timed public void process(int i) {}\n"
+            + "    @Counted(name = \"calls\", level = Level.DEBUG) @Metered public void call() {}\n"
+            + "    @Metered(name = \"requests\", absolute = true) public void call(String s) {}\n"
+            + "    public void other() {}\n"
+            + "    public static class Inner {\n"
+            + "        @Counted(level = Level.TRACE) void run() {}\n"
+            + "    }\n"
+            + "}\n";
+
+    @Test
+    public void testGeneratedHolderClasses() throws IOException, URISyntaxException {
+        Path dir = Files.createTempDirectory("metric-annotation-processor");
+        Path sourceFile = Files.createDirectories(dir.resolve("src/org/example")).resolve("Service.java");
+        Files.write(sourceFile, SOURCE.getBytes(StandardCharsets.UTF_8));
+        Path generated = Files.createDirectories(dir.resolve("generated"));
+        Path classes = Files.createDirectories(dir.resolve("classes"));
+        // The generated classes refer the metrics core
+        String classPath = Paths.get(Timed.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                + File.pathSeparator
+                + Paths.get(MetricManager.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null,
+                StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-classpath", classPath, "-s", generated.toString(), "-d", classes.toString()),
+                    null, fileManager.getJavaFileObjectsFromFiles(Collections.singletonList(sourceFile.toFile())));
+            task.setProcessors(Collections.singletonList(new MetricAnnotationProcessor()));
+            Assert.assertTrue(task.call(), diagnostics.getDiagnostics().toString());
+        }
+
+        String holder = read(generated.resolve("org/example/Service_Metrics.java"));
+        Assert.assertTrue(holder.contains("public final class Service_Metrics"));
+        Assert.assertTrue(holder.contains("public static final org.wso2.carbon.metrics.core.Timer processTimer =\n"
+                + "            org.wso2.carbon.metrics.core.MetricManager.timer(\"org.example.Service.process\", "
+                + "org.wso2.carbon.metrics.core.Level.INFO);"));
+        Assert.assertFalse(holder.contains("processTimer2"), "Overloaded methods should share the metric");
+        Assert.assertTrue(holder.contains("MetricManager.counter(\"org.example.Service.call.calls\", "
+                + "org.wso2.carbon.metrics.core.Level.DEBUG)"));
+        Assert.assertTrue(holder.contains("callMeter =\n            org.wso2.carbon.metrics.core.MetricManager"
+                + ".meter(\"org.example.Service.call\", "));
+        Assert.assertTrue(holder.contains("callMeter2 =\n            org.wso2.carbon.metrics.core.MetricManager"
+                + ".meter(\"requests\", "));
+        Assert.assertFalse(holder.contains("other"));
+        Assert.assertTrue(Files.exists(classes.resolve("org/example/Service_Metrics.class")));
+
+        String innerHolder = read(generated.resolve("org/example/Service_Inner_Metrics.java"));
+        Assert.assertTrue(innerHolder.contains("MetricManager.counter(\"org.example.Service$Inner.run\", "
+                + "org.wso2.carbon.metrics.core.Level.TRACE)"));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n");
+    }
+}
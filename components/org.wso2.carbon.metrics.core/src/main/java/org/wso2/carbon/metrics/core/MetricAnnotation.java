@@ -23,6 +23,9 @@ import java.lang.reflect.Method;
 
 /**
  * MetricAnnotation is a utility class to get or create metrics from the Metric Annotations
+ * <p>
+ * The metric name is built and looked up in every call. The "org.wso2.carbon.metrics.annotation.processor" module can
+ * be used at compile time to generate a holder class with the same metrics for each annotated type.
  */
 public final class MetricAnnotation {
 
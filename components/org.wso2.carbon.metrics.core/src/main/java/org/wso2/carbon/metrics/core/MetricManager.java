@@ -20,9 +20,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.metrics.core.config.MetricsConfigBuilder;
 import org.wso2.carbon.metrics.core.config.MetricsLevelConfigBuilder;
+import org.wso2.carbon.metrics.core.config.model.MetricsConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
 import org.wso2.carbon.metrics.core.service.MetricService;
 
 import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import javax.management.JMException;
 import javax.management.MBeanServer;
@@ -39,6 +46,16 @@ public final class MetricManager {
 
     private static final String MBEAN_NAME = "org.wso2.carbon:type=MetricManager";
 
+    /**
+     * The named Metric Services. Each Metric Service has its own registry, levels and reporters.
+     */
+    private static final ConcurrentMap<String, MetricService> namedMetricServices = new ConcurrentHashMap<>();
+
+    /**
+     * Indicates whether the MXBeans should be registered
+     */
+    private static volatile boolean activated;
+
     private MetricManager() {
     }
 
@@ -56,16 +73,23 @@ public final class MetricManager {
      * Register the MXBean for the MetricService. The metrics should be enabled only via the configuration.
      * The metrics can also be enabled later from the MetricManagerMXBean.
      */
-    public static void activate() {
-        registerMXBean();
+    public static synchronized void activate() {
+        activated = true;
+        registerMXBean(metricService, MBEAN_NAME);
+        namedMetricServices.forEach((name, service) -> registerMXBean(service, getMBeanName(name)));
     }
 
     /**
      * Unregister the MXBean for the MetricService and disable metrics
      */
-    public static void deactivate() {
-        unregisterMXBean();
+    public static synchronized void deactivate() {
+        activated = false;
+        unregisterMXBean(MBEAN_NAME);
         metricService.disable();
+        namedMetricServices.forEach((name, service) -> {
+            unregisterMXBean(getMBeanName(name));
+            service.disable();
+        });
     }
 
     /**
@@ -77,28 +101,108 @@ public final class MetricManager {
         return metricService;
     }
 
-    private static void registerMXBean() {
+    /**
+     * Create a named {@link MetricService} with its own {@link MetricRegistry}, levels and reporters. The metrics in a
+     * named Metric Service are not visible to the main Metric Service used by the static methods in this class. The
+     * MXBean of a named Metric Service is registered under the name "org.wso2.carbon:type=MetricManager,name=[name]".
+     *
+     * <p>The reporters of each Metric Service must have unique destinations. For example, the JMX reporters must use
+     * different domains and the CSV reporters must use different locations.
+     *
+     * @param name               The name of the Metric Service. For example, the name of a tenant or a subsystem.
+     * @param metricsConfig      The {@link MetricsConfig} with main and reporter configurations.
+     * @param metricsLevelConfig The {@link MetricsLevelConfig} with root level configuration and level configurations
+     *                           for each metric.
+     * @return The new {@link MetricService}
+     * @throws IllegalArgumentException if the name is empty or there is a Metric Service with the same name
+     */
+    public static synchronized MetricService createMetricService(String name, MetricsConfig metricsConfig,
+                                                                 MetricsLevelConfig metricsLevelConfig) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Metric Service name must not be empty");
+        }
+        if (namedMetricServices.containsKey(name)) {
+            throw new IllegalArgumentException(String.format("Metric Service '%s' already exists", name));
+        }
+        MetricService service = new MetricService(new MetricRegistry(), metricsConfig, metricsLevelConfig);
+        namedMetricServices.put(name, service);
+        if (activated) {
+            registerMXBean(service, getMBeanName(name));
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format("Metric Service '%s' was created", name));
+        }
+        return service;
+    }
+
+    /**
+     * Access a named {@link MetricService} created with {@link #createMetricService(String, MetricsConfig,
+     * MetricsLevelConfig)}
+     *
+     * @param name The name of the Metric Service
+     * @return The {@link MetricService} with the given name
+     * @throws IllegalArgumentException if there is no Metric Service with the given name
+     */
+    public static MetricService getMetricService(String name) {
+        MetricService service = namedMetricServices.get(name);
+        if (service == null) {
+            throw new IllegalArgumentException("Invalid Metric Service Name");
+        }
+        return service;
+    }
+
+    /**
+     * @return The names of all named Metric Services
+     */
+    public static Set<String> getMetricServiceNames() {
+        return Collections.unmodifiableSet(new HashSet<>(namedMetricServices.keySet()));
+    }
+
+    /**
+     * Remove a named {@link MetricService}. The Metric Service is disabled and its reporters are stopped.
+     *
+     * @param name The name of the Metric Service
+     * @return {@code true} if the Metric Service was removed
+     */
+    public static synchronized boolean removeMetricService(String name) {
+        MetricService service = namedMetricServices.remove(name);
+        if (service == null) {
+            return false;
+        }
+        unregisterMXBean(getMBeanName(name));
+        service.disable();
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format("Metric Service '%s' was removed", name));
+        }
+        return true;
+    }
+
+    private static String getMBeanName(String metricServiceName) {
+        return MBEAN_NAME + ",name=" + ObjectName.quote(metricServiceName);
+    }
+
+    private static void registerMXBean(MetricService service, String mBeanName) {
         MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
         try {
-            ObjectName name = new ObjectName(MBEAN_NAME);
+            ObjectName name = new ObjectName(mBeanName);
             if (mBeanServer.isRegistered(name)) {
                 mBeanServer.unregisterMBean(name);
             }
-            mBeanServer.registerMBean(metricService, name);
+            mBeanServer.registerMBean(service, name);
             if (logger.isDebugEnabled()) {
                 logger.debug(String.format("MetricManagerMXBean registered under name: %s", name));
             }
         } catch (JMException e) {
             if (logger.isErrorEnabled()) {
-                logger.error(String.format("MetricManagerMXBean registration failed. Name: %s", MBEAN_NAME), e);
+                logger.error(String.format("MetricManagerMXBean registration failed. Name: %s", mBeanName), e);
             }
         }
     }
 
-    private static void unregisterMXBean() {
+    private static void unregisterMXBean(String mBeanName) {
         MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
         try {
-            ObjectName name = new ObjectName(MBEAN_NAME);
+            ObjectName name = new ObjectName(mBeanName);
             if (mBeanServer.isRegistered(name)) {
                 mBeanServer.unregisterMBean(name);
             }
@@ -107,7 +211,7 @@ public final class MetricManager {
             }
         } catch (JMException e) {
             if (logger.isErrorEnabled()) {
-                logger.error(String.format("MetricManagerMXBean with name '%s' was failed to unregister", MBEAN_NAME),
+                logger.error(String.format("MetricManagerMXBean with name '%s' was failed to unregister", mBeanName),
                         e);
             }
         }
@@ -328,4 +432,26 @@ public final class MetricManager {
         metricService.cachedGauge(name, level, timeout, TimeUnit.SECONDS, gauge);
     }
 
+    /**
+     * Remove the metric or the metric collection registered under the given name
+     *
+     * @param name The name of the metric
+     * @return {@code true} if a metric or a metric collection was removed
+     * @see MetricService#remove(String)
+     */
+    public static boolean remove(String name) {
+        return metricService.remove(name);
+    }
+
+    /**
+     * Remove all metrics and metric collections with names starting with the given prefix
+     *
+     * @param prefix The name prefix of the metrics
+     * @return The number of metrics and metric collections removed
+     * @see MetricService#removeMatching(String)
+     */
+    public static int removeMatching(String prefix) {
+        return metricService.removeMatching(prefix);
+    }
+
 }
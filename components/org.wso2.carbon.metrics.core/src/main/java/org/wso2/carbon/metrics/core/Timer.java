@@ -62,7 +62,8 @@ public interface Timer extends Metric, Metered, Sampling {
          * Updates the timer with the difference between current and start time. Call to this method will not reset the
          * start time. Multiple calls result in multiple updates.
          *
-         * @return the elapsed time in nanoseconds
+         * @return the elapsed time in nanoseconds. This is {@code 0} if the timer is disabled or if the invocation
+         * is not sampled, since the time is not measured.
          */
         long stop();
 
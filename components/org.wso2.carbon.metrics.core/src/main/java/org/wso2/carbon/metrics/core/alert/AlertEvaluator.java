@@ -0,0 +1,229 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.alert;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistryListener;
+import com.codahale.metrics.Sampling;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Evaluates the alert rules on each cycle and fires the events to the registered sinks. The evaluator must be added
+ * as a listener to the {@link com.codahale.metrics.MetricRegistry} so that the metrics are bound to the rules when
+ * they are registered. The rules are not looked up by name on each cycle.
+ * <p>
+ * The snapshot of a sampling metric is taken at most once per cycle for all rules of the metric. Apart from the
+ * snapshots, an evaluation allocates only the events fired when a rule starts or stops firing.
+ */
+public class AlertEvaluator extends MetricRegistryListener.Base {
+
+    private static final Logger logger = LoggerFactory.getLogger(AlertEvaluator.class);
+
+    /**
+     * The rules of a metric
+     */
+    private static class Binding {
+
+        private final String metricName;
+
+        private final AlertRule[] rules;
+
+        private final boolean sampled;
+
+        private volatile Metric metric;
+
+        private Binding(String metricName, AlertRule[] rules) {
+            this.metricName = metricName;
+            this.rules = rules;
+            boolean sampled = false;
+            for (AlertRule rule : rules) {
+                sampled |= rule.getField().isSampled();
+            }
+            this.sampled = sampled;
+        }
+    }
+
+    private final Binding[] bindings;
+
+    private final Map<String, Binding> bindingMap = new HashMap<>();
+
+    private final MetricFilter metricFilter;
+
+    private final List<AlertSink> sinks = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param rules        The compiled rules
+     * @param metricFilter The filter to check whether a metric is enabled. Rules of disabled metrics are not
+     *                     evaluated.
+     */
+    public AlertEvaluator(List<AlertRule> rules, MetricFilter metricFilter) {
+        this.metricFilter = metricFilter;
+        Map<String, List<AlertRule>> rulesByMetric = new LinkedHashMap<>();
+        for (AlertRule rule : rules) {
+            rulesByMetric.computeIfAbsent(rule.getMetricName(), k -> new ArrayList<>()).add(rule);
+        }
+        rulesByMetric.forEach((metricName, metricRules) ->
+                bindingMap.put(metricName, new Binding(metricName, metricRules.toArray(new AlertRule[0]))));
+        this.bindings = bindingMap.values().toArray(new Binding[0]);
+    }
+
+    public void addSink(AlertSink sink) {
+        sinks.add(sink);
+    }
+
+    public boolean removeSink(AlertSink sink) {
+        return sinks.remove(sink);
+    }
+
+    /**
+     * @return {@code true} if there are no rules to evaluate
+     */
+    public boolean isEmpty() {
+        return bindings.length == 0;
+    }
+
+    /**
+     * Evaluate all rules with the current values of the metrics
+     *
+     * @param timestamp The time of the evaluation in milliseconds
+     */
+    public synchronized void evaluate(long timestamp) {
+        for (Binding binding : bindings) {
+            Metric metric = binding.metric;
+            if (metric == null) {
+                // The metric was removed. Resolve the firing rules.
+                for (AlertRule rule : binding.rules) {
+                    if (rule.reset()) {
+                        fire(new AlertEvent(rule.getName(), rule.getMetricName(), rule.getCondition(), Double.NaN,
+                                timestamp, false));
+                    }
+                }
+                continue;
+            }
+            if (!metricFilter.matches(binding.metricName, metric)) {
+                continue;
+            }
+            Snapshot snapshot = binding.sampled && metric instanceof Sampling
+                    ? ((Sampling) metric).getSnapshot() : null;
+            for (AlertRule rule : binding.rules) {
+                AlertRule.Field field = rule.getField();
+                if (!field.isAvailable(metric)) {
+                    continue;
+                }
+                AlertRule.State state = rule.evaluate(field.getValue(metric, snapshot));
+                if (state != AlertRule.State.UNCHANGED) {
+                    fire(new AlertEvent(rule.getName(), rule.getMetricName(), rule.getCondition(),
+                            rule.getLastValue(), timestamp, state == AlertRule.State.FIRED));
+                }
+            }
+        }
+    }
+
+    private void fire(AlertEvent event) {
+        for (AlertSink sink : sinks) {
+            try {
+                sink.onAlert(event);
+            } catch (RuntimeException e) {
+                logger.error("Error when delivering the alert event", e);
+            }
+        }
+    }
+
+    private void bind(String name, Metric metric) {
+        Binding binding = bindingMap.get(name);
+        if (binding != null) {
+            for (AlertRule rule : binding.rules) {
+                if (!rule.getField().isAvailable(metric) && logger.isWarnEnabled()) {
+                    logger.warn(String.format("The field in the condition of the alert rule '%s' is not available "
+                            + "in the metric %s. Condition: %s", rule.getName(), name, rule.getCondition()));
+                }
+            }
+            binding.metric = metric;
+        }
+    }
+
+    private void unbind(String name) {
+        Binding binding = bindingMap.get(name);
+        if (binding != null) {
+            binding.metric = null;
+        }
+    }
+
+    @Override
+    public void onGaugeAdded(String name, Gauge<?> gauge) {
+        bind(name, gauge);
+    }
+
+    @Override
+    public void onGaugeRemoved(String name) {
+        unbind(name);
+    }
+
+    @Override
+    public void onCounterAdded(String name, Counter counter) {
+        bind(name, counter);
+    }
+
+    @Override
+    public void onCounterRemoved(String name) {
+        unbind(name);
+    }
+
+    @Override
+    public void onHistogramAdded(String name, Histogram histogram) {
+        bind(name, histogram);
+    }
+
+    @Override
+    public void onHistogramRemoved(String name) {
+        unbind(name);
+    }
+
+    @Override
+    public void onMeterAdded(String name, Meter meter) {
+        bind(name, meter);
+    }
+
+    @Override
+    public void onMeterRemoved(String name) {
+        unbind(name);
+    }
+
+    @Override
+    public void onTimerAdded(String name, Timer timer) {
+        bind(name, timer);
+    }
+
+    @Override
+    public void onTimerRemoved(String name) {
+        unbind(name);
+    }
+}
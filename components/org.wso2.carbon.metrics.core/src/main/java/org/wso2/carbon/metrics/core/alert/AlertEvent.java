@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.alert;
+
+/**
+ * An event fired when an {@link AlertRule} starts or stops firing
+ */
+public final class AlertEvent {
+
+    private final String ruleName;
+
+    private final String metricName;
+
+    private final String condition;
+
+    private final double value;
+
+    private final long timestamp;
+
+    private final boolean firing;
+
+    /**
+     * @param ruleName   The name of the rule
+     * @param metricName The name of the metric
+     * @param condition  The condition of the rule
+     * @param value      The value compared with the threshold. This is {@link Double#NaN} if the metric was removed.
+     * @param timestamp  The time of the evaluation in milliseconds
+     * @param firing     {@code true} if the rule started firing and {@code false} if the rule was resolved
+     */
+    public AlertEvent(String ruleName, String metricName, String condition, double value, long timestamp,
+                      boolean firing) {
+        this.ruleName = ruleName;
+        this.metricName = metricName;
+        this.condition = condition;
+        this.value = value;
+        this.timestamp = timestamp;
+        this.firing = firing;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean isFiring() {
+        return firing;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Alert '%s' %s. Metric: %s, Condition: %s, Value: %s", ruleName,
+                firing ? "fired" : "resolved", metricName, condition, value);
+    }
+}
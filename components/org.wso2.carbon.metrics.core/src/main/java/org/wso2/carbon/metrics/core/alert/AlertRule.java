@@ -0,0 +1,362 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.alert;
+
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metered;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.Sampling;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled rule to detect when a metric breaches a threshold. The condition of a rule compares a field of the
+ * metric with a threshold or compares the change of the field since the last evaluation with a percentage.
+ * For example:
+ * <ul>
+ * <li>{@code p99 > 500 for 3 cycles}</li>
+ * <li>{@code rate drop > 50%}</li>
+ * <li>{@code count rise >= 100%}</li>
+ * </ul>
+ * <p>
+ * The rule fires when the condition is true for the given number of consecutive evaluations and it is resolved when
+ * the condition is false again. Durations are compared in milliseconds and rates are compared in events per second.
+ * <p>
+ * A rule keeps its state in primitive fields and evaluating a value does not allocate any objects.
+ */
+public final class AlertRule {
+
+    private static final Pattern CONDITION_PATTERN = Pattern.compile(
+            "\\s*(\\w+)\\s*(?:\\s(drop|rise)\\s*)?(>=|<=|==|!=|>|<)\\s*(-?\\d+(?:\\.\\d+)?)\\s*(%)?"
+                    + "(?:\\s+for\\s+(\\d+)\\s+cycles?)?\\s*");
+
+    private static final double DURATION_FACTOR = 1.0 / TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The result of an evaluation
+     */
+    public enum State {
+        /**
+         * The state of the rule did not change
+         */
+        UNCHANGED,
+        /**
+         * The rule started firing
+         */
+        FIRED,
+        /**
+         * The rule stopped firing
+         */
+        RESOLVED
+    }
+
+    /**
+     * The fields of metrics, which can be used in conditions
+     */
+    enum Field {
+        VALUE, COUNT, MEAN, MIN, MAX, STDDEV, P50, P75, P95, P98, P99, P999, MEAN_RATE, M1_RATE, M5_RATE, M15_RATE;
+
+        private static Field getField(String name) {
+            switch (name) {
+                case "rate":
+                    return M1_RATE;
+                case "median":
+                    return P50;
+                default:
+                    for (Field field : values()) {
+                        if (field.name().equalsIgnoreCase(name)) {
+                            return field;
+                        }
+                    }
+                    throw new IllegalArgumentException("Unknown field: " + name);
+            }
+        }
+
+        boolean isSampled() {
+            return compareTo(MEAN) >= 0 && compareTo(P999) <= 0;
+        }
+
+        /**
+         * @return {@code true} if the field is available in the given metric
+         */
+        boolean isAvailable(Metric metric) {
+            switch (this) {
+                case VALUE:
+                    return metric instanceof Gauge;
+                case COUNT:
+                    return metric instanceof Counting;
+                case MEAN_RATE:
+                case M1_RATE:
+                case M5_RATE:
+                case M15_RATE:
+                    return metric instanceof Metered;
+                default:
+                    return metric instanceof Sampling;
+            }
+        }
+
+        /**
+         * Get the value of the field
+         *
+         * @param metric   The metric
+         * @param snapshot The snapshot of the metric, if the field is sampled
+         * @return The value of the field or {@link Double#NaN} if the value is not available
+         */
+        double getValue(Metric metric, Snapshot snapshot) {
+            switch (this) {
+                case VALUE:
+                    Object value = ((Gauge) metric).getValue();
+                    return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+                case COUNT:
+                    return ((Counting) metric).getCount();
+                case MEAN_RATE:
+                    return ((Metered) metric).getMeanRate();
+                case M1_RATE:
+                    return ((Metered) metric).getOneMinuteRate();
+                case M5_RATE:
+                    return ((Metered) metric).getFiveMinuteRate();
+                case M15_RATE:
+                    return ((Metered) metric).getFifteenMinuteRate();
+                default:
+                    double sample = getSample(snapshot);
+                    return metric instanceof Timer ? sample * DURATION_FACTOR : sample;
+            }
+        }
+
+        private double getSample(Snapshot snapshot) {
+            switch (this) {
+                case MEAN:
+                    return snapshot.getMean();
+                case MIN:
+                    return snapshot.getMin();
+                case MAX:
+                    return snapshot.getMax();
+                case STDDEV:
+                    return snapshot.getStdDev();
+                case P50:
+                    return snapshot.getMedian();
+                case P75:
+                    return snapshot.get75thPercentile();
+                case P95:
+                    return snapshot.get95thPercentile();
+                case P98:
+                    return snapshot.get98thPercentile();
+                case P99:
+                    return snapshot.get99thPercentile();
+                default:
+                    return snapshot.get999thPercentile();
+            }
+        }
+    }
+
+    private enum Change {
+        NONE, DROP, RISE
+    }
+
+    private enum Operator {
+        GT, GE, LT, LE, EQ, NE;
+
+        private static Operator getOperator(String operator) {
+            switch (operator) {
+                case ">":
+                    return GT;
+                case ">=":
+                    return GE;
+                case "<":
+                    return LT;
+                case "<=":
+                    return LE;
+                case "==":
+                    return EQ;
+                default:
+                    return NE;
+            }
+        }
+
+        private boolean test(double value, double threshold) {
+            switch (this) {
+                case GT:
+                    return value > threshold;
+                case GE:
+                    return value >= threshold;
+                case LT:
+                    return value < threshold;
+                case LE:
+                    return value <= threshold;
+                case EQ:
+                    return value == threshold;
+                default:
+                    return value != threshold;
+            }
+        }
+    }
+
+    private final String name;
+
+    private final String metricName;
+
+    private final String condition;
+
+    private final Field field;
+
+    private final Change change;
+
+    private final Operator operator;
+
+    private final double threshold;
+
+    private final int cycles;
+
+    private double previousValue = Double.NaN;
+
+    private double lastValue = Double.NaN;
+
+    private int breaches;
+
+    private boolean firing;
+
+    private AlertRule(String name, String metricName, String condition, Field field, Change change,
+                      Operator operator, double threshold, int cycles) {
+        this.name = name;
+        this.metricName = metricName;
+        this.condition = condition;
+        this.field = field;
+        this.change = change;
+        this.operator = operator;
+        this.threshold = threshold;
+        this.cycles = cycles;
+    }
+
+    /**
+     * Compile a rule
+     *
+     * @param name       The name of the rule
+     * @param metricName The name of the metric
+     * @param condition  The condition. For example: {@code p99 > 500 for 3 cycles}
+     * @return The compiled rule
+     * @throws IllegalArgumentException if the condition is not valid
+     */
+    public static AlertRule compile(String name, String metricName, String condition) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Rule name cannot be null or empty");
+        }
+        if (metricName == null || metricName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Metric name cannot be null or empty");
+        }
+        if (condition == null) {
+            throw new IllegalArgumentException("Condition cannot be null");
+        }
+        Matcher matcher = CONDITION_PATTERN.matcher(condition);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid condition: " + condition);
+        }
+        Field field = Field.getField(matcher.group(1).toLowerCase(Locale.ENGLISH));
+        Change change = matcher.group(2) != null ? Change.valueOf(matcher.group(2).toUpperCase(Locale.ENGLISH))
+                : Change.NONE;
+        boolean percentage = matcher.group(5) != null;
+        if (percentage != (change != Change.NONE)) {
+            throw new IllegalArgumentException("A percentage must be used only with drop or rise: " + condition);
+        }
+        int cycles = matcher.group(6) != null ? Integer.parseInt(matcher.group(6)) : 1;
+        if (cycles < 1) {
+            throw new IllegalArgumentException("Number of cycles must be a positive number: " + condition);
+        }
+        return new AlertRule(name, metricName, condition.trim(), field, change,
+                Operator.getOperator(matcher.group(3)), Double.parseDouble(matcher.group(4)), cycles);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public boolean isFiring() {
+        return firing;
+    }
+
+    /**
+     * @return The value compared with the threshold in the last evaluation. This is the change as a percentage for
+     * rules with drop or rise.
+     */
+    public double getLastValue() {
+        return lastValue;
+    }
+
+    Field getField() {
+        return field;
+    }
+
+    /**
+     * Evaluate the rule with the current value of the field
+     *
+     * @param value The current value
+     * @return Whether the rule started or stopped firing
+     */
+    public State evaluate(double value) {
+        if (Double.isNaN(value)) {
+            return State.UNCHANGED;
+        }
+        double comparedValue = value;
+        if (change != Change.NONE) {
+            double previous = previousValue;
+            previousValue = value;
+            if (Double.isNaN(previous) || previous <= 0) {
+                return State.UNCHANGED;
+            }
+            comparedValue = (change == Change.DROP ? previous - value : value - previous) * 100 / previous;
+        }
+        lastValue = comparedValue;
+        if (operator.test(comparedValue, threshold)) {
+            if (++breaches >= cycles && !firing) {
+                firing = true;
+                return State.FIRED;
+            }
+        } else {
+            breaches = 0;
+            if (firing) {
+                firing = false;
+                return State.RESOLVED;
+            }
+        }
+        return State.UNCHANGED;
+    }
+
+    /**
+     * Clear the state of the rule. This is used when the metric is removed.
+     *
+     * @return {@code true} if the rule was firing
+     */
+    boolean reset() {
+        boolean wasFiring = firing;
+        previousValue = Double.NaN;
+        breaches = 0;
+        firing = false;
+        return wasFiring;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.alert;
+
+/**
+ * A destination for the events fired by alert rules. The events are delivered in the thread evaluating the rules
+ * and implementations should not block.
+ */
+@FunctionalInterface
+public interface AlertSink {
+
+    /**
+     * Called when a rule starts or stops firing
+     *
+     * @param event The alert event
+     */
+    void onAlert(AlertEvent event);
+}
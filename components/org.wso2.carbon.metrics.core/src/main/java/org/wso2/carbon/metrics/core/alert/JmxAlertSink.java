@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.alert;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.MBeanNotificationInfo;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+
+/**
+ * An {@link AlertSink} to send the alert events as JMX notifications. The user data of a notification is a map with
+ * the rule name, the metric name, the condition and the value.
+ */
+public class JmxAlertSink implements AlertSink {
+
+    public static final String ALERT_FIRED = "org.wso2.carbon.metrics.alert.fired";
+
+    public static final String ALERT_RESOLVED = "org.wso2.carbon.metrics.alert.resolved";
+
+    /**
+     * The notifications sent by this sink
+     */
+    public static final MBeanNotificationInfo NOTIFICATION_INFO = new MBeanNotificationInfo(
+            new String[]{ALERT_FIRED, ALERT_RESOLVED}, Notification.class.getName(), "Metric alert events");
+
+    private final Object source;
+
+    private final NotificationBroadcasterSupport broadcaster;
+
+    private final AtomicLong sequenceNumber = new AtomicLong();
+
+    /**
+     * @param source      The source of the notifications. This is usually the MBean or the object name.
+     * @param broadcaster The broadcaster to send the notifications
+     */
+    public JmxAlertSink(Object source, NotificationBroadcasterSupport broadcaster) {
+        this.source = source;
+        this.broadcaster = broadcaster;
+    }
+
+    @Override
+    public void onAlert(AlertEvent event) {
+        Notification notification = new Notification(event.isFiring() ? ALERT_FIRED : ALERT_RESOLVED, source,
+                sequenceNumber.incrementAndGet(), event.getTimestamp(), event.toString());
+        Map<String, Object> userData = new HashMap<>();
+        userData.put("rule", event.getRuleName());
+        userData.put("metric", event.getMetricName());
+        userData.put("condition", event.getCondition());
+        userData.put("value", event.getValue());
+        notification.setUserData(userData);
+        broadcaster.sendNotification(notification);
+    }
+}
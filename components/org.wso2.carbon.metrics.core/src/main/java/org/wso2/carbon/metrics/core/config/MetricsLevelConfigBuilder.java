@@ -37,25 +37,62 @@ public class MetricsLevelConfigBuilder {
 
     private static final String METRICS_ROOT_LEVEL = "metrics.rootLevel";
 
+    private static final String METRICS_SKETCH_WINDOW = "metrics.sketchWindow";
+
     private static final String METRIC_LEVEL_PREFIX = "metric.level.";
 
+    private static final String METRIC_SAMPLING_PREFIX = "metric.sampling.";
+
+    private static final String METRIC_SKETCH_PREFIX = "metric.sketch.";
+
     private MetricsLevelConfigBuilder() {
     }
 
+    /**
+     * @return The properties file with the Metrics Level Configuration, if it is available
+     */
+    public static Optional<File> getConfigFile() {
+        return Utils.getConfigFile("metrics.level.conf", "metrics.properties");
+    }
+
     public static MetricsLevelConfig build() {
-        MetricsLevelConfig metricsLevelConfig = new MetricsLevelConfig();
-        Optional<File> metricsLevelConfigFile = Utils.getConfigFile("metrics.level.conf", "metrics.properties");
+        Optional<File> metricsLevelConfigFile = getConfigFile();
         if (metricsLevelConfigFile.isPresent()) {
-            File file = metricsLevelConfigFile.get();
+            return build(metricsLevelConfigFile.get());
+        }
+        return new MetricsLevelConfig();
+    }
+
+    /**
+     * Build the Metrics Level Configuration from the given properties file. The file is kept in the configuration, so
+     * that the levels can be reloaded from the same file.
+     *
+     * @param file The properties file
+     * @return The {@link MetricsLevelConfig}
+     */
+    public static MetricsLevelConfig build(File file) {
+        MetricsLevelConfig metricsLevelConfig = new MetricsLevelConfig();
+        if (file.exists()) {
             if (logger.isDebugEnabled()) {
                 logger.debug(String.format("Loading Metrics Level Configuration from %s", file.getAbsolutePath()));
             }
+            metricsLevelConfig.setConfigFile(file);
             try (FileInputStream in = new FileInputStream(file)) {
                 Properties properties = new Properties();
                 properties.load(in);
 
                 metricsLevelConfig.setRootLevel(Level.toLevel(properties.getProperty(METRICS_ROOT_LEVEL,
                         Level.OFF.name()).trim(), Level.OFF));
+                String sketchWindow = properties.getProperty(METRICS_SKETCH_WINDOW);
+                if (sketchWindow != null) {
+                    try {
+                        metricsLevelConfig.setSketchWindow(Long.parseLong(sketchWindow.trim()));
+                    } catch (IllegalArgumentException e) {
+                        if (logger.isWarnEnabled()) {
+                            logger.warn(String.format("Invalid sketch window '%s'", sketchWindow));
+                        }
+                    }
+                }
                 Enumeration<?> enumeration = properties.propertyNames();
                 while (enumeration.hasMoreElements()) {
                     String key = (String) enumeration.nextElement();
@@ -65,6 +102,28 @@ public class MetricsLevelConfigBuilder {
                         if (value != null) {
                             metricsLevelConfig.setLevel(metricName, Level.toLevel(value.trim(), Level.OFF));
                         }
+                    } else if (key.startsWith(METRIC_SAMPLING_PREFIX)) {
+                        String metricName = key.substring(METRIC_SAMPLING_PREFIX.length());
+                        String value = properties.getProperty(key);
+                        try {
+                            metricsLevelConfig.setSamplingRate(metricName, Integer.parseInt(value.trim()));
+                        } catch (IllegalArgumentException e) {
+                            if (logger.isWarnEnabled()) {
+                                logger.warn(String.format("Invalid sampling rate '%s' for metric '%s'", value,
+                                        metricName));
+                            }
+                        }
+                    } else if (key.startsWith(METRIC_SKETCH_PREFIX)) {
+                        String metricName = key.substring(METRIC_SKETCH_PREFIX.length());
+                        String value = properties.getProperty(key);
+                        try {
+                            metricsLevelConfig.setSketchAccuracy(metricName, Double.parseDouble(value.trim()));
+                        } catch (IllegalArgumentException e) {
+                            if (logger.isWarnEnabled()) {
+                                logger.warn(String.format("Invalid sketch accuracy '%s' for metric '%s'", value,
+                                        metricName));
+                            }
+                        }
                     }
                 }
             } catch (IOException e) {
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches the properties file with the Metrics Level Configuration and passes the reloaded configuration to a
+ * consumer when the file is changed. The changes are reloaded after the file is not changed for the given delay, so
+ * that a file saved in several writes is loaded only once.
+ */
+public class MetricsLevelConfigWatcher implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsLevelConfigWatcher.class);
+
+    private final Path file;
+
+    private final long delay;
+
+    private final Consumer<MetricsLevelConfig> consumer;
+
+    private final WatchService watchService;
+
+    private final Thread thread;
+
+    /**
+     * Start watching a file
+     *
+     * @param file     The properties file
+     * @param delay    The delay in milliseconds to wait for further changes before reloading the file
+     * @param consumer The consumer of the reloaded configuration
+     * @throws IOException if the directory of the file cannot be watched
+     */
+    public MetricsLevelConfigWatcher(File file, long delay, Consumer<MetricsLevelConfig> consumer)
+            throws IOException {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Delay cannot be negative");
+        }
+        this.file = file.getAbsoluteFile().toPath();
+        this.delay = delay;
+        this.consumer = consumer;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        // Editors may replace the file. Therefore the directory is watched.
+        this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "metrics-level-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format("Watching %s for changes in Metrics Levels", this.file));
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = pollEvents(key);
+                // Wait until the file is not changed for the delay
+                while (changed && (key = watchService.poll(delay, TimeUnit.MILLISECONDS)) != null) {
+                    pollEvents(key);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // The watcher is closed
+        }
+    }
+
+    /**
+     * @return {@code true} if there are events for the file
+     */
+    private boolean pollEvents(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        if (!file.toFile().isFile()) {
+            // The file may be replaced again
+            return;
+        }
+        try {
+            MetricsLevelConfig metricsLevelConfig = MetricsLevelConfigBuilder.build(file.toFile());
+            consumer.accept(metricsLevelConfig);
+        } catch (RuntimeException e) {
+            logger.error(String.format("Error when reloading Metrics Level Configuration from %s", file), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
@@ -56,6 +56,7 @@ public class ConsoleReporterConfig extends ScheduledReporterConfig implements Re
                     pollingPeriod));
         }
 
-        return Optional.of(new ConsoleReporter(name, metricRegistry, metricFilter, pollingPeriod));
+        MetricFilter reporterFilter = createMetricFilter(metricFilter);
+        return Optional.of(new ConsoleReporter(name, metricRegistry, reporterFilter, createReportingSchedule()));
     }
 }
@@ -21,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.metrics.core.reporter.ReporterBuildException;
 import org.wso2.carbon.metrics.core.reporter.ReporterBuilder;
+import org.wso2.carbon.metrics.core.reporter.ReportingSchedule;
 import org.wso2.carbon.metrics.core.reporter.impl.CsvReporter;
 
 import java.io.File;
@@ -35,6 +36,8 @@ public class CsvReporterConfig extends ScheduledReporterConfig implements Report
 
     private String location;
 
+    private CsvWriterConfig writer = new CsvWriterConfig();
+
     public CsvReporterConfig() {
         name = "CSV";
     }
@@ -47,6 +50,14 @@ public class CsvReporterConfig extends ScheduledReporterConfig implements Report
         this.location = location;
     }
 
+    public CsvWriterConfig getWriter() {
+        return writer;
+    }
+
+    public void setWriter(CsvWriterConfig writer) {
+        this.writer = writer;
+    }
+
     /**
      * Build the CSV Reporter
      *
@@ -66,6 +77,8 @@ public class CsvReporterConfig extends ScheduledReporterConfig implements Report
             throw new ReporterBuildException("CSV Reporting location is not specified");
         }
 
+        ReportingSchedule reportingSchedule = createReportingSchedule();
+
         File csvLocation = new File(location);
 
         if (!csvLocation.exists()) {
@@ -77,12 +90,30 @@ public class CsvReporterConfig extends ScheduledReporterConfig implements Report
             throw new ReporterBuildException("CSV Reporting location is not a directory");
         }
 
+        if (writer.isEnabled()) {
+            if (writer.getMaxOpenFiles() <= 0) {
+                throw new ReporterBuildException("Maximum number of open CSV files must be a positive number");
+            }
+            if (writer.getMaxFileSize() < 0 || writer.getRotationPeriod() < 0) {
+                throw new ReporterBuildException("CSV file size and rotation period cannot be negative");
+            }
+        }
+
         if (logger.isInfoEnabled()) {
             logger.info(
                     String.format("Creating CSV reporter for Metrics with location '%s' and %d seconds polling period",
                             location, pollingPeriod));
+            if (writer.isEnabled()) {
+                logger.info(String.format("CSV files are kept open with %d maximum open files, %d MB maximum file "
+                                + "size, %d seconds rotation period and compression %s", writer.getMaxOpenFiles(),
+                        writer.getMaxFileSize(), writer.getRotationPeriod(),
+                        writer.isCompress() ? "enabled" : "disabled"));
+            }
         }
 
-        return Optional.of(new CsvReporter(name, metricRegistry, metricFilter, csvLocation, pollingPeriod));
+        MetricFilter reporterFilter = createMetricFilter(metricFilter);
+        return Optional.of(new CsvReporter(name, metricRegistry, reporterFilter, csvLocation, reportingSchedule,
+                writer.isEnabled(), writer.getMaxOpenFiles(), writer.getMaxFileSize() * 1024L * 1024L,
+                writer.getRotationPeriod(), writer.isCompress()));
     }
 }
@@ -34,7 +34,8 @@ public class DasReporterConfig extends ScheduledReporterConfig implements Report
 
     private static final Logger logger = LoggerFactory.getLogger(DasReporterConfig.class);
 
-    private String source = Utils.getDefaultSource();
+    // The host name is looked up only when the source is not configured
+    private String source;
 
     private String type = "thrift";
 
@@ -48,12 +49,14 @@ public class DasReporterConfig extends ScheduledReporterConfig implements Report
 
     private String dataAgentConfigPath = null;
 
+    private SpoolConfig spool = new SpoolConfig();
+
     public DasReporterConfig() {
         name = "DAS";
     }
 
     public String getSource() {
-        return source;
+        return source != null ? source : Utils.getDefaultSource();
     }
 
     public void setSource(String source) {
@@ -108,6 +111,14 @@ public class DasReporterConfig extends ScheduledReporterConfig implements Report
         this.dataAgentConfigPath = dataAgentConfigPath;
     }
 
+    public SpoolConfig getSpool() {
+        return spool;
+    }
+
+    public void setSpool(SpoolConfig spool) {
+        this.spool = spool;
+    }
+
     /**
      * Build the DAS Reporter
      *
@@ -136,6 +147,8 @@ public class DasReporterConfig extends ScheduledReporterConfig implements Report
             throw new ReporterBuildException("Password is not specified for DAS Reporting.");
         }
 
+        File spoolLocation = createSpoolLocation(spool);
+
         Optional<File> dataAgentConfigFile = Utils.getConfigFile("metrics.dataagent.conf", "data-agent-config.xml");
 
         if (dataAgentConfigFile.isPresent()) {
@@ -147,10 +160,15 @@ public class DasReporterConfig extends ScheduledReporterConfig implements Report
         if (logger.isInfoEnabled()) {
             logger.info(String.format(
                     "Creating DAS reporter for Metrics with source '%s', protocol '%s' and %d seconds polling period",
-                    source, type, pollingPeriod));
+                    getSource(), type, pollingPeriod));
+            if (spoolLocation != null) {
+                logger.info(String.format("Spooling unpublished metrics to '%s'", spoolLocation.getPath()));
+            }
         }
 
-        return Optional.of(new DasReporter(name, metricRegistry, metricFilter, source, type, receiverURL, authURL,
-                username, password, dataAgentConfigPath, pollingPeriod));
+        MetricFilter reporterFilter = createMetricFilter(metricFilter);
+        return Optional.of(new DasReporter(name, metricRegistry, reporterFilter, getSource(), type, receiverURL,
+                authURL, username, password, dataAgentConfigPath, createReportingSchedule(), spoolLocation,
+                spool.getMaxSize() * 1024L * 1024L, spool.getReplayLimit()));
     }
 }
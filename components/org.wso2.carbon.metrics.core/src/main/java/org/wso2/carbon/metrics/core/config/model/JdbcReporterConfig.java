@@ -39,7 +39,8 @@ public class JdbcReporterConfig extends ScheduledReporterConfig implements Repor
 
     private static final Logger logger = LoggerFactory.getLogger(JdbcReporterConfig.class);
 
-    private String source = Utils.getDefaultSource();
+    // The host name is looked up only when the source is not configured
+    private String source;
 
     private boolean lookupDataSource;
 
@@ -47,12 +48,14 @@ public class JdbcReporterConfig extends ScheduledReporterConfig implements Repor
 
     private JdbcScheduledCleanupConfig scheduledCleanup = new JdbcScheduledCleanupConfig();
 
+    private SpoolConfig spool = new SpoolConfig();
+
     public JdbcReporterConfig() {
         name = "JDBC";
     }
 
     public String getSource() {
-        return source;
+        return source != null ? source : Utils.getDefaultSource();
     }
 
     public void setSource(String source) {
@@ -83,6 +86,14 @@ public class JdbcReporterConfig extends ScheduledReporterConfig implements Repor
         this.scheduledCleanup = scheduledCleanup;
     }
 
+    public SpoolConfig getSpool() {
+        return spool;
+    }
+
+    public void setSpool(SpoolConfig spool) {
+        this.spool = spool;
+    }
+
     /**
      * Build the JDBC Reporter
      *
@@ -99,6 +110,8 @@ public class JdbcReporterConfig extends ScheduledReporterConfig implements Repor
             return Optional.empty();
         }
 
+        File spoolLocation = createSpoolLocation(spool);
+
         final DataSource dataSource;
 
         if (lookupDataSource) {
@@ -130,12 +143,17 @@ public class JdbcReporterConfig extends ScheduledReporterConfig implements Repor
             logger.info(String.format(
                     "Creating JDBC reporter for Metrics with source '%s', data source '%s'" +
                             " and %d seconds polling period",
-                    source, dataSourceName, pollingPeriod));
+                    getSource(), dataSourceName, pollingPeriod));
+            if (spoolLocation != null) {
+                logger.info(String.format("Spooling failed inserts to '%s'", spoolLocation.getPath()));
+            }
         }
 
-        return Optional.of(new JdbcReporter(name, metricRegistry, metricFilter, source, dataSource, pollingPeriod,
-                scheduledCleanup.isEnabled(), scheduledCleanup.getDaysToKeep(),
-                scheduledCleanup.getScheduledCleanupPeriod()));
+        MetricFilter reporterFilter = createMetricFilter(metricFilter);
+        return Optional.of(new JdbcReporter(name, metricRegistry, reporterFilter, getSource(), dataSource,
+                createReportingSchedule(), scheduledCleanup.isEnabled(), scheduledCleanup.getDaysToKeep(),
+                scheduledCleanup.getScheduledCleanupPeriod(), spoolLocation, spool.getMaxSize() * 1024L * 1024L,
+                spool.getReplayLimit()));
     }
 
 }
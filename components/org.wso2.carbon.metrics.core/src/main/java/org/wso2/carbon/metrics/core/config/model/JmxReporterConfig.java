@@ -74,6 +74,7 @@ public class JmxReporterConfig extends ReporterConfig implements ReporterBuilder
             logger.info(String.format("Creating JMX reporter for Metrics with domain '%s'", domain));
         }
 
-        return Optional.of(new JmxReporter(name, metricRegistry, metricFilter, domain));
+        MetricFilter reporterFilter = createMetricFilter(metricFilter);
+        return Optional.of(new JmxReporter(name, metricRegistry, reporterFilter, domain));
     }
 }
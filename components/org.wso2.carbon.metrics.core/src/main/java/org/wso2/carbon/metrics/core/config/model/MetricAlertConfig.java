@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.config.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration for evaluating alert rules on the values of metrics
+ */
+public class MetricAlertConfig {
+
+    private boolean enabled = false;
+
+    // Default period for evaluating the rules is 10 seconds
+    private long period = 10;
+
+    // Log the alert events
+    private boolean log = true;
+
+    // Send the alert events as JMX notifications from the MetricManagerMXBean
+    private boolean jmx = true;
+
+    private List<AlertRuleConfig> rules = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(long period) {
+        this.period = period;
+    }
+
+    public boolean isLog() {
+        return log;
+    }
+
+    public void setLog(boolean log) {
+        this.log = log;
+    }
+
+    public boolean isJmx() {
+        return jmx;
+    }
+
+    public void setJmx(boolean jmx) {
+        this.jmx = jmx;
+    }
+
+    public List<AlertRuleConfig> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<AlertRuleConfig> rules) {
+        this.rules = rules;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.config.model;
+
+/**
+ * Configuration for expiring idle metrics
+ */
+public class MetricExpiryConfig {
+
+    private boolean enabled = false;
+
+    // Default period for checking idle metrics is 60 seconds
+    private long period = 60;
+
+    // Default number of periods without any update before expiring a metric
+    private int idleCycles = 10;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(long period) {
+        this.period = period;
+    }
+
+    public int getIdleCycles() {
+        return idleCycles;
+    }
+
+    public void setIdleCycles(int idleCycles) {
+        this.idleCycles = idleCycles;
+    }
+}
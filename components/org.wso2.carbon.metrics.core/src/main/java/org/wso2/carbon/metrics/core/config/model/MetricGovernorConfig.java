@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.config.model;
+
+/**
+ * Configuration for the overhead governor, which downgrades expensive metrics when the overhead exceeds a budget
+ */
+public class MetricGovernorConfig {
+
+    private boolean enabled = false;
+
+    // Default period for checking the overhead is 10 seconds
+    private long period = 10;
+
+    // Default budget is 1% of the available CPU time
+    private double budget = 1.0;
+
+    // Default is to time 1 in 64 updates of each metric
+    private int samplingRate = 64;
+
+    // Default number of periods within the budget before restoring a downgraded subtree
+    private int recoveryCycles = 6;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(long period) {
+        this.period = period;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    public void setBudget(double budget) {
+        this.budget = budget;
+    }
+
+    public int getSamplingRate() {
+        return samplingRate;
+    }
+
+    public void setSamplingRate(int samplingRate) {
+        this.samplingRate = samplingRate;
+    }
+
+    public int getRecoveryCycles() {
+        return recoveryCycles;
+    }
+
+    public void setRecoveryCycles(int recoveryCycles) {
+        this.recoveryCycles = recoveryCycles;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.config.model;
+
+/**
+ * Configuration for keeping the recent values of metrics in memory
+ */
+public class MetricHistoryConfig {
+
+    private boolean enabled = false;
+
+    // Default period for recording the values is 10 seconds
+    private long period = 10;
+
+    // Default number of values kept for each metric. This is 15 minutes with the default period.
+    private int points = 90;
+
+    // Maximum number of metrics recorded. Metrics are not recorded after this limit is reached.
+    private int maxMetrics = 1000;
+
+    // The name of a scheduled reporter, whose reports are recorded. The metrics are collected separately if not set.
+    private String reporter;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(long period) {
+        this.period = period;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public void setPoints(int points) {
+        this.points = points;
+    }
+
+    public int getMaxMetrics() {
+        return maxMetrics;
+    }
+
+    public void setMaxMetrics(int maxMetrics) {
+        this.maxMetrics = maxMetrics;
+    }
+
+    public String getReporter() {
+        return reporter;
+    }
+
+    public void setReporter(String reporter) {
+        this.reporter = reporter;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.config.model;
+
+/**
+ * Configuration for starting the Metric Service
+ */
+public class MetricStartupConfig {
+
+    // Build the reporters and register the JVM metrics in a background thread
+    private boolean async = false;
+
+    // Register the JVM metrics. The JVM metrics are required only in one Metric Service, when there are several.
+    private boolean jvmMetrics = true;
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public boolean isJvmMetrics() {
+        return jvmMetrics;
+    }
+
+    public void setJvmMetrics(boolean jvmMetrics) {
+        this.jvmMetrics = jvmMetrics;
+    }
+}
@@ -24,6 +24,22 @@ public class MetricsConfig {
 
     private ReportingConfig reporting = new ReportingConfig();
 
+    private MetricExpiryConfig expiry = new MetricExpiryConfig();
+
+    private MetricCardinalityConfig cardinality = new MetricCardinalityConfig();
+
+    private MetricGovernorConfig governor = new MetricGovernorConfig();
+
+    private MetricHistoryConfig history = new MetricHistoryConfig();
+
+    private MetricAlertConfig alerts = new MetricAlertConfig();
+
+    private MetricLevelReloadConfig levelReload = new MetricLevelReloadConfig();
+
+    private MetricStartupConfig startup = new MetricStartupConfig();
+
+    private MetricAggregationConfig aggregation = new MetricAggregationConfig();
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -39,4 +55,68 @@ public class MetricsConfig {
     public void setReporting(ReportingConfig reporting) {
         this.reporting = reporting;
     }
+
+    public MetricExpiryConfig getExpiry() {
+        return expiry;
+    }
+
+    public void setExpiry(MetricExpiryConfig expiry) {
+        this.expiry = expiry;
+    }
+
+    public MetricCardinalityConfig getCardinality() {
+        return cardinality;
+    }
+
+    public void setCardinality(MetricCardinalityConfig cardinality) {
+        this.cardinality = cardinality;
+    }
+
+    public MetricGovernorConfig getGovernor() {
+        return governor;
+    }
+
+    public void setGovernor(MetricGovernorConfig governor) {
+        this.governor = governor;
+    }
+
+    public MetricHistoryConfig getHistory() {
+        return history;
+    }
+
+    public void setHistory(MetricHistoryConfig history) {
+        this.history = history;
+    }
+
+    public MetricAlertConfig getAlerts() {
+        return alerts;
+    }
+
+    public void setAlerts(MetricAlertConfig alerts) {
+        this.alerts = alerts;
+    }
+
+    public MetricLevelReloadConfig getLevelReload() {
+        return levelReload;
+    }
+
+    public void setLevelReload(MetricLevelReloadConfig levelReload) {
+        this.levelReload = levelReload;
+    }
+
+    public MetricStartupConfig getStartup() {
+        return startup;
+    }
+
+    public void setStartup(MetricStartupConfig startup) {
+        this.startup = startup;
+    }
+
+    public MetricAggregationConfig getAggregation() {
+        return aggregation;
+    }
+
+    public void setAggregation(MetricAggregationConfig aggregation) {
+        this.aggregation = aggregation;
+    }
 }
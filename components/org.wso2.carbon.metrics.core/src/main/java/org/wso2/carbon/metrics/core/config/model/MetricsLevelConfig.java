@@ -16,7 +16,10 @@
 package org.wso2.carbon.metrics.core.config.model;
 
 import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.sketch.QuantileSketch;
+import org.wso2.carbon.metrics.core.sketch.SketchReservoir;
 
+import java.io.File;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -33,6 +36,27 @@ public class MetricsLevelConfig {
 
     private final Map<String, Level> levelMap = Collections.synchronizedMap(new HashMap<String, Level>());
 
+    /**
+     * The timer sampling rates. A rate N means that only 1 in N invocations is timed.
+     */
+    private final Map<String, Integer> samplingRateMap = Collections.synchronizedMap(new HashMap<String, Integer>());
+
+    /**
+     * The relative accuracies of the quantile sketches used by histograms and timers
+     */
+    private final Map<String, Double> sketchAccuracyMap = Collections.synchronizedMap(new HashMap<String, Double>());
+
+    /**
+     * The length of the time windows counted in each quantile sketch in seconds
+     */
+    private long sketchWindow = SketchReservoir.DEFAULT_WINDOW;
+
+    /**
+     * The properties file, which the configuration was loaded from. This is {@code null} for a configuration created
+     * in code.
+     */
+    private File configFile;
+
     public MetricsLevelConfig() {
     }
 
@@ -51,4 +75,92 @@ public class MetricsLevelConfig {
     public void setLevel(String metricName, Level level) {
         levelMap.put(metricName, level);
     }
+
+    public void removeLevel(String metricName) {
+        levelMap.remove(metricName);
+    }
+
+    public File getConfigFile() {
+        return configFile;
+    }
+
+    public void setConfigFile(File configFile) {
+        this.configFile = configFile;
+    }
+
+    /**
+     * @return A copy of the configured levels of metrics
+     */
+    public Map<String, Level> getLevels() {
+        synchronized (levelMap) {
+            return new HashMap<>(levelMap);
+        }
+    }
+
+    /**
+     * Get the sampling rate for a given metric. The rate is inherited from the parent names.
+     *
+     * @param metricName The name of the metric
+     * @return The sampling rate or {@code 1} if all invocations should be timed
+     */
+    public int getSamplingRate(String metricName) {
+        Integer samplingRate = getInheritedValue(samplingRateMap, metricName);
+        return samplingRate != null ? samplingRate : 1;
+    }
+
+    public void setSamplingRate(String metricName, int samplingRate) {
+        if (samplingRate < 1) {
+            throw new IllegalArgumentException("Sampling rate must be a positive number");
+        }
+        samplingRateMap.put(metricName, samplingRate);
+    }
+
+    /**
+     * Get the relative accuracy of the quantile sketch for a given histogram or timer. The accuracy is inherited from
+     * the parent names.
+     *
+     * @param metricName The name of the metric
+     * @return The relative accuracy or {@code 0} if the metric should not use a quantile sketch
+     */
+    public double getSketchAccuracy(String metricName) {
+        Double accuracy = getInheritedValue(sketchAccuracyMap, metricName);
+        return accuracy != null ? accuracy : 0;
+    }
+
+    public void setSketchAccuracy(String metricName, double accuracy) {
+        if (!(accuracy >= QuantileSketch.MIN_RELATIVE_ACCURACY && accuracy < 1)) {
+            throw new IllegalArgumentException("Sketch accuracy must be at least "
+                    + QuantileSketch.MIN_RELATIVE_ACCURACY + " and less than 1");
+        }
+        sketchAccuracyMap.put(metricName, accuracy);
+    }
+
+    public long getSketchWindow() {
+        return sketchWindow;
+    }
+
+    public void setSketchWindow(long sketchWindow) {
+        if (sketchWindow <= 0) {
+            throw new IllegalArgumentException("Sketch window must be a positive number");
+        }
+        this.sketchWindow = sketchWindow;
+    }
+
+    private static <T> T getInheritedValue(Map<String, T> map, String metricName) {
+        if (map.isEmpty()) {
+            return null;
+        }
+        String name = metricName;
+        while (true) {
+            T value = map.get(name);
+            if (value != null) {
+                return value;
+            }
+            int index = name.lastIndexOf('.');
+            if (index == -1) {
+                return null;
+            }
+            name = name.substring(0, index);
+        }
+    }
 }
@@ -15,6 +15,13 @@
  */
 package org.wso2.carbon.metrics.core.config.model;
 
+import com.codahale.metrics.MetricFilter;
+import org.wso2.carbon.metrics.core.reporter.MetricNameFilter;
+import org.wso2.carbon.metrics.core.reporter.ReporterBuildException;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Base class for configuring metric reporters.
  */
@@ -24,6 +31,12 @@ public abstract class ReporterConfig {
 
     protected boolean enabled = false;
 
+    // Glob patterns of the metrics reported. All enabled metrics are reported if there are no patterns.
+    protected List<String> includes = new ArrayList<>();
+
+    // Glob patterns of the metrics not reported
+    protected List<String> excludes = new ArrayList<>();
+
     public String getName() {
         return name;
     }
@@ -39,4 +52,49 @@ public abstract class ReporterConfig {
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
+
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    public void setIncludes(List<String> includes) {
+        this.includes = includes;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    public void setExcludes(List<String> excludes) {
+        this.excludes = excludes;
+    }
+
+    /**
+     * Create the filter for the reporter with the include and exclude patterns
+     *
+     * @param metricFilter The filter for the enabled metrics
+     * @return The given filter if there are no patterns, otherwise a {@link MetricNameFilter}
+     * @throws ReporterBuildException if a pattern is empty
+     */
+    protected MetricFilter createMetricFilter(MetricFilter metricFilter) throws ReporterBuildException {
+        List<String> includePatterns = getPatterns(includes);
+        List<String> excludePatterns = getPatterns(excludes);
+        if (includePatterns.isEmpty() && excludePatterns.isEmpty()) {
+            return metricFilter;
+        }
+        return new MetricNameFilter(metricFilter, includePatterns, excludePatterns);
+    }
+
+    private List<String> getPatterns(List<String> patterns) throws ReporterBuildException {
+        List<String> trimmedPatterns = new ArrayList<>();
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                if (pattern == null || pattern.trim().isEmpty()) {
+                    throw new ReporterBuildException(String.format("Empty metric pattern for %s reporter", name));
+                }
+                trimmedPatterns.add(pattern.trim());
+            }
+        }
+        return trimmedPatterns;
+    }
 }
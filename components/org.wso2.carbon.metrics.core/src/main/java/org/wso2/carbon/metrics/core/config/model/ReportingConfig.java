@@ -37,6 +37,8 @@ public class ReportingConfig {
 
     private DasReporterConfig das = new DasReporterConfig();
 
+    private SegmentReporterConfig segment = new SegmentReporterConfig();
+
     public JmxReporterConfig getJmx() {
         return jmx;
     }
@@ -85,7 +87,15 @@ public class ReportingConfig {
         this.das = das;
     }
 
+    public SegmentReporterConfig getSegment() {
+        return segment;
+    }
+
+    public void setSegment(SegmentReporterConfig segment) {
+        this.segment = segment;
+    }
+
     public List<? extends ReporterBuilder> getReporterBuilders() {
-        return Arrays.asList(jmx, console, csv, slf4j, jdbc, das);
+        return Arrays.asList(jmx, console, csv, slf4j, jdbc, das, segment);
     }
 }
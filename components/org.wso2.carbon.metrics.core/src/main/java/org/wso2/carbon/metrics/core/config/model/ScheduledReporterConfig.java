@@ -15,6 +15,11 @@
  */
 package org.wso2.carbon.metrics.core.config.model;
 
+import org.wso2.carbon.metrics.core.reporter.ReporterBuildException;
+import org.wso2.carbon.metrics.core.reporter.ReportingSchedule;
+
+import java.io.File;
+
 /**
  * Configuration for scheduled reporters
  */
@@ -23,6 +28,12 @@ public abstract class ScheduledReporterConfig extends ReporterConfig {
     // Default polling period is 60 seconds
     protected long pollingPeriod = 60;
 
+    // Align reporting to the wall-clock boundaries of the polling period
+    protected boolean aligned = false;
+
+    // Maximum offset in seconds from the aligned boundaries for each node
+    protected long jitter = 0;
+
     public long getPollingPeriod() {
         return pollingPeriod;
     }
@@ -30,4 +41,63 @@ public abstract class ScheduledReporterConfig extends ReporterConfig {
     public void setPollingPeriod(long pollingPeriod) {
         this.pollingPeriod = pollingPeriod;
     }
+
+    public boolean isAligned() {
+        return aligned;
+    }
+
+    public void setAligned(boolean aligned) {
+        this.aligned = aligned;
+    }
+
+    public long getJitter() {
+        return jitter;
+    }
+
+    public void setJitter(long jitter) {
+        this.jitter = jitter;
+    }
+
+    /**
+     * Create the reporting schedule from the polling period, the alignment and the jitter
+     *
+     * @return The {@link ReportingSchedule} for the reporter
+     * @throws ReporterBuildException if the schedule is not valid
+     */
+    protected ReportingSchedule createReportingSchedule() throws ReporterBuildException {
+        try {
+            return new ReportingSchedule(pollingPeriod, aligned, jitter);
+        } catch (IllegalArgumentException e) {
+            throw new ReporterBuildException(String.format("Invalid schedule for %s reporter: %s", name,
+                    e.getMessage()));
+        }
+    }
+
+    /**
+     * Validate the spool configuration and create the spool location
+     *
+     * @param spool The spool configuration
+     * @return The spool location or {@code null} if the spool is not enabled
+     * @throws ReporterBuildException if the spool configuration is not valid
+     */
+    protected File createSpoolLocation(SpoolConfig spool) throws ReporterBuildException {
+        if (!spool.isEnabled()) {
+            return null;
+        }
+        if (spool.getLocation() == null || spool.getLocation().trim().isEmpty()) {
+            throw new ReporterBuildException(String.format("Spool location is not specified for %s reporter", name));
+        }
+        if (spool.getMaxSize() <= 0 || spool.getReplayLimit() <= 0) {
+            throw new ReporterBuildException(String.format(
+                    "Spool size and replay limit must be positive numbers for %s reporter", name));
+        }
+        File location = new File(spool.getLocation());
+        if (!location.exists() && !location.mkdirs()) {
+            throw new ReporterBuildException("Could not create the spool location: " + spool.getLocation());
+        }
+        if (!location.isDirectory()) {
+            throw new ReporterBuildException("Spool location is not a directory: " + spool.getLocation());
+        }
+        return location;
+    }
 }
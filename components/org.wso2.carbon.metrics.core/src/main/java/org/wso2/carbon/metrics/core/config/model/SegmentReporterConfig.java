@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.config.model;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.reporter.ReporterBuildException;
+import org.wso2.carbon.metrics.core.reporter.ReporterBuilder;
+import org.wso2.carbon.metrics.core.reporter.ReportingSchedule;
+import org.wso2.carbon.metrics.core.reporter.impl.SegmentReporter;
+
+import java.io.File;
+import java.util.Optional;
+
+/**
+ * Configuration for the reporter writing binary segment files
+ */
+public class SegmentReporterConfig extends ScheduledReporterConfig implements ReporterBuilder<SegmentReporter> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentReporterConfig.class);
+
+    private String location;
+
+    // Segment size in megabytes
+    private int segmentSize = 16;
+
+    // Segment period in seconds
+    private long segmentPeriod = 3600;
+
+    private int daysToKeep = 7;
+
+    public SegmentReporterConfig() {
+        name = "Segment";
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public long getSegmentPeriod() {
+        return segmentPeriod;
+    }
+
+    public void setSegmentPeriod(long segmentPeriod) {
+        this.segmentPeriod = segmentPeriod;
+    }
+
+    public int getDaysToKeep() {
+        return daysToKeep;
+    }
+
+    public void setDaysToKeep(int daysToKeep) {
+        this.daysToKeep = daysToKeep;
+    }
+
+    /**
+     * Build the Segment Reporter
+     *
+     * @param metricRegistry The {@link MetricRegistry} for the reporter
+     * @param metricFilter   The {@link MetricFilter} for the reporter
+     * @return an {@link Optional} with {@link SegmentReporter}, if the reporter is built successfully, otherwise an
+     * empty {@code Optional}
+     * @throws ReporterBuildException when there was a failure in constructing the reporter
+     */
+    @Override
+    public Optional<SegmentReporter> build(MetricRegistry metricRegistry, MetricFilter metricFilter)
+            throws ReporterBuildException {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        if (location == null || location.trim().isEmpty()) {
+            throw new ReporterBuildException("Segment Reporting location is not specified");
+        }
+        if (segmentSize <= 0 || segmentSize > 1024) {
+            throw new ReporterBuildException("Segment size must be between 1 and 1024 megabytes");
+        }
+        if (segmentPeriod <= 0) {
+            throw new ReporterBuildException("Segment period must be a positive number");
+        }
+        if (daysToKeep <= 0) {
+            throw new ReporterBuildException("Days to keep segments must be a positive number");
+        }
+
+        ReportingSchedule reportingSchedule = createReportingSchedule();
+
+        File segmentLocation = new File(location);
+
+        if (!segmentLocation.exists()) {
+            if (!segmentLocation.mkdirs()) {
+                throw new ReporterBuildException("Could not create the Segment Reporting Location: " + location);
+            }
+        }
+        if (!segmentLocation.isDirectory()) {
+            throw new ReporterBuildException("Segment Reporting location is not a directory");
+        }
+
+        if (logger.isInfoEnabled()) {
+            logger.info(String.format("Creating Segment reporter for Metrics with location '%s', %d seconds polling "
+                            + "period, %d MB segment size, %d seconds segment period and %d days to keep", location,
+                    pollingPeriod, segmentSize, segmentPeriod, daysToKeep));
+        }
+
+        MetricFilter reporterFilter = createMetricFilter(metricFilter);
+        return Optional.of(new SegmentReporter(name, metricRegistry, reporterFilter, segmentLocation, reportingSchedule,
+                segmentSize * 1024 * 1024, segmentPeriod, daysToKeep));
+    }
+}
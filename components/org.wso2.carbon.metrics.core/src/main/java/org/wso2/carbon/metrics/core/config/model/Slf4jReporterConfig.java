@@ -32,10 +32,20 @@ public class Slf4jReporterConfig extends ScheduledReporterConfig implements Repo
 
     private static final Logger logger = LoggerFactory.getLogger(Slf4jReporterConfig.class);
 
+    private static final String FORMAT_TEXT = "text";
+
+    private static final String FORMAT_JSON = "json";
+
     private String loggerName = "metrics";
 
     private String markerName;
 
+    // The log format. Either "text" or "json"
+    private String format = "text";
+
+    // Maximum number of metrics in a JSON event. All metrics are logged in a single event if this is zero.
+    private int chunkSize = 0;
+
     public Slf4jReporterConfig() {
         name = "SLF4J";
     }
@@ -56,6 +66,22 @@ public class Slf4jReporterConfig extends ScheduledReporterConfig implements Repo
         this.markerName = markerName;
     }
 
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
     /**
      * Build the SLF4J Reporter
      *
@@ -74,15 +100,22 @@ public class Slf4jReporterConfig extends ScheduledReporterConfig implements Repo
         if (loggerName == null || loggerName.trim().isEmpty()) {
             throw new ReporterBuildException("Logger Name is not specified for SLF4J Reporting.");
         }
+        boolean json = FORMAT_JSON.equalsIgnoreCase(format);
+        if (!json && !FORMAT_TEXT.equalsIgnoreCase(format)) {
+            throw new ReporterBuildException("Invalid format for SLF4J Reporting: " + format);
+        }
+        if (chunkSize < 0) {
+            throw new ReporterBuildException("Chunk size for SLF4J Reporting cannot be negative");
+        }
 
         if (logger.isInfoEnabled()) {
-            logger.info(String.format(
-                    "Creating SLF4J reporter for Metrics with logger name '%s' and %d seconds polling period",
-                    loggerName, pollingPeriod));
+            logger.info(String.format("Creating SLF4J reporter for Metrics with logger name '%s', %s format and %d "
+                    + "seconds polling period", loggerName, json ? FORMAT_JSON : FORMAT_TEXT, pollingPeriod));
         }
 
-        return Optional.of(new Slf4jReporter(name, metricRegistry, metricFilter, loggerName, markerName,
-                pollingPeriod));
+        MetricFilter reporterFilter = createMetricFilter(metricFilter);
+        return Optional.of(new Slf4jReporter(name, metricRegistry, reporterFilter, loggerName, markerName,
+                createReportingSchedule(), json, chunkSize));
     }
 
 }
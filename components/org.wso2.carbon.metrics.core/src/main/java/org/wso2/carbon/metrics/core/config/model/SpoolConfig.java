@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.config.model;
+
+/**
+ * Configuration for the spool, which keeps the metrics on disk while the reporting destination is not available
+ */
+public class SpoolConfig {
+
+    private boolean enabled = false;
+
+    private String location;
+
+    // Maximum size of the spool in megabytes. The oldest metrics are discarded when the spool is full.
+    private int maxSize = 100;
+
+    // Maximum number of spooled records replayed at a time
+    private int replayLimit = 10000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getReplayLimit() {
+        return replayLimit;
+    }
+
+    public void setReplayLimit(int replayLimit) {
+        this.replayLimit = replayLimit;
+    }
+}
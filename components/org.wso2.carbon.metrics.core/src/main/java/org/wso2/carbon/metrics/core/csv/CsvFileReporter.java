@@ -0,0 +1,269 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.csv;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A reporter which appends the measurements for each metric to a CSV file using a {@link CsvFileWriter}. The files
+ * have the same format as the files written by {@link com.codahale.metrics.CsvReporter}.
+ */
+public class CsvFileReporter extends ScheduledReporter {
+
+    /**
+     * Returns a new {@link Builder} for {@link CsvFileReporter}.
+     *
+     * @param registry the registry to report
+     * @return a {@link Builder} instance for a {@link CsvFileReporter}
+     */
+    public static Builder forRegistry(MetricRegistry registry) {
+        return new Builder(registry);
+    }
+
+    /**
+     * A builder for {@link CsvFileReporter} instances. Defaults to using the default locale, converting rates to
+     * events/second, converting durations to milliseconds, and not filtering metrics.
+     */
+    public static class Builder {
+        private final MetricRegistry registry;
+        private Locale locale;
+        private TimeUnit rateUnit;
+        private TimeUnit durationUnit;
+        private Clock clock;
+        private MetricFilter filter;
+
+        private Builder(MetricRegistry registry) {
+            this.registry = registry;
+            this.locale = Locale.getDefault();
+            this.rateUnit = TimeUnit.SECONDS;
+            this.durationUnit = TimeUnit.MILLISECONDS;
+            this.clock = Clock.defaultClock();
+            this.filter = MetricFilter.ALL;
+        }
+
+        /**
+         * Format numbers for the given {@link Locale}.
+         *
+         * @param locale a {@link Locale}
+         * @return {@code this}
+         */
+        public Builder formatFor(Locale locale) {
+            this.locale = locale;
+            return this;
+        }
+
+        /**
+         * Convert rates to the given time unit.
+         *
+         * @param rateUnit a unit of time
+         * @return {@code this}
+         */
+        public Builder convertRatesTo(TimeUnit rateUnit) {
+            this.rateUnit = rateUnit;
+            return this;
+        }
+
+        /**
+         * Convert durations to the given time unit.
+         *
+         * @param durationUnit a unit of time
+         * @return {@code this}
+         */
+        public Builder convertDurationsTo(TimeUnit durationUnit) {
+            this.durationUnit = durationUnit;
+            return this;
+        }
+
+        /**
+         * Use the given {@link Clock} instance for the time.
+         *
+         * @param clock a {@link Clock} instance
+         * @return {@code this}
+         */
+        public Builder withClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Only report metrics which match the given filter.
+         *
+         * @param filter a {@link MetricFilter}
+         * @return {@code this}
+         */
+        public Builder filter(MetricFilter filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        /**
+         * Builds a {@link CsvFileReporter} with the given properties to write metrics to CSV files
+         *
+         * @param csvFileWriter The {@link CsvFileWriter} for the CSV files. The writer is closed when the reporter is
+         *                      stopped.
+         * @return a {@link CsvFileReporter}
+         */
+        public CsvFileReporter build(CsvFileWriter csvFileWriter) {
+            return new CsvFileReporter(registry, csvFileWriter, locale, rateUnit, durationUnit, clock, filter);
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvFileReporter.class);
+
+    private final CsvFileWriter csvFileWriter;
+
+    private final Locale locale;
+
+    private final Clock clock;
+
+    private CsvFileReporter(MetricRegistry registry, CsvFileWriter csvFileWriter, Locale locale, TimeUnit rateUnit,
+                            TimeUnit durationUnit, Clock clock, MetricFilter filter) {
+        super(registry, "csv-reporter", filter, rateUnit, durationUnit);
+        if (csvFileWriter == null) {
+            throw new IllegalArgumentException("CSV file writer cannot be null");
+        }
+        this.csvFileWriter = csvFileWriter;
+        this.locale = locale;
+        this.clock = clock;
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public void report(SortedMap<String, Gauge> gauges, SortedMap<String, Counter> counters,
+                       SortedMap<String, Histogram> histograms, SortedMap<String, Meter> meters,
+                       SortedMap<String, Timer> timers) {
+        final long time = clock.getTime();
+
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            reportGauge(time, entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            reportCounter(time, entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            reportHistogram(time, entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<String, Meter> entry : meters.entrySet()) {
+            reportMeter(time, entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            reportTimer(time, entry.getKey(), entry.getValue());
+        }
+
+        // Let other files be kept open, if some metrics were not reported
+        csvFileWriter.closeIdleFiles(time);
+    }
+
+    private void reportTimer(long time, String name, Timer timer) {
+        final Snapshot snapshot = timer.getSnapshot();
+
+        report(time, name, "count,max,mean,min,stddev,p50,p75,p95,p98,p99,p999,mean_rate,m1_rate,m5_rate,m15_rate,"
+                        + "rate_unit,duration_unit",
+                "%d,%f,%f,%f,%f,%f,%f,%f,%f,%f,%f,%f,%f,%f,%f,calls/%s,%s",
+                timer.getCount(),
+                convertDuration(snapshot.getMax()),
+                convertDuration(snapshot.getMean()),
+                convertDuration(snapshot.getMin()),
+                convertDuration(snapshot.getStdDev()),
+                convertDuration(snapshot.getMedian()),
+                convertDuration(snapshot.get75thPercentile()),
+                convertDuration(snapshot.get95thPercentile()),
+                convertDuration(snapshot.get98thPercentile()),
+                convertDuration(snapshot.get99thPercentile()),
+                convertDuration(snapshot.get999thPercentile()),
+                convertRate(timer.getMeanRate()),
+                convertRate(timer.getOneMinuteRate()),
+                convertRate(timer.getFiveMinuteRate()),
+                convertRate(timer.getFifteenMinuteRate()),
+                getRateUnit(),
+                getDurationUnit());
+    }
+
+    private void reportMeter(long time, String name, Meter meter) {
+        report(time, name, "count,mean_rate,m1_rate,m5_rate,m15_rate,rate_unit", "%d,%f,%f,%f,%f,events/%s",
+                meter.getCount(),
+                convertRate(meter.getMeanRate()),
+                convertRate(meter.getOneMinuteRate()),
+                convertRate(meter.getFiveMinuteRate()),
+                convertRate(meter.getFifteenMinuteRate()),
+                getRateUnit());
+    }
+
+    private void reportHistogram(long time, String name, Histogram histogram) {
+        final Snapshot snapshot = histogram.getSnapshot();
+
+        report(time, name, "count,max,mean,min,stddev,p50,p75,p95,p98,p99,p999", "%d,%d,%f,%d,%f,%f,%f,%f,%f,%f,%f",
+                histogram.getCount(),
+                snapshot.getMax(),
+                snapshot.getMean(),
+                snapshot.getMin(),
+                snapshot.getStdDev(),
+                snapshot.getMedian(),
+                snapshot.get75thPercentile(),
+                snapshot.get95thPercentile(),
+                snapshot.get98thPercentile(),
+                snapshot.get99thPercentile(),
+                snapshot.get999thPercentile());
+    }
+
+    private void reportCounter(long time, String name, Counter counter) {
+        report(time, name, "count", "%d", counter.getCount());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void reportGauge(long time, String name, Gauge gauge) {
+        report(time, name, "value", "%s", gauge.getValue());
+    }
+
+    private void report(long time, String name, String header, String line, Object... values) {
+        try {
+            csvFileWriter.write(name, "t," + header,
+                    String.format(locale, String.format(locale, "%d,%s", TimeUnit.MILLISECONDS.toSeconds(time), line),
+                            values), time);
+        } catch (IOException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn(String.format("Error writing to %s", name), e);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        csvFileWriter.close();
+    }
+}
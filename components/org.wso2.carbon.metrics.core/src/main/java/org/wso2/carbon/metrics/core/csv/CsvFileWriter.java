@@ -0,0 +1,326 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.csv;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.task.MetricsThreads;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends lines to a CSV file for each metric. Up to the maximum number of files are kept open and the lines are
+ * encoded to a reused direct buffer. A file is rotated when it exceeds the maximum size or when the rotation period is
+ * over. Rotated files can be compressed in the background.
+ * <p>
+ * The reporter writes the files in the same order in every cycle. A least recently used cache would close every file
+ * before it is used again in such a scan, when there are more metrics than open files. Therefore the files opened
+ * first are kept open and the other files are opened and closed for each line. The files not written in a cycle are
+ * closed with {@link #closeIdleFiles(long)}, so that other files can be kept open in the next cycle.
+ */
+public class CsvFileWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvFileWriter.class);
+
+    private static final String CSV_EXTENSION = ".csv";
+
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final File directory;
+
+    private final long maxFileSize;
+
+    private final long rotationPeriod;
+
+    private final boolean compress;
+
+    private final int maxOpenFiles;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    /**
+     * The files kept open
+     */
+    private final Map<String, CsvFile> openFiles = new HashMap<>();
+
+    /**
+     * The time each file was started. This is kept for closed files to rotate them when they are opened again.
+     */
+    private final Map<String, Long> fileStartTimes = new HashMap<>();
+
+    // Created only when the first file is rotated
+    private ExecutorService compressionExecutor;
+
+    /**
+     * @param directory      The directory for CSV files
+     * @param maxOpenFiles   The maximum number of files to keep open
+     * @param maxFileSize    The size in bytes to rotate a file. Files are not rotated by size if this is zero.
+     * @param rotationPeriod The time period in milliseconds to rotate a file. Files are not rotated by time if this
+     *                       is zero.
+     * @param compress       Whether to compress rotated files
+     */
+    public CsvFileWriter(File directory, int maxOpenFiles, long maxFileSize, long rotationPeriod, boolean compress) {
+        if (maxOpenFiles < 1) {
+            throw new IllegalArgumentException("Maximum number of open files must be a positive number");
+        }
+        if (maxFileSize < 0 || rotationPeriod < 0) {
+            throw new IllegalArgumentException("Maximum file size and rotation period cannot be negative");
+        }
+        this.directory = directory;
+        this.maxOpenFiles = maxOpenFiles;
+        this.maxFileSize = maxFileSize;
+        this.rotationPeriod = rotationPeriod;
+        this.compress = compress;
+    }
+
+    /**
+     * Append a line to the CSV file of a metric. The header is written first, if the file is new.
+     *
+     * @param name      The metric name
+     * @param header    The header line without the line separator
+     * @param line      The line without the line separator
+     * @param timestamp The time of the line in milliseconds, which is used to rotate the file
+     * @throws IOException if the line could not be written
+     */
+    public synchronized void write(String name, String header, String line, long timestamp) throws IOException {
+        CsvFile csvFile = openFiles.get(name);
+        boolean keepOpen = true;
+        if (csvFile == null) {
+            csvFile = openFile(name, timestamp);
+            keepOpen = openFiles.size() < maxOpenFiles;
+            if (keepOpen) {
+                openFiles.put(name, csvFile);
+            }
+        }
+        try {
+            if ((maxFileSize > 0 && csvFile.size >= maxFileSize)
+                    || (rotationPeriod > 0 && timestamp - csvFile.startTime >= rotationPeriod)) {
+                openFiles.remove(name);
+                closeFile(csvFile);
+                rotate(csvFile);
+                csvFile = openFile(name, timestamp);
+                if (keepOpen) {
+                    openFiles.put(name, csvFile);
+                }
+            }
+            String lineSeparator = System.lineSeparator();
+            String text = csvFile.size == 0 ? header + lineSeparator + line + lineSeparator : line + lineSeparator;
+            csvFile.size += write(csvFile.channel, text);
+            csvFile.lastWriteTime = timestamp;
+        } finally {
+            if (!keepOpen) {
+                closeFile(csvFile);
+            }
+        }
+    }
+
+    /**
+     * Close the open files, which were not written at or after the given time. The reporter calls this at the end of
+     * each cycle to close the files of the metrics, which are no longer reported.
+     *
+     * @param timestamp The time of the lines written in the current cycle in milliseconds
+     * @return The number of files closed
+     */
+    public synchronized int closeIdleFiles(long timestamp) {
+        int count = 0;
+        Iterator<CsvFile> iterator = openFiles.values().iterator();
+        while (iterator.hasNext()) {
+            CsvFile csvFile = iterator.next();
+            if (csvFile.lastWriteTime < timestamp) {
+                closeFile(csvFile);
+                iterator.remove();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of files kept open
+     */
+    public synchronized int getOpenFileCount() {
+        return openFiles.size();
+    }
+
+    private CsvFile openFile(String name, long timestamp) throws IOException {
+        Path path = new File(directory, name + CSV_EXTENSION).toPath();
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        long size;
+        try {
+            size = channel.size();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        Long startTime = fileStartTimes.get(name);
+        if (startTime == null) {
+            // The file may be created before a restart
+            startTime = size > 0 ? Files.readAttributes(path, BasicFileAttributes.class).creationTime().toMillis()
+                    : timestamp;
+            fileStartTimes.put(name, startTime);
+        }
+        return new CsvFile(name, path, channel, size, startTime);
+    }
+
+    private void closeFile(CsvFile csvFile) {
+        try {
+            csvFile.channel.close();
+        } catch (IOException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn(String.format("Could not close the CSV file %s", csvFile.path), e);
+            }
+        }
+    }
+
+    private void rotate(CsvFile csvFile) throws IOException {
+        fileStartTimes.remove(csvFile.name);
+        Path rotatedPath = csvFile.path.resolveSibling(csvFile.name + "-" + csvFile.startTime + CSV_EXTENSION);
+        Files.move(csvFile.path, rotatedPath);
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format("Rotated the CSV file %s to %s", csvFile.path, rotatedPath));
+        }
+        if (compress) {
+            if (compressionExecutor == null) {
+                compressionExecutor = Executors.newSingleThreadExecutor(
+                        runnable -> MetricsThreads.newThread(null, runnable, "metrics-csv-compressor"));
+            }
+            compressionExecutor.execute(() -> compress(rotatedPath));
+        }
+    }
+
+    private static void compress(Path path) {
+        Path compressedPath = path.resolveSibling(path.getFileName() + GZIP_EXTENSION);
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressedPath))) {
+                Files.copy(path, out);
+            }
+            Files.delete(path);
+        } catch (IOException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn(String.format("Could not compress the CSV file %s", path), e);
+            }
+            try {
+                Files.deleteIfExists(compressedPath);
+            } catch (IOException ex) {
+                // Ignore
+            }
+        }
+    }
+
+    /**
+     * Encode the text to the direct buffer and write the buffer to the channel whenever it is full
+     *
+     * @return The number of bytes written
+     */
+    private long write(FileChannel channel, String text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        long bytes = 0;
+        encoder.reset();
+        CoderResult result = encoder.encode(chars, buffer, true);
+        while (!result.isUnderflow()) {
+            if (!result.isOverflow()) {
+                result.throwException();
+            }
+            bytes += drain(channel);
+            result = encoder.encode(chars, buffer, true);
+        }
+        encoder.flush(buffer);
+        bytes += drain(channel);
+        return bytes;
+    }
+
+    private long drain(FileChannel channel) throws IOException {
+        buffer.flip();
+        long bytes = 0;
+        try {
+            while (buffer.hasRemaining()) {
+                bytes += channel.write(buffer);
+            }
+        } finally {
+            buffer.clear();
+        }
+        return bytes;
+    }
+
+    /**
+     * Close all files. The rotated files, which are being compressed, are compressed before the background thread
+     * stops.
+     */
+    @Override
+    public synchronized void close() {
+        Iterator<CsvFile> iterator = openFiles.values().iterator();
+        while (iterator.hasNext()) {
+            closeFile(iterator.next());
+            iterator.remove();
+        }
+        if (compressionExecutor != null) {
+            compressionExecutor.shutdown();
+            compressionExecutor = null;
+        }
+    }
+
+    /**
+     * An open CSV file
+     */
+    private static class CsvFile {
+
+        private final String name;
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private final long startTime;
+
+        private long size;
+
+        private long lastWriteTime = Long.MIN_VALUE;
+
+        private CsvFile(String name, Path path, FileChannel channel, long size, long startTime) {
+            this.name = name;
+            this.path = path;
+            this.channel = channel;
+            this.size = size;
+            this.startTime = startTime;
+        }
+    }
+}
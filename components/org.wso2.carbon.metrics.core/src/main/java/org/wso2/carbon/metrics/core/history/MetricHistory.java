@@ -0,0 +1,218 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.history;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the recent values of metrics in memory. The values of each metric are kept in a fixed size ring buffer of
+ * primitive values, which is allocated when the metric is recorded for the first time. The memory used is bounded by
+ * the number of points, the maximum number of metrics and the number of fields of each metric type.
+ * <p>
+ * Rates are recorded in events per second and durations are recorded in milliseconds. A metric is removed from the
+ * history when it is not available in a recording.
+ */
+public class MetricHistory {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricHistory.class);
+
+    private static final double DURATION_FACTOR = 1.0 / TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The metric types and the recorded fields
+     */
+    private enum Type {
+        GAUGE("value"),
+        COUNTER("count"),
+        HISTOGRAM("count", "mean", "p50", "p99", "max"),
+        METER("count", "m1_rate"),
+        TIMER("count", "mean", "p50", "p99", "max", "m1_rate");
+
+        private final String[] fields;
+
+        Type(String... fields) {
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * The ring buffer of a metric
+     */
+    private static class Series {
+
+        private final Type type;
+
+        private final double[] values;
+
+        /**
+         * The first recording with a value for this metric
+         */
+        private final long firstRecording;
+
+        private long lastRecording;
+
+        private Series(Type type, int points, long firstRecording) {
+            this.type = type;
+            this.values = new double[points * type.fields.length];
+            this.firstRecording = firstRecording;
+        }
+    }
+
+    private final int points;
+
+    private final int maxMetrics;
+
+    private final long[] timestamps;
+
+    private final Map<String, Series> seriesMap = new HashMap<>();
+
+    /**
+     * The number of recordings
+     */
+    private long recordings;
+
+    private boolean limitReached;
+
+    /**
+     * @param points     The number of values kept for each metric
+     * @param maxMetrics The maximum number of metrics recorded
+     */
+    public MetricHistory(int points, int maxMetrics) {
+        if (points <= 0) {
+            throw new IllegalArgumentException("Number of points must be a positive number");
+        }
+        if (maxMetrics <= 0) {
+            throw new IllegalArgumentException("Maximum number of metrics must be a positive number");
+        }
+        this.points = points;
+        this.maxMetrics = maxMetrics;
+        this.timestamps = new long[points];
+    }
+
+    /**
+     * Record the current values of the given metrics. Gauges with non-numeric values are not recorded.
+     *
+     * @param timestamp The time in milliseconds
+     */
+    @SuppressWarnings("rawtypes")
+    public synchronized void record(long timestamp, SortedMap<String, Gauge> gauges,
+                                    SortedMap<String, Counter> counters, SortedMap<String, Histogram> histograms,
+                                    SortedMap<String, Meter> meters, SortedMap<String, Timer> timers) {
+        long recording = ++recordings;
+        int index = (int) (recording % points);
+        timestamps[index] = timestamp;
+
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            Object value = entry.getValue().getValue();
+            if (value instanceof Number) {
+                record(entry.getKey(), Type.GAUGE, recording, ((Number) value).doubleValue());
+            }
+        }
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            record(entry.getKey(), Type.COUNTER, recording, entry.getValue().getCount());
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            Snapshot snapshot = histogram.getSnapshot();
+            record(entry.getKey(), Type.HISTOGRAM, recording, histogram.getCount(), snapshot.getMean(),
+                    snapshot.getMedian(), snapshot.get99thPercentile(), snapshot.getMax());
+        }
+        for (Map.Entry<String, Meter> entry : meters.entrySet()) {
+            Meter meter = entry.getValue();
+            record(entry.getKey(), Type.METER, recording, meter.getCount(), meter.getOneMinuteRate());
+        }
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            Timer timer = entry.getValue();
+            Snapshot snapshot = timer.getSnapshot();
+            record(entry.getKey(), Type.TIMER, recording, timer.getCount(), snapshot.getMean() * DURATION_FACTOR,
+                    snapshot.getMedian() * DURATION_FACTOR, snapshot.get99thPercentile() * DURATION_FACTOR,
+                    snapshot.getMax() * DURATION_FACTOR, timer.getOneMinuteRate());
+        }
+
+        // Remove the metrics, which are no longer available
+        Iterator<Series> iterator = seriesMap.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().lastRecording != recording) {
+                iterator.remove();
+                limitReached = false;
+            }
+        }
+    }
+
+    private void record(String name, Type type, long recording, double... values) {
+        Series series = seriesMap.get(name);
+        if (series == null || series.type != type) {
+            if (series == null && seriesMap.size() >= maxMetrics) {
+                if (!limitReached && logger.isWarnEnabled()) {
+                    logger.warn(String.format("Maximum number of metrics in the history (%d) is reached. Metric %s "
+                            + "is not recorded", maxMetrics, name));
+                }
+                limitReached = true;
+                return;
+            }
+            series = new Series(type, points, recording);
+            seriesMap.put(name, series);
+        }
+        System.arraycopy(values, 0, series.values, (int) (recording % points) * values.length, values.length);
+        series.lastRecording = recording;
+    }
+
+    /**
+     * Get the recent values of a metric
+     *
+     * @param name The name of the metric
+     * @return The recent values or {@code null} if the metric is not recorded
+     */
+    public synchronized MetricSeries get(String name) {
+        Series series = seriesMap.get(name);
+        if (series == null) {
+            return null;
+        }
+        long first = Math.max(series.firstRecording, recordings - points + 1);
+        int count = (int) (recordings - first + 1);
+        int fieldCount = series.type.fields.length;
+        long[] seriesTimestamps = new long[count];
+        double[][] seriesValues = new double[count][fieldCount];
+        for (int i = 0; i < count; i++) {
+            int index = (int) ((first + i) % points);
+            seriesTimestamps[i] = timestamps[index];
+            System.arraycopy(series.values, index * fieldCount, seriesValues[i], 0, fieldCount);
+        }
+        return new MetricSeries(name, series.type.name().toLowerCase(Locale.ENGLISH), series.type.fields.clone(),
+                seriesTimestamps, seriesValues);
+    }
+
+    /**
+     * @return The number of metrics recorded
+     */
+    public synchronized int size() {
+        return seriesMap.size();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.history;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The recent values of a metric. The values are ordered from the oldest to the latest.
+ */
+public final class MetricSeries {
+
+    private final String name;
+
+    private final String type;
+
+    private final String[] fields;
+
+    private final long[] timestamps;
+
+    private final double[][] values;
+
+    /**
+     * @param name       The name of the metric
+     * @param type       The type of the metric. For example: "timer"
+     * @param fields     The names of the recorded fields. For example: "count", "p99"
+     * @param timestamps The time of each value in milliseconds
+     * @param values     The values of each field at each time. The first index is the index of the timestamp.
+     */
+    @ConstructorProperties({"name", "type", "fields", "timestamps", "values"})
+    public MetricSeries(String name, String type, String[] fields, long[] timestamps, double[][] values) {
+        this.name = name;
+        this.type = type;
+        this.fields = fields;
+        this.timestamps = timestamps;
+        this.values = values;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String[] getFields() {
+        return fields;
+    }
+
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public double[][] getValues() {
+        return values;
+    }
+
+    /**
+     * Get the values of a field
+     *
+     * @param field The name of the field
+     * @return The values of the field at each time
+     * @throws IllegalArgumentException if the field is not recorded for the metric
+     */
+    public double[] getValues(String field) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].equals(field)) {
+                double[] fieldValues = new double[values.length];
+                for (int j = 0; j < values.length; j++) {
+                    fieldValues[j] = values[j][i];
+                }
+                return fieldValues;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Field %s is not recorded for the %s %s", field, type,
+                name));
+    }
+}
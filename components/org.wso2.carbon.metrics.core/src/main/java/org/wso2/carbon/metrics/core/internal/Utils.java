@@ -25,6 +25,11 @@ import java.util.Optional;
  */
 public class Utils {
 
+    /**
+     * The default source. The host name is looked up only once, since the lookup may be slow.
+     */
+    private static volatile String defaultSource;
+
     private Utils() {
     }
 
@@ -34,6 +39,15 @@ public class Utils {
      * @return The host name, if it is available, otherwise "Carbon"
      */
     public static String getDefaultSource() {
+        String source = defaultSource;
+        if (source == null) {
+            source = lookupDefaultSource();
+            defaultSource = source;
+        }
+        return source;
+    }
+
+    private static String lookupDefaultSource() {
         String source;
         // Use host name if available
         String hostname = null;
@@ -15,6 +15,10 @@
  */
 package org.wso2.carbon.metrics.core.jmx;
 
+import org.wso2.carbon.metrics.core.history.MetricSeries;
+
+import java.util.Map;
+
 /**
  * Interface for JMX Managed Metric Manager Bean
  */
@@ -37,6 +41,14 @@ public interface MetricManagerMXBean {
      */
     boolean isEnabled();
 
+    /**
+     * Get the startup status of Metrics. The reporters may be built and the JVM metrics may be registered in the
+     * background when the Metrics feature is started.
+     *
+     * @return {@code true} if the reporters are built and the JVM metrics are registered
+     */
+    boolean isReady();
+
     /**
      * @return The number of metrics used
      */
@@ -105,4 +117,22 @@ public interface MetricManagerMXBean {
      * Stop all reporters
      */
     void stopReporters();
+
+    /**
+     * @return The parent names of the metrics downgraded by the overhead governor and the levels set to the metrics
+     */
+    Map<String, String> getGovernorAdjustments();
+
+    /**
+     * @return The overhead of metrics measured in the last check as a percentage of the available CPU time
+     */
+    double getMetricsOverhead();
+
+    /**
+     * Get the recent values of a metric kept in memory
+     *
+     * @param name The name of the metric
+     * @return The recent values or {@code null} if the history is not enabled or the metric is not recorded
+     */
+    MetricSeries getHistory(String name);
 }
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.json;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metered;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * A reporter which logs the values of all metrics in a reporting cycle as a single JSON event, or as an event for each
+ * chunk of metrics. The JSON is written directly to a reused {@link StringBuilder}.
+ * <p>
+ * Each event has the following format.
+ * <pre>
+ * {"timestamp":1460000000000,"rate_unit":"events/second","duration_unit":"milliseconds","metrics":[
+ * {"type":"COUNTER","name":"a.b","count":1},{"type":"GAUGE","name":"c.d","value":2.5}]}
+ * </pre>
+ * The field names are same as the fields logged by {@link com.codahale.metrics.Slf4jReporter}.
+ */
+public class JsonSlf4jReporter extends ScheduledReporter {
+
+    /**
+     * Returns a new {@link Builder} for {@link JsonSlf4jReporter}.
+     *
+     * @param registry the registry to report
+     * @return a {@link Builder} instance for a {@link JsonSlf4jReporter}
+     */
+    public static Builder forRegistry(MetricRegistry registry) {
+        return new Builder(registry);
+    }
+
+    /**
+     * A builder for {@link JsonSlf4jReporter} instances. Defaults to logging to {@code metrics}, not using a marker,
+     * converting rates to events/second, converting durations to milliseconds, not filtering metrics and logging all
+     * metrics in a single event.
+     */
+    public static class Builder {
+        private final MetricRegistry registry;
+        private Logger logger;
+        private Marker marker;
+        private TimeUnit rateUnit;
+        private TimeUnit durationUnit;
+        private Clock clock;
+        private MetricFilter filter;
+        private int chunkSize;
+        private LongConsumer serializationTime;
+
+        private Builder(MetricRegistry registry) {
+            this.registry = registry;
+            this.logger = LoggerFactory.getLogger("metrics");
+            this.marker = null;
+            this.rateUnit = TimeUnit.SECONDS;
+            this.durationUnit = TimeUnit.MILLISECONDS;
+            this.clock = Clock.defaultClock();
+            this.filter = MetricFilter.ALL;
+            this.chunkSize = 0;
+            this.serializationTime = null;
+        }
+
+        /**
+         * Log metrics to the given logger.
+         *
+         * @param logger an SLF4J {@link Logger}
+         * @return {@code this}
+         */
+        public Builder outputTo(Logger logger) {
+            this.logger = logger;
+            return this;
+        }
+
+        /**
+         * Mark all logged metrics with the given marker.
+         *
+         * @param marker an SLF4J {@link Marker}
+         * @return {@code this}
+         */
+        public Builder markWith(Marker marker) {
+            this.marker = marker;
+            return this;
+        }
+
+        /**
+         * Convert rates to the given time unit.
+         *
+         * @param rateUnit a unit of time
+         * @return {@code this}
+         */
+        public Builder convertRatesTo(TimeUnit rateUnit) {
+            this.rateUnit = rateUnit;
+            return this;
+        }
+
+        /**
+         * Convert durations to the given time unit.
+         *
+         * @param durationUnit a unit of time
+         * @return {@code this}
+         */
+        public Builder convertDurationsTo(TimeUnit durationUnit) {
+            this.durationUnit = durationUnit;
+            return this;
+        }
+
+        /**
+         * Use the given {@link Clock} instance for the time.
+         *
+         * @param clock a {@link Clock} instance
+         * @return {@code this}
+         */
+        public Builder withClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Only report metrics which match the given filter.
+         *
+         * @param filter a {@link MetricFilter}
+         * @return {@code this}
+         */
+        public Builder filter(MetricFilter filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        /**
+         * Log an event for each chunk of the given number of metrics.
+         *
+         * @param chunkSize the maximum number of metrics in an event, or zero to log all metrics in a single event
+         * @return {@code this}
+         */
+        public Builder withChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Pass the time spent on building the JSON events in each report, excluding the time spent on logging.
+         *
+         * @param serializationTime a consumer of the time in nanoseconds
+         * @return {@code this}
+         */
+        public Builder withSerializationTime(LongConsumer serializationTime) {
+            this.serializationTime = serializationTime;
+            return this;
+        }
+
+        /**
+         * Builds a {@link JsonSlf4jReporter} with the given properties.
+         *
+         * @return a {@link JsonSlf4jReporter}
+         */
+        public JsonSlf4jReporter build() {
+            return new JsonSlf4jReporter(registry, logger, marker, rateUnit, durationUnit, clock, filter,
+                    chunkSize, serializationTime);
+        }
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Logger logger;
+
+    private final Marker marker;
+
+    private final Clock clock;
+
+    private final int chunkSize;
+
+    private final LongConsumer serializationTime;
+
+    private final String eventPrefix;
+
+    /**
+     * The time spent on logging in the current report
+     */
+    private long loggingTime;
+
+    /**
+     * The builder reused for all events
+     */
+    private final StringBuilder builder = new StringBuilder(4096);
+
+    private int metricsInEvent;
+
+    private long timestamp;
+
+    private JsonSlf4jReporter(MetricRegistry registry, Logger logger, Marker marker, TimeUnit rateUnit,
+                              TimeUnit durationUnit, Clock clock, MetricFilter filter, int chunkSize,
+                              LongConsumer serializationTime) {
+        super(registry, "json-logger-reporter", filter, rateUnit, durationUnit);
+        if (chunkSize < 0) {
+            throw new IllegalArgumentException("Chunk size cannot be negative");
+        }
+        this.logger = logger;
+        this.marker = marker;
+        this.chunkSize = chunkSize;
+        this.serializationTime = serializationTime;
+        this.clock = clock;
+        this.eventPrefix = ",\"rate_unit\":\"events/" + getRateUnit() + "\",\"duration_unit\":\""
+                + getDurationUnit() + "\",\"metrics\":[";
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public synchronized void report(SortedMap<String, Gauge> gauges, SortedMap<String, Counter> counters,
+                                    SortedMap<String, Histogram> histograms, SortedMap<String, Meter> meters,
+                                    SortedMap<String, Timer> timers) {
+        if (!logger.isInfoEnabled(marker)) {
+            return;
+        }
+        long start = System.nanoTime();
+        loggingTime = 0;
+        timestamp = clock.getTime();
+        metricsInEvent = 0;
+        builder.setLength(0);
+
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            startMetric("GAUGE", entry.getKey());
+            builder.append(",\"value\":");
+            appendValue(entry.getValue().getValue());
+            endMetric();
+        }
+
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            startMetric("COUNTER", entry.getKey());
+            appendField("count", entry.getValue().getCount());
+            endMetric();
+        }
+
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            startMetric("HISTOGRAM", entry.getKey());
+            appendField("count", histogram.getCount());
+            appendSnapshot(histogram.getSnapshot(), false);
+            endMetric();
+        }
+
+        for (Map.Entry<String, Meter> entry : meters.entrySet()) {
+            Meter meter = entry.getValue();
+            startMetric("METER", entry.getKey());
+            appendField("count", meter.getCount());
+            appendRates(meter);
+            endMetric();
+        }
+
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            Timer timer = entry.getValue();
+            startMetric("TIMER", entry.getKey());
+            appendField("count", timer.getCount());
+            appendSnapshot(timer.getSnapshot(), true);
+            appendRates(timer);
+            endMetric();
+        }
+
+        if (metricsInEvent > 0) {
+            logEvent();
+        }
+        if (serializationTime != null) {
+            serializationTime.accept(System.nanoTime() - start - loggingTime);
+        }
+    }
+
+    private void startMetric(String type, String name) {
+        if (metricsInEvent == 0) {
+            builder.append("{\"timestamp\":").append(timestamp).append(eventPrefix);
+        } else {
+            builder.append(',');
+        }
+        builder.append("{\"type\":\"").append(type).append("\",\"name\":");
+        appendString(name);
+    }
+
+    private void endMetric() {
+        builder.append('}');
+        metricsInEvent++;
+        if (chunkSize > 0 && metricsInEvent == chunkSize) {
+            logEvent();
+        }
+    }
+
+    private void logEvent() {
+        builder.append("]}");
+        // The builder is reused. Therefore the event must be converted to a string before logging.
+        String event = builder.toString();
+        long start = System.nanoTime();
+        logger.info(marker, event);
+        loggingTime += System.nanoTime() - start;
+        builder.setLength(0);
+        metricsInEvent = 0;
+    }
+
+    private void appendSnapshot(Snapshot snapshot, boolean convertDurations) {
+        appendField("min", snapshot.getMin(), convertDurations);
+        appendField("max", snapshot.getMax(), convertDurations);
+        appendField("mean", snapshot.getMean(), convertDurations);
+        appendField("stddev", snapshot.getStdDev(), convertDurations);
+        appendField("median", snapshot.getMedian(), convertDurations);
+        appendField("p75", snapshot.get75thPercentile(), convertDurations);
+        appendField("p95", snapshot.get95thPercentile(), convertDurations);
+        appendField("p98", snapshot.get98thPercentile(), convertDurations);
+        appendField("p99", snapshot.get99thPercentile(), convertDurations);
+        appendField("p999", snapshot.get999thPercentile(), convertDurations);
+    }
+
+    private void appendRates(Metered metered) {
+        appendField("mean_rate", convertRate(metered.getMeanRate()));
+        appendField("m1", convertRate(metered.getOneMinuteRate()));
+        appendField("m5", convertRate(metered.getFiveMinuteRate()));
+        appendField("m15", convertRate(metered.getFifteenMinuteRate()));
+    }
+
+    private void appendField(String name, long value) {
+        builder.append(",\"").append(name).append("\":").append(value);
+    }
+
+    private void appendField(String name, double value, boolean convertDuration) {
+        appendField(name, convertDuration ? convertDuration(value) : value);
+    }
+
+    private void appendField(String name, double value) {
+        builder.append(",\"").append(name).append("\":");
+        appendNumber(value);
+    }
+
+    private void appendNumber(double value) {
+        // NaN and infinite values are not allowed in JSON
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            builder.append("null");
+        } else {
+            builder.append(value);
+        }
+    }
+
+    private void appendValue(Object value) {
+        if (value == null) {
+            builder.append("null");
+        } else if (value instanceof Double || value instanceof Float) {
+            appendNumber(((Number) value).doubleValue());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            builder.append(value);
+        } else {
+            appendString(value.toString());
+        }
+    }
+
+    private void appendString(String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+}
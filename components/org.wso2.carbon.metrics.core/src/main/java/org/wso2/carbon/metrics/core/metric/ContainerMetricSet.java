@@ -0,0 +1,378 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.metric;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * A set of gauges for the CPU and memory limits and usage of the control group (cgroup) of this process. Both cgroup
+ * v1 and v2 are supported. Inside a container, these values should be used instead of the host level values in
+ * {@link OperatingSystemMetricSet}.
+ * <p>
+ * The following gauges are available, if the relevant files are available.
+ * <ul>
+ * <li>cpu.quota: The CPU quota as number of processors. -1 if there is no quota.</li>
+ * <li>cpu.usage.time: Total CPU time in nanoseconds</li>
+ * <li>cpu.period.count: Number of CPU scheduling periods</li>
+ * <li>cpu.throttled.count: Number of CPU scheduling periods the cgroup was throttled</li>
+ * <li>cpu.throttled.time: Total time the cgroup was throttled in nanoseconds</li>
+ * <li>memory.usage.size: Memory usage in bytes</li>
+ * <li>memory.limit.size: Memory limit in bytes. -1 if there is no limit.</li>
+ * <li>memory.fail.count: Number of times the memory usage hit the limit (failcnt in v1, "max" events in v2)</li>
+ * <li>pressure.[cpu|memory|io].[some|full].[avg10|avg60]: Pressure stall information (PSI, v2 only)</li>
+ * </ul>
+ * All files are read once per sample interval. Each file is kept open and read into the same buffer.
+ */
+public class ContainerMetricSet implements MetricSet {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContainerMetricSet.class);
+
+    private static final long DEFAULT_SAMPLE_INTERVAL = 1;
+
+    private static final Path DEFAULT_CGROUP_ROOT = Paths.get("/sys/fs/cgroup");
+
+    private static final Path PROC_SELF_CGROUP = Paths.get("/proc/self/cgroup");
+
+    /**
+     * cgroup v1 uses a large number (close to Long.MAX_VALUE and rounded to the page size) for unlimited memory
+     */
+    private static final long CGROUP_V1_UNLIMITED_THRESHOLD = Long.MAX_VALUE / 2;
+
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    private static final String[] PSI_RESOURCES = {"cpu", "memory", "io"};
+
+    private static final String[] PSI_KINDS = {"some", "full"};
+
+    private static final String[] PSI_AVERAGES = {"avg10", "avg60"};
+
+    private final Path cgroupRoot;
+
+    private final Path procSelfCgroup;
+
+    private final long sampleIntervalNanos;
+
+    /**
+     * Readers by path. A file is read only once in a sample even if several gauges use it.
+     */
+    private final Map<Path, PseudoFileReader> readers = new LinkedHashMap<>();
+
+    private final List<LongValue> longValues = new ArrayList<>();
+
+    private final List<DoubleValue> doubleValues = new ArrayList<>();
+
+    /**
+     * The gauges are created only once, so that each file is opened only once for this set
+     */
+    private Map<String, Metric> metrics;
+
+    private long lastSampleTime;
+
+    private boolean sampled;
+
+    private static class LongValue {
+        private final PseudoFileReader reader;
+        private final ToLongFunction<PseudoFileReader> function;
+        private volatile long value;
+
+        private LongValue(PseudoFileReader reader, ToLongFunction<PseudoFileReader> function) {
+            this.reader = reader;
+            this.function = function;
+        }
+    }
+
+    private static class DoubleValue {
+        private final PseudoFileReader reader;
+        private final ToDoubleFunction<PseudoFileReader> function;
+        private volatile double value;
+
+        private DoubleValue(PseudoFileReader reader, ToDoubleFunction<PseudoFileReader> function) {
+            this.reader = reader;
+            this.function = function;
+        }
+    }
+
+    public ContainerMetricSet() {
+        this(DEFAULT_CGROUP_ROOT, PROC_SELF_CGROUP, DEFAULT_SAMPLE_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Create container metrics
+     *
+     * @param cgroupRoot         The mount point of the cgroup file system. eg. /sys/fs/cgroup
+     * @param procSelfCgroup     The file with the cgroups of this process. eg. /proc/self/cgroup
+     * @param sampleInterval     The minimum interval between two samples. This should be less than the reporting
+     *                           period.
+     * @param sampleIntervalUnit The {@link TimeUnit} for the sample interval
+     */
+    public ContainerMetricSet(Path cgroupRoot, Path procSelfCgroup, long sampleInterval,
+                              TimeUnit sampleIntervalUnit) {
+        this.cgroupRoot = cgroupRoot;
+        this.procSelfCgroup = procSelfCgroup;
+        this.sampleIntervalNanos = sampleIntervalUnit.toNanos(sampleInterval);
+    }
+
+    @Override
+    public synchronized Map<String, Metric> getMetrics() {
+        if (metrics == null) {
+            metrics = Collections.unmodifiableMap(createMetrics());
+        }
+        return metrics;
+    }
+
+    private Map<String, Metric> createMetrics() {
+        final Map<String, Metric> gauges = new HashMap<String, Metric>();
+        if (!Files.isDirectory(cgroupRoot)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Container metrics are not available. %s is not found", cgroupRoot));
+            }
+            return gauges;
+        }
+        Map<String, String> cgroupPaths = readCgroupPaths();
+        if (Files.exists(cgroupRoot.resolve("cgroup.controllers"))) {
+            addCgroupV2Gauges(gauges, resolve(cgroupRoot, cgroupPaths.get("")));
+        } else {
+            addCgroupV1Gauges(gauges, cgroupPaths);
+        }
+        return gauges;
+    }
+
+    private void addCgroupV2Gauges(Map<String, Metric> gauges, Path cgroup) {
+        PseudoFileReader cpuMax = getReader(cgroup.resolve("cpu.max"));
+        if (cpuMax != null) {
+            addDoubleGauge(gauges, "cpu.quota", cpuMax, reader -> quota(reader.getLongAt(0), reader.getLongAt(1)));
+        }
+        PseudoFileReader cpuStat = getReader(cgroup.resolve("cpu.stat"));
+        if (cpuStat != null) {
+            addLongGauge(gauges, "cpu.usage.time", cpuStat, reader -> microsToNanos(reader.getLong("usage_usec ")));
+            addLongGauge(gauges, "cpu.period.count", cpuStat, reader -> reader.getLong("nr_periods "));
+            addLongGauge(gauges, "cpu.throttled.count", cpuStat, reader -> reader.getLong("nr_throttled "));
+            addLongGauge(gauges, "cpu.throttled.time", cpuStat,
+                    reader -> microsToNanos(reader.getLong("throttled_usec ")));
+        }
+        PseudoFileReader memoryCurrent = getReader(cgroup.resolve("memory.current"));
+        if (memoryCurrent != null) {
+            addLongGauge(gauges, "memory.usage.size", memoryCurrent, PseudoFileReader::getFirstLong);
+        }
+        PseudoFileReader memoryMax = getReader(cgroup.resolve("memory.max"));
+        if (memoryMax != null) {
+            addLongGauge(gauges, "memory.limit.size", memoryMax, PseudoFileReader::getFirstLong);
+        }
+        PseudoFileReader memoryEvents = getReader(cgroup.resolve("memory.events"));
+        if (memoryEvents != null) {
+            addLongGauge(gauges, "memory.fail.count", memoryEvents, reader -> reader.getLong("max "));
+        }
+        for (String resource : PSI_RESOURCES) {
+            PseudoFileReader pressure = getReader(cgroup.resolve(resource + ".pressure"));
+            if (pressure == null) {
+                continue;
+            }
+            for (String kind : PSI_KINDS) {
+                for (String average : PSI_AVERAGES) {
+                    String field = average + "=";
+                    addDoubleGauge(gauges, String.format("pressure.%s.%s.%s", resource, kind, average), pressure,
+                            reader -> reader.getDouble(kind + " ", field));
+                }
+            }
+        }
+    }
+
+    private void addCgroupV1Gauges(Map<String, Metric> gauges, Map<String, String> cgroupPaths) {
+        Path cpu = findControllerDirectory(cgroupPaths, "cpu", "cpu,cpuacct", "cpuacct,cpu");
+        if (cpu != null) {
+            PseudoFileReader quota = getReader(cpu.resolve("cpu.cfs_quota_us"));
+            PseudoFileReader period = getReader(cpu.resolve("cpu.cfs_period_us"));
+            if (quota != null && period != null) {
+                // Period is read as a separate value, so that the file is read in the same sample.
+                LongValue periodValue = new LongValue(period, PseudoFileReader::getFirstLong);
+                longValues.add(periodValue);
+                addDoubleGauge(gauges, "cpu.quota", quota, reader -> quota(reader.getFirstLong(), periodValue.value));
+            }
+            PseudoFileReader cpuStat = getReader(cpu.resolve("cpu.stat"));
+            if (cpuStat != null) {
+                addLongGauge(gauges, "cpu.period.count", cpuStat, reader -> reader.getLong("nr_periods "));
+                addLongGauge(gauges, "cpu.throttled.count", cpuStat, reader -> reader.getLong("nr_throttled "));
+                addLongGauge(gauges, "cpu.throttled.time", cpuStat, reader -> reader.getLong("throttled_time "));
+            }
+        }
+        Path cpuacct = findControllerDirectory(cgroupPaths, "cpuacct", "cpu,cpuacct", "cpuacct,cpu");
+        if (cpuacct != null) {
+            PseudoFileReader usage = getReader(cpuacct.resolve("cpuacct.usage"));
+            if (usage != null) {
+                addLongGauge(gauges, "cpu.usage.time", usage, PseudoFileReader::getFirstLong);
+            }
+        }
+        Path memory = findControllerDirectory(cgroupPaths, "memory");
+        if (memory != null) {
+            PseudoFileReader usage = getReader(memory.resolve("memory.usage_in_bytes"));
+            if (usage != null) {
+                addLongGauge(gauges, "memory.usage.size", usage, PseudoFileReader::getFirstLong);
+            }
+            PseudoFileReader limit = getReader(memory.resolve("memory.limit_in_bytes"));
+            if (limit != null) {
+                addLongGauge(gauges, "memory.limit.size", limit, reader -> {
+                    long value = reader.getFirstLong();
+                    return value > CGROUP_V1_UNLIMITED_THRESHOLD ? -1L : value;
+                });
+            }
+            PseudoFileReader failCount = getReader(memory.resolve("memory.failcnt"));
+            if (failCount != null) {
+                addLongGauge(gauges, "memory.fail.count", failCount, PseudoFileReader::getFirstLong);
+            }
+        }
+    }
+
+    private void addLongGauge(Map<String, Metric> gauges, String name, PseudoFileReader reader,
+                              ToLongFunction<PseudoFileReader> function) {
+        final LongValue longValue = new LongValue(reader, function);
+        longValues.add(longValue);
+        gauges.put(name, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                sample();
+                return longValue.value;
+            }
+        });
+    }
+
+    private void addDoubleGauge(Map<String, Metric> gauges, String name, PseudoFileReader reader,
+                                ToDoubleFunction<PseudoFileReader> function) {
+        final DoubleValue doubleValue = new DoubleValue(reader, function);
+        doubleValues.add(doubleValue);
+        gauges.put(name, new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                sample();
+                return doubleValue.value;
+            }
+        });
+    }
+
+    private PseudoFileReader getReader(Path path) {
+        if (!PseudoFileReader.isReadable(path)) {
+            return null;
+        }
+        return readers.computeIfAbsent(path, p -> new PseudoFileReader(p, 1024));
+    }
+
+    /**
+     * Sample all files in one pass, unless the files were sampled within the sample interval
+     */
+    private synchronized void sample() {
+        long now = System.nanoTime();
+        if (sampled && now - lastSampleTime < sampleIntervalNanos) {
+            return;
+        }
+        sampled = true;
+        lastSampleTime = now;
+
+        for (PseudoFileReader reader : readers.values()) {
+            if (!reader.read() && logger.isTraceEnabled()) {
+                logger.trace(String.format("Error when reading %s", reader.getPath()));
+            }
+        }
+        // Long values are calculated first as the CPU quota in cgroup v1 depends on the period
+        for (LongValue longValue : longValues) {
+            longValue.value = longValue.function.applyAsLong(longValue.reader);
+        }
+        for (DoubleValue doubleValue : doubleValues) {
+            doubleValue.value = doubleValue.function.applyAsDouble(doubleValue.reader);
+        }
+    }
+
+    /**
+     * Read the cgroup paths of this process. The key is the controller list for v1 ("cpu,cpuacct") and an empty
+     * string for v2.
+     */
+    private Map<String, String> readCgroupPaths() {
+        Map<String, String> cgroupPaths = new HashMap<>();
+        if (!Files.isReadable(procSelfCgroup)) {
+            return cgroupPaths;
+        }
+        try {
+            for (String line : Files.readAllLines(procSelfCgroup, StandardCharsets.UTF_8)) {
+                // Format: hierarchy-ID:controller-list:cgroup-path
+                String[] parts = line.split(":", 3);
+                if (parts.length == 3) {
+                    cgroupPaths.put(parts[1], parts[2]);
+                    for (String controller : parts[1].split(",")) {
+                        cgroupPaths.putIfAbsent(controller, parts[2]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Error when reading %s", procSelfCgroup), e);
+            }
+        }
+        return cgroupPaths;
+    }
+
+    private Path findControllerDirectory(Map<String, String> cgroupPaths, String... controllerDirectories) {
+        for (String controllerDirectory : controllerDirectories) {
+            Path directory = cgroupRoot.resolve(controllerDirectory);
+            if (Files.isDirectory(directory)) {
+                String controller = controllerDirectories[0];
+                return resolve(directory, cgroupPaths.get(controller));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolve the cgroup path of this process. Inside a container, the cgroup of the container is usually mounted as
+     * the root and the path in /proc/self/cgroup is not available. Therefore the root is used in that case.
+     */
+    private static Path resolve(Path root, String cgroupPath) {
+        if (cgroupPath != null && !cgroupPath.isEmpty() && !"/".equals(cgroupPath)) {
+            Path path = root.resolve(cgroupPath.substring(1));
+            if (Files.isDirectory(path)) {
+                return path;
+            }
+        }
+        return root;
+    }
+
+    private static double quota(long quota, long period) {
+        if (quota < 0 || period <= 0) {
+            return -1.0D;
+        }
+        return (double) quota / period;
+    }
+
+    private static long microsToNanos(long value) {
+        return value < 0 ? value : value * NANOS_PER_MICRO;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.metric;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+
+/**
+ * A {@link MetricSet}, which may add new metrics after {@link #getMetrics()} is called. For example, a metric is added
+ * when a new garbage collection cause is seen.
+ */
+public interface DynamicMetricSet extends MetricSet {
+
+    /**
+     * Set the listener to be notified when a new metric is added to the set. Metrics added before setting the listener
+     * must be available via {@link #getMetrics()}.
+     *
+     * @param listener The {@link MetricAddedListener}
+     */
+    void setMetricAddedListener(MetricAddedListener listener);
+
+    /**
+     * Start updating the metrics. This is called when the Metrics feature is enabled.
+     */
+    default void start() {
+    }
+
+    /**
+     * Stop updating the metrics and release the listeners and the threads used to update the metrics. This is called
+     * when the Metrics feature is disabled. The metrics can be started again.
+     */
+    default void stop() {
+    }
+
+    /**
+     * A listener for metrics added to a {@link DynamicMetricSet}
+     */
+    interface MetricAddedListener {
+
+        /**
+         * Called when a new metric is added
+         *
+         * @param name   The name of the metric relative to the metric set
+         * @param metric The new metric
+         */
+        void onMetricAdded(String name, Metric metric);
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.metric;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * A set of metrics updated from the garbage collection notifications. Unlike the cumulative gauges in
+ * {@link com.codahale.metrics.jvm.GarbageCollectorMetricSet}, every collection is recorded.
+ * <p>
+ * The following metrics are available.
+ * <ul>
+ * <li>&lt;collector&gt;.pause: A histogram of the duration of each collection in milliseconds. For concurrent
+ * collectors, this is the duration of the collection cycle.</li>
+ * <li>cause.&lt;cause&gt;.allocated.bytes: Bytes allocated in the young generation since the previous collection by
+ * any collector, counted at the start of each collection with the given cause.</li>
+ * <li>cause.&lt;cause&gt;.promoted.bytes: Bytes promoted to the old generation by collections with the given
+ * cause.</li>
+ * </ul>
+ * The cause metrics are added when a cause is seen for the first time. The notifications are received only after
+ * {@link #start()} is called.
+ * <p>
+ * This class requires {@code com.sun.management.GarbageCollectionNotificationInfo}, which is not available in all
+ * JVMs. The availability should be checked before loading this class.
+ */
+public class GarbageCollectionNotificationMetricSet implements DynamicMetricSet, NotificationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(GarbageCollectionNotificationMetricSet.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("[\\s]+");
+
+    /**
+     * Characters in GC causes, which should not be in a metric name. eg. "System.gc()"
+     */
+    private static final Pattern CAUSE_SEPARATORS = Pattern.compile("[\\s.]+");
+
+    private static final Pattern CAUSE_IGNORED_CHARACTERS = Pattern.compile("[()]");
+
+    private final Collection<GarbageCollectorMXBean> garbageCollectors;
+
+    private final Map<String, Histogram> pauseHistograms = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> causeCounters = new ConcurrentHashMap<>();
+
+    private volatile MetricAddedListener metricAddedListener;
+
+    private boolean listening;
+
+    /**
+     * Young generation usage after the previous collection by any collector. Collectors like the G1 young and
+     * concurrent collectors report the same young generation, so the usage is not tracked per collector.
+     */
+    private long previousYoungUsage;
+
+    public GarbageCollectionNotificationMetricSet() {
+        this(ManagementFactory.getGarbageCollectorMXBeans());
+    }
+
+    public GarbageCollectionNotificationMetricSet(Collection<GarbageCollectorMXBean> garbageCollectors) {
+        this.garbageCollectors = garbageCollectors;
+    }
+
+    @Override
+    public synchronized Map<String, Metric> getMetrics() {
+        for (GarbageCollectorMXBean garbageCollector : garbageCollectors) {
+            if (garbageCollector instanceof NotificationEmitter) {
+                pauseHistograms.computeIfAbsent(garbageCollector.getName(),
+                        name -> new Histogram(new ExponentiallyDecayingReservoir()));
+            } else {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(String.format("Garbage Collection notifications are not available for %s",
+                            garbageCollector.getName()));
+                }
+            }
+        }
+        final Map<String, Metric> metrics = new HashMap<String, Metric>();
+        pauseHistograms.forEach((name, histogram) -> metrics.put(pauseName(name), histogram));
+        metrics.putAll(causeCounters);
+        return metrics;
+    }
+
+    @Override
+    public void setMetricAddedListener(MetricAddedListener listener) {
+        this.metricAddedListener = listener;
+    }
+
+    /**
+     * Start listening to garbage collection notifications
+     */
+    @Override
+    public synchronized void start() {
+        if (!listening) {
+            for (GarbageCollectorMXBean garbageCollector : garbageCollectors) {
+                if (garbageCollector instanceof NotificationEmitter) {
+                    ((NotificationEmitter) garbageCollector).addNotificationListener(this, null, null);
+                }
+            }
+            listening = true;
+        }
+    }
+
+    /**
+     * Stop listening to garbage collection notifications
+     */
+    @Override
+    public synchronized void stop() {
+        if (listening) {
+            for (GarbageCollectorMXBean garbageCollector : garbageCollectors) {
+                if (garbageCollector instanceof NotificationEmitter) {
+                    try {
+                        ((NotificationEmitter) garbageCollector).removeNotificationListener(this);
+                    } catch (ListenerNotFoundException e) {
+                        // Ignore
+                    }
+                }
+            }
+            listening = false;
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        GcInfo gcInfo = info.getGcInfo();
+
+        Histogram pauseHistogram = pauseHistograms.get(info.getGcName());
+        if (pauseHistogram != null) {
+            pauseHistogram.update(gcInfo.getDuration());
+        }
+
+        Map<String, MemoryUsage> before = gcInfo.getMemoryUsageBeforeGc();
+        Map<String, MemoryUsage> after = gcInfo.getMemoryUsageAfterGc();
+        long youngBefore = 0;
+        long youngAfter = 0;
+        long oldBefore = 0;
+        long oldAfter = 0;
+        boolean youngFound = false;
+        boolean oldFound = false;
+        for (Map.Entry<String, MemoryUsage> entry : before.entrySet()) {
+            String pool = entry.getKey();
+            MemoryUsage usageAfter = after.get(pool);
+            if (usageAfter == null) {
+                continue;
+            }
+            if (isYoungPool(pool)) {
+                youngBefore += entry.getValue().getUsed();
+                youngAfter += usageAfter.getUsed();
+                youngFound = true;
+            } else if (isOldPool(pool)) {
+                oldBefore += entry.getValue().getUsed();
+                oldAfter += usageAfter.getUsed();
+                oldFound = true;
+            }
+        }
+
+        String cause = CAUSE_SEPARATORS.matcher(CAUSE_IGNORED_CHARACTERS.matcher(info.getGcCause()).replaceAll(""))
+                .replaceAll("-");
+        if (youngFound) {
+            long allocated;
+            synchronized (this) {
+                allocated = youngBefore - previousYoungUsage;
+                previousYoungUsage = youngAfter;
+            }
+            if (allocated > 0) {
+                getCauseCounter(cause, "allocated.bytes").inc(allocated);
+            }
+        }
+        if (oldFound) {
+            long promoted = oldAfter - oldBefore;
+            if (promoted > 0) {
+                getCauseCounter(cause, "promoted.bytes").inc(promoted);
+            }
+        }
+    }
+
+    private Counter getCauseCounter(String cause, String suffix) {
+        String name = MetricRegistry.name("cause", cause, suffix);
+        Counter counter = causeCounters.get(name);
+        if (counter == null) {
+            Counter newCounter = new Counter();
+            counter = causeCounters.putIfAbsent(name, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+                MetricAddedListener listener = metricAddedListener;
+                if (listener != null) {
+                    listener.onMetricAdded(name, counter);
+                }
+            }
+        }
+        return counter;
+    }
+
+    private static String pauseName(String garbageCollectorName) {
+        return MetricRegistry.name(WHITESPACE.matcher(garbageCollectorName).replaceAll("-"), "pause");
+    }
+
+    private static boolean isYoungPool(String pool) {
+        return pool.contains("Eden") || "ZHeap".equals(pool) || "ZGC Young Generation".equals(pool);
+    }
+
+    private static boolean isOldPool(String pool) {
+        return pool.contains("Old Gen") || pool.contains("Tenured Gen");
+    }
+}
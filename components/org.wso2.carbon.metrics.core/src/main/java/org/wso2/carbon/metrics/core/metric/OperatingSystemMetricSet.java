@@ -21,33 +21,135 @@ import com.codahale.metrics.MetricSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.management.ManagementFactory;
 import java.lang.management.OperatingSystemMXBean;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
- * A set of gauges for Operating System usage, including stats on load average, cpu load, file descriptors etc
+ * A set of gauges for Operating System usage, including stats on load average, cpu load, file descriptors etc.
+ * <p>
+ * The platform specific attributes are resolved once as {@link MethodHandle}s bound to the MXBean. All values are
+ * sampled together in a single pass and the sampled values are reused by all gauges until the sample interval elapses.
+ * Therefore a reporting cycle reads the MXBean only once. The MXBean values are preferred, as the MXBean reports the
+ * container limits when the JVM runs in a container. On Linux, /proc/self/stat, /proc/self/status and /proc/meminfo
+ * are read only for the values, which are not available from the MXBean.
  */
 public class OperatingSystemMetricSet implements MetricSet {
 
     private static final Logger logger = LoggerFactory.getLogger(OperatingSystemMetricSet.class);
 
+    /**
+     * Public interfaces, which declare the platform specific attributes. The implementation classes are not
+     * accessible, but the methods can be looked up from these interfaces without {@code setAccessible}.
+     */
+    private static final String[] MX_BEAN_INTERFACES = {"com.sun.management.UnixOperatingSystemMXBean",
+            "com.sun.management.OperatingSystemMXBean"};
+
+    private static final long DEFAULT_SAMPLE_INTERVAL = 1;
+
+    private static final Path PROC = Paths.get("/proc");
+
+    /**
+     * The index of "vsize" field in /proc/self/stat, counted after the command name
+     */
+    private static final int PROC_STAT_VSIZE_INDEX = 20;
+
+    private static final long KILOBYTE = 1024L;
+
+    private static final int VIRTUAL_MEMORY = 0;
+
+    private static final int RESIDENT_MEMORY = 1;
+
+    private static final int TOTAL_PHYSICAL_MEMORY = 2;
+
+    private static final int FREE_PHYSICAL_MEMORY = 3;
+
+    private static final int TOTAL_SWAP_SPACE = 4;
+
+    private static final int FREE_SWAP_SPACE = 5;
+
     private final OperatingSystemMXBean mxBean;
 
+    private final long sampleIntervalNanos;
+
+    private final Path procDirectory;
+
+    private final List<String> longNames = new ArrayList<>();
+
+    private final List<MethodHandle> longHandles = new ArrayList<>();
+
+    private final List<String> doubleNames = new ArrayList<>();
+
+    private final List<MethodHandle> doubleHandles = new ArrayList<>();
+
+    private long[] longValues;
+
+    private double[] doubleValues;
+
+    private final long[] procValues = new long[6];
+
+    private double loadAverage;
+
+    private PseudoFileReader procStatReader;
+
+    private PseudoFileReader procStatusReader;
+
+    private PseudoFileReader memInfoReader;
+
+    /**
+     * The gauges are created only once, so that each file is opened only once for this set
+     */
+    private Map<String, Metric> metrics;
+
+    private long lastSampleTime;
+
+    private boolean sampled;
+
     public OperatingSystemMetricSet() {
         this(ManagementFactory.getOperatingSystemMXBean());
     }
 
     public OperatingSystemMetricSet(OperatingSystemMXBean mxBean) {
+        this(mxBean, System.getProperty("os.name", "").startsWith("Linux") ? PROC : null, DEFAULT_SAMPLE_INTERVAL,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Create Operating System metrics
+     *
+     * @param mxBean             The {@link OperatingSystemMXBean}
+     * @param procDirectory      The Linux proc file system used for the values, which are not available from the
+     *                           MXBean. This can be {@code null} to use only the MXBean.
+     * @param sampleInterval     The minimum interval between two samples. All gauges read within this interval get
+     *                           values from the same sample. This should be less than the reporting period.
+     * @param sampleIntervalUnit The {@link TimeUnit} for the sample interval
+     */
+    public OperatingSystemMetricSet(OperatingSystemMXBean mxBean, Path procDirectory, long sampleInterval,
+                                    TimeUnit sampleIntervalUnit) {
         this.mxBean = mxBean;
+        this.procDirectory = procDirectory;
+        this.sampleIntervalNanos = sampleIntervalUnit.toNanos(sampleInterval);
     }
 
     @Override
-    public Map<String, Metric> getMetrics() {
+    public synchronized Map<String, Metric> getMetrics() {
+        if (metrics == null) {
+            metrics = createMetrics();
+        }
+        return metrics;
+    }
+
+    private Map<String, Metric> createMetrics() {
         final Map<String, Metric> gauges = new HashMap<String, Metric>();
 
         double loadAverage = mxBean.getSystemLoadAverage();
@@ -55,7 +157,8 @@ public class OperatingSystemMetricSet implements MetricSet {
             gauges.put("system.load.average", new Gauge<Double>() {
                 @Override
                 public Double getValue() {
-                    return mxBean.getSystemLoadAverage();
+                    sample();
+                    return OperatingSystemMetricSet.this.loadAverage;
                 }
             });
         } else {
@@ -64,119 +167,195 @@ public class OperatingSystemMetricSet implements MetricSet {
             }
         }
 
-        Gauge<Long> openFileDescriptorCountGauge = getLongGauge("getOpenFileDescriptorCount");
-        if (openFileDescriptorCountGauge != null) {
-            gauges.put("file.descriptor.open.count", openFileDescriptorCountGauge);
-        }
+        addLongGauge(gauges, "file.descriptor.open.count", "getOpenFileDescriptorCount");
+        addLongGauge(gauges, "file.descriptor.max.count", "getMaxFileDescriptorCount");
+        addDoubleGauge(gauges, "cpu.load.process", "getProcessCpuLoad");
+        addDoubleGauge(gauges, "cpu.load.system", "getSystemCpuLoad");
 
-        Gauge<Long> maxFileDescriptorCountGauge = getLongGauge("getMaxFileDescriptorCount");
-        if (maxFileDescriptorCountGauge != null) {
-            gauges.put("file.descriptor.max.count", maxFileDescriptorCountGauge);
+        // The MXBean values are container aware. The proc file system is used only to fill the gaps.
+        if (!addLongGauge(gauges, "physical.memory.free.size", "getFreePhysicalMemorySize")) {
+            addMemInfoGauge(gauges, "physical.memory.free.size", FREE_PHYSICAL_MEMORY);
         }
-
-        Gauge<Double> processCpuLoadGauge = getDoubleGauge("getProcessCpuLoad");
-        if (processCpuLoadGauge != null) {
-            gauges.put("cpu.load.process", processCpuLoadGauge);
+        if (!addLongGauge(gauges, "physical.memory.total.size", "getTotalPhysicalMemorySize")) {
+            addMemInfoGauge(gauges, "physical.memory.total.size", TOTAL_PHYSICAL_MEMORY);
         }
-
-        Gauge<Double> systemCpuLoadGauge = getDoubleGauge("getSystemCpuLoad");
-        if (systemCpuLoadGauge != null) {
-            gauges.put("cpu.load.system", systemCpuLoadGauge);
+        if (!addLongGauge(gauges, "swap.space.free.size", "getFreeSwapSpaceSize")) {
+            addMemInfoGauge(gauges, "swap.space.free.size", FREE_SWAP_SPACE);
         }
-
-        Gauge<Long> freePhysicalMemorySizeGauge = getLongGauge("getFreePhysicalMemorySize");
-        if (freePhysicalMemorySizeGauge != null) {
-            gauges.put("physical.memory.free.size", freePhysicalMemorySizeGauge);
+        if (!addLongGauge(gauges, "swap.space.total.size", "getTotalSwapSpaceSize")) {
+            addMemInfoGauge(gauges, "swap.space.total.size", TOTAL_SWAP_SPACE);
         }
-
-        Gauge<Long> totalPhysicalMemorySizeGauge = getLongGauge("getTotalPhysicalMemorySize");
-        if (totalPhysicalMemorySizeGauge != null) {
-            gauges.put("physical.memory.total.size", totalPhysicalMemorySizeGauge);
+        if (!addLongGauge(gauges, "virtual.memory.committed.size", "getCommittedVirtualMemorySize")) {
+            PseudoFileReader reader = createReader("self/stat", 1024);
+            if (reader != null) {
+                procStatReader = reader;
+                addProcGauge(gauges, "virtual.memory.committed.size", VIRTUAL_MEMORY);
+            }
         }
+        // The resident set size is not available from the MXBean
+        PseudoFileReader reader = createReader("self/status", 4096);
+        if (reader != null) {
+            procStatusReader = reader;
+            addProcGauge(gauges, "physical.memory.resident.size", RESIDENT_MEMORY);
+        }
+
+        longValues = new long[longHandles.size()];
+        doubleValues = new double[doubleHandles.size()];
 
-        Gauge<Long> freeSwapSpaceSizeGauge = getLongGauge("getFreeSwapSpaceSize");
-        if (freeSwapSpaceSizeGauge != null) {
-            gauges.put("swap.space.free.size", freeSwapSpaceSizeGauge);
+        return Collections.unmodifiableMap(gauges);
+    }
+
+    private PseudoFileReader createReader(String file, int bufferSize) {
+        if (procDirectory == null) {
+            return null;
         }
+        Path path = procDirectory.resolve(file);
+        return PseudoFileReader.isReadable(path) ? new PseudoFileReader(path, bufferSize) : null;
+    }
 
-        Gauge<Long> totalSwapSpaceSizeGauge = getLongGauge("getTotalSwapSpaceSize");
-        if (totalSwapSpaceSizeGauge != null) {
-            gauges.put("swap.space.total.size", totalSwapSpaceSizeGauge);
+    private boolean addLongGauge(Map<String, Metric> gauges, String name, String methodName) {
+        MethodHandle handle = findHandle(methodName, long.class);
+        if (handle == null) {
+            return false;
         }
+        final int index = longHandles.size();
+        longNames.add(name);
+        longHandles.add(handle);
+        gauges.put(name, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                sample();
+                return longValues[index];
+            }
+        });
+        return true;
+    }
 
-        Gauge<Long> committedVirtualMemorySizeGauge = getLongGauge("getCommittedVirtualMemorySize");
-        if (committedVirtualMemorySizeGauge != null) {
-            gauges.put("virtual.memory.committed.size", committedVirtualMemorySizeGauge);
+    private void addDoubleGauge(Map<String, Metric> gauges, String name, String methodName) {
+        MethodHandle handle = findHandle(methodName, double.class);
+        if (handle != null) {
+            final int index = doubleHandles.size();
+            doubleNames.add(name);
+            doubleHandles.add(handle);
+            gauges.put(name, new Gauge<Double>() {
+                @Override
+                public Double getValue() {
+                    sample();
+                    return doubleValues[index];
+                }
+            });
         }
+    }
 
-        return Collections.unmodifiableMap(gauges);
+    private void addMemInfoGauge(Map<String, Metric> gauges, String name, int index) {
+        if (memInfoReader == null) {
+            memInfoReader = createReader("meminfo", 4096);
+        }
+        if (memInfoReader != null) {
+            addProcGauge(gauges, name, index);
+        }
     }
 
-    private Gauge<Long> getLongGauge(final String methodName) {
-        Object value = null;
-        try {
-            value = invokeMethod(methodName);
-        } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException
-                | InvocationTargetException e) {
-            // Ignore
-            if (logger.isTraceEnabled()) {
-                logger.trace(String.format("Error when invoking %s", methodName), e);
+    private void addProcGauge(Map<String, Metric> gauges, String name, final int index) {
+        gauges.put(name, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                sample();
+                return procValues[index];
             }
-        }
-        if (value != null) {
-            // Method is working
-            return new Gauge<Long>() {
-                @Override
-                public Long getValue() {
-                    return invokeLong(methodName);
+        });
+    }
+
+    /**
+     * Find a method in a public MXBean interface and bind it to the MXBean instance. The method is invoked once to
+     * make sure that it is working.
+     *
+     * @param methodName The name of the method without parameters
+     * @param returnType The primitive return type
+     * @return A {@link MethodHandle} without parameters or {@code null} if the method is not available
+     */
+    private MethodHandle findHandle(String methodName, Class<?> returnType) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (String interfaceName : MX_BEAN_INTERFACES) {
+            try {
+                Class<?> mxBeanInterface = Class.forName(interfaceName);
+                if (!mxBeanInterface.isInstance(mxBean)) {
+                    continue;
                 }
-            };
+                MethodHandle handle = lookup.findVirtual(mxBeanInterface, methodName,
+                        MethodType.methodType(returnType)).bindTo(mxBean)
+                        .asType(MethodType.methodType(returnType));
+                // Method is working
+                handle.invoke();
+                return handle;
+            } catch (Throwable e) {
+                // Ignore
+                if (logger.isTraceEnabled()) {
+                    logger.trace(String.format("Error when resolving %s from %s", methodName, interfaceName), e);
+                }
+            }
         }
         return null;
     }
 
-    private Gauge<Double> getDoubleGauge(final String methodName) {
-        Object value = null;
-        try {
-            value = invokeMethod(methodName);
-        } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException
-                | InvocationTargetException e) {
-            // Ignore
-            if (logger.isTraceEnabled()) {
-                logger.trace(String.format("Error when invoking %s", methodName), e);
-            }
+    /**
+     * Sample all values in one pass, unless the values were sampled within the sample interval
+     */
+    private synchronized void sample() {
+        long now = System.nanoTime();
+        if (sampled && now - lastSampleTime < sampleIntervalNanos) {
+            return;
         }
-        if (value != null) {
-            // Method is working
-            return new Gauge<Double>() {
-                @Override
-                public Double getValue() {
-                    return invokeDouble(methodName);
-                }
-            };
+        sampled = true;
+        lastSampleTime = now;
+
+        loadAverage = mxBean.getSystemLoadAverage();
+        for (int i = 0; i < longValues.length; i++) {
+            longValues[i] = invokeLong(longHandles.get(i), longNames.get(i));
+        }
+        for (int i = 0; i < doubleValues.length; i++) {
+            doubleValues[i] = invokeDouble(doubleHandles.get(i), doubleNames.get(i));
+        }
+        sampleProcFs();
+    }
+
+    private void sampleProcFs() {
+        if (procStatReader != null && procStatReader.read()) {
+            procValues[VIRTUAL_MEMORY] = procStatReader.getFieldAfterLast(')', PROC_STAT_VSIZE_INDEX);
+        }
+        if (procStatusReader != null && procStatusReader.read()) {
+            procValues[RESIDENT_MEMORY] = toBytes(procStatusReader.getLong("VmRSS:"));
+        }
+        if (memInfoReader != null && memInfoReader.read()) {
+            procValues[TOTAL_PHYSICAL_MEMORY] = toBytes(memInfoReader.getLong("MemTotal:"));
+            procValues[FREE_PHYSICAL_MEMORY] = toBytes(memInfoReader.getLong("MemFree:"));
+            procValues[TOTAL_SWAP_SPACE] = toBytes(memInfoReader.getLong("SwapTotal:"));
+            procValues[FREE_SWAP_SPACE] = toBytes(memInfoReader.getLong("SwapFree:"));
         }
-        return null;
     }
 
-    private Object invokeMethod(String methodName) throws NoSuchMethodException, SecurityException,
-            IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-        final Method method = mxBean.getClass().getDeclaredMethod(methodName);
-        method.setAccessible(true);
-        return method.invoke(mxBean);
+    private static long toBytes(long kiloBytes) {
+        return kiloBytes < 0 ? 0L : kiloBytes * KILOBYTE;
     }
 
-    private long invokeLong(String methodName) {
+    private static long invokeLong(MethodHandle handle, String name) {
         try {
-            return (Long) invokeMethod(methodName);
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return (long) handle.invokeExact();
+        } catch (Throwable e) {
+            if (logger.isTraceEnabled()) {
+                logger.trace(String.format("Error when sampling %s", name), e);
+            }
             return 0L;
         }
     }
 
-    private double invokeDouble(String methodName) {
+    private static double invokeDouble(MethodHandle handle, String name) {
         try {
-            return (Double) invokeMethod(methodName);
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return (double) handle.invokeExact();
+        } catch (Throwable e) {
+            if (logger.isTraceEnabled()) {
+                logger.trace(String.format("Error when sampling %s", name), e);
+            }
             return -1.0;
         }
     }
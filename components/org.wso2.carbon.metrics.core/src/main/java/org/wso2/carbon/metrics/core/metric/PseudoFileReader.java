@@ -0,0 +1,289 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.metric;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads small kernel pseudo files (procfs, cgroupfs) repeatedly. The file is kept open and each {@link #read()} reads
+ * the content again from the beginning into the same buffer, so that sampling neither re-opens the file nor allocates.
+ * <p>
+ * This class is not thread safe. Callers must synchronize the read and the parse methods.
+ */
+final class PseudoFileReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private final Path path;
+
+    private FileChannel channel;
+
+    private ByteBuffer buffer;
+
+    private int length;
+
+    PseudoFileReader(Path path) {
+        this(path, DEFAULT_BUFFER_SIZE);
+    }
+
+    PseudoFileReader(Path path, int bufferSize) {
+        this.path = path;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    static boolean isReadable(Path path) {
+        return Files.isReadable(path);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Read the whole content of the file into the buffer
+     *
+     * @return {@code true} if the file was read successfully
+     */
+    boolean read() {
+        length = 0;
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.READ);
+            }
+            buffer.clear();
+            long position = 0;
+            int count;
+            while ((count = channel.read(buffer, position)) > 0) {
+                position += count;
+                if (!buffer.hasRemaining()) {
+                    // The file is larger than the buffer. Double the buffer and keep it for the next reads.
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+            }
+            length = buffer.position();
+            return true;
+        } catch (IOException e) {
+            close();
+            return false;
+        }
+    }
+
+    /**
+     * Find the line starting with the given key and parse the first number after the key. This can be used with files
+     * like /proc/meminfo ("MemTotal:       16314380 kB") and cgroup stat files ("nr_throttled 10").
+     *
+     * @param key The key at the beginning of the line
+     * @return The value or {@code -1} if the key is not found
+     */
+    long getLong(String key) {
+        int offset = findLine(key);
+        if (offset < 0) {
+            return -1L;
+        }
+        return parseLong(offset + key.length());
+    }
+
+    /**
+     * Find the line starting with the given key and parse the number after the given field name in that line. This
+     * can be used with files like /proc/pressure/cpu ("some avg10=0.00 avg60=0.00 avg300=0.00 total=0").
+     *
+     * @param key   The key at the beginning of the line
+     * @param field The field name including the separator. eg. "avg10="
+     * @return The value or {@code -1} if the key or the field is not found
+     */
+    double getDouble(String key, String field) {
+        int offset = findLine(key);
+        if (offset < 0) {
+            return -1.0D;
+        }
+        int end = lineEnd(offset);
+        int fieldOffset = indexOf(field, offset, end);
+        if (fieldOffset < 0) {
+            return -1.0D;
+        }
+        return parseDouble(fieldOffset + field.length(), end);
+    }
+
+    /**
+     * Parse the first number in the file. "max" (used by cgroup v2 for unlimited values) is returned as {@code -1}.
+     *
+     * @return The value or {@code -1} if there is no number
+     */
+    long getFirstLong() {
+        return parseLong(0);
+    }
+
+    /**
+     * Parse the nth number in the first line of a file with space separated numbers, such as cgroup v2 "cpu.max"
+     * ("100000 100000").
+     *
+     * @param index The zero based index of the value
+     * @return The value or {@code -1} if there is no such value
+     */
+    long getLongAt(int index) {
+        return getField(index, 0);
+    }
+
+    /**
+     * Parse a space separated field after the last occurrence of the given character. This is used with
+     * /proc/self/stat, where the command name is enclosed in parenthesis and may contain spaces.
+     *
+     * @param afterChar The character after which the fields are counted
+     * @param index     The zero based index of the field after the character
+     * @return The value or {@code -1} if there is no such field
+     */
+    long getFieldAfterLast(char afterChar, int index) {
+        byte[] bytes = buffer.array();
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == afterChar) {
+                return getField(index, i + 1);
+            }
+        }
+        return -1L;
+    }
+
+    private long getField(int index, int from) {
+        byte[] bytes = buffer.array();
+        int i = from;
+        int field = -1;
+        boolean inField = false;
+        while (i < length && bytes[i] != '\n') {
+            boolean space = bytes[i] == ' ' || bytes[i] == '\t';
+            if (!space && !inField) {
+                field++;
+                if (field == index) {
+                    return parseLong(i);
+                }
+            }
+            inField = !space;
+            i++;
+        }
+        return -1L;
+    }
+
+    private int findLine(String key) {
+        int lineStart = 0;
+        while (lineStart < length) {
+            if (matches(key, lineStart)) {
+                return lineStart;
+            }
+            lineStart = lineEnd(lineStart) + 1;
+        }
+        return -1;
+    }
+
+    private boolean matches(String key, int offset) {
+        byte[] bytes = buffer.array();
+        int keyLength = key.length();
+        if (offset + keyLength > length) {
+            return false;
+        }
+        for (int i = 0; i < keyLength; i++) {
+            if (bytes[offset + i] != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(String key, int from, int to) {
+        for (int i = from; i + key.length() <= to; i++) {
+            if (matches(key, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lineEnd(int from) {
+        byte[] bytes = buffer.array();
+        int i = from;
+        while (i < length && bytes[i] != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private long parseLong(int from) {
+        byte[] bytes = buffer.array();
+        int i = from;
+        while (i < length && bytes[i] != '\n' && (bytes[i] < '0' || bytes[i] > '9')) {
+            if (bytes[i] == 'm' && matches("max", i)) {
+                return -1L;
+            }
+            i++;
+        }
+        if (i >= length || bytes[i] < '0' || bytes[i] > '9') {
+            return -1L;
+        }
+        // cgroup v1 uses "-1" for unlimited values
+        boolean negative = i > from && bytes[i - 1] == '-';
+        long value = 0;
+        while (i < length && bytes[i] >= '0' && bytes[i] <= '9') {
+            value = value * 10 + (bytes[i] - '0');
+            i++;
+        }
+        return negative ? -value : value;
+    }
+
+    private double parseDouble(int from, int to) {
+        byte[] bytes = buffer.array();
+        long value = 0;
+        long scale = 0;
+        int i = from;
+        boolean digits = false;
+        while (i < to) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                if (scale > 0) {
+                    scale *= 10;
+                }
+                digits = true;
+            } else if (b == '.' && scale == 0) {
+                scale = 1;
+            } else {
+                break;
+            }
+            i++;
+        }
+        if (!digits) {
+            return -1.0D;
+        }
+        return scale > 0 ? (double) value / scale : value;
+    }
+
+    @Override
+    public void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            channel = null;
+        }
+    }
+}
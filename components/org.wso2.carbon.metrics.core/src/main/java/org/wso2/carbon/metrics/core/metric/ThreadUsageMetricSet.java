@@ -0,0 +1,351 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.metric;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * A set of metrics for CPU usage and memory allocation of threads, aggregated by the thread name prefix. The prefix is
+ * the thread name without the trailing numbers. For example, the prefix of "http-nio-8080-exec-12" is
+ * "http-nio-8080-exec".
+ * <p>
+ * The following metrics are available for each prefix.
+ * <ul>
+ * <li>&lt;prefix&gt;.count: The number of live threads</li>
+ * <li>&lt;prefix&gt;.cpu.time: A meter marked with the CPU time used by the threads in nanoseconds</li>
+ * <li>&lt;prefix&gt;.cpu.usage: CPU time used by the threads as a fraction of one processor. The usage of each thread
+ * is measured between the last two reads of the thread.</li>
+ * <li>&lt;prefix&gt;.allocated.bytes: A meter marked with the bytes allocated by the threads</li>
+ * </ul>
+ * <p>
+ * The threads are sampled when a gauge is read and the sample is reused by all gauges within the sample interval. A
+ * sample uses the bulk methods in {@link com.sun.management.ThreadMXBean} and reads at most a configured number of
+ * threads. When there are more threads, the remaining threads are read in the next samples. The number of prefixes is
+ * also limited and threads with other prefixes are aggregated under "other".
+ */
+public class ThreadUsageMetricSet implements DynamicMetricSet {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThreadUsageMetricSet.class);
+
+    private static final int DEFAULT_MAX_THREADS_PER_SAMPLE = 1000;
+
+    private static final int DEFAULT_MAX_PREFIXES = 100;
+
+    private static final long DEFAULT_SAMPLE_INTERVAL = 1;
+
+    private static final String OTHER_PREFIX = "other";
+
+    private static final String UNNAMED_PREFIX = "unnamed";
+
+    private static final Pattern TRAILING_NUMBER = Pattern.compile("[\\s\\-_#:.]*\\d+$");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s.]+");
+
+    private final ThreadMXBean mxBean;
+
+    private final com.sun.management.ThreadMXBean extendedMXBean;
+
+    private final int maxThreadsPerSample;
+
+    private final int maxPrefixes;
+
+    private final long sampleIntervalNanos;
+
+    private final Map<Long, ThreadState> threads = new HashMap<>();
+
+    private final Map<String, PrefixUsage> prefixes = new HashMap<>();
+
+    private volatile MetricAddedListener metricAddedListener;
+
+    private boolean cpuTimeEnabled;
+
+    private boolean allocatedMemoryEnabled;
+
+    private long cycle;
+
+    private int cursor;
+
+    private long lastSampleTime;
+
+    private boolean sampled;
+
+    private static class ThreadState {
+        private final PrefixUsage prefixUsage;
+        private long cpuTime = -1L;
+        private long allocatedBytes = -1L;
+        private long lastSeenCycle;
+        /**
+         * The time when the CPU time was read. A thread may not be read in every sample.
+         */
+        private long cpuTimeReadTime;
+        /**
+         * The CPU usage between the last two reads of the CPU time
+         */
+        private double cpuUsage;
+
+        private ThreadState(PrefixUsage prefixUsage) {
+            this.prefixUsage = prefixUsage;
+        }
+    }
+
+    private static class PrefixUsage {
+        private final Meter cpuTime = new Meter();
+        private final Meter allocatedBytes = new Meter();
+        private volatile int count;
+        private volatile double cpuUsage;
+        private int currentCount;
+        private double currentCpuUsage;
+        private long cpuTimeDelta;
+        private long allocatedBytesDelta;
+    }
+
+    public ThreadUsageMetricSet() {
+        this(ManagementFactory.getThreadMXBean(), DEFAULT_MAX_THREADS_PER_SAMPLE, DEFAULT_MAX_PREFIXES,
+                DEFAULT_SAMPLE_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Create thread usage metrics
+     *
+     * @param mxBean              The {@link ThreadMXBean}
+     * @param maxThreadsPerSample Maximum number of threads read in one sample
+     * @param maxPrefixes         Maximum number of thread name prefixes
+     * @param sampleInterval      The minimum interval between two samples. This should be less than the reporting
+     *                            period.
+     * @param sampleIntervalUnit  The {@link TimeUnit} for the sample interval
+     */
+    public ThreadUsageMetricSet(ThreadMXBean mxBean, int maxThreadsPerSample, int maxPrefixes, long sampleInterval,
+                                TimeUnit sampleIntervalUnit) {
+        if (maxThreadsPerSample <= 0 || maxPrefixes <= 0) {
+            throw new IllegalArgumentException("Maximum threads per sample and maximum prefixes should be positive");
+        }
+        this.mxBean = mxBean;
+        this.extendedMXBean = mxBean instanceof com.sun.management.ThreadMXBean ?
+                (com.sun.management.ThreadMXBean) mxBean : null;
+        this.maxThreadsPerSample = maxThreadsPerSample;
+        this.maxPrefixes = maxPrefixes;
+        this.sampleIntervalNanos = sampleIntervalUnit.toNanos(sampleInterval);
+    }
+
+    @Override
+    public synchronized Map<String, Metric> getMetrics() {
+        final Map<String, Metric> metrics = new HashMap<String, Metric>();
+        if (extendedMXBean == null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Thread CPU time and allocated memory are not available");
+            }
+            return metrics;
+        }
+        cpuTimeEnabled = mxBean.isThreadCpuTimeSupported() && mxBean.isThreadCpuTimeEnabled();
+        allocatedMemoryEnabled = extendedMXBean.isThreadAllocatedMemorySupported()
+                && extendedMXBean.isThreadAllocatedMemoryEnabled();
+        if (!cpuTimeEnabled && !allocatedMemoryEnabled) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Thread CPU time and allocated memory are disabled");
+            }
+            return metrics;
+        }
+        // Initial sample to find the thread name prefixes
+        sample();
+        prefixes.forEach((prefix, prefixUsage) -> addMetrics(metrics, prefix, prefixUsage));
+        return metrics;
+    }
+
+    @Override
+    public void setMetricAddedListener(MetricAddedListener listener) {
+        this.metricAddedListener = listener;
+    }
+
+    private void addMetrics(Map<String, Metric> metrics, String prefix, PrefixUsage prefixUsage) {
+        metrics.put(MetricRegistry.name(prefix, "count"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                sample();
+                return prefixUsage.count;
+            }
+        });
+        if (cpuTimeEnabled) {
+            metrics.put(MetricRegistry.name(prefix, "cpu.time"), prefixUsage.cpuTime);
+            metrics.put(MetricRegistry.name(prefix, "cpu.usage"), new Gauge<Double>() {
+                @Override
+                public Double getValue() {
+                    sample();
+                    return prefixUsage.cpuUsage;
+                }
+            });
+        }
+        if (allocatedMemoryEnabled) {
+            metrics.put(MetricRegistry.name(prefix, "allocated.bytes"), prefixUsage.allocatedBytes);
+        }
+    }
+
+    /**
+     * Sample the threads, unless the threads were sampled within the sample interval
+     */
+    private synchronized void sample() {
+        long now = System.nanoTime();
+        if (sampled && now - lastSampleTime < sampleIntervalNanos) {
+            return;
+        }
+        sampled = true;
+        lastSampleTime = now;
+        cycle++;
+
+        long[] threadIds = mxBean.getAllThreadIds();
+        long[] batch = nextBatch(threadIds);
+
+        // Resolve prefixes only for new threads
+        int unknownCount = 0;
+        long[] unknownIds = new long[batch.length];
+        for (long threadId : batch) {
+            if (!threads.containsKey(threadId)) {
+                unknownIds[unknownCount++] = threadId;
+            }
+        }
+        if (unknownCount > 0) {
+            long[] ids = new long[unknownCount];
+            System.arraycopy(unknownIds, 0, ids, 0, unknownCount);
+            ThreadInfo[] threadInfos = mxBean.getThreadInfo(ids);
+            for (ThreadInfo threadInfo : threadInfos) {
+                if (threadInfo != null) {
+                    threads.put(threadInfo.getThreadId(),
+                            new ThreadState(getPrefixUsage(getPrefix(threadInfo.getThreadName()))));
+                }
+            }
+        }
+
+        long[] cpuTimes = cpuTimeEnabled ? extendedMXBean.getThreadCpuTime(batch) : null;
+        long[] allocatedBytes = allocatedMemoryEnabled ? extendedMXBean.getThreadAllocatedBytes(batch) : null;
+        for (int i = 0; i < batch.length; i++) {
+            ThreadState threadState = threads.get(batch[i]);
+            if (threadState == null) {
+                continue;
+            }
+            PrefixUsage prefixUsage = threadState.prefixUsage;
+            if (cpuTimes != null && cpuTimes[i] >= 0) {
+                if (threadState.cpuTime >= 0) {
+                    long cpuTimeDelta = Math.max(cpuTimes[i] - threadState.cpuTime, 0L);
+                    prefixUsage.cpuTimeDelta += cpuTimeDelta;
+                    // The delta is accumulated since the thread was read last time, which may be several samples ago
+                    long elapsedTime = now - threadState.cpuTimeReadTime;
+                    threadState.cpuUsage = elapsedTime > 0 ? (double) cpuTimeDelta / elapsedTime : 0.0D;
+                }
+                threadState.cpuTime = cpuTimes[i];
+                threadState.cpuTimeReadTime = now;
+            }
+            if (allocatedBytes != null && allocatedBytes[i] >= 0) {
+                if (threadState.allocatedBytes >= 0 && allocatedBytes[i] > threadState.allocatedBytes) {
+                    prefixUsage.allocatedBytesDelta += allocatedBytes[i] - threadState.allocatedBytes;
+                }
+                threadState.allocatedBytes = allocatedBytes[i];
+            }
+        }
+
+        // Count live threads and forget the terminated threads
+        for (long threadId : threadIds) {
+            ThreadState threadState = threads.get(threadId);
+            if (threadState != null) {
+                threadState.lastSeenCycle = cycle;
+                threadState.prefixUsage.currentCount++;
+                // The last known usage is used for the threads, which were not read in this sample
+                threadState.prefixUsage.currentCpuUsage += threadState.cpuUsage;
+            }
+        }
+        Iterator<ThreadState> iterator = threads.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().lastSeenCycle != cycle) {
+                iterator.remove();
+            }
+        }
+
+        for (PrefixUsage prefixUsage : prefixes.values()) {
+            prefixUsage.count = prefixUsage.currentCount;
+            prefixUsage.currentCount = 0;
+            if (prefixUsage.cpuTimeDelta > 0) {
+                prefixUsage.cpuTime.mark(prefixUsage.cpuTimeDelta);
+            }
+            if (prefixUsage.allocatedBytesDelta > 0) {
+                prefixUsage.allocatedBytes.mark(prefixUsage.allocatedBytesDelta);
+            }
+            prefixUsage.cpuUsage = prefixUsage.currentCpuUsage;
+            prefixUsage.currentCpuUsage = 0.0D;
+            prefixUsage.cpuTimeDelta = 0;
+            prefixUsage.allocatedBytesDelta = 0;
+        }
+    }
+
+    /**
+     * Get the threads to be read in this sample. If there are too many threads, a different window of threads is
+     * returned in each sample.
+     */
+    private long[] nextBatch(long[] threadIds) {
+        if (threadIds.length <= maxThreadsPerSample) {
+            return threadIds;
+        }
+        long[] batch = new long[maxThreadsPerSample];
+        if (cursor >= threadIds.length) {
+            cursor = 0;
+        }
+        for (int i = 0; i < maxThreadsPerSample; i++) {
+            batch[i] = threadIds[(cursor + i) % threadIds.length];
+        }
+        cursor = (cursor + maxThreadsPerSample) % threadIds.length;
+        return batch;
+    }
+
+    private PrefixUsage getPrefixUsage(String prefix) {
+        PrefixUsage prefixUsage = prefixes.get(prefix);
+        if (prefixUsage == null) {
+            if (prefixes.size() >= maxPrefixes - 1 && !OTHER_PREFIX.equals(prefix)) {
+                return getPrefixUsage(OTHER_PREFIX);
+            }
+            prefixUsage = new PrefixUsage();
+            prefixes.put(prefix, prefixUsage);
+            MetricAddedListener listener = metricAddedListener;
+            if (listener != null) {
+                Map<String, Metric> metrics = new HashMap<>();
+                addMetrics(metrics, prefix, prefixUsage);
+                metrics.forEach(listener::onMetricAdded);
+            }
+        }
+        return prefixUsage;
+    }
+
+    private static String getPrefix(String threadName) {
+        String prefix = threadName != null ? threadName.trim() : "";
+        String previous;
+        do {
+            previous = prefix;
+            prefix = TRAILING_NUMBER.matcher(prefix).replaceFirst("");
+        } while (!prefix.equals(previous));
+        prefix = SEPARATORS.matcher(prefix).replaceAll("-");
+        return prefix.isEmpty() ? UNNAMED_PREFIX : prefix;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.reporter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches metric names with a set of glob patterns. A {@code *} matches any sequence of characters, including the
+ * dots, and a {@code ?} matches any single character. For example, {@code jvm.*} matches all metrics under
+ * {@code jvm}.
+ * <p>
+ * All patterns are compiled into a single trie, so that the common prefixes of the patterns are compared only once.
+ */
+final class GlobMatcher {
+
+    /**
+     * A node in the trie
+     */
+    private static class Node {
+
+        private final Map<Character, Node> children = new HashMap<>();
+
+        /**
+         * The node after a {@code ?}
+         */
+        private Node any;
+
+        /**
+         * The node after a {@code *}
+         */
+        private Node star;
+
+        /**
+         * Whether a pattern ends at this node
+         */
+        private boolean terminal;
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * @param patterns The glob patterns
+     */
+    GlobMatcher(List<String> patterns) {
+        for (String pattern : patterns) {
+            Node node = root;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '*') {
+                    // Consecutive stars are same as a single star
+                    if (i == 0 || pattern.charAt(i - 1) != '*') {
+                        if (node.star == null) {
+                            node.star = new Node();
+                        }
+                        node = node.star;
+                    }
+                } else if (c == '?') {
+                    if (node.any == null) {
+                        node.any = new Node();
+                    }
+                    node = node.any;
+                } else {
+                    node = node.children.computeIfAbsent(c, k -> new Node());
+                }
+            }
+            node.terminal = true;
+        }
+    }
+
+    /**
+     * @param name The metric name
+     * @return {@code true} if the name matches any of the patterns
+     */
+    boolean matches(String name) {
+        return matches(root, name, 0);
+    }
+
+    private static boolean matches(Node node, String name, int index) {
+        if (index == name.length()) {
+            if (node.terminal) {
+                return true;
+            }
+        } else {
+            Node child = node.children.get(name.charAt(index));
+            if (child != null && matches(child, name, index + 1)) {
+                return true;
+            }
+            if (node.any != null && matches(node.any, name, index + 1)) {
+                return true;
+            }
+        }
+        if (node.star != null) {
+            for (int i = index; i <= name.length(); i++) {
+                if (matches(node.star, name, i)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
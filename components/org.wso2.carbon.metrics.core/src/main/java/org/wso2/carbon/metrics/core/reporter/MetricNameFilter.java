@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.reporter;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link MetricFilter} to select the metrics of a reporter by name. A metric matches the filter if it matches the
+ * given filter, matches any of the include patterns (or there are no include patterns) and does not match any of the
+ * exclude patterns. The patterns are globs as described in {@link GlobMatcher}.
+ * <p>
+ * The result of the patterns is cached for each metric name, so that the patterns are matched only once for each
+ * metric. The given filter is checked every time, since the enabled status of a metric may change.
+ */
+public class MetricNameFilter implements MetricFilter {
+
+    /**
+     * The maximum number of cached results. The cache is cleared when the limit is reached, so that the results of
+     * removed metrics are not kept forever.
+     */
+    private static final int MAX_CACHE_SIZE = 100000;
+
+    private final MetricFilter metricFilter;
+
+    private final GlobMatcher includes;
+
+    private final GlobMatcher excludes;
+
+    private final ConcurrentMap<String, Boolean> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param metricFilter The filter to check before the patterns
+     * @param includes     The patterns of the metrics to include. All metrics are included if this is empty.
+     * @param excludes     The patterns of the metrics to exclude
+     */
+    public MetricNameFilter(MetricFilter metricFilter, List<String> includes, List<String> excludes) {
+        this.metricFilter = metricFilter;
+        this.includes = includes.isEmpty() ? null : new GlobMatcher(includes);
+        this.excludes = excludes.isEmpty() ? null : new GlobMatcher(excludes);
+    }
+
+    @Override
+    public boolean matches(String name, Metric metric) {
+        if (!metricFilter.matches(name, metric)) {
+            return false;
+        }
+        Boolean matches = cache.get(name);
+        if (matches == null) {
+            matches = (includes == null || includes.matches(name)) && (excludes == null || !excludes.matches(name));
+            if (cache.size() >= MAX_CACHE_SIZE) {
+                cache.clear();
+            }
+            cache.put(name, matches);
+        }
+        return matches;
+    }
+}
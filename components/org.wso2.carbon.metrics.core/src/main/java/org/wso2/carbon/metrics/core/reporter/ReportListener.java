@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015 WSO2 Inc. (http://wso2.org)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.reporter;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+
+import java.util.SortedMap;
+
+/**
+ * A listener for the metrics collected in each report of a scheduled reporter. This allows other components to use
+ * the values without collecting the metrics from the registry again.
+ */
+@FunctionalInterface
+public interface ReportListener {
+
+    /**
+     * Called after each report with the metrics collected for the report
+     *
+     * @param timestamp  The reporting time in milliseconds
+     * @param gauges     The gauges in the report
+     * @param counters   The counters in the report
+     * @param histograms The histograms in the report
+     * @param meters     The meters in the report
+     * @param timers     The timers in the report
+     */
+    @SuppressWarnings("rawtypes")
+    void reported(long timestamp, SortedMap<String, Gauge> gauges, SortedMap<String, Counter> counters,
+                  SortedMap<String, Histogram> histograms, SortedMap<String, Meter> meters,
+                  SortedMap<String, Timer> timers);
+}
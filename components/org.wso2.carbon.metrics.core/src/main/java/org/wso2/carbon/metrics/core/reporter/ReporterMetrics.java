@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.reporter;
+
+import org.wso2.carbon.metrics.core.Counter;
+import org.wso2.carbon.metrics.core.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics to measure the reports of a scheduled reporter. The metrics are registered by the Metric Service under
+ * {@code metrics.reporter.<name>} with the following names.
+ * <ul>
+ * <li>{@code report}: The duration of a reporting cycle</li>
+ * <li>{@code collection}: The time to collect the enabled metrics from the registry</li>
+ * <li>{@code serialization}: The time to serialize the values, if the reporter measures it separately</li>
+ * <li>{@code write}: The time to write the values to the destination, including the serialization</li>
+ * <li>{@code items}: The number of metrics reported</li>
+ * <li>{@code errors}: The number of failed reporting cycles, including the cycles in which the reporter could not
+ * write some values and spooled or dropped them</li>
+ * <li>{@code dropped}: The number of records, which the reporter could neither write nor spool</li>
+ * <li>{@code lag}: The time in milliseconds since the last successful reporting cycle</li>
+ * </ul>
+ */
+public class ReporterMetrics {
+
+    public static final String PREFIX = "metrics.reporter";
+
+    private final Timer report;
+
+    private final Timer collection;
+
+    private final Timer serialization;
+
+    private final Timer write;
+
+    private final Counter items;
+
+    private final Counter errors;
+
+    private final Counter dropped;
+
+    private volatile long lastReportTime = System.currentTimeMillis();
+
+    public ReporterMetrics(Timer report, Timer collection, Timer serialization, Timer write, Counter items,
+                           Counter errors, Counter dropped) {
+        this.report = report;
+        this.collection = collection;
+        this.serialization = serialization;
+        this.write = write;
+        this.items = items;
+        this.errors = errors;
+        this.dropped = dropped;
+    }
+
+    /**
+     * Record a successful reporting cycle
+     *
+     * @param collectionTime The time to collect the metrics in nanoseconds
+     * @param writeTime      The time to write the values in nanoseconds
+     * @param count          The number of metrics reported
+     */
+    public void recordReport(long collectionTime, long writeTime, long count) {
+        recordTimes(collectionTime, writeTime);
+        items.inc(count);
+        lastReportTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Record a reporting cycle, which completed without writing all values to the destination
+     *
+     * @param collectionTime The time to collect the metrics in nanoseconds
+     * @param writeTime      The time to write the values in nanoseconds
+     * @param droppedCount   The number of records, which were neither written nor spooled
+     */
+    public void recordFailedReport(long collectionTime, long writeTime, long droppedCount) {
+        recordTimes(collectionTime, writeTime);
+        errors.inc();
+        dropped.inc(droppedCount);
+    }
+
+    private void recordTimes(long collectionTime, long writeTime) {
+        collection.update(collectionTime, TimeUnit.NANOSECONDS);
+        write.update(writeTime, TimeUnit.NANOSECONDS);
+        report.update(collectionTime + writeTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the time to serialize the values in a reporting cycle
+     *
+     * @param serializationTime The time in nanoseconds
+     */
+    public void recordSerialization(long serializationTime) {
+        serialization.update(serializationTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record a failed reporting cycle
+     */
+    public void recordError() {
+        errors.inc();
+    }
+
+    /**
+     * @return The time in milliseconds since the last successful reporting cycle
+     */
+    public long getLag() {
+        return System.currentTimeMillis() - lastReportTime;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.reporter;
+
+import com.codahale.metrics.Clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The schedule of a scheduled reporter. When the schedule is aligned, the reporter reports at the wall-clock
+ * boundaries of the period (For example: at the start of every minute for a period of 60 seconds) and the reporting
+ * time is rounded to the boundary. An offset within the jitter can be added to the boundaries, so that all nodes do
+ * not report at the same time.
+ */
+public final class ReportingSchedule {
+
+    private final long period;
+
+    private final boolean aligned;
+
+    private final long jitter;
+
+    /**
+     * @param period The polling period in seconds
+     */
+    public ReportingSchedule(long period) {
+        this(period, false, 0);
+    }
+
+    /**
+     * @param period  The polling period in seconds
+     * @param aligned Whether to align reporting to the wall-clock boundaries of the period
+     * @param jitter  The maximum offset in seconds from the boundaries. This must be less than the period.
+     */
+    public ReportingSchedule(long period, boolean aligned, long jitter) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Polling period must be a positive number");
+        }
+        if (jitter < 0 || (jitter > 0 && jitter >= period)) {
+            throw new IllegalArgumentException("Jitter must be a non-negative number less than the polling period");
+        }
+        this.period = period;
+        this.aligned = aligned;
+        this.jitter = jitter;
+    }
+
+    /**
+     * @return The polling period in seconds
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    public boolean isAligned() {
+        return aligned;
+    }
+
+    /**
+     * @return The maximum offset in seconds from the boundaries
+     */
+    public long getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Get the offset from the boundaries for a node. The offset is always the same for the same node.
+     *
+     * @param node A value to identify the node and the reporter
+     * @return The offset in milliseconds
+     */
+    public long getOffset(String node) {
+        if (!aligned || jitter == 0) {
+            return 0L;
+        }
+        // Spread the hash codes, which may be close to each other for similar host names
+        long hash = node.hashCode() * 0x9E3779B97F4A7C15L;
+        return Math.floorMod(hash ^ (hash >>> 32), TimeUnit.SECONDS.toMillis(jitter));
+    }
+
+    /**
+     * Get the delay to the next reporting time
+     *
+     * @param time   The current time in milliseconds
+     * @param offset The offset in milliseconds from the boundaries
+     * @return The delay in milliseconds
+     */
+    public long getDelay(long time, long offset) {
+        long periodMillis = TimeUnit.SECONDS.toMillis(period);
+        return periodMillis - Math.floorMod(time - offset, periodMillis);
+    }
+
+    /**
+     * Get the reporting time rounded to the boundary
+     *
+     * @param time   The time in milliseconds
+     * @param offset The offset in milliseconds from the boundaries
+     * @return The last boundary in milliseconds
+     */
+    public long getAlignedTime(long time, long offset) {
+        return time - Math.floorMod(time - offset, TimeUnit.SECONDS.toMillis(period)) - offset;
+    }
+
+    /**
+     * Get a clock, which returns the reporting time rounded to the boundary, if the schedule is aligned
+     *
+     * @param offset The offset in milliseconds from the boundaries
+     * @return The clock for the reporter
+     */
+    public Clock getClock(long offset) {
+        if (!aligned) {
+            return Clock.defaultClock();
+        }
+        final Clock clock = Clock.defaultClock();
+        return new Clock() {
+            @Override
+            public long getTick() {
+                return clock.getTick();
+            }
+
+            @Override
+            public long getTime() {
+                return getAlignedTime(clock.getTime(), offset);
+            }
+        };
+    }
+}
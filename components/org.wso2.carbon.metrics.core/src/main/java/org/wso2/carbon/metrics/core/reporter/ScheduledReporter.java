@@ -22,4 +22,20 @@ public interface ScheduledReporter extends Reporter {
 
     void report();
 
+    /**
+     * Set the metrics to measure the reports of this reporter. The reports are not measured by default.
+     *
+     * @param reporterMetrics The {@link ReporterMetrics} registered for this reporter
+     */
+    default void setReporterMetrics(ReporterMetrics reporterMetrics) {
+    }
+
+    /**
+     * Set a listener for the metrics collected in each report
+     *
+     * @param reportListener The {@link ReportListener}
+     */
+    default void setReportListener(ReportListener reportListener) {
+    }
+
 }
@@ -21,7 +21,8 @@ import org.wso2.carbon.metrics.core.reporter.Reporter;
 
 /**
  * This abstract reporter implements {@link Reporter#start()} and {@link Reporter#stop()} methods. This class makes sure
- * that the reporter will not be started again if it is already running.
+ * that the reporter will not be started again if it is already running, even when it is started from several
+ * threads.
  *
  * @see Reporter
  */
@@ -48,7 +49,7 @@ public abstract class AbstractReporter implements Reporter {
     }
 
     @Override
-    public final void start() {
+    public final synchronized void start() {
         if (!running) {
             startReporter();
             running = true;
@@ -61,7 +62,7 @@ public abstract class AbstractReporter implements Reporter {
     public abstract void startReporter();
 
     @Override
-    public final void stop() {
+    public final synchronized void stop() {
         if (running) {
             stopReporter();
             running = false;
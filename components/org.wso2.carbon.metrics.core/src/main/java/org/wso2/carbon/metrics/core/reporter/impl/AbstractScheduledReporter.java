@@ -0,0 +1,280 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.reporter.impl;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.internal.Utils;
+import org.wso2.carbon.metrics.core.reporter.ReportListener;
+import org.wso2.carbon.metrics.core.reporter.ReporterMetrics;
+import org.wso2.carbon.metrics.core.reporter.ReportingSchedule;
+import org.wso2.carbon.metrics.core.reporter.ScheduledReporter;
+import org.wso2.carbon.metrics.core.task.MetricsThreads;
+
+import java.util.Locale;
+import java.util.SortedMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This abstract reporter starts the underlying scheduled reporter according to the {@link ReportingSchedule}. When
+ * the schedule is aligned, the reports are scheduled at the wall-clock boundaries of the period with the offset for
+ * this node, and the clock for the reporter returns the time rounded to the boundary.
+ * <p>
+ * The reports are run by this class instead of the underlying reporter, so that each report can be measured with the
+ * {@link ReporterMetrics} of this reporter and the collected metrics can be passed to a {@link ReportListener}. An
+ * underlying reporter, which handles the errors of the destination itself, should notify {@link #recordFailure(long)}
+ * so that the cycle is counted as failed.
+ */
+public abstract class AbstractScheduledReporter extends AbstractReporter implements ScheduledReporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractScheduledReporter.class);
+
+    private final MetricRegistry metricRegistry;
+
+    private final MetricFilter metricFilter;
+
+    private final ReportingSchedule schedule;
+
+    // The offset and the clock are created when first used. See getClock()
+    private volatile long offset;
+
+    private volatile Clock clock;
+
+    private ScheduledExecutorService executor;
+
+    private volatile ReporterMetrics reporterMetrics;
+
+    private volatile ReportListener reportListener;
+
+    // The failure of the current report. These are accessed only by the thread running the report.
+    private boolean reportFailed;
+
+    private long droppedRecords;
+
+    public AbstractScheduledReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter,
+                                     ReportingSchedule schedule) {
+        super(name);
+        this.metricRegistry = metricRegistry;
+        this.metricFilter = metricFilter;
+        this.schedule = schedule;
+    }
+
+    protected MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+
+    protected MetricFilter getMetricFilter() {
+        return metricFilter;
+    }
+
+    public ReportingSchedule getSchedule() {
+        return schedule;
+    }
+
+    @Override
+    public void setReporterMetrics(ReporterMetrics reporterMetrics) {
+        this.reporterMetrics = reporterMetrics;
+    }
+
+    @Override
+    public void setReportListener(ReportListener reportListener) {
+        this.reportListener = reportListener;
+    }
+
+    /**
+     * Record the time to serialize the values, if the underlying reporter measures it separately
+     *
+     * @param serializationTime The time in nanoseconds
+     */
+    protected void recordSerialization(long serializationTime) {
+        ReporterMetrics reporterMetrics = this.reporterMetrics;
+        if (reporterMetrics != null) {
+            reporterMetrics.recordSerialization(serializationTime);
+        }
+    }
+
+    /**
+     * Notify that the underlying reporter could not write some values in the current report. The report is recorded
+     * as a failed reporting cycle.
+     *
+     * @param dropped The number of records, which were neither written nor spooled
+     */
+    protected void recordFailure(long dropped) {
+        reportFailed = true;
+        droppedRecords += dropped;
+    }
+
+    /**
+     * Report the values of the enabled metrics with the given scheduled reporter
+     *
+     * @param reporter The underlying reporter
+     */
+    @SuppressWarnings("rawtypes")
+    protected void report(com.codahale.metrics.ScheduledReporter reporter) {
+        ReporterMetrics reporterMetrics = this.reporterMetrics;
+        ReportListener reportListener = this.reportListener;
+        if (reporterMetrics == null && reportListener == null) {
+            reporter.report();
+            return;
+        }
+        // Same as the underlying reporter, but the collection and the write are measured separately
+        synchronized (reporter) {
+            SortedMap<String, Gauge> gauges;
+            SortedMap<String, Counter> counters;
+            SortedMap<String, Histogram> histograms;
+            SortedMap<String, Meter> meters;
+            SortedMap<String, Timer> timers;
+            try {
+                long start = System.nanoTime();
+                gauges = metricRegistry.getGauges(metricFilter);
+                counters = metricRegistry.getCounters(metricFilter);
+                histograms = metricRegistry.getHistograms(metricFilter);
+                meters = metricRegistry.getMeters(metricFilter);
+                timers = metricRegistry.getTimers(metricFilter);
+                long collected = System.nanoTime();
+                reportFailed = false;
+                droppedRecords = 0;
+                reporter.report(gauges, counters, histograms, meters, timers);
+                long written = System.nanoTime();
+                if (reporterMetrics != null && reportFailed) {
+                    reporterMetrics.recordFailedReport(collected - start, written - collected, droppedRecords);
+                } else if (reporterMetrics != null) {
+                    reporterMetrics.recordReport(collected - start, written - collected,
+                            gauges.size() + counters.size() + histograms.size() + meters.size() + timers.size());
+                }
+            } catch (RuntimeException e) {
+                if (reporterMetrics != null) {
+                    reporterMetrics.recordError();
+                }
+                throw e;
+            }
+            if (reportListener != null) {
+                // The values are passed to the listener even if the destination failed
+                reportListener.reported(getClock().getTime(), gauges, counters, histograms, meters, timers);
+            }
+        }
+    }
+
+    /**
+     * @return The clock for the underlying reporter
+     */
+    protected Clock getClock() {
+        Clock clock = this.clock;
+        if (clock == null) {
+            clock = createClock();
+        }
+        return clock;
+    }
+
+    /**
+     * Create the clock with the offset for this node. The offset depends on the host name, which may need a slow DNS
+     * lookup. Therefore the host name is looked up only if the schedule is aligned with a jitter.
+     */
+    private synchronized Clock createClock() {
+        if (clock == null) {
+            offset = schedule.isAligned() && schedule.getJitter() > 0
+                    ? schedule.getOffset(Utils.getDefaultSource() + ":" + getName()) : 0L;
+            clock = schedule.getClock(offset);
+        }
+        return clock;
+    }
+
+    /**
+     * @return The offset in milliseconds from the boundaries of the schedule
+     */
+    private long getOffset() {
+        // The offset is set before the clock
+        getClock();
+        return offset;
+    }
+
+    /**
+     * Start reporting with the given scheduled reporter
+     *
+     * @param reporter The underlying reporter
+     */
+    protected void schedule(com.codahale.metrics.ScheduledReporter reporter) {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> MetricsThreads.newThread(null, runnable,
+                "metrics-" + getName().toLowerCase(Locale.US) + "-reporter"));
+        if (!schedule.isAligned()) {
+            long period = schedule.getPeriod();
+            executor.scheduleAtFixedRate(() -> runReport(reporter), period, period, TimeUnit.SECONDS);
+            return;
+        }
+        scheduleNext(executor, reporter);
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format("Scheduled %s reporter at the boundaries of %d seconds with %d ms offset",
+                    getName(), schedule.getPeriod(), getOffset()));
+        }
+    }
+
+    /**
+     * Schedule each report separately to follow the wall-clock, even if the clock is adjusted
+     */
+    private void scheduleNext(ScheduledExecutorService executor, com.codahale.metrics.ScheduledReporter reporter) {
+        long delay = schedule.getDelay(System.currentTimeMillis(), getOffset());
+        executor.schedule(() -> {
+            try {
+                runReport(reporter);
+            } finally {
+                try {
+                    scheduleNext(executor, reporter);
+                } catch (RejectedExecutionException e) {
+                    // The reporter is stopped
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void runReport(com.codahale.metrics.ScheduledReporter reporter) {
+        try {
+            report(reporter);
+        } catch (RuntimeException e) {
+            // The scheduled reports must continue
+            logger.error(String.format("Error when reporting with %s reporter", getName()), e);
+        }
+    }
+
+    /**
+     * Stop reporting with the given scheduled reporter
+     *
+     * @param reporter The underlying reporter
+     */
+    protected void unschedule(com.codahale.metrics.ScheduledReporter reporter) {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                // Wait for a report in progress
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+        reporter.stop();
+    }
+}
@@ -17,48 +17,45 @@ package org.wso2.carbon.metrics.core.reporter.impl;
 
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
-import org.wso2.carbon.metrics.core.reporter.ScheduledReporter;
+import org.wso2.carbon.metrics.core.reporter.ReportingSchedule;
 
 import java.util.concurrent.TimeUnit;
 
 /**
  * A reporter which outputs measurements to console
  */
-public class ConsoleReporter extends AbstractReporter implements ScheduledReporter {
-
-    private final MetricRegistry metricRegistry;
-
-    private final MetricFilter metricFilter;
-
-    private final long pollingPeriod;
+public class ConsoleReporter extends AbstractScheduledReporter {
 
     private com.codahale.metrics.ConsoleReporter consoleReporter;
 
     public ConsoleReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter, long pollingPeriod) {
-        super(name);
-        this.metricRegistry = metricRegistry;
-        this.metricFilter = metricFilter;
-        this.pollingPeriod = pollingPeriod;
+        this(name, metricRegistry, metricFilter, new ReportingSchedule(pollingPeriod));
+    }
+
+    public ConsoleReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter,
+                           ReportingSchedule schedule) {
+        super(name, metricRegistry, metricFilter, schedule);
     }
 
     @Override
     public void report() {
         if (consoleReporter != null) {
-            consoleReporter.report();
+            report(consoleReporter);
         }
     }
 
     @Override
     public void startReporter() {
-        consoleReporter = com.codahale.metrics.ConsoleReporter.forRegistry(metricRegistry).filter(metricFilter)
-                .convertRatesTo(TimeUnit.SECONDS).convertDurationsTo(TimeUnit.MILLISECONDS).build();
-        consoleReporter.start(pollingPeriod, TimeUnit.SECONDS);
+        consoleReporter = com.codahale.metrics.ConsoleReporter.forRegistry(getMetricRegistry())
+                .filter(getMetricFilter()).convertRatesTo(TimeUnit.SECONDS).convertDurationsTo(TimeUnit.MILLISECONDS)
+                .withClock(getClock()).build();
+        schedule(consoleReporter);
     }
 
     @Override
     public void stopReporter() {
         if (consoleReporter != null) {
-            consoleReporter.stop();
+            unschedule(consoleReporter);
             consoleReporter = null;
         }
     }
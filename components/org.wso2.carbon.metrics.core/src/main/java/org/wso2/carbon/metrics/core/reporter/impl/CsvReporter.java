@@ -17,7 +17,9 @@ package org.wso2.carbon.metrics.core.reporter.impl;
 
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
-import org.wso2.carbon.metrics.core.reporter.ScheduledReporter;
+import org.wso2.carbon.metrics.core.csv.CsvFileReporter;
+import org.wso2.carbon.metrics.core.csv.CsvFileWriter;
+import org.wso2.carbon.metrics.core.reporter.ReportingSchedule;
 
 import java.io.File;
 import java.util.Locale;
@@ -26,46 +28,74 @@ import java.util.concurrent.TimeUnit;
 /**
  * A scheduled reporter for writing metrics data to a CSV file
  */
-public class CsvReporter extends AbstractReporter implements ScheduledReporter {
+public class CsvReporter extends AbstractScheduledReporter {
 
-    private final MetricRegistry metricRegistry;
+    private final File directory;
 
-    private final MetricFilter metricFilter;
+    private final boolean persistentWriter;
 
-    private final File directory;
+    private final int maxOpenFiles;
+
+    private final long maxFileSize;
+
+    private final long rotationPeriod;
 
-    private final long pollingPeriod;
+    private final boolean compress;
 
-    private com.codahale.metrics.CsvReporter csvReporter;
+    private com.codahale.metrics.ScheduledReporter csvReporter;
 
     public CsvReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter, File directory,
                        long pollingPeriod) {
-        super(name);
-        this.metricRegistry = metricRegistry;
-        this.metricFilter = metricFilter;
+        this(name, metricRegistry, metricFilter, directory, new ReportingSchedule(pollingPeriod), false, 0, 0, 0,
+                false);
+    }
+
+    /**
+     * Create a CSV reporter, which writes to the CSV files using a {@link CsvFileWriter} when the persistent writer
+     * is enabled.
+     *
+     * @param maxFileSize    The size in bytes to rotate a file
+     * @param rotationPeriod The time period in seconds to rotate a file
+     */
+    public CsvReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter, File directory,
+                       ReportingSchedule schedule, boolean persistentWriter, int maxOpenFiles, long maxFileSize,
+                       long rotationPeriod, boolean compress) {
+        super(name, metricRegistry, metricFilter, schedule);
         this.directory = directory;
-        this.pollingPeriod = pollingPeriod;
+        this.persistentWriter = persistentWriter;
+        this.maxOpenFiles = maxOpenFiles;
+        this.maxFileSize = maxFileSize;
+        this.rotationPeriod = rotationPeriod;
+        this.compress = compress;
     }
 
     @Override
     public void report() {
         if (csvReporter != null) {
-            csvReporter.report();
+            report(csvReporter);
         }
     }
 
     @Override
     public void startReporter() {
-        csvReporter = com.codahale.metrics.CsvReporter.forRegistry(metricRegistry).formatFor(Locale.US).
-                filter(metricFilter).convertRatesTo(TimeUnit.SECONDS).convertDurationsTo(TimeUnit.MILLISECONDS)
-                .build(directory);
-        csvReporter.start(pollingPeriod, TimeUnit.SECONDS);
+        if (persistentWriter) {
+            CsvFileWriter csvFileWriter = new CsvFileWriter(directory, maxOpenFiles, maxFileSize,
+                    TimeUnit.SECONDS.toMillis(rotationPeriod), compress);
+            csvReporter = CsvFileReporter.forRegistry(getMetricRegistry()).formatFor(Locale.US)
+                    .filter(getMetricFilter()).convertRatesTo(TimeUnit.SECONDS)
+                    .convertDurationsTo(TimeUnit.MILLISECONDS).withClock(getClock()).build(csvFileWriter);
+        } else {
+            csvReporter = com.codahale.metrics.CsvReporter.forRegistry(getMetricRegistry()).formatFor(Locale.US).
+                    filter(getMetricFilter()).convertRatesTo(TimeUnit.SECONDS).convertDurationsTo(TimeUnit.MILLISECONDS)
+                    .withClock(getClock()).build(directory);
+        }
+        schedule(csvReporter);
     }
 
     @Override
     public void stopReporter() {
         if (csvReporter != null) {
-            csvReporter.stop();
+            unschedule(csvReporter);
             csvReporter = null;
         }
     }
@@ -17,18 +17,17 @@ package org.wso2.carbon.metrics.core.reporter.impl;
 
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
-import org.wso2.carbon.metrics.core.reporter.ScheduledReporter;
+import org.wso2.carbon.metrics.core.reporter.ReportingSchedule;
+import org.wso2.carbon.metrics.core.spool.ReportSpool;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 
 /**
  * A scheduled reporter for Data Analytics Server (DAS)
  */
-public class DasReporter extends AbstractReporter implements ScheduledReporter {
-
-    private final MetricRegistry metricRegistry;
-
-    private final MetricFilter metricFilter;
+public class DasReporter extends AbstractScheduledReporter {
 
     private final String source;
 
@@ -39,16 +38,43 @@ public class DasReporter extends AbstractReporter implements ScheduledReporter {
     private final String password;
     private final String dataAgentConfigPath;
 
-    private org.wso2.carbon.metrics.das.reporter.DasReporter dasReporter;
+    // The spool is not used if the directory is null
+    private final File spoolDirectory;
 
-    private final long pollingPeriod;
+    private final long spoolMaxSize;
+
+    private final int spoolReplayLimit;
+
+    private ReportSpool spool;
+
+    private org.wso2.carbon.metrics.das.reporter.DasReporter dasReporter;
 
     public DasReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter, String source,
                        String type, String receiverURL, String authURL, String username, String password,
                        String dataAgentConfigPath, long pollingPeriod) {
-        super(name);
-        this.metricRegistry = metricRegistry;
-        this.metricFilter = metricFilter;
+        this(name, metricRegistry, metricFilter, source, type, receiverURL, authURL, username, password,
+                dataAgentConfigPath, new ReportingSchedule(pollingPeriod));
+    }
+
+    public DasReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter, String source,
+                       String type, String receiverURL, String authURL, String username, String password,
+                       String dataAgentConfigPath, ReportingSchedule schedule) {
+        this(name, metricRegistry, metricFilter, source, type, receiverURL, authURL, username, password,
+                dataAgentConfigPath, schedule, null, 0, 0);
+    }
+
+    /**
+     * Create a DAS reporter, which spools the metrics failed to publish and replays them later.
+     *
+     * @param spoolDirectory   The directory for the spool. The spool is not used if this is {@code null}
+     * @param spoolMaxSize     The maximum size of the spool in bytes
+     * @param spoolReplayLimit The maximum number of spooled events to publish in each polling period
+     */
+    public DasReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter, String source,
+                       String type, String receiverURL, String authURL, String username, String password,
+                       String dataAgentConfigPath, ReportingSchedule schedule, File spoolDirectory,
+                       long spoolMaxSize, int spoolReplayLimit) {
+        super(name, metricRegistry, metricFilter, schedule);
         this.source = source;
         this.type = type;
         this.receiverURL = receiverURL;
@@ -56,30 +82,62 @@ public class DasReporter extends AbstractReporter implements ScheduledReporter {
         this.username = username;
         this.password = password;
         this.dataAgentConfigPath = dataAgentConfigPath;
-        this.pollingPeriod = pollingPeriod;
+        this.spoolDirectory = spoolDirectory;
+        this.spoolMaxSize = spoolMaxSize;
+        this.spoolReplayLimit = spoolReplayLimit;
     }
 
     @Override
     public void report() {
         if (dasReporter != null) {
-            dasReporter.report();
+            report(dasReporter);
         }
     }
 
     @Override
     public void startReporter() {
-        dasReporter = org.wso2.carbon.metrics.das.reporter.DasReporter.forRegistry(metricRegistry).filter(metricFilter)
-                .convertRatesTo(TimeUnit.SECONDS)
-                .convertDurationsTo(TimeUnit.MILLISECONDS)
-                .build(source, type, receiverURL, authURL, username, password, dataAgentConfigPath);
-        dasReporter.start(pollingPeriod, TimeUnit.SECONDS);
+        openSpool();
+        org.wso2.carbon.metrics.das.reporter.DasReporter.Builder builder =
+                org.wso2.carbon.metrics.das.reporter.DasReporter.forRegistry(getMetricRegistry())
+                        .filter(getMetricFilter())
+                        .convertRatesTo(TimeUnit.SECONDS)
+                        .convertDurationsTo(TimeUnit.MILLISECONDS)
+                        .withClock(getClock())
+                        .withFailureListener(this::recordFailure);
+        if (spool != null) {
+            builder.withSpool(spool::append, spool::replay);
+        }
+        dasReporter = builder.build(source, type, receiverURL, authURL, username, password, dataAgentConfigPath);
+        schedule(dasReporter);
     }
 
     @Override
     public void stopReporter() {
         if (dasReporter != null) {
-            dasReporter.stop();
+            unschedule(dasReporter);
             dasReporter = null;
         }
+        closeSpool();
+    }
+
+    private void openSpool() {
+        if (spoolDirectory != null) {
+            try {
+                spool = new ReportSpool(spoolDirectory, spoolMaxSize, spoolReplayLimit);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open the spool in " + spoolDirectory.getPath(), e);
+            }
+        }
+    }
+
+    private void closeSpool() {
+        if (spool != null) {
+            try {
+                spool.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            spool = null;
+        }
     }
 }
@@ -17,32 +17,39 @@ package org.wso2.carbon.metrics.core.reporter.impl;
 
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
-import org.wso2.carbon.metrics.core.reporter.ScheduledReporter;
+import org.wso2.carbon.metrics.core.reporter.ReportingSchedule;
+import org.wso2.carbon.metrics.core.sketch.SketchSnapshot;
+import org.wso2.carbon.metrics.core.spool.ReportSpool;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 
 /**
  * A scheduled reporter for inserting Metrics data to database tables via JDBC.
  */
-public class JdbcReporter extends AbstractReporter implements ScheduledReporter {
-
-    private final MetricRegistry metricRegistry;
-
-    private final MetricFilter metricFilter;
+public class JdbcReporter extends AbstractScheduledReporter {
 
     private final String source;
 
     private final DataSource dataSource;
 
-    private final long pollingPeriod;
-
     private final boolean runCleanupTask;
 
     private final int daysToKeep;
 
     private final long cleanupPeriod;
 
+    // The spool is not used if the directory is null
+    private final File spoolDirectory;
+
+    private final long spoolMaxSize;
+
+    private final int spoolReplayLimit;
+
+    private ReportSpool spool;
+
     private org.wso2.carbon.metrics.jdbc.reporter.JdbcReporter jdbcReporter;
 
     // This task can be null
@@ -51,30 +58,59 @@ public class JdbcReporter extends AbstractReporter implements ScheduledReporter
     public JdbcReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter, String source,
                         DataSource dataSource, long pollingPeriod, boolean runCleanupTask, int daysToKeep,
                         long cleanupPeriod) {
-        super(name);
-        this.metricRegistry = metricRegistry;
-        this.metricFilter = metricFilter;
+        this(name, metricRegistry, metricFilter, source, dataSource, new ReportingSchedule(pollingPeriod),
+                runCleanupTask, daysToKeep, cleanupPeriod);
+    }
+
+    public JdbcReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter, String source,
+                        DataSource dataSource, ReportingSchedule schedule, boolean runCleanupTask, int daysToKeep,
+                        long cleanupPeriod) {
+        this(name, metricRegistry, metricFilter, source, dataSource, schedule, runCleanupTask, daysToKeep,
+                cleanupPeriod, null, 0, 0);
+    }
+
+    /**
+     * Create a JDBC reporter, which spools the metrics failed to insert and replays them later.
+     *
+     * @param spoolDirectory   The directory for the spool. The spool is not used if this is {@code null}
+     * @param spoolMaxSize     The maximum size of the spool in bytes
+     * @param spoolReplayLimit The maximum number of spooled records to insert in each polling period
+     */
+    public JdbcReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter, String source,
+                        DataSource dataSource, ReportingSchedule schedule, boolean runCleanupTask, int daysToKeep,
+                        long cleanupPeriod, File spoolDirectory, long spoolMaxSize, int spoolReplayLimit) {
+        super(name, metricRegistry, metricFilter, schedule);
         this.source = source;
         this.dataSource = dataSource;
-        this.pollingPeriod = pollingPeriod;
         this.runCleanupTask = runCleanupTask;
         this.daysToKeep = daysToKeep;
         this.cleanupPeriod = cleanupPeriod;
+        this.spoolDirectory = spoolDirectory;
+        this.spoolMaxSize = spoolMaxSize;
+        this.spoolReplayLimit = spoolReplayLimit;
     }
 
     @Override
     public void report() {
         if (jdbcReporter != null) {
-            jdbcReporter.report();
+            report(jdbcReporter);
         }
     }
 
     @Override
     public void startReporter() {
-        jdbcReporter = org.wso2.carbon.metrics.jdbc.reporter.JdbcReporter.forRegistry(metricRegistry)
-                .filter(metricFilter).convertRatesTo(TimeUnit.SECONDS).convertDurationsTo(TimeUnit.MILLISECONDS)
-                .convertTimestampTo(TimeUnit.MILLISECONDS).build(source, dataSource);
-        jdbcReporter.start(pollingPeriod, TimeUnit.SECONDS);
+        openSpool();
+        org.wso2.carbon.metrics.jdbc.reporter.JdbcReporter.Builder builder =
+                org.wso2.carbon.metrics.jdbc.reporter.JdbcReporter.forRegistry(getMetricRegistry())
+                        .filter(getMetricFilter()).convertRatesTo(TimeUnit.SECONDS)
+                        .convertDurationsTo(TimeUnit.MILLISECONDS).convertTimestampTo(TimeUnit.MILLISECONDS)
+                        .withSnapshotSerializer(SketchSnapshot::serialize).withClock(getClock())
+                        .withFailureListener(this::recordFailure);
+        if (spool != null) {
+            builder.withSpool(spool::append, spool::replay);
+        }
+        jdbcReporter = builder.build(source, dataSource);
+        schedule(jdbcReporter);
         if (runCleanupTask) {
             scheduledJdbcMetricsCleanupTask = new ScheduledJdbcMetricsCleanupTask(dataSource, daysToKeep);
             scheduledJdbcMetricsCleanupTask.start(cleanupPeriod, TimeUnit.SECONDS);
@@ -84,11 +120,33 @@ public class JdbcReporter extends AbstractReporter implements ScheduledReporter
     @Override
     public void stopReporter() {
         if (jdbcReporter != null) {
-            jdbcReporter.stop();
+            unschedule(jdbcReporter);
             jdbcReporter = null;
         }
+        closeSpool();
         if (scheduledJdbcMetricsCleanupTask != null) {
             scheduledJdbcMetricsCleanupTask.stop();
         }
     }
+
+    private void openSpool() {
+        if (spoolDirectory != null) {
+            try {
+                spool = new ReportSpool(spoolDirectory, spoolMaxSize, spoolReplayLimit);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not open the spool in " + spoolDirectory.getPath(), e);
+            }
+        }
+    }
+
+    private void closeSpool() {
+        if (spool != null) {
+            try {
+                spool.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            spool = null;
+        }
+    }
 }
@@ -20,8 +20,11 @@ import org.slf4j.LoggerFactory;
 import org.wso2.carbon.metrics.core.task.ScheduledTask;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Locale;
 import javax.sql.DataSource;
 
 /**
@@ -31,10 +34,18 @@ public class ScheduledJdbcMetricsCleanupTask extends ScheduledTask {
 
     private static final Logger logger = LoggerFactory.getLogger(ScheduledJdbcMetricsCleanupTask.class);
 
+    /**
+     * The sketch table is not available in the databases created before the sketches were reported. The table is
+     * cleaned only after it is found.
+     */
+    private static final String SKETCH_TABLE_NAME = "METRIC_SKETCH";
+
     private final DataSource dataSource;
 
     private final int daysToKeep;
 
+    private volatile boolean sketchTableFound;
+
     public ScheduledJdbcMetricsCleanupTask(DataSource dataSource, int daysToKeep) {
         super("metrics-jdbc-cleanup");
         this.dataSource = dataSource;
@@ -44,6 +55,35 @@ public class ScheduledJdbcMetricsCleanupTask extends ScheduledTask {
     @Override
     public void run() {
         cleanMetricsTables("METRIC_GAUGE", "METRIC_COUNTER", "METRIC_METER", "METRIC_HISTOGRAM", "METRIC_TIMER");
+        if (isSketchTableFound()) {
+            cleanMetricsTable(SKETCH_TABLE_NAME);
+        }
+    }
+
+    private boolean isSketchTableFound() {
+        if (sketchTableFound) {
+            return true;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // Unquoted names are stored in upper case or lower case depending on the database
+            sketchTableFound = tableExists(metaData, SKETCH_TABLE_NAME)
+                    || tableExists(metaData, SKETCH_TABLE_NAME.toLowerCase(Locale.ENGLISH));
+        } catch (SQLException e) {
+            logger.error("Error when checking the " + SKETCH_TABLE_NAME + " table", e);
+            return false;
+        }
+        if (!sketchTableFound && logger.isDebugEnabled()) {
+            logger.debug(String.format("The %s table is not available. Run the database script to create the table, "
+                    + "if the sketches are reported.", SKETCH_TABLE_NAME));
+        }
+        return sketchTableFound;
+    }
+
+    private boolean tableExists(DatabaseMetaData metaData, String tableName) throws SQLException {
+        try (ResultSet resultSet = metaData.getTables(null, null, tableName, new String[]{"TABLE"})) {
+            return resultSet.next();
+        }
     }
 
     private void cleanMetricsTables(String... tableNames) {
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.reporter.impl;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import org.wso2.carbon.metrics.core.reporter.ReportingSchedule;
+import org.wso2.carbon.metrics.core.segment.SegmentFileReporter;
+import org.wso2.carbon.metrics.core.segment.SegmentWriter;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A scheduled reporter for writing Metrics data to binary segment files.
+ */
+public class SegmentReporter extends AbstractScheduledReporter {
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final long segmentPeriod;
+
+    private final int daysToKeep;
+
+    private SegmentFileReporter segmentReporter;
+
+    public SegmentReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter, File directory,
+                           ReportingSchedule schedule, int segmentSize, long segmentPeriod, int daysToKeep) {
+        super(name, metricRegistry, metricFilter, schedule);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segmentPeriod = segmentPeriod;
+        this.daysToKeep = daysToKeep;
+    }
+
+    @Override
+    public void report() {
+        if (segmentReporter != null) {
+            report(segmentReporter);
+        }
+    }
+
+    @Override
+    public void startReporter() {
+        SegmentWriter segmentWriter = new SegmentWriter(directory, segmentSize,
+                TimeUnit.SECONDS.toMillis(segmentPeriod), TimeUnit.DAYS.toMillis(daysToKeep));
+        segmentReporter = SegmentFileReporter.forRegistry(getMetricRegistry())
+                .filter(getMetricFilter()).convertRatesTo(TimeUnit.SECONDS).convertDurationsTo(TimeUnit.MILLISECONDS)
+                .withClock(getClock()).build(segmentWriter);
+        schedule(segmentReporter);
+    }
+
+    @Override
+    public void stopReporter() {
+        if (segmentReporter != null) {
+            unschedule(segmentReporter);
+            segmentReporter = null;
+        }
+    }
+}
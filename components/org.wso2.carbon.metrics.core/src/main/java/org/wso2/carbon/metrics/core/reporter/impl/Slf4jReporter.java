@@ -19,60 +19,82 @@ import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MarkerFactory;
-import org.wso2.carbon.metrics.core.reporter.ScheduledReporter;
+import org.wso2.carbon.metrics.core.json.JsonSlf4jReporter;
+import org.wso2.carbon.metrics.core.reporter.ReportingSchedule;
 
 import java.util.concurrent.TimeUnit;
 
 /**
  * A scheduled reporter for logging Metrics values to a SLF4J Logger
  */
-public class Slf4jReporter extends AbstractReporter implements ScheduledReporter {
-
-    private final MetricRegistry metricRegistry;
-
-    private final MetricFilter metricFilter;
+public class Slf4jReporter extends AbstractScheduledReporter {
 
     private final String loggerName;
 
     private final String markerName;
 
-    private final long pollingPeriod;
+    private final boolean json;
+
+    private final int chunkSize;
 
-    private com.codahale.metrics.Slf4jReporter slf4jReporter;
+    private com.codahale.metrics.ScheduledReporter slf4jReporter;
 
     public Slf4jReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter, String loggerName,
                          String markerName, long pollingPeriod) {
-        super(name);
-        this.metricRegistry = metricRegistry;
-        this.metricFilter = metricFilter;
+        this(name, metricRegistry, metricFilter, loggerName, markerName, new ReportingSchedule(pollingPeriod), false,
+                0);
+    }
+
+    /**
+     * Create a SLF4J reporter, which logs the values of all metrics in a reporting cycle as a single JSON event when
+     * the JSON format is enabled.
+     *
+     * @param json      Whether to log JSON events
+     * @param chunkSize The maximum number of metrics in a JSON event, or zero to log all metrics in a single event
+     */
+    public Slf4jReporter(String name, MetricRegistry metricRegistry, MetricFilter metricFilter, String loggerName,
+                         String markerName, ReportingSchedule schedule, boolean json, int chunkSize) {
+        super(name, metricRegistry, metricFilter, schedule);
         this.loggerName = loggerName;
         this.markerName = markerName;
-        this.pollingPeriod = pollingPeriod;
+        this.json = json;
+        this.chunkSize = chunkSize;
     }
 
     @Override
     public void report() {
         if (slf4jReporter != null) {
-            slf4jReporter.report();
+            report(slf4jReporter);
         }
     }
 
     @Override
     public void startReporter() {
-        final com.codahale.metrics.Slf4jReporter.Builder builder = com.codahale.metrics.Slf4jReporter
-                .forRegistry(metricRegistry).filter(metricFilter).convertRatesTo(TimeUnit.SECONDS)
-                .convertDurationsTo(TimeUnit.MILLISECONDS).outputTo(LoggerFactory.getLogger(loggerName));
-        if (markerName != null) {
-            builder.markWith(MarkerFactory.getMarker(markerName));
+        if (json) {
+            final JsonSlf4jReporter.Builder builder = JsonSlf4jReporter.forRegistry(getMetricRegistry())
+                    .filter(getMetricFilter()).convertRatesTo(TimeUnit.SECONDS)
+                    .convertDurationsTo(TimeUnit.MILLISECONDS).outputTo(LoggerFactory.getLogger(loggerName))
+                    .withChunkSize(chunkSize).withClock(getClock()).withSerializationTime(this::recordSerialization);
+            if (markerName != null) {
+                builder.markWith(MarkerFactory.getMarker(markerName));
+            }
+            slf4jReporter = builder.build();
+        } else {
+            final com.codahale.metrics.Slf4jReporter.Builder builder = com.codahale.metrics.Slf4jReporter
+                    .forRegistry(getMetricRegistry()).filter(getMetricFilter()).convertRatesTo(TimeUnit.SECONDS)
+                    .convertDurationsTo(TimeUnit.MILLISECONDS).outputTo(LoggerFactory.getLogger(loggerName));
+            if (markerName != null) {
+                builder.markWith(MarkerFactory.getMarker(markerName));
+            }
+            slf4jReporter = builder.build();
         }
-        slf4jReporter = builder.build();
-        slf4jReporter.start(pollingPeriod, TimeUnit.SECONDS);
+        schedule(slf4jReporter);
     }
 
     @Override
     public void stopReporter() {
         if (slf4jReporter != null) {
-            slf4jReporter.stop();
+            unschedule(slf4jReporter);
             slf4jReporter = null;
         }
     }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.segment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The values of all metrics in a reporting cycle, which are kept in a column for each field of each metric type.
+ */
+public final class SegmentBlock {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final long timestamp;
+
+    private final Columns[] columns = new Columns[SegmentRecord.Type.values().length];
+
+    /**
+     * @param timestamp The reporting time in milliseconds
+     */
+    public SegmentBlock(long timestamp) {
+        this.timestamp = timestamp;
+        for (SegmentRecord.Type type : SegmentRecord.Type.values()) {
+            columns[type.ordinal()] = new Columns(type.getFieldCount());
+        }
+    }
+
+    /**
+     * Add the values of a metric
+     *
+     * @param type   The metric type
+     * @param name   The metric name
+     * @param count  The count of the metric. This is ignored for gauges.
+     * @param values The values for the fields of the metric type in the same order
+     */
+    public void add(SegmentRecord.Type type, String name, long count, double... values) {
+        if (values.length != type.getFieldCount()) {
+            throw new IllegalArgumentException(String.format("Expected %d values for %s, but found %d",
+                    type.getFieldCount(), type, values.length));
+        }
+        columns[type.ordinal()].add(name, count, values);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean isEmpty() {
+        for (Columns column : columns) {
+            if (column.size > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Columns getColumns(SegmentRecord.Type type) {
+        return columns[type.ordinal()];
+    }
+
+    /**
+     * The names, the counts and the field values of the metrics of a type
+     */
+    static final class Columns {
+
+        final List<String> names = new ArrayList<>();
+
+        long[] counts = new long[INITIAL_CAPACITY];
+
+        final double[][] values;
+
+        int size;
+
+        private Columns(int fieldCount) {
+            values = new double[fieldCount][INITIAL_CAPACITY];
+        }
+
+        private void add(String name, long count, double[] fieldValues) {
+            if (size == counts.length) {
+                int capacity = size * 2;
+                counts = Arrays.copyOf(counts, capacity);
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = Arrays.copyOf(values[i], capacity);
+                }
+            }
+            names.add(name);
+            counts[size] = count;
+            for (int i = 0; i < values.length; i++) {
+                values[i][size] = fieldValues[i];
+            }
+            size++;
+        }
+    }
+}
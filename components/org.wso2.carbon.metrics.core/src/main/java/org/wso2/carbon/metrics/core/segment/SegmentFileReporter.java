@@ -0,0 +1,209 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.segment;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metered;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A reporter which writes the measurements of all metrics in each reporting cycle as a block of columns to segment
+ * files using a {@link SegmentWriter}.
+ */
+public class SegmentFileReporter extends ScheduledReporter {
+
+    /**
+     * Returns a new {@link Builder} for {@link SegmentFileReporter}.
+     *
+     * @param registry the registry to report
+     * @return a {@link Builder} instance for a {@link SegmentFileReporter}
+     */
+    public static Builder forRegistry(MetricRegistry registry) {
+        return new Builder(registry);
+    }
+
+    /**
+     * A builder for {@link SegmentFileReporter} instances. Defaults to converting rates to events/second, converting
+     * durations to milliseconds, and not filtering metrics.
+     */
+    public static class Builder {
+        private final MetricRegistry registry;
+        private TimeUnit rateUnit;
+        private TimeUnit durationUnit;
+        private Clock clock;
+        private MetricFilter filter;
+
+        private Builder(MetricRegistry registry) {
+            this.registry = registry;
+            this.rateUnit = TimeUnit.SECONDS;
+            this.durationUnit = TimeUnit.MILLISECONDS;
+            this.clock = Clock.defaultClock();
+            this.filter = MetricFilter.ALL;
+        }
+
+        /**
+         * Convert rates to the given time unit.
+         *
+         * @param rateUnit a unit of time
+         * @return {@code this}
+         */
+        public Builder convertRatesTo(TimeUnit rateUnit) {
+            this.rateUnit = rateUnit;
+            return this;
+        }
+
+        /**
+         * Convert durations to the given time unit.
+         *
+         * @param durationUnit a unit of time
+         * @return {@code this}
+         */
+        public Builder convertDurationsTo(TimeUnit durationUnit) {
+            this.durationUnit = durationUnit;
+            return this;
+        }
+
+        /**
+         * Use the given {@link Clock} instance for the time.
+         *
+         * @param clock a {@link Clock} instance
+         * @return {@code this}
+         */
+        public Builder withClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Only report metrics which match the given filter.
+         *
+         * @param filter a {@link MetricFilter}
+         * @return {@code this}
+         */
+        public Builder filter(MetricFilter filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        /**
+         * Builds a {@link SegmentFileReporter} with the given properties to write metrics to segment files
+         *
+         * @param segmentWriter The {@link SegmentWriter} for the segment files. The writer is closed when the reporter
+         *                      is stopped.
+         * @return a {@link SegmentFileReporter}
+         */
+        public SegmentFileReporter build(SegmentWriter segmentWriter) {
+            return new SegmentFileReporter(registry, segmentWriter, rateUnit, durationUnit, clock, filter);
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentFileReporter.class);
+
+    private final SegmentWriter segmentWriter;
+
+    private final Clock clock;
+
+    private SegmentFileReporter(MetricRegistry registry, SegmentWriter segmentWriter, TimeUnit rateUnit,
+                            TimeUnit durationUnit, Clock clock, MetricFilter filter) {
+        super(registry, "segment-reporter", filter, rateUnit, durationUnit);
+        if (segmentWriter == null) {
+            throw new IllegalArgumentException("Segment writer cannot be null");
+        }
+        this.segmentWriter = segmentWriter;
+        this.clock = clock;
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Override
+    public void report(SortedMap<String, Gauge> gauges, SortedMap<String, Counter> counters,
+                       SortedMap<String, Histogram> histograms, SortedMap<String, Meter> meters,
+                       SortedMap<String, Timer> timers) {
+        SegmentBlock block = new SegmentBlock(clock.getTime());
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            Object value = entry.getValue().getValue();
+            // Only numeric values can be stored in columns
+            if (value instanceof Number) {
+                block.add(SegmentRecord.Type.GAUGE, entry.getKey(), 0L, ((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                block.add(SegmentRecord.Type.GAUGE, entry.getKey(), 0L, (Boolean) value ? 1D : 0D);
+            }
+        }
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            block.add(SegmentRecord.Type.COUNTER, entry.getKey(), entry.getValue().getCount());
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            Snapshot snapshot = histogram.getSnapshot();
+            block.add(SegmentRecord.Type.HISTOGRAM, entry.getKey(), histogram.getCount(), snapshot.getMax(),
+                    snapshot.getMean(), snapshot.getMin(), snapshot.getStdDev(), snapshot.getMedian(),
+                    snapshot.get75thPercentile(), snapshot.get95thPercentile(), snapshot.get98thPercentile(),
+                    snapshot.get99thPercentile(), snapshot.get999thPercentile());
+        }
+        for (Map.Entry<String, Meter> entry : meters.entrySet()) {
+            Meter meter = entry.getValue();
+            block.add(SegmentRecord.Type.METER, entry.getKey(), meter.getCount(), rates(meter));
+        }
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            Timer timer = entry.getValue();
+            Snapshot snapshot = timer.getSnapshot();
+            double[] rates = rates(timer);
+            block.add(SegmentRecord.Type.TIMER, entry.getKey(), timer.getCount(), convertDuration(snapshot.getMax()),
+                    convertDuration(snapshot.getMean()), convertDuration(snapshot.getMin()),
+                    convertDuration(snapshot.getStdDev()), convertDuration(snapshot.getMedian()),
+                    convertDuration(snapshot.get75thPercentile()), convertDuration(snapshot.get95thPercentile()),
+                    convertDuration(snapshot.get98thPercentile()), convertDuration(snapshot.get99thPercentile()),
+                    convertDuration(snapshot.get999thPercentile()), rates[0], rates[1], rates[2], rates[3]);
+        }
+        if (block.isEmpty()) {
+            return;
+        }
+        try {
+            segmentWriter.write(block);
+        } catch (IOException e) {
+            logger.error("Error when writing metrics to segment", e);
+        }
+    }
+
+    private double[] rates(Metered metered) {
+        return new double[]{convertRate(metered.getMeanRate()), convertRate(metered.getOneMinuteRate()),
+                convertRate(metered.getFiveMinuteRate()), convertRate(metered.getFifteenMinuteRate())};
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        try {
+            segmentWriter.close();
+        } catch (IOException e) {
+            logger.error("Error when closing the metrics segment", e);
+        }
+    }
+}
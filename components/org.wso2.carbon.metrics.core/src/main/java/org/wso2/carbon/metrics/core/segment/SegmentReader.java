@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.segment;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Reads the metric values in a time range from the segment files written by {@link SegmentWriter}. Segments outside
+ * the time range are not opened and blocks outside the time range are skipped without reading the columns.
+ */
+public class SegmentReader {
+
+    private final File directory;
+
+    /**
+     * @param directory The directory with segment files
+     */
+    public SegmentReader(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return The segment files ordered by the start time
+     */
+    public List<File> getSegments() {
+        return Segments.listSegments(directory);
+    }
+
+    /**
+     * Get the values of a metric in a time range
+     *
+     * @param name The metric name
+     * @param from The start of the time range in milliseconds (inclusive)
+     * @param to   The end of the time range in milliseconds (inclusive)
+     * @return The values ordered by the reporting time
+     * @throws IOException if a segment could not be read
+     */
+    public List<SegmentRecord> read(String name, long from, long to) throws IOException {
+        List<SegmentRecord> records = new ArrayList<>();
+        read(name::equals, from, to, records::add);
+        return records;
+    }
+
+    /**
+     * Read the values of metrics in a time range
+     *
+     * @param nameFilter The filter for metric names
+     * @param from       The start of the time range in milliseconds (inclusive)
+     * @param to         The end of the time range in milliseconds (inclusive)
+     * @param consumer   The consumer for the values. The values are ordered by the reporting time.
+     * @throws IOException if a segment could not be read
+     */
+    public void read(Predicate<String> nameFilter, long from, long to, Consumer<SegmentRecord> consumer)
+            throws IOException {
+        List<File> segments = getSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            File segment = segments.get(i);
+            if (Segments.getStart(segment) > to) {
+                break;
+            }
+            // A segment has values until the start of the next segment
+            if (i + 1 < segments.size() && Segments.getStart(segments.get(i + 1)) <= from) {
+                continue;
+            }
+            try {
+                readSegment(segment, nameFilter, from, to, consumer);
+            } catch (NoSuchFileException e) {
+                // The segment was deleted after the retention period
+            }
+        }
+    }
+
+    private static void readSegment(File segment, Predicate<String> nameFilter, long from, long to,
+                                    Consumer<SegmentRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < Segments.HEADER_SIZE) {
+                // The header is not written yet
+                return;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != Segments.MAGIC) {
+                throw new IOException("Invalid metrics segment: " + segment);
+            }
+            int version = buffer.getInt();
+            if (version != Segments.VERSION) {
+                throw new IOException(String.format("Unsupported version %d in metrics segment: %s", version,
+                        segment));
+            }
+            long committedLength = buffer.getLong();
+            if (committedLength < Segments.HEADER_SIZE || committedLength > size) {
+                throw new IOException("Invalid length in metrics segment: " + segment);
+            }
+            buffer.limit((int) committedLength);
+            buffer.position(Segments.HEADER_SIZE);
+            readBlocks(buffer, nameFilter, from, to, consumer);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupted metrics segment: " + segment, e);
+        }
+    }
+
+    private static void readBlocks(MappedByteBuffer buffer, Predicate<String> nameFilter, long from, long to,
+                                   Consumer<SegmentRecord> consumer) {
+        List<String> names = new ArrayList<>();
+        BitSet selectedNames = new BitSet();
+        while (buffer.hasRemaining()) {
+            int blockLength = buffer.getInt();
+            int blockEnd = buffer.position() + blockLength;
+            long timestamp = buffer.getLong();
+            int newNames = buffer.getInt();
+            for (int i = 0; i < newNames; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                String name = new String(bytes, StandardCharsets.UTF_8);
+                selectedNames.set(names.size(), nameFilter.test(name));
+                names.add(name);
+            }
+            if (timestamp < from || timestamp > to) {
+                buffer.position(blockEnd);
+                continue;
+            }
+            for (SegmentRecord.Type type : SegmentRecord.Type.values()) {
+                int rows = buffer.getInt();
+                int[] ids = new int[rows];
+                buffer.asIntBuffer().get(ids);
+                buffer.position(buffer.position() + rows * Integer.BYTES);
+                long[] counts = new long[rows];
+                if (type.isCounting()) {
+                    buffer.asLongBuffer().get(counts);
+                    buffer.position(buffer.position() + rows * Long.BYTES);
+                }
+                double[][] columns = new double[type.getFieldCount()][rows];
+                for (double[] column : columns) {
+                    buffer.asDoubleBuffer().get(column);
+                    buffer.position(buffer.position() + rows * Double.BYTES);
+                }
+                for (int row = 0; row < rows; row++) {
+                    if (selectedNames.get(ids[row])) {
+                        double[] values = new double[columns.length];
+                        for (int i = 0; i < columns.length; i++) {
+                            values[i] = columns[i][row];
+                        }
+                        consumer.accept(new SegmentRecord(timestamp, names.get(ids[row]), type, counts[row],
+                                values));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.segment;
+
+/**
+ * The values of a metric in a reporting cycle, which are read from a segment.
+ */
+public final class SegmentRecord {
+
+    /**
+     * The metric types stored in segments. Each type has a count column, except gauges, and a column for each field.
+     */
+    public enum Type {
+        GAUGE(false, "value"),
+        COUNTER(true),
+        HISTOGRAM(true, "max", "mean", "min", "stddev", "p50", "p75", "p95", "p98", "p99", "p999"),
+        METER(true, "mean_rate", "m1_rate", "m5_rate", "m15_rate"),
+        TIMER(true, "max", "mean", "min", "stddev", "p50", "p75", "p95", "p98", "p99", "p999", "mean_rate", "m1_rate",
+                "m5_rate", "m15_rate");
+
+        private final boolean counting;
+
+        private final String[] fields;
+
+        Type(boolean counting, String... fields) {
+            this.counting = counting;
+            this.fields = fields;
+        }
+
+        public boolean isCounting() {
+            return counting;
+        }
+
+        public String[] getFields() {
+            return fields.clone();
+        }
+
+        int getFieldCount() {
+            return fields.length;
+        }
+
+        int getFieldIndex(String field) {
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i].equals(field)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException(String.format("Invalid field '%s' for %s", field, this));
+        }
+    }
+
+    private final long timestamp;
+
+    private final String name;
+
+    private final Type type;
+
+    private final long count;
+
+    private final double[] values;
+
+    SegmentRecord(long timestamp, String name, Type type, long count, double[] values) {
+        this.timestamp = timestamp;
+        this.name = name;
+        this.type = type;
+        this.count = count;
+        this.values = values;
+    }
+
+    /**
+     * @return The reporting time in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return The count of the metric or zero for gauges
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the value of a field. Durations are in milliseconds and rates are in events per second.
+     *
+     * @param field One of the fields of the metric type
+     * @return The value of the field
+     * @throws IllegalArgumentException if the field is not available for the metric type
+     */
+    public double getValue(String field) {
+        return values[type.getFieldIndex(field)];
+    }
+}
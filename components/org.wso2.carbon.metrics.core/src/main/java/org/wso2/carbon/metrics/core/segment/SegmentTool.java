@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.segment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Pattern;
+
+/**
+ * A command line tool to print the metric values in segment files.
+ * <p>
+ * Usage: {@code SegmentTool <directory> [name pattern] [from] [to]}
+ * <p>
+ * The name pattern is a regular expression for the metric names. The time range can be given in milliseconds since
+ * the epoch or in ISO-8601 format (For example: 2016-01-01T10:15:30Z). Each value is printed in a line with the
+ * reporting time, the name, the type, the count and the fields of the metric.
+ */
+public final class SegmentTool {
+
+    private SegmentTool() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 4) {
+            System.err.println("Usage: SegmentTool <directory> [name pattern] [from] [to]");
+            System.exit(1);
+        }
+        try {
+            File directory = new File(args[0]);
+            if (!directory.isDirectory()) {
+                throw new IllegalArgumentException("Segment directory does not exist: " + args[0]);
+            }
+            Pattern pattern = Pattern.compile(args.length > 1 ? args[1] : ".*");
+            long from = args.length > 2 ? parseTime(args[2]) : Long.MIN_VALUE;
+            long to = args.length > 3 ? parseTime(args[3]) : Long.MAX_VALUE;
+            print(new SegmentReader(directory), pattern, from, to, System.out);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static void print(SegmentReader reader, Pattern pattern, long from, long to, PrintStream out)
+            throws IOException {
+        reader.read(name -> pattern.matcher(name).matches(), from, to, record -> {
+            StringBuilder builder = new StringBuilder();
+            builder.append(Instant.ofEpochMilli(record.getTimestamp())).append(',').append(record.getName())
+                    .append(',').append(record.getType());
+            if (record.getType().isCounting()) {
+                builder.append(",count=").append(record.getCount());
+            }
+            for (String field : record.getType().getFields()) {
+                builder.append(',').append(field).append('=').append(record.getValue(field));
+            }
+            out.println(builder);
+        });
+    }
+
+    private static long parseTime(String time) {
+        try {
+            return Long.parseLong(time);
+        } catch (NumberFormatException e) {
+            try {
+                return Instant.parse(time).toEpochMilli();
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("Invalid time: " + time, ex);
+            }
+        }
+    }
+}
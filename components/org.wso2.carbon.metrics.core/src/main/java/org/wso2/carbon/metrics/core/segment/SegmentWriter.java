@@ -0,0 +1,248 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.segment;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes reporting cycles as blocks to memory-mapped segment files in a directory. A new segment is started when the
+ * segment period is over or when the current segment does not have space for a block. Segments older than the
+ * retention period are deleted when a new segment is started.
+ *
+ * @see Segments
+ */
+public class SegmentWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentWriter.class);
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final long segmentPeriod;
+
+    private final long retentionPeriod;
+
+    /**
+     * The ids of the names in the current segment
+     */
+    private final Map<String, Integer> nameIds = new HashMap<>();
+
+    private File segment;
+
+    private long segmentStart;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    /**
+     * @param directory       The directory for segment files
+     * @param segmentSize     The size of a segment in bytes. A segment is larger only if a single block does not fit.
+     * @param segmentPeriod   The maximum time period of a segment in milliseconds
+     * @param retentionPeriod The time period to keep segments in milliseconds
+     */
+    public SegmentWriter(File directory, int segmentSize, long segmentPeriod, long retentionPeriod) {
+        if (segmentSize <= Segments.HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size must be larger than " + Segments.HEADER_SIZE + " bytes");
+        }
+        if (segmentPeriod <= 0 || retentionPeriod <= 0) {
+            throw new IllegalArgumentException("Segment period and retention period must be positive numbers");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segmentPeriod = segmentPeriod;
+        this.retentionPeriod = retentionPeriod;
+    }
+
+    /**
+     * Write a reporting cycle. The block is visible to readers only after it is completely written.
+     *
+     * @param block The values of the metrics
+     * @throws IOException if the segment could not be written
+     */
+    public synchronized void write(SegmentBlock block) throws IOException {
+        long timestamp = block.getTimestamp();
+        boolean rollover = buffer == null || timestamp < segmentStart || timestamp - segmentStart >= segmentPeriod;
+        Map<String, byte[]> newNames = null;
+        int blockSize = 0;
+        if (!rollover) {
+            newNames = getNewNames(block);
+            blockSize = getBlockSize(block, newNames);
+            rollover = blockSize > buffer.remaining();
+        }
+        if (rollover) {
+            closeSegment();
+            newNames = getNewNames(block);
+            blockSize = getBlockSize(block, newNames);
+            openSegment(timestamp, blockSize);
+            deleteExpiredSegments(timestamp);
+        }
+
+        buffer.putInt(blockSize - Integer.BYTES);
+        buffer.putLong(timestamp);
+        buffer.putInt(newNames.size());
+        for (Map.Entry<String, byte[]> entry : newNames.entrySet()) {
+            byte[] bytes = entry.getValue();
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+            nameIds.put(entry.getKey(), nameIds.size());
+        }
+        for (SegmentRecord.Type type : SegmentRecord.Type.values()) {
+            SegmentBlock.Columns columns = block.getColumns(type);
+            int rows = columns.size;
+            buffer.putInt(rows);
+            int[] ids = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                ids[i] = nameIds.get(columns.names.get(i));
+            }
+            buffer.asIntBuffer().put(ids);
+            buffer.position(buffer.position() + rows * Integer.BYTES);
+            if (type.isCounting()) {
+                buffer.asLongBuffer().put(columns.counts, 0, rows);
+                buffer.position(buffer.position() + rows * Long.BYTES);
+            }
+            for (double[] values : columns.values) {
+                buffer.asDoubleBuffer().put(values, 0, rows);
+                buffer.position(buffer.position() + rows * Double.BYTES);
+            }
+        }
+        buffer.putLong(Segments.COMMITTED_LENGTH_OFFSET, buffer.position());
+    }
+
+    private Map<String, byte[]> getNewNames(SegmentBlock block) {
+        Map<String, byte[]> newNames = new LinkedHashMap<>();
+        for (SegmentRecord.Type type : SegmentRecord.Type.values()) {
+            for (String name : block.getColumns(type).names) {
+                if (!nameIds.containsKey(name)) {
+                    newNames.computeIfAbsent(name, key -> key.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return newNames;
+    }
+
+    private static int getBlockSize(SegmentBlock block, Map<String, byte[]> newNames) {
+        long size = Integer.BYTES + Long.BYTES + Integer.BYTES;
+        for (byte[] bytes : newNames.values()) {
+            size += Integer.BYTES + bytes.length;
+        }
+        for (SegmentRecord.Type type : SegmentRecord.Type.values()) {
+            long rows = block.getColumns(type).size;
+            size += Integer.BYTES + rows * Integer.BYTES + (type.isCounting() ? rows * Long.BYTES : 0)
+                    + rows * type.getFieldCount() * Double.BYTES;
+        }
+        if (size > Integer.MAX_VALUE - Segments.HEADER_SIZE) {
+            throw new IllegalArgumentException("Too many metrics to write in a segment");
+        }
+        return (int) size;
+    }
+
+    private void openSegment(long timestamp, int blockSize) throws IOException {
+        long start = timestamp;
+        File file = Segments.getSegmentFile(directory, start);
+        while (file.exists()) {
+            file = Segments.getSegmentFile(directory, ++start);
+        }
+        FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(segmentSize, Segments.HEADER_SIZE + blockSize));
+        } catch (IOException e) {
+            fileChannel.close();
+            throw e;
+        }
+        buffer.putInt(Segments.MAGIC);
+        buffer.putInt(Segments.VERSION);
+        buffer.putLong(Segments.HEADER_SIZE);
+        buffer.putLong(start);
+        channel = fileChannel;
+        segment = file;
+        segmentStart = start;
+        if (logger.isDebugEnabled()) {
+            logger.debug(String.format("Started metrics segment %s", file));
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            buffer.force();
+            try {
+                // Remove the unused space in the segment
+                channel.truncate(buffer.position());
+            } catch (IOException e) {
+                // Some platforms do not allow truncating a mapped file. Readers ignore the unused space.
+                if (logger.isDebugEnabled()) {
+                    logger.debug(String.format("Could not truncate the metrics segment %s", segment), e);
+                }
+            }
+        } finally {
+            channel.close();
+            channel = null;
+            buffer = null;
+            nameIds.clear();
+        }
+    }
+
+    private void deleteExpiredSegments(long timestamp) {
+        List<File> segments = Segments.listSegments(directory);
+        List<File> expiredSegments = new ArrayList<>();
+        // A segment has values until the start of the next segment
+        for (int i = 0; i < segments.size() - 1; i++) {
+            File file = segments.get(i);
+            if (timestamp - Segments.getStart(segments.get(i + 1)) > retentionPeriod && !file.equals(segment)) {
+                expiredSegments.add(file);
+            }
+        }
+        for (File file : expiredSegments) {
+            if (file.delete()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(String.format("Deleted expired metrics segment %s", file));
+                }
+            } else if (logger.isWarnEnabled()) {
+                logger.warn(String.format("Could not delete expired metrics segment %s", file));
+            }
+        }
+    }
+
+    /**
+     * Close the current segment. A new segment is started for the next block.
+     *
+     * @throws IOException if the segment could not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closeSegment();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.segment;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The layout of segment files.
+ * <p>
+ * A segment file starts with a header with the magic number, the format version, the length of the file up to the end
+ * of the last complete block and the start time of the segment. The header is followed by a block for each reporting
+ * cycle. Each block has the block length, the reporting time, the metric names, which were not seen before in the
+ * segment, and a column section for each {@link SegmentRecord.Type}. A column section has the number of rows, an
+ * {@code int} array of name ids, a {@code long} array of counts (except for gauges) and a {@code double} array for
+ * each field. Name ids are the indexes of the names in the order they were added to the segment.
+ * <p>
+ * Segment files are named with the start time of the segment in milliseconds.
+ */
+final class Segments {
+
+    static final int MAGIC = 0x4D534547;
+
+    static final int VERSION = 1;
+
+    static final int COMMITTED_LENGTH_OFFSET = 8;
+
+    static final int HEADER_SIZE = 24;
+
+    private static final String PREFIX = "metrics-";
+
+    private static final String SUFFIX = ".seg";
+
+    private Segments() {
+    }
+
+    static File getSegmentFile(File directory, long start) {
+        return new File(directory, PREFIX + start + SUFFIX);
+    }
+
+    /**
+     * Get the start time of a segment from the file name
+     *
+     * @return The start time in milliseconds or -1 if the file is not a segment
+     */
+    static long getStart(File file) {
+        String name = file.getName();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return The segment files in the directory ordered by the start time
+     */
+    static List<File> listSegments(File directory) {
+        File[] files = directory.listFiles(file -> file.isFile() && getStart(file) >= 0);
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        List<File> segments = new ArrayList<>(Arrays.asList(files));
+        segments.sort(Comparator.comparingLong(Segments::getStart));
+        return segments;
+    }
+}
@@ -18,6 +18,11 @@ package org.wso2.carbon.metrics.core.service;
 import org.wso2.carbon.metrics.core.Level;
 import org.wso2.carbon.metrics.core.Metric;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
 /**
  * An abstract class to keep generic behavior for metric instances. This class implements a metric hierarchy
  */
@@ -35,6 +40,31 @@ public abstract class AbstractMetric implements Metric {
      * A flag to indicate whether the metric is enabled
      */
     private volatile boolean enabled;
+    /**
+     * The cost of updates. This is available only if the overhead governor is enabled.
+     */
+    UpdateCost updateCost;
+    /**
+     * The metrics, which aggregate the updates of this metric when the aggregation is deferred
+     */
+    private final Set<AbstractMetric> aggregates = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    /**
+     * The metrics, whose updates are aggregated by this metric when the aggregation is deferred
+     */
+    private final Set<AbstractMetric> members = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    /**
+     * A flag to indicate whether the metric was expired and not registered again
+     */
+    private volatile boolean expired;
+    /**
+     * Registers the metric again after it was expired and returns the metric, which should record the updates
+     */
+    private volatile UnaryOperator<AbstractMetric> reviver;
+    /**
+     * The metric registered with the same name after this metric was expired. The updates of this metric are passed
+     * to the replacement.
+     */
+    private volatile AbstractMetric replacement;
 
     public AbstractMetric(String name, Level level) {
         this.name = name;
@@ -54,6 +84,119 @@ public abstract class AbstractMetric implements Metric {
     }
 
     final void setEnabled(boolean enabled) {
-        this.enabled = enabled;
+        synchronized (this) {
+            // Switch the update target before publishing the enabled status
+            enabledChanged(enabled || isAggregateEnabled());
+            this.enabled = enabled;
+        }
+        for (AbstractMetric member : members) {
+            member.updateRecording();
+        }
+    }
+
+    /**
+     * Add a metric, which aggregates the updates of this metric when the aggregation is deferred. This metric records
+     * the updates while it or any of its aggregates is enabled.
+     *
+     * @param aggregate The aggregate metric
+     */
+    final void addAggregate(AbstractMetric aggregate) {
+        if (aggregate != this && aggregates.add(aggregate)) {
+            aggregate.members.add(this);
+            updateRecording();
+        }
+    }
+
+    /**
+     * Remove this metric from its aggregates, so that the updates are recorded only if this metric is enabled
+     */
+    final void removeAggregates() {
+        for (AbstractMetric aggregate : aggregates) {
+            aggregate.members.remove(this);
+            aggregate.memberRemoved(this);
+        }
+        aggregates.clear();
+        updateRecording();
+    }
+
+    /**
+     * Mark the metric as expired. This must be called before the metric is disabled, so that the metric implementations
+     * can switch the update target to a target, which calls {@link #revive()}.
+     *
+     * @param reviver A function to register the metric again
+     */
+    final void expire(UnaryOperator<AbstractMetric> reviver) {
+        this.reviver = reviver;
+        this.replacement = null;
+        this.expired = true;
+    }
+
+    protected final boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * Register this metric again after it was expired.
+     *
+     * @return The metric, which should record the updates. This is this metric unless another metric was registered
+     * with the same name after this metric was expired.
+     */
+    final AbstractMetric revive() {
+        AbstractMetric currentReplacement = replacement;
+        if (currentReplacement != null) {
+            return currentReplacement;
+        }
+        return reviver.apply(this);
+    }
+
+    /**
+     * Called by the reviver when the metric is registered again or when the updates cannot be recorded
+     */
+    final void revived() {
+        expired = false;
+    }
+
+    /**
+     * Called by the reviver to pass the updates of this expired metric to another metric with the same name
+     */
+    final void replaceWith(AbstractMetric metric) {
+        replacement = metric;
+    }
+
+    final AbstractMetric getReplacement() {
+        return replacement;
+    }
+
+    private synchronized void updateRecording() {
+        enabledChanged(enabled || isAggregateEnabled());
+    }
+
+    private boolean isAggregateEnabled() {
+        for (AbstractMetric aggregate : aggregates) {
+            if (aggregate.enabled) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Called when a metric, whose updates are aggregated by this metric, is removed. Metric implementations can stop
+     * including the updates of the member here.
+     *
+     * @param member The removed member
+     */
+    void memberRemoved(AbstractMetric member) {
+    }
+
+    /**
+     * Called when the enabled status is set. Metric implementations can switch the target of updates here, so that
+     * the update methods do not need to check the enabled flag. The target must be kept in a volatile field to make
+     * the change visible to the threads updating the metric.
+     *
+     * @param enabled Whether the updates should be recorded. This is {@code true} for a disabled metric, if a metric
+     *                aggregating its updates is enabled.
+     */
+    protected void enabledChanged(boolean enabled) {
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import com.codahale.metrics.Counter;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Counter}, which also counts the updates of its members. The members are added only when the count is read,
+ * so that a member can be updated without updating the aggregated counters. Only the updates of a member itself are
+ * counted and not the updates of the members of the member.
+ *
+ * <p>The count of a removed member is kept in the aggregated count, so that the aggregated count does not decrease
+ * when a member is removed.
+ */
+class AggregateCounter extends Counter {
+
+    private final Set<AggregateCounter> members = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /**
+     * The counts of the removed members
+     */
+    private final LongAdder removedCount = new LongAdder();
+
+    void addMember(AggregateCounter counter) {
+        members.add(counter);
+    }
+
+    /**
+     * Remove a member and keep its count in the aggregated count
+     *
+     * @param counter The member. This is ignored if it is not a member.
+     */
+    void removeMember(Counter counter) {
+        if (members.remove(counter)) {
+            removedCount.add(((AggregateCounter) counter).getOwnCount());
+        }
+    }
+
+    private long getOwnCount() {
+        return super.getCount();
+    }
+
+    @Override
+    public long getCount() {
+        long count = super.getCount() + removedCount.sum();
+        for (AggregateCounter member : members) {
+            count += member.getOwnCount();
+        }
+        return count;
+    }
+}
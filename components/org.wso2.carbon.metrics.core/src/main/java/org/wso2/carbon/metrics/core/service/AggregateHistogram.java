@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.WeightedSnapshot;
+import org.wso2.carbon.metrics.core.sketch.QuantileSketch;
+import org.wso2.carbon.metrics.core.sketch.SketchSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Histogram}, which also includes the values of its members. The values of the members are merged only when
+ * the values are read, so that a member can be updated without updating the aggregated histograms. Only the values of
+ * a member itself are included and not the values of the members of the member.
+ *
+ * <p>The snapshots are merged without any loss only if all snapshots are {@link SketchSnapshot}s with the same
+ * accuracy. Otherwise, the snapshot is a {@link WeightedSnapshot} of the values in the snapshots of all members. The
+ * values of each snapshot are weighted by the count of the histogram, since a snapshot of a sampling reservoir has
+ * about the same number of values regardless of the number of updates.
+ *
+ * <p>The count of a removed member is kept in the aggregated count, so that the aggregated count does not decrease
+ * when a member is removed. The values of a removed member are not included in the snapshot.
+ */
+class AggregateHistogram extends Histogram {
+
+    private final Set<AggregateHistogram> members = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    AggregateHistogram(Reservoir reservoir) {
+        super(reservoir);
+    }
+
+    /**
+     * The counts of the removed members
+     */
+    private final LongAdder removedCount = new LongAdder();
+
+    void addMember(AggregateHistogram histogram) {
+        members.add(histogram);
+    }
+
+    /**
+     * Remove a member and keep its count in the aggregated count
+     *
+     * @param histogram The member. This is ignored if it is not a member.
+     */
+    void removeMember(Histogram histogram) {
+        if (members.remove(histogram)) {
+            removedCount.add(((AggregateHistogram) histogram).getOwnCount());
+        }
+    }
+
+    private long getOwnCount() {
+        return super.getCount();
+    }
+
+    private Snapshot getOwnSnapshot() {
+        return super.getSnapshot();
+    }
+
+    @Override
+    public long getCount() {
+        long count = super.getCount() + removedCount.sum();
+        for (AggregateHistogram member : members) {
+            count += member.getOwnCount();
+        }
+        return count;
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        if (members.isEmpty()) {
+            return super.getSnapshot();
+        }
+        List<Snapshot> snapshots = new ArrayList<>(members.size() + 1);
+        List<Long> counts = new ArrayList<>(members.size() + 1);
+        // Empty snapshots are skipped, so that the sketches can be merged even if the empty reservoirs are different
+        long ownCount = super.getCount();
+        if (ownCount > 0) {
+            snapshots.add(super.getSnapshot());
+            counts.add(ownCount);
+        }
+        for (AggregateHistogram member : members) {
+            long memberCount = member.getOwnCount();
+            if (memberCount > 0) {
+                snapshots.add(member.getOwnSnapshot());
+                counts.add(memberCount);
+            }
+        }
+        if (snapshots.size() == 1) {
+            return snapshots.get(0);
+        }
+        Snapshot sketchSnapshot = mergeSketches(snapshots);
+        if (sketchSnapshot != null) {
+            return sketchSnapshot;
+        }
+        List<WeightedSnapshot.WeightedSample> samples = new ArrayList<>();
+        for (int i = 0; i < snapshots.size(); i++) {
+            long[] values = snapshots.get(i).getValues();
+            // Each value represents an equal share of the updates of the histogram
+            double weight = (double) counts.get(i) / values.length;
+            for (long value : values) {
+                samples.add(new WeightedSnapshot.WeightedSample(value, weight));
+            }
+        }
+        return new WeightedSnapshot(samples);
+    }
+
+    /**
+     * @return The merged {@link SketchSnapshot} or {@code null} if the snapshots cannot be merged as sketches
+     */
+    private static Snapshot mergeSketches(List<Snapshot> snapshots) {
+        QuantileSketch merged = null;
+        for (Snapshot snapshot : snapshots) {
+            if (!(snapshot instanceof SketchSnapshot)) {
+                return null;
+            }
+            QuantileSketch sketch = ((SketchSnapshot) snapshot).getSketch();
+            if (merged == null) {
+                merged = sketch.copy();
+            } else if (Double.compare(merged.getRelativeAccuracy(), sketch.getRelativeAccuracy()) != 0) {
+                return null;
+            } else {
+                merged.merge(sketch);
+            }
+        }
+        return merged != null ? new SketchSnapshot(merged) : null;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import com.codahale.metrics.Meter;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Meter}, which also includes the marks of its members. The counts and the rates of the members are added
+ * only when the values are read, so that a member can be marked without marking the aggregated meters. Only the marks
+ * of a member itself are included and not the marks of the members of the member.
+ *
+ * <p>The moving average rates of the members can be added exactly. The mean rate is the sum of the mean rates of the
+ * members, which may have been created at different times.
+ *
+ * <p>The count of a removed member is kept in the aggregated count, so that the aggregated count does not decrease
+ * when a member is removed. The rates of a removed member are not included.
+ */
+class AggregateMeter extends Meter {
+
+    private final Set<AggregateMeter> members = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /**
+     * The counts of the removed members
+     */
+    private final LongAdder removedCount = new LongAdder();
+
+    void addMember(AggregateMeter meter) {
+        members.add(meter);
+    }
+
+    /**
+     * Remove a member and keep its count in the aggregated count
+     *
+     * @param meter The member. This is ignored if it is not a member.
+     */
+    void removeMember(Meter meter) {
+        if (members.remove(meter)) {
+            removedCount.add(((AggregateMeter) meter).getOwnCount());
+        }
+    }
+
+    private long getOwnCount() {
+        return super.getCount();
+    }
+
+    private double getOwnFifteenMinuteRate() {
+        return super.getFifteenMinuteRate();
+    }
+
+    private double getOwnFiveMinuteRate() {
+        return super.getFiveMinuteRate();
+    }
+
+    private double getOwnMeanRate() {
+        return super.getMeanRate();
+    }
+
+    private double getOwnOneMinuteRate() {
+        return super.getOneMinuteRate();
+    }
+
+    @Override
+    public long getCount() {
+        long count = super.getCount() + removedCount.sum();
+        for (AggregateMeter member : members) {
+            count += member.getOwnCount();
+        }
+        return count;
+    }
+
+    @Override
+    public double getFifteenMinuteRate() {
+        double rate = super.getFifteenMinuteRate();
+        for (AggregateMeter member : members) {
+            rate += member.getOwnFifteenMinuteRate();
+        }
+        return rate;
+    }
+
+    @Override
+    public double getFiveMinuteRate() {
+        double rate = super.getFiveMinuteRate();
+        for (AggregateMeter member : members) {
+            rate += member.getOwnFiveMinuteRate();
+        }
+        return rate;
+    }
+
+    @Override
+    public double getMeanRate() {
+        double rate = super.getMeanRate();
+        for (AggregateMeter member : members) {
+            rate += member.getOwnMeanRate();
+        }
+        return rate;
+    }
+
+    @Override
+    public double getOneMinuteRate() {
+        double rate = super.getOneMinuteRate();
+        for (AggregateMeter member : members) {
+            rate += member.getOwnOneMinuteRate();
+        }
+        return rate;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import org.wso2.carbon.metrics.core.config.model.MetricCardinalityConfig;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the number of metrics created under each name prefix and checks the configured limits. The prefix of a
+ * metric is the longest configured prefix of the name. If there is no configured prefix, the parent name is used with
+ * the default limit.
+ * <p>
+ * This is used only when creating and removing metrics. The names of the rejected metrics are kept in a bounded set,
+ * so that a rejected name is counted only once even if the same metric is looked up many times.
+ */
+final class CardinalityLimiter {
+
+    private static final char METRIC_PATH_DELIMITER = '.';
+
+    /**
+     * The maximum number of rejected names to remember. The oldest name is removed when the limit is exceeded.
+     */
+    private static final int MAX_REJECTED_NAMES = 10000;
+
+    private final boolean enabled;
+
+    private final int defaultLimit;
+
+    private final Map<String, Integer> limits;
+
+    private final ConcurrentMap<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+    private final Set<String> rejectedPrefixes = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private final Set<String> rejectedNames = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private final Queue<String> rejectedNamesQueue = new ConcurrentLinkedQueue<>();
+
+    CardinalityLimiter(MetricCardinalityConfig config) {
+        this.enabled = config.isEnabled();
+        this.defaultLimit = config.getDefaultLimit();
+        this.limits = config.getLimits() != null ? new HashMap<>(config.getLimits()) : Collections.emptyMap();
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the prefix used to count the given metric
+     *
+     * @param name The name of the metric
+     * @return The prefix. An empty string for the root
+     */
+    String getPrefix(String name) {
+        int index = name.lastIndexOf(METRIC_PATH_DELIMITER);
+        String parentName = index != -1 ? name.substring(0, index) : "";
+        if (!limits.isEmpty()) {
+            String prefix = parentName;
+            while (!prefix.isEmpty()) {
+                if (limits.containsKey(prefix)) {
+                    return prefix;
+                }
+                int parentIndex = prefix.lastIndexOf(METRIC_PATH_DELIMITER);
+                prefix = parentIndex != -1 ? prefix.substring(0, parentIndex) : "";
+            }
+        }
+        return parentName;
+    }
+
+    /**
+     * Count a new metric under the given prefix, if the limit is not reached
+     *
+     * @param prefix The prefix returned from {@link #getPrefix(String)}
+     * @return {@code true} if the metric can be created
+     */
+    boolean tryAcquire(String prefix) {
+        int limit = limits.getOrDefault(prefix, defaultLimit);
+        AtomicInteger count = counts.computeIfAbsent(prefix, p -> new AtomicInteger());
+        while (true) {
+            int current = count.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (count.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Check whether the limit is reached for the given prefix without counting a new metric
+     *
+     * @param prefix The prefix returned from {@link #getPrefix(String)}
+     * @return {@code true} if a new metric under the prefix will be rejected
+     */
+    boolean isFull(String prefix) {
+        AtomicInteger count = counts.get(prefix);
+        return count != null && count.get() >= limits.getOrDefault(prefix, defaultLimit);
+    }
+
+    /**
+     * Release a metric counted under the given prefix
+     *
+     * @param prefix The prefix used in {@link #tryAcquire(String)}
+     */
+    void release(String prefix) {
+        AtomicInteger count = counts.get(prefix);
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    /**
+     * @param prefix The prefix of a rejected metric
+     * @return {@code true} if this is the first time a metric is rejected for the given prefix
+     */
+    boolean isFirstRejection(String prefix) {
+        return rejectedPrefixes.add(prefix);
+    }
+
+    /**
+     * @param name The name of a rejected metric
+     * @return {@code true} if the given name was not rejected before (or was forgotten after many other rejections)
+     */
+    boolean isNewRejection(String name) {
+        if (!rejectedNames.add(name)) {
+            return false;
+        }
+        rejectedNamesQueue.offer(name);
+        while (rejectedNames.size() > MAX_REJECTED_NAMES) {
+            String oldestName = rejectedNamesQueue.poll();
+            if (oldestName == null) {
+                break;
+            }
+            rejectedNames.remove(oldestName);
+        }
+        return true;
+    }
+
+    int getLimit(String prefix) {
+        return limits.getOrDefault(prefix, defaultLimit);
+    }
+}
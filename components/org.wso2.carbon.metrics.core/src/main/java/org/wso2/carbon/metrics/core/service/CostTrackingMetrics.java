@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Metric instances, which pass the updates to a metric and record the cost of the updates in an {@link UpdateCost}.
+ * These are used as the update targets of enabled metrics only when the overhead governor is enabled. Therefore the
+ * update path does not have any additional cost when the governor is disabled.
+ */
+final class CostTrackingMetrics {
+
+    private CostTrackingMetrics() {
+    }
+
+    static Counter counter(Counter counter, UpdateCost cost) {
+        return new Counter() {
+            @Override
+            public void inc() {
+                inc(1);
+            }
+
+            @Override
+            public void inc(long n) {
+                if (!cost.count()) {
+                    counter.inc(n);
+                    return;
+                }
+                long startTime = System.nanoTime();
+                counter.inc(n);
+                cost.record(System.nanoTime() - startTime);
+            }
+
+            @Override
+            public void dec() {
+                dec(1);
+            }
+
+            @Override
+            public void dec(long n) {
+                if (!cost.count()) {
+                    counter.dec(n);
+                    return;
+                }
+                long startTime = System.nanoTime();
+                counter.dec(n);
+                cost.record(System.nanoTime() - startTime);
+            }
+        };
+    }
+
+    static Meter meter(Meter meter, UpdateCost cost) {
+        return new Meter() {
+            @Override
+            public void mark() {
+                mark(1);
+            }
+
+            @Override
+            public void mark(long n) {
+                if (!cost.count()) {
+                    meter.mark(n);
+                    return;
+                }
+                long startTime = System.nanoTime();
+                meter.mark(n);
+                cost.record(System.nanoTime() - startTime);
+            }
+        };
+    }
+
+    static Histogram histogram(Histogram histogram, UpdateCost cost) {
+        return new Histogram(NoOpMetrics.NO_OP_RESERVOIR) {
+            @Override
+            public void update(int value) {
+                update((long) value);
+            }
+
+            @Override
+            public void update(long value) {
+                if (!cost.count()) {
+                    histogram.update(value);
+                    return;
+                }
+                long startTime = System.nanoTime();
+                histogram.update(value);
+                cost.record(System.nanoTime() - startTime);
+            }
+        };
+    }
+
+    static TrackedTimer timer(Timer timer, Supplier<org.wso2.carbon.metrics.core.Timer.Context> starter,
+                              UpdateCost cost) {
+        return new TrackedTimer(timer, starter, cost);
+    }
+
+    /**
+     * A timer recording the cost of starting and stopping timer contexts in addition to the updates
+     */
+    static final class TrackedTimer extends Timer {
+
+        private final Timer timer;
+
+        private final Supplier<org.wso2.carbon.metrics.core.Timer.Context> starter;
+
+        private final UpdateCost cost;
+
+        private TrackedTimer(Timer timer, Supplier<org.wso2.carbon.metrics.core.Timer.Context> starter,
+                             UpdateCost cost) {
+            super(NoOpMetrics.NO_OP_RESERVOIR);
+            this.timer = timer;
+            this.starter = starter;
+            this.cost = cost;
+        }
+
+        @Override
+        public void update(long duration, TimeUnit unit) {
+            if (!cost.count()) {
+                timer.update(duration, unit);
+                return;
+            }
+            long startTime = System.nanoTime();
+            timer.update(duration, unit);
+            cost.record(System.nanoTime() - startTime);
+        }
+
+        @Override
+        public <T> T time(Callable<T> event) throws Exception {
+            // The time spent on the event cannot be separated from the cost of the update
+            cost.count();
+            return timer.time(event);
+        }
+
+        /**
+         * Start a context from the given starter. The cost of starting and stopping is recorded for a sample of
+         * contexts.
+         *
+         * @return A context to stop timing
+         */
+        org.wso2.carbon.metrics.core.Timer.Context start() {
+            if (!cost.count()) {
+                return starter.get();
+            }
+            long startTime = System.nanoTime();
+            org.wso2.carbon.metrics.core.Timer.Context context = starter.get();
+            long startCost = System.nanoTime() - startTime;
+            return new TrackedContext(context, startCost);
+        }
+
+        /**
+         * Records the cost of starting and stopping the context when the context is stopped
+         */
+        private final class TrackedContext implements org.wso2.carbon.metrics.core.Timer.Context {
+
+            private final org.wso2.carbon.metrics.core.Timer.Context context;
+
+            private final long startCost;
+
+            private TrackedContext(org.wso2.carbon.metrics.core.Timer.Context context, long startCost) {
+                this.context = context;
+                this.startCost = startCost;
+            }
+
+            @Override
+            public long stop() {
+                long startTime = System.nanoTime();
+                long elapsed = context.stop();
+                cost.record(startCost + System.nanoTime() - startTime);
+                return elapsed;
+            }
+
+            @Override
+            public void close() {
+                stop();
+            }
+        }
+    }
+}
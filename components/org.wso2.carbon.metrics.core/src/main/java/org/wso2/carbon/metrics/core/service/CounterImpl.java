@@ -25,11 +25,38 @@ public class CounterImpl extends AbstractMetric implements Counter {
 
     private final com.codahale.metrics.Counter counter;
 
+    /**
+     * The counter used for updates. This is {@link #counter} when the metric is enabled and the shared no-op counter
+     * when the metric is disabled. Otherwise, this is a counter, which tracks the cost of updates or registers an
+     * expired metric again. The update methods compare the target with the first two by identity, so that the common
+     * cases do not depend on the type profile of a call site shared by all metrics. This field is volatile, so that a
+     * metric enabled or disabled at runtime is seen by all threads.
+     */
+    private volatile com.codahale.metrics.Counter updateCounter = NoOpMetrics.COUNTER;
+
     public CounterImpl(String name, Level level, com.codahale.metrics.Counter counter) {
         super(name, level);
         this.counter = counter;
     }
 
+    @Override
+    void memberRemoved(AbstractMetric member) {
+        if (counter instanceof AggregateCounter && member instanceof CounterImpl) {
+            ((AggregateCounter) counter).removeMember(((CounterImpl) member).getCounter());
+        }
+    }
+
+    @Override
+    protected void enabledChanged(boolean enabled) {
+        if (isExpired()) {
+            updateCounter = RevivingMetrics.counter(this);
+        } else if (!enabled) {
+            updateCounter = NoOpMetrics.COUNTER;
+        } else {
+            updateCounter = updateCost != null ? CostTrackingMetrics.counter(counter, updateCost) : counter;
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -37,9 +64,7 @@ public class CounterImpl extends AbstractMetric implements Counter {
      */
     @Override
     public void inc() {
-        if (isEnabled()) {
-            counter.inc();
-        }
+        inc(1);
     }
 
     /*
@@ -49,8 +74,11 @@ public class CounterImpl extends AbstractMetric implements Counter {
      */
     @Override
     public void inc(long n) {
-        if (isEnabled()) {
+        com.codahale.metrics.Counter target = updateCounter;
+        if (target == counter) {
             counter.inc(n);
+        } else if (target != NoOpMetrics.COUNTER) {
+            target.inc(n);
         }
     }
 
@@ -61,9 +89,7 @@ public class CounterImpl extends AbstractMetric implements Counter {
      */
     @Override
     public void dec() {
-        if (isEnabled()) {
-            counter.dec();
-        }
+        dec(1);
     }
 
     /*
@@ -73,8 +99,11 @@ public class CounterImpl extends AbstractMetric implements Counter {
      */
     @Override
     public void dec(long n) {
-        if (isEnabled()) {
+        com.codahale.metrics.Counter target = updateCounter;
+        if (target == counter) {
             counter.dec(n);
+        } else if (target != NoOpMetrics.COUNTER) {
+            target.dec(n);
         }
     }
 
@@ -87,4 +116,8 @@ public class CounterImpl extends AbstractMetric implements Counter {
     public long getCount() {
         return counter.getCount();
     }
+
+    com.codahale.metrics.Counter getCounter() {
+        return counter;
+    }
 }
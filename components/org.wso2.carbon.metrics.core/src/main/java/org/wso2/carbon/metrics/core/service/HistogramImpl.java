@@ -26,11 +26,38 @@ public class HistogramImpl extends AbstractMetric implements Histogram {
 
     private final com.codahale.metrics.Histogram histogram;
 
+    /**
+     * The histogram used for updates. This is {@link #histogram} when the metric is enabled and the shared no-op
+     * histogram when the metric is disabled. Otherwise, this is a histogram, which tracks the cost of updates or
+     * registers an expired metric again. The update methods compare the target with the first two by identity, so that
+     * the common cases do not depend on the type profile of a call site shared by all metrics. This field is volatile,
+     * so that a metric enabled or disabled at runtime is seen by all threads.
+     */
+    private volatile com.codahale.metrics.Histogram updateHistogram = NoOpMetrics.HISTOGRAM;
+
     public HistogramImpl(String name, Level level, com.codahale.metrics.Histogram histogram) {
         super(name, level);
         this.histogram = histogram;
     }
 
+    @Override
+    void memberRemoved(AbstractMetric member) {
+        if (histogram instanceof AggregateHistogram && member instanceof HistogramImpl) {
+            ((AggregateHistogram) histogram).removeMember(((HistogramImpl) member).getHistogram());
+        }
+    }
+
+    @Override
+    protected void enabledChanged(boolean enabled) {
+        if (isExpired()) {
+            updateHistogram = RevivingMetrics.histogram(this);
+        } else if (!enabled) {
+            updateHistogram = NoOpMetrics.HISTOGRAM;
+        } else {
+            updateHistogram = updateCost != null ? CostTrackingMetrics.histogram(histogram, updateCost) : histogram;
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -38,9 +65,7 @@ public class HistogramImpl extends AbstractMetric implements Histogram {
      */
     @Override
     public void update(int value) {
-        if (isEnabled()) {
-            histogram.update(value);
-        }
+        update((long) value);
     }
 
     /*
@@ -50,8 +75,11 @@ public class HistogramImpl extends AbstractMetric implements Histogram {
      */
     @Override
     public void update(long value) {
-        if (isEnabled()) {
+        com.codahale.metrics.Histogram target = updateHistogram;
+        if (target == histogram) {
             histogram.update(value);
+        } else if (target != NoOpMetrics.HISTOGRAM) {
+            target.update(value);
         }
     }
 
@@ -69,4 +97,8 @@ public class HistogramImpl extends AbstractMetric implements Histogram {
     public Snapshot getSnapshot() {
         return new SnapshotImpl(histogram.getSnapshot());
     }
+
+    com.codahale.metrics.Histogram getHistogram() {
+        return histogram;
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.config.MetricsLevelConfigWatcher;
+import org.wso2.carbon.metrics.core.config.model.MetricLevelReloadConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reloads the levels of a {@link MetricService} when the properties file with the Metrics Level Configuration is
+ * changed
+ */
+final class LevelReloader implements MetricServiceFeature {
+
+    private static final Logger logger = LoggerFactory.getLogger(LevelReloader.class);
+
+    private final MetricService metricService;
+
+    private final MetricLevelReloadConfig reloadConfig;
+
+    private final MetricsLevelConfig metricsLevelConfig;
+
+    /**
+     * The root level in the properties file, when it was loaded last time
+     */
+    private Level fileRootLevel;
+
+    /**
+     * The levels of metrics in the properties file, when it was loaded last time
+     */
+    private Map<String, Level> fileLevels;
+
+    /**
+     * The watcher to reload the levels when the properties file is changed. This is available only while the feature
+     * is started.
+     */
+    private MetricsLevelConfigWatcher levelConfigWatcher;
+
+    LevelReloader(MetricService metricService, MetricLevelReloadConfig reloadConfig,
+                  MetricsLevelConfig metricsLevelConfig) {
+        this.metricService = metricService;
+        this.reloadConfig = reloadConfig;
+        this.metricsLevelConfig = metricsLevelConfig;
+        // Keep the levels loaded from the file to find the changes when the file is reloaded
+        this.fileRootLevel = metricsLevelConfig.getRootLevel();
+        this.fileLevels = metricsLevelConfig.getLevels();
+    }
+
+    /**
+     * Watch the file, which the Metrics Level Configuration was loaded from. The levels are not reloaded for a
+     * configuration created in code, such as the configuration of a named Metric Service.
+     */
+    @Override
+    public synchronized void start() {
+        if (levelConfigWatcher == null) {
+            File file = metricsLevelConfig.getConfigFile();
+            if (file == null) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Metrics Level Configuration was not loaded from a file. The levels are not reloaded.");
+                }
+                return;
+            }
+            try {
+                levelConfigWatcher = new MetricsLevelConfigWatcher(file, reloadConfig.getDelay(), this::reload);
+            } catch (IOException e) {
+                logger.error("Error when watching the Metrics Level Configuration file", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (levelConfigWatcher != null) {
+            try {
+                levelConfigWatcher.close();
+            } catch (IOException e) {
+                logger.error("Error when closing the watcher of the Metrics Level Configuration file", e);
+            }
+            levelConfigWatcher = null;
+        }
+    }
+
+    /**
+     * @see MetricService#reloadLevels(MetricsLevelConfig)
+     */
+    int reload(MetricsLevelConfig reloadedConfig) {
+        int changes = 0;
+        synchronized (this) {
+            Level rootLevel = reloadedConfig.getRootLevel();
+            if (!rootLevel.equals(fileRootLevel)) {
+                fileRootLevel = rootLevel;
+                if (!rootLevel.equals(metricsLevelConfig.getRootLevel())) {
+                    metricsLevelConfig.setRootLevel(rootLevel);
+                    changes++;
+                }
+            }
+            Map<String, Level> levels = reloadedConfig.getLevels();
+            for (Map.Entry<String, Level> entry : levels.entrySet()) {
+                String name = entry.getKey();
+                Level level = entry.getValue();
+                if (!level.equals(fileLevels.get(name)) && !level.equals(metricsLevelConfig.getLevel(name))) {
+                    metricsLevelConfig.setLevel(name, level);
+                    changes++;
+                }
+            }
+            for (Map.Entry<String, Level> entry : fileLevels.entrySet()) {
+                String name = entry.getKey();
+                if (!levels.containsKey(name) && entry.getValue().equals(metricsLevelConfig.getLevel(name))) {
+                    metricsLevelConfig.removeLevel(name);
+                    changes++;
+                }
+            }
+            fileLevels = levels;
+        }
+        if (changes > 0) {
+            // Levels of parent names may be changed. Therefore the enabled status of all metrics is updated.
+            metricService.levelsChanged();
+            if (logger.isInfoEnabled()) {
+                logger.info(String.format("Reloaded Metrics Levels with %d changes", changes));
+            }
+        }
+        return changes;
+    }
+}
@@ -23,13 +23,40 @@ import org.wso2.carbon.metrics.core.Meter;
  */
 public class MeterImpl extends AbstractMetric implements Meter {
 
-    private com.codahale.metrics.Meter meter;
+    private final com.codahale.metrics.Meter meter;
+
+    /**
+     * The meter used for updates. This is {@link #meter} when the metric is enabled and the shared no-op meter when the
+     * metric is disabled. Otherwise, this is a meter, which tracks the cost of updates or registers an expired metric
+     * again. The update methods compare the target with the first two by identity, so that the common cases do not
+     * depend on the type profile of a call site shared by all metrics. This field is volatile, so that a metric enabled
+     * or disabled at runtime is seen by all threads.
+     */
+    private volatile com.codahale.metrics.Meter updateMeter = NoOpMetrics.METER;
 
     public MeterImpl(String name, Level level, com.codahale.metrics.Meter meter) {
         super(name, level);
         this.meter = meter;
     }
 
+    @Override
+    void memberRemoved(AbstractMetric member) {
+        if (meter instanceof AggregateMeter && member instanceof MeterImpl) {
+            ((AggregateMeter) meter).removeMember(((MeterImpl) member).getMeter());
+        }
+    }
+
+    @Override
+    protected void enabledChanged(boolean enabled) {
+        if (isExpired()) {
+            updateMeter = RevivingMetrics.meter(this);
+        } else if (!enabled) {
+            updateMeter = NoOpMetrics.METER;
+        } else {
+            updateMeter = updateCost != null ? CostTrackingMetrics.meter(meter, updateCost) : meter;
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -37,9 +64,7 @@ public class MeterImpl extends AbstractMetric implements Meter {
      */
     @Override
     public void mark() {
-        if (isEnabled()) {
-            meter.mark();
-        }
+        mark(1);
     }
 
     /*
@@ -49,8 +74,11 @@ public class MeterImpl extends AbstractMetric implements Meter {
      */
     @Override
     public void mark(long n) {
-        if (isEnabled()) {
+        com.codahale.metrics.Meter target = updateMeter;
+        if (target == meter) {
             meter.mark(n);
+        } else if (target != NoOpMetrics.METER) {
+            target.mark(n);
         }
     }
 
@@ -103,4 +131,8 @@ public class MeterImpl extends AbstractMetric implements Meter {
     public double getFifteenMinuteRate() {
         return meter.getFifteenMinuteRate();
     }
+
+    com.codahale.metrics.Meter getMeter() {
+        return meter;
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.alert.AlertEvaluator;
+import org.wso2.carbon.metrics.core.alert.AlertRule;
+import org.wso2.carbon.metrics.core.alert.AlertSink;
+import org.wso2.carbon.metrics.core.alert.JmxAlertSink;
+import org.wso2.carbon.metrics.core.alert.LogAlertSink;
+import org.wso2.carbon.metrics.core.config.model.AlertRuleConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricAlertConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.NotificationBroadcasterSupport;
+
+/**
+ * Evaluates the alert rules of a {@link MetricService} periodically
+ */
+final class MetricAlerts implements MetricServiceFeature {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricAlerts.class);
+
+    /**
+     * The evaluator of the alert rules. This is {@code null} if the alerts are not enabled.
+     */
+    private final AlertEvaluator alertEvaluator;
+
+    private final ScheduledFeature task;
+
+    /**
+     * @param alertConfig    The alert configuration
+     * @param metricFilter   The filter for the metrics to evaluate
+     * @param metricRegistry The registry to bind the metrics to the rules when they are registered
+     * @param source         The source of the JMX notifications
+     * @param broadcaster    The broadcaster to send the JMX notifications
+     */
+    MetricAlerts(MetricAlertConfig alertConfig, MetricFilter metricFilter, MetricRegistry metricRegistry,
+                 Object source, NotificationBroadcasterSupport broadcaster) {
+        this.alertEvaluator = alertConfig.isEnabled()
+                ? createAlertEvaluator(alertConfig, metricFilter, source, broadcaster) : null;
+        if (alertEvaluator != null) {
+            // The metrics are bound to the rules when they are registered
+            metricRegistry.addListener(alertEvaluator);
+        }
+        this.task = new ScheduledFeature("metrics-alerts", alertConfig.getPeriod(), this::evaluate,
+                "Error when evaluating the alert rules");
+    }
+
+    private static AlertEvaluator createAlertEvaluator(MetricAlertConfig alertConfig, MetricFilter metricFilter,
+                                                       Object source, NotificationBroadcasterSupport broadcaster) {
+        List<AlertRule> rules = new ArrayList<>();
+        for (AlertRuleConfig ruleConfig : alertConfig.getRules()) {
+            try {
+                rules.add(AlertRule.compile(ruleConfig.getName(), ruleConfig.getMetric(), ruleConfig.getCondition()));
+            } catch (IllegalArgumentException e) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn(String.format("Ignoring the alert rule '%s': %s", ruleConfig.getName(),
+                            e.getMessage()));
+                }
+            }
+        }
+        AlertEvaluator evaluator = new AlertEvaluator(rules, metricFilter);
+        if (alertConfig.isLog()) {
+            evaluator.addSink(new LogAlertSink());
+        }
+        if (alertConfig.isJmx()) {
+            evaluator.addSink(new JmxAlertSink(source, broadcaster));
+        }
+        return evaluator;
+    }
+
+    @Override
+    public void start() {
+        if (alertEvaluator != null && !alertEvaluator.isEmpty()) {
+            task.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        task.stop();
+    }
+
+    /**
+     * @see MetricService#addAlertSink(AlertSink)
+     */
+    boolean addSink(AlertSink sink) {
+        if (alertEvaluator == null) {
+            return false;
+        }
+        alertEvaluator.addSink(sink);
+        return true;
+    }
+
+    /**
+     * @see MetricService#removeAlertSink(AlertSink)
+     */
+    boolean removeSink(AlertSink sink) {
+        return alertEvaluator != null && alertEvaluator.removeSink(sink);
+    }
+
+    /**
+     * @see MetricService#evaluateAlerts()
+     */
+    void evaluate() {
+        if (alertEvaluator != null) {
+            alertEvaluator.evaluate(System.currentTimeMillis());
+        }
+    }
+}
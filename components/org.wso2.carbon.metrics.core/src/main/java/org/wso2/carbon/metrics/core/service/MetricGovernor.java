@@ -0,0 +1,284 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.config.model.MetricGovernorConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
+import org.wso2.carbon.metrics.core.task.MetricsThreads;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the overhead of metrics and adjusts the metric levels of a {@link MetricService} based on the configured
+ * budget
+ */
+final class MetricGovernor implements MetricServiceFeature {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricGovernor.class);
+
+    /**
+     * The levels the overhead governor can set to metrics. Metrics with level INFO are never disabled.
+     */
+    private static final Level[] GOVERNOR_LEVELS = {Level.INFO, Level.DEBUG, Level.TRACE, Level.ALL};
+
+    private static final String METRIC_PATH_DELIMITER = ".";
+
+    private static final String ROOT_METRIC_NAME = "";
+
+    private final MetricService metricService;
+
+    private final MetricGovernorConfig governorConfig;
+
+    private final MetricsLevelConfig metricsLevelConfig;
+
+    private final ScheduledFeature task;
+
+    /**
+     * The adjustments made by the overhead governor. The last adjustment is at the head of the deque. This is also
+     * used as the lock for all governor state.
+     */
+    private final Deque<GovernorAdjustment> adjustments = new ArrayDeque<>();
+
+    /**
+     * The time spent on reporting via {@link MetricService#report()} since the last overhead check
+     */
+    private final LongAdder reportingCost = new LongAdder();
+
+    /**
+     * The CPU time of each reporter thread seen in the last overhead check
+     */
+    private Map<Long, Long> reporterThreadCpuTimes = new HashMap<>();
+
+    private long lastOverheadCheckTime = System.nanoTime();
+
+    private int cyclesWithinBudget;
+
+    private volatile double metricsOverhead;
+
+    /**
+     * The levels set by the overhead governor to the metrics with the highest level under a parent name
+     */
+    private static class GovernorAdjustment {
+
+        private final String parentName;
+        private final Level level;
+        /**
+         * The configured levels of the metrics before the adjustment. A {@code null} level means that the level was
+         * inherited.
+         */
+        private final Map<String, Level> originalLevels = new LinkedHashMap<>();
+
+        private GovernorAdjustment(String parentName, Level level) {
+            this.parentName = parentName;
+            this.level = level;
+        }
+    }
+
+    MetricGovernor(MetricService metricService, MetricGovernorConfig governorConfig,
+                   MetricsLevelConfig metricsLevelConfig) {
+        this.metricService = metricService;
+        this.governorConfig = governorConfig;
+        this.metricsLevelConfig = metricsLevelConfig;
+        this.task = new ScheduledFeature("metrics-governor", governorConfig.getPeriod(), this::checkOverhead,
+                "Error when checking the overhead of metrics");
+    }
+
+    @Override
+    public void start() {
+        synchronized (adjustments) {
+            lastOverheadCheckTime = System.nanoTime();
+        }
+        task.start();
+    }
+
+    @Override
+    public void stop() {
+        task.stop();
+    }
+
+    /**
+     * Add the time spent on reporting outside the reporter threads
+     *
+     * @param cost The time in nanoseconds
+     */
+    void addReportingCost(long cost) {
+        reportingCost.add(cost);
+    }
+
+    /**
+     * @see MetricService#checkOverhead()
+     */
+    boolean checkOverhead() {
+        synchronized (adjustments) {
+            long updateCost = 0;
+            Map<String, Long> parentCosts = new HashMap<>();
+            Map<String, Level> parentLevels = new HashMap<>();
+            for (AbstractMetric metric : metricService.registeredMetrics()) {
+                if (metric.updateCost == null) {
+                    continue;
+                }
+                long cost = metric.updateCost.sumThenReset();
+                updateCost += cost;
+                if (metric.isEnabled() && metric.getLevel().compareTo(Level.INFO) > 0) {
+                    String parentName = getParentName(metric.getName());
+                    parentCosts.merge(parentName, cost, Long::sum);
+                    parentLevels.merge(parentName, metric.getLevel(), (l1, l2) -> l1.compareTo(l2) >= 0 ? l1 : l2);
+                }
+            }
+            long cost = updateCost + reportingCost.sumThenReset() + getReporterThreadsCpuTime();
+            long currentTime = System.nanoTime();
+            long elapsedTime = Math.max(currentTime - lastOverheadCheckTime, 1L);
+            lastOverheadCheckTime = currentTime;
+            metricsOverhead = cost * 100d / elapsedTime / Runtime.getRuntime().availableProcessors();
+
+            if (metricsOverhead > governorConfig.getBudget()) {
+                cyclesWithinBudget = 0;
+                Optional<Map.Entry<String, Long>> mostExpensive = parentCosts.entrySet().stream()
+                        .filter(entry -> entry.getValue() > 0).max(Map.Entry.comparingByValue());
+                if (mostExpensive.isPresent()) {
+                    String parentName = mostExpensive.get().getKey();
+                    return downgradeMetrics(parentName, parentLevels.get(parentName));
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug(String.format("Metrics overhead %.2f%% exceeded the budget %.2f%%. There are no "
+                            + "metrics to downgrade.", metricsOverhead, governorConfig.getBudget()));
+                }
+            } else if (!adjustments.isEmpty() && ++cyclesWithinBudget >= governorConfig.getRecoveryCycles()) {
+                cyclesWithinBudget = 0;
+                return restoreMetrics(adjustments.pop());
+            }
+            return false;
+        }
+    }
+
+    private boolean downgradeMetrics(String parentName, Level highestLevel) {
+        Level level = Level.INFO;
+        for (Level governorLevel : GOVERNOR_LEVELS) {
+            if (governorLevel.compareTo(highestLevel) < 0) {
+                level = governorLevel;
+            }
+        }
+        GovernorAdjustment adjustment = new GovernorAdjustment(parentName, level);
+        for (AbstractMetric metric : metricService.registeredMetrics()) {
+            String name = metric.getName();
+            if (metric.updateCost != null && metric.isEnabled() && metric.getLevel().equals(highestLevel)
+                    && parentName.equals(getParentName(name))) {
+                adjustment.originalLevels.put(name, metricsLevelConfig.getLevel(name));
+                metricsLevelConfig.setLevel(name, level);
+            }
+        }
+        if (adjustment.originalLevels.isEmpty()) {
+            return false;
+        }
+        // Same as reloading levels, the enabled status is updated and the reporters are restarted once for all metrics
+        metricService.levelsChanged();
+        adjustments.push(adjustment);
+        if (logger.isWarnEnabled()) {
+            logger.warn(String.format("Metrics overhead %.2f%% exceeded the budget %.2f%%. Set the level of %d "
+                            + "metrics under \"%s\" to %s.", metricsOverhead, governorConfig.getBudget(),
+                    adjustment.originalLevels.size(), parentName, level));
+        }
+        return true;
+    }
+
+    private boolean restoreMetrics(GovernorAdjustment adjustment) {
+        int count = 0;
+        for (Map.Entry<String, Level> entry : adjustment.originalLevels.entrySet()) {
+            String name = entry.getKey();
+            // Skip removed metrics and metrics with levels changed after the adjustment
+            if (metricService.containsMetric(name) && adjustment.level.equals(metricsLevelConfig.getLevel(name))) {
+                if (entry.getValue() != null) {
+                    metricsLevelConfig.setLevel(name, entry.getValue());
+                } else {
+                    metricsLevelConfig.removeLevel(name);
+                }
+                count++;
+            }
+        }
+        if (count > 0) {
+            metricService.levelsChanged();
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info(String.format("Metrics overhead %.2f%% is within the budget %.2f%%. Restored the level of %d "
+                            + "metrics under \"%s\".", metricsOverhead, governorConfig.getBudget(), count,
+                    adjustment.parentName));
+        }
+        return count > 0;
+    }
+
+    /**
+     * Get the CPU time used by the reporter threads since the last call. Only the threads created via
+     * {@link MetricsThreads} are checked.
+     */
+    private long getReporterThreadsCpuTime() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isThreadCpuTimeSupported() || !threadMXBean.isThreadCpuTimeEnabled()) {
+            return 0L;
+        }
+        long cpuTime = 0L;
+        Map<Long, Long> threadCpuTimes = new HashMap<>();
+        for (long threadId : MetricsThreads.getThreadIds()) {
+            // The CPU time is -1 if the thread is no longer alive
+            long threadCpuTime = threadMXBean.getThreadCpuTime(threadId);
+            if (threadCpuTime > 0) {
+                threadCpuTimes.put(threadId, threadCpuTime);
+                cpuTime += threadCpuTime - reporterThreadCpuTimes.getOrDefault(threadId, 0L);
+            }
+        }
+        reporterThreadCpuTimes = threadCpuTimes;
+        return cpuTime;
+    }
+
+    private static String getParentName(String name) {
+        int index = name.lastIndexOf(METRIC_PATH_DELIMITER);
+        return index != -1 ? name.substring(0, index) : ROOT_METRIC_NAME;
+    }
+
+    /**
+     * @see MetricService#getGovernorAdjustments()
+     */
+    Map<String, String> getAdjustments() {
+        Map<String, String> result = new LinkedHashMap<>();
+        synchronized (adjustments) {
+            // Iterate from the first adjustment, so that the last level is kept for each parent name
+            Iterator<GovernorAdjustment> iterator = adjustments.descendingIterator();
+            while (iterator.hasNext()) {
+                GovernorAdjustment adjustment = iterator.next();
+                result.put(adjustment.parentName, adjustment.level.name());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @see MetricService#getMetricsOverhead()
+     */
+    double getOverhead() {
+        return metricsOverhead;
+    }
+}
@@ -15,9 +15,11 @@
  */
 package org.wso2.carbon.metrics.core.service;
 
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Reservoir;
 import com.codahale.metrics.jvm.BufferPoolMetricSet;
 import com.codahale.metrics.jvm.GarbageCollectorMetricSet;
 import com.codahale.metrics.jvm.MemoryUsageGaugeSet;
@@ -25,6 +27,7 @@ import com.codahale.metrics.jvm.ThreadStatesGaugeSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.metrics.core.Counter;
+import org.wso2.carbon.metrics.core.Counting;
 import org.wso2.carbon.metrics.core.Gauge;
 import org.wso2.carbon.metrics.core.Histogram;
 import org.wso2.carbon.metrics.core.Level;
@@ -32,33 +35,56 @@ import org.wso2.carbon.metrics.core.Meter;
 import org.wso2.carbon.metrics.core.Metric;
 import org.wso2.carbon.metrics.core.MetricNotFoundException;
 import org.wso2.carbon.metrics.core.Timer;
+import org.wso2.carbon.metrics.core.alert.AlertSink;
+import org.wso2.carbon.metrics.core.alert.JmxAlertSink;
+import org.wso2.carbon.metrics.core.config.model.MetricExpiryConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricGovernorConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricHistoryConfig;
 import org.wso2.carbon.metrics.core.config.model.MetricsConfig;
 import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
+import org.wso2.carbon.metrics.core.history.MetricHistory;
+import org.wso2.carbon.metrics.core.history.MetricSeries;
 import org.wso2.carbon.metrics.core.jmx.MetricManagerMXBean;
 import org.wso2.carbon.metrics.core.metric.ClassLoadingGaugeSet;
+import org.wso2.carbon.metrics.core.metric.ContainerMetricSet;
+import org.wso2.carbon.metrics.core.metric.DynamicMetricSet;
+import org.wso2.carbon.metrics.core.metric.GarbageCollectionNotificationMetricSet;
 import org.wso2.carbon.metrics.core.metric.OperatingSystemMetricSet;
+import org.wso2.carbon.metrics.core.metric.ThreadUsageMetricSet;
 import org.wso2.carbon.metrics.core.reporter.ListeningReporter;
 import org.wso2.carbon.metrics.core.reporter.Reporter;
 import org.wso2.carbon.metrics.core.reporter.ReporterBuildException;
 import org.wso2.carbon.metrics.core.reporter.ReporterBuilder;
+import org.wso2.carbon.metrics.core.reporter.ReporterMetrics;
 import org.wso2.carbon.metrics.core.reporter.ScheduledReporter;
+import org.wso2.carbon.metrics.core.sketch.SketchReservoir;
 
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import javax.management.ListenerNotFoundException;
+import javax.management.MBeanNotificationInfo;
+import javax.management.NotificationBroadcasterSupport;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
 
 /**
  * Implementation class for {@link MetricService}, which will use the Metrics (https://dropwizard.github.io/metrics)
  * library for creating various metrics
  */
-public final class MetricService implements MetricManagerMXBean {
+public final class MetricService implements MetricManagerMXBean, NotificationEmitter {
 
     private static final Logger logger = LoggerFactory.getLogger(MetricService.class);
 
@@ -75,7 +101,7 @@ public final class MetricService implements MetricManagerMXBean {
     /**
      * Metrics feature enabling flag. This flag should be initially updated from the configuration.
      */
-    private boolean enabled;
+    private volatile boolean enabled;
 
     /**
      * The {@link MetricRegistry} instance from the Metrics Implementation
@@ -111,6 +137,65 @@ public final class MetricService implements MetricManagerMXBean {
 
     private static final Pattern METRIC_AGGREGATE_ANNOTATION_PATTERN = Pattern.compile("^(.+)\\[\\+\\]$");
 
+    private static final String METRIC_AGGREGATE_ANNOTATION = "[+]";
+
+    /**
+     * The name of the counter for metrics rejected by the cardinality limiter
+     */
+    private static final String CARDINALITY_REJECTED_METRIC_NAME = "metrics.cardinality.rejected";
+
+    private static final String CARDINALITY_OVERFLOW_METRIC_NAME = "overflow";
+
+    private final CardinalityLimiter cardinalityLimiter;
+
+    /**
+     * The lock used when creating and removing metrics. This is not used when getting existing metrics.
+     */
+    private final Object metricCreationLock = new Object();
+
+    /**
+     * The recent values of metrics. This is {@code null} if the history is not enabled.
+     */
+    private final MetricHistory metricHistory;
+
+    /**
+     * The alert rules and the sinks of the alert events
+     */
+    private final MetricAlerts metricAlerts;
+
+    /**
+     * Reloads the levels when the properties file is changed
+     */
+    private final LevelReloader levelReloader;
+
+    /**
+     * Checks the overhead of metrics and adjusts the levels
+     */
+    private final MetricGovernor metricGovernor;
+
+    /**
+     * The features, which are started and stopped with the Metrics feature. The JVM metric sets are added when they
+     * are registered.
+     */
+    private final List<MetricServiceFeature> features = new CopyOnWriteArrayList<>();
+
+    /**
+     * Released when the reporters are built and the JVM metrics are registered
+     */
+    private final CountDownLatch ready = new CountDownLatch(1);
+
+    /**
+     * The lock used when enabling or disabling the Metrics feature. The startup uses the same lock to start the
+     * reporters and the JVM metric sets, so that they are not started after the feature is disabled.
+     */
+    private final Object enabledLock = new Object();
+
+    /**
+     * Sends the JMX notifications of the {@link MetricManagerMXBean}
+     */
+    private final NotificationBroadcasterSupport notificationBroadcaster =
+            new NotificationBroadcasterSupport(JmxAlertSink.NOTIFICATION_INFO);
+
     /**
      * MetricWrapper class is used for the metrics map. This class keeps the associated {@link Level} and enabled status
      * for a metric. The main reason to keep the enabled status separately is that EnabledMetricFilter gets called as
@@ -124,6 +209,22 @@ public final class MetricService implements MetricManagerMXBean {
         private final String name;
         private Boolean enabled;
         private AbstractMetric metric;
+        /**
+         * JVM metrics are not expired
+         */
+        private boolean expirable = true;
+        /**
+         * The count seen in the last expiry check
+         */
+        private long lastCount = -1L;
+        /**
+         * Number of consecutive expiry checks without a change in count
+         */
+        private int idleCycles;
+        /**
+         * The prefix used to count this metric in the cardinality limiter
+         */
+        private String cardinalityPrefix;
 
         private MetricWrapper(String name, Level level, Boolean enabled) {
             this.name = name;
@@ -146,6 +247,15 @@ public final class MetricService implements MetricManagerMXBean {
         this.metricRegistry = metricRegistry;
         this.metricsConfig = metricsConfig;
         this.metricsLevelConfig = metricsLevelConfig;
+        this.cardinalityLimiter = new CardinalityLimiter(metricsConfig.getCardinality());
+        MetricHistoryConfig historyConfig = metricsConfig.getHistory();
+        this.metricHistory = historyConfig.isEnabled()
+                ? new MetricHistory(historyConfig.getPoints(), historyConfig.getMaxMetrics()) : null;
+        this.metricAlerts = new MetricAlerts(metricsConfig.getAlerts(), enabledMetricFilter, metricRegistry, this,
+                notificationBroadcaster);
+        this.levelReloader = new LevelReloader(this, metricsConfig.getLevelReload(), metricsLevelConfig);
+        this.metricGovernor = new MetricGovernor(this, metricsConfig.getGovernor(), metricsLevelConfig);
+        addFeatures();
 
         // Set enabled from the config
         boolean enabled = metricsConfig.isEnabled();
@@ -166,21 +276,74 @@ public final class MetricService implements MetricManagerMXBean {
             metricsLevelConfig.setRootLevel(rootLevel.get());
         }
 
-        // Build all reporters
-        metricsConfig.getReporting().getReporterBuilders().forEach(reporterBuilder -> {
-            try {
-                addReporter(reporterBuilder);
-            } catch (ReporterBuildException e) {
-                logger.warn("Reporter build failed", e);
+        // Set enabled. The reporters are started when they are built.
+        setEnabled(enabled);
+
+        if (metricsConfig.getStartup().isAsync()) {
+            // Metrics can be created while the reporters are built and the JVM metrics are registered
+            Thread thread = new Thread(() -> {
+                try {
+                    startup();
+                } catch (Throwable e) {
+                    logger.error("Error when starting the Metric Service", e);
+                }
+            }, "metrics-startup");
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            startup();
+        }
+    }
+
+    /**
+     * Build the reporters and register the JVM metrics. Building the reporters may be slow as the reporters may create
+     * connection pools and look up the host name.
+     */
+    private void startup() {
+        try {
+            // Build all reporters
+            metricsConfig.getReporting().getReporterBuilders().forEach(reporterBuilder -> {
+                try {
+                    addReporter(reporterBuilder);
+                } catch (ReporterBuildException e) {
+                    logger.warn("Reporter build failed", e);
+                }
+            });
+            synchronized (enabledLock) {
+                if (enabled) {
+                    startReporters();
+                }
             }
-        });
 
-        // Set enabled
-        setEnabled(enabled);
+            // Register JVM Metrics
+            // This should be the last method when initializing MetricService
+            if (metricsConfig.getStartup().isJvmMetrics()) {
+                registerJVMMetrics();
+            }
+        } finally {
+            ready.countDown();
+        }
+    }
 
-        // Register JVM Metrics
-        // This should be the last method when initializing MetricService
-        registerJVMMetrics();
+    /**
+     * @return {@code true} if the reporters are built and the JVM metrics are registered
+     */
+    @Override
+    public boolean isReady() {
+        return ready.getCount() == 0;
+    }
+
+    /**
+     * Wait until the reporters are built and the JVM metrics are registered. This is required only if the Metric
+     * Service is started asynchronously.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of the timeout
+     * @return {@code true} if the Metric Service is ready and {@code false} if the timeout elapsed
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+        return ready.await(timeout, unit);
     }
 
     /**
@@ -195,6 +358,13 @@ public final class MetricService implements MetricManagerMXBean {
         Optional<? extends Reporter> reporter = reporterBuilder.build(metricRegistry, enabledMetricFilter);
         if (reporter.isPresent()) {
             Reporter r = reporter.get();
+            if (r instanceof ScheduledReporter) {
+                ((ScheduledReporter) r).setReporterMetrics(createReporterMetrics(r.getName()));
+                if (metricHistory != null && r.getName().equals(metricsConfig.getHistory().getReporter())) {
+                    // The history is recorded from the metrics collected for the reports
+                    ((ScheduledReporter) r).setReportListener(metricHistory::record);
+                }
+            }
             Reporter previousReporter = reporterMap.put(r.getName(), r);
             if (previousReporter != null) {
                 previousReporter.stop();
@@ -202,6 +372,26 @@ public final class MetricService implements MetricManagerMXBean {
         }
     }
 
+    private static String getReporterMetricsPrefix(String reporterName) {
+        return ReporterMetrics.PREFIX + "." + reporterName.toLowerCase(Locale.US);
+    }
+
+    /**
+     * Register the metrics to measure the reports of a scheduled reporter. The metrics are registered with level
+     * DEBUG.
+     */
+    private ReporterMetrics createReporterMetrics(String reporterName) {
+        String prefix = getReporterMetricsPrefix(reporterName);
+        ReporterMetrics reporterMetrics = new ReporterMetrics(timer(prefix + ".report", Level.DEBUG),
+                timer(prefix + ".collection", Level.DEBUG), timer(prefix + ".serialization", Level.DEBUG),
+                timer(prefix + ".write", Level.DEBUG), counter(prefix + ".items", Level.DEBUG),
+                counter(prefix + ".errors", Level.DEBUG), counter(prefix + ".dropped", Level.DEBUG));
+        // The gauge of a replaced reporter must not be reused
+        remove(prefix + ".lag");
+        gauge(prefix + ".lag", Level.DEBUG, reporterMetrics::getLag);
+        return reporterMetrics;
+    }
+
     /**
      * Remove a {@link Reporter} from the {@link MetricService}.
      *
@@ -212,6 +402,13 @@ public final class MetricService implements MetricManagerMXBean {
         Reporter previousReporter = reporterMap.remove(name);
         if (previousReporter != null) {
             previousReporter.stop();
+            if (previousReporter instanceof ScheduledReporter) {
+                String prefix = getReporterMetricsPrefix(name);
+                for (String metric : new String[]{"report", "collection", "serialization", "write", "items", "errors",
+                        "dropped", "lag"}) {
+                    remove(prefix + "." + metric);
+                }
+            }
             return true;
         }
         return false;
@@ -241,21 +438,79 @@ public final class MetricService implements MetricManagerMXBean {
     }
 
     private void setEnabled(boolean enabled) {
-        boolean changed = (this.enabled != enabled);
-        this.enabled = enabled;
-        if (changed) {
-            notifyEnabledStatus();
-            if (enabled) {
-                startReporters();
-            } else {
-                stopReporters();
+        synchronized (enabledLock) {
+            boolean changed = (this.enabled != enabled);
+            this.enabled = enabled;
+            if (changed) {
+                notifyEnabledStatus();
+                if (enabled) {
+                    startReporters();
+                    features.forEach(MetricServiceFeature::start);
+                } else {
+                    stopReporters();
+                    features.forEach(MetricServiceFeature::stop);
+                }
             }
         }
     }
 
+    /**
+     * Add the features enabled in the configuration. The features are started when the Metrics feature is enabled.
+     */
+    private void addFeatures() {
+        MetricExpiryConfig expiryConfig = metricsConfig.getExpiry();
+        if (expiryConfig.isEnabled()) {
+            features.add(new ScheduledFeature("metrics-expiry", expiryConfig.getPeriod(), this::expireIdleMetrics,
+                    "Error when expiring idle metrics"));
+        }
+        if (metricsConfig.getGovernor().isEnabled()) {
+            features.add(metricGovernor);
+        }
+        MetricHistoryConfig historyConfig = metricsConfig.getHistory();
+        String historyReporter = historyConfig.getReporter();
+        // The history is recorded by the reporter if a reporter is configured
+        if (metricHistory != null && (historyReporter == null || historyReporter.trim().isEmpty())) {
+            features.add(new ScheduledFeature("metrics-history", historyConfig.getPeriod(), this::recordHistory,
+                    "Error when recording the history of metrics"));
+        }
+        features.add(metricAlerts);
+        if (metricsConfig.getLevelReload().isEnabled()) {
+            features.add(levelReloader);
+        }
+    }
+
+    /**
+     * Update the enabled status of all metrics and restart the listening reporters after changing the levels of
+     * several metrics.
+     */
+    void levelsChanged() {
+        notifyEnabledStatus();
+        restartListeningReporters();
+    }
+
+    /**
+     * @return The metrics created via this service
+     */
+    Iterable<AbstractMetric> registeredMetrics() {
+        return () -> metricsMap.values().stream().map(metricWrapper -> metricWrapper.metric)
+                .filter(Objects::nonNull).iterator();
+    }
+
+    /**
+     * @param name The name of the Metric
+     * @return {@code true} if a metric with the given name was created via this service
+     */
+    boolean containsMetric(String name) {
+        return metricsMap.containsKey(name);
+    }
+
     private void notifyEnabledStatus() {
         for (MetricWrapper metricWrapper : metricsMap.values()) {
             AbstractMetric metric = metricWrapper.metric;
+            if (metric == null) {
+                // The metric is being created
+                continue;
+            }
             metric.setEnabled(isMetricEnabled(metricWrapper.name, metric.getLevel(),
                     metricsLevelConfig.getLevel(metric.getName()), false));
         }
@@ -310,6 +565,19 @@ public final class MetricService implements MetricManagerMXBean {
         }
     }
 
+    /**
+     * Apply the changes in a reloaded Metrics Level Configuration. The new levels are compared with the levels
+     * loaded from the file last time, so that the levels changed via JMX are not overridden unless they are changed in
+     * the file as well. A level removed from the file is removed only if it was not changed after it was loaded. The
+     * listening reporters are restarted only if a level was changed.
+     *
+     * @param reloadedConfig The {@link MetricsLevelConfig} reloaded from the file
+     * @return The number of levels changed
+     */
+    public int reloadLevels(MetricsLevelConfig reloadedConfig) {
+        return levelReloader.reload(reloadedConfig);
+    }
+
     /**
      * @return The current root {@link Level}
      */
@@ -338,6 +606,10 @@ public final class MetricService implements MetricManagerMXBean {
 
     private boolean isMetricEnabled(String name, Level metricLevel, Level configLevel, boolean getFromCache) {
         MetricWrapper metricWrapper = metricsMap.get(name);
+        if (metricWrapper == null) {
+            // The metric was removed
+            return false;
+        }
         if (!getFromCache || metricWrapper.enabled == null) {
             metricWrapper.enabled = isMetricEnabledBasedOnHierarchyLevel(name, metricLevel, configLevel);
         }
@@ -427,16 +699,380 @@ public final class MetricService implements MetricManagerMXBean {
                 throw new IllegalArgumentException(name + " is already used for a different type of metric");
             }
         } else {
-            boolean enabled = isMetricEnabledBasedOnHierarchyLevel(name, level, metricsLevelConfig.getLevel(name));
-            metricWrapper = new MetricWrapper(name, level, enabled);
-            metricsMap.put(name, metricWrapper);
-            T newMetric = metricBuilder.createMetric(name, level);
-            metricWrapper.metric = newMetric;
-            newMetric.setEnabled(enabled);
-            return newMetric;
+            String cardinalityPrefix = null;
+            if (cardinalityLimiter.isEnabled() && metricBuilder.getType() != null) {
+                cardinalityPrefix = cardinalityLimiter.getPrefix(name);
+                if (cardinalityLimiter.isFull(cardinalityPrefix)) {
+                    // Names rejected after the limit is reached should not contend for the creation lock
+                    T overflowMetric = findOverflowMetric(name, cardinalityPrefix, metricBuilder);
+                    if (overflowMetric != null) {
+                        return overflowMetric;
+                    }
+                }
+            }
+            synchronized (metricCreationLock) {
+                MetricWrapper existingMetricWrapper = metricsMap.get(name);
+                if (existingMetricWrapper != null && existingMetricWrapper.metric != null) {
+                    // Created by another thread
+                    return getOrCreateMetric(name, level, metricBuilder);
+                }
+                if (cardinalityPrefix != null && !cardinalityLimiter.tryAcquire(cardinalityPrefix)) {
+                    return getOverflowMetric(name, cardinalityPrefix, level, metricBuilder);
+                }
+                return createMetric(name, level, metricBuilder, cardinalityPrefix);
+            }
         }
     }
 
+    private <T extends AbstractMetric> T createMetric(String name, Level level, MetricBuilder<T> metricBuilder,
+                                                      String cardinalityPrefix) {
+        boolean enabled = isMetricEnabledBasedOnHierarchyLevel(name, level, metricsLevelConfig.getLevel(name));
+        MetricWrapper metricWrapper = new MetricWrapper(name, level, enabled);
+        metricWrapper.cardinalityPrefix = cardinalityPrefix;
+        metricsMap.put(name, metricWrapper);
+        T newMetric = metricBuilder.createMetric(name, level);
+        metricWrapper.metric = newMetric;
+        MetricGovernorConfig governorConfig = metricsConfig.getGovernor();
+        if (governorConfig.isEnabled() && metricBuilder.getType() != null) {
+            newMetric.updateCost = new UpdateCost(governorConfig.getSamplingRate());
+        }
+        newMetric.setEnabled(enabled);
+        return newMetric;
+    }
+
+    /**
+     * Find the existing overflow metric for a prefix, which reached the cardinality limit, without acquiring the
+     * creation lock.
+     *
+     * @return The overflow metric or {@code null} if the overflow metric or the rejected counter is not created yet
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends AbstractMetric> T findOverflowMetric(String name, String prefix,
+                                                            MetricBuilder<T> metricBuilder) {
+        MetricWrapper rejectedCounterWrapper = metricsMap.get(CARDINALITY_REJECTED_METRIC_NAME);
+        if (rejectedCounterWrapper == null || rejectedCounterWrapper.metric == null) {
+            return null;
+        }
+        String overflowName = MetricRegistry.name(prefix, CARDINALITY_OVERFLOW_METRIC_NAME, metricBuilder.getType());
+        MetricWrapper metricWrapper = metricsMap.get(overflowName);
+        if (metricWrapper == null || metricWrapper.metric == null || !metricBuilder.isInstance(metricWrapper.metric)) {
+            return null;
+        }
+        recordRejection(name, prefix, rejectedCounterWrapper);
+        return (T) metricWrapper.metric;
+    }
+
+    /**
+     * Get or create the overflow metric for a prefix, which reached the cardinality limit. All new metrics of the same
+     * type under the prefix use the overflow metric.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends AbstractMetric> T getOverflowMetric(String name, String prefix, Level level,
+                                                           MetricBuilder<T> metricBuilder) {
+        // The cardinality limiter should not be applied to the rejected counter
+        MetricWrapper rejectedCounterWrapper = metricsMap.get(CARDINALITY_REJECTED_METRIC_NAME);
+        if (rejectedCounterWrapper == null || rejectedCounterWrapper.metric == null) {
+            createMetric(CARDINALITY_REJECTED_METRIC_NAME, Level.INFO, counterBuilder, null);
+            rejectedCounterWrapper = metricsMap.get(CARDINALITY_REJECTED_METRIC_NAME);
+            rejectedCounterWrapper.expirable = false;
+        }
+        recordRejection(name, prefix, rejectedCounterWrapper);
+        String overflowName = MetricRegistry.name(prefix, CARDINALITY_OVERFLOW_METRIC_NAME, metricBuilder.getType());
+        MetricWrapper metricWrapper = metricsMap.get(overflowName);
+        if (metricWrapper != null && metricWrapper.metric != null) {
+            if (metricBuilder.isInstance(metricWrapper.metric)) {
+                // The level of the first metric is used for the overflow metric
+                return (T) metricWrapper.metric;
+            } else {
+                throw new IllegalArgumentException(overflowName + " is already used for a different type of metric");
+            }
+        }
+        return createMetric(overflowName, level, metricBuilder, null);
+    }
+
+    /**
+     * Count a rejected metric name once and warn when the first metric is rejected for a prefix.
+     */
+    private void recordRejection(String name, String prefix, MetricWrapper rejectedCounterWrapper) {
+        if (cardinalityLimiter.isNewRejection(name) && rejectedCounterWrapper.metric instanceof Counter) {
+            ((Counter) rejectedCounterWrapper.metric).inc();
+        }
+        if (cardinalityLimiter.isFirstRejection(prefix) && logger.isWarnEnabled()) {
+            logger.warn(String.format("The number of metrics under \"%s\" reached the limit %d. The metric \"%s\" and "
+                            + "any other new metric under the same prefix will use an overflow metric.", prefix,
+                    cardinalityLimiter.getLimit(prefix), name));
+        }
+    }
+
+    /**
+     * <p>Remove the metric or the metric collection registered under the given name.</p> <p>The removed metric is
+     * disabled. Therefore any update through an existing reference to the metric is ignored and it is safe to keep
+     * using such references. Get the metric again from the service to register a new metric with the same
+     * name.</p> <p>When the aggregation is deferred, the removed metric is removed from the metrics aggregating its
+     * updates. The aggregated counts keep the count of the removed metric.</p>
+     *
+     * @param name The name of the metric (This name can be annotated to remove a metric collection. eg.
+     *             org.wso2.parent[+].child.metric). Removing a metric collection does not remove the metrics in it.
+     * @return {@code true} if a metric or a metric collection was removed
+     */
+    public boolean remove(String name) {
+        synchronized (metricCreationLock) {
+            boolean removed = false;
+            MetricWrapper metricWrapper = metricsMap.remove(name);
+            if (metricWrapper != null) {
+                if (metricWrapper.metric != null) {
+                    metricWrapper.metric.removeAggregates();
+                    metricWrapper.metric.setEnabled(false);
+                }
+                if (metricWrapper.cardinalityPrefix != null) {
+                    cardinalityLimiter.release(metricWrapper.cardinalityPrefix);
+                }
+                metricRegistry.remove(name);
+                removed = true;
+            }
+            if (metricCollectionsMap.remove(name) != null) {
+                removed = true;
+            }
+            if (removed && logger.isDebugEnabled()) {
+                logger.debug(String.format("Removed metric: %s", name));
+            }
+            return removed;
+        }
+    }
+
+    /**
+     * Remove all metrics and metric collections with the given name or with names starting with the given name
+     * followed by the hierarchy delimiter. For example, "org.wso2" matches "org.wso2" and "org.wso2.metric", but not
+     * "org.wso2carbon". See {@link #remove(String)}.
+     *
+     * @param prefix The name prefix of the metrics
+     * @return The number of metrics and metric collections removed
+     */
+    public int removeMatching(String prefix) {
+        int count = 0;
+        for (String name : metricsMap.keySet()) {
+            if (matchesPrefix(name, prefix) && remove(name)) {
+                count++;
+            }
+        }
+        for (String name : metricCollectionsMap.keySet()) {
+            if (matchesPrefix(name.replace(METRIC_AGGREGATE_ANNOTATION, ""), prefix) && remove(name)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean matchesPrefix(String name, String prefix) {
+        return prefix.isEmpty() || name.equals(prefix)
+                || (name.startsWith(prefix) && name.startsWith(METRIC_PATH_DELIMITER, prefix.length()));
+    }
+
+    /**
+     * <p>Check all metrics and remove the metrics, which were not updated for the configured number of expiry checks.
+     * Only the enabled metrics with counts (counters, meters, histograms and timers) are checked. Gauges and JVM
+     * metrics are never expired. A counter, which was incremented and decremented by the same amount between two
+     * checks is considered as idle.</p> <p>Unlike a removed metric, an expired metric is registered again when it is
+     * updated through an existing reference. If another metric was registered with the same name in the meantime, the
+     * updates are passed to that metric. An expired metric is not added back to the metric collections.</p>
+     *
+     * @return The number of expired metrics
+     */
+    public int expireIdleMetrics() {
+        int idleCyclesToExpire = metricsConfig.getExpiry().getIdleCycles();
+        int count = 0;
+        for (MetricWrapper metricWrapper : metricsMap.values()) {
+            AbstractMetric metric = metricWrapper.metric;
+            if (!metricWrapper.expirable || !(metric instanceof Counting) || !metric.isEnabled()) {
+                continue;
+            }
+            long currentCount = ((Counting) metric).getCount();
+            if (currentCount != metricWrapper.lastCount) {
+                metricWrapper.lastCount = currentCount;
+                metricWrapper.idleCycles = 0;
+            } else if (++metricWrapper.idleCycles >= idleCyclesToExpire) {
+                synchronized (metricCreationLock) {
+                    // Make sure that the metric was not replaced
+                    if (metricsMap.get(metricWrapper.name) == metricWrapper) {
+                        metric.expire(this::reviveMetric);
+                        remove(metricWrapper.name);
+                        count++;
+                    }
+                }
+            }
+        }
+        if (count > 0 && logger.isDebugEnabled()) {
+            logger.debug(String.format("Expired %d idle metrics", count));
+        }
+        return count;
+    }
+
+    /**
+     * Register an expired metric again when it is updated. The metric is registered under the same conditions as a new
+     * metric with the same name. Therefore the updates go to the overflow metric if the cardinality limit is reached.
+     *
+     * @param metric The expired metric
+     * @return The metric, which should record the updates
+     */
+    private AbstractMetric reviveMetric(AbstractMetric metric) {
+        synchronized (metricCreationLock) {
+            if (!metric.isExpired()) {
+                // Registered again by another thread
+                return metric;
+            }
+            if (metric.getReplacement() != null) {
+                return metric.getReplacement();
+            }
+            MetricBuilder<? extends AbstractMetric> typeBuilder;
+            com.codahale.metrics.Metric registeredMetric;
+            if (metric instanceof CounterImpl) {
+                typeBuilder = counterBuilder;
+                registeredMetric = ((CounterImpl) metric).getCounter();
+            } else if (metric instanceof MeterImpl) {
+                typeBuilder = meterBuilder;
+                registeredMetric = ((MeterImpl) metric).getMeter();
+            } else if (metric instanceof HistogramImpl) {
+                typeBuilder = histogramBuilder;
+                registeredMetric = ((HistogramImpl) metric).getHistogram();
+            } else {
+                typeBuilder = timerBuilder;
+                registeredMetric = ((TimerImpl) metric).getTimer();
+            }
+            String name = metric.getName();
+            MetricWrapper metricWrapper = metricsMap.get(name);
+            if (metricWrapper != null && metricWrapper.metric != null) {
+                if (typeBuilder.isInstance(metricWrapper.metric) && metric.getLevel().equals(metricWrapper.level)) {
+                    metric.replaceWith(metricWrapper.metric);
+                    return metricWrapper.metric;
+                }
+                if (logger.isWarnEnabled()) {
+                    logger.warn(String.format("The expired metric \"%s\" cannot be registered again, since the name is "
+                            + "already used for a different type of metric or with a different level. The updates are "
+                            + "ignored.", name));
+                }
+                metric.revived();
+                metric.setEnabled(false);
+                return metric;
+            }
+            String cardinalityPrefix = null;
+            if (cardinalityLimiter.isEnabled()) {
+                cardinalityPrefix = cardinalityLimiter.getPrefix(name);
+                if (!cardinalityLimiter.tryAcquire(cardinalityPrefix)) {
+                    AbstractMetric overflowMetric = getOverflowMetric(name, cardinalityPrefix, metric.getLevel(),
+                            typeBuilder);
+                    metric.replaceWith(overflowMetric);
+                    return overflowMetric;
+                }
+            }
+            metric.revived();
+            createMetric(name, metric.getLevel(), new MetricBuilder<AbstractMetric>() {
+                @Override
+                public AbstractMetric createMetric(String metricName, Level level) {
+                    metricRegistry.register(metricName, registeredMetric);
+                    return metric;
+                }
+
+                @Override
+                public boolean isInstance(AbstractMetric existingMetric) {
+                    return existingMetric == metric;
+                }
+            }, cardinalityPrefix);
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Registered the expired metric again: %s", name));
+            }
+            return metric;
+        }
+    }
+
+    /**
+     * <p>Measure the overhead of metrics since the last check and adjust the metric levels based on the configured
+     * budget. The overhead is the estimated time spent on updating metrics and the time spent on reporting as a
+     * percentage of the CPU time of all available processors.</p> <p>If the overhead exceeds the budget, the metrics
+     * with the highest level under the most expensive parent name are set to the next lower level via
+     * {@link #setMetricLevel(String, Level)}. Metrics with level INFO are never disabled. If the overhead stays within
+     * the budget for the configured number of checks, the last adjustment is reverted. A metric is not restored if its
+     * level was changed after the adjustment.</p>
+     *
+     * @return {@code true} if the level of any metric was changed
+     */
+    public boolean checkOverhead() {
+        return metricGovernor.checkOverhead();
+    }
+
+    @Override
+    public Map<String, String> getGovernorAdjustments() {
+        return metricGovernor.getAdjustments();
+    }
+
+    @Override
+    public double getMetricsOverhead() {
+        return metricGovernor.getOverhead();
+    }
+
+    @Override
+    public MetricSeries getHistory(String name) {
+        return metricHistory != null ? metricHistory.get(name) : null;
+    }
+
+    /**
+     * Record the values of enabled metrics in the history. This is done periodically only if the history is not
+     * recorded from the reports of a scheduled reporter.
+     */
+    private void recordHistory() {
+        metricHistory.record(System.currentTimeMillis(), metricRegistry.getGauges(enabledMetricFilter),
+                metricRegistry.getCounters(enabledMetricFilter), metricRegistry.getHistograms(enabledMetricFilter),
+                metricRegistry.getMeters(enabledMetricFilter), metricRegistry.getTimers(enabledMetricFilter));
+    }
+
+    /**
+     * Add a sink to receive the events of the alert rules
+     *
+     * @param sink The {@link AlertSink}
+     * @return {@code true} if the sink was added. The sink is not added if the alerts are not enabled.
+     */
+    public boolean addAlertSink(AlertSink sink) {
+        return metricAlerts.addSink(sink);
+    }
+
+    /**
+     * Remove a sink added to receive the events of the alert rules
+     *
+     * @param sink The {@link AlertSink}
+     * @return {@code true} if the sink was removed
+     */
+    public boolean removeAlertSink(AlertSink sink) {
+        return metricAlerts.removeSink(sink);
+    }
+
+    /**
+     * Evaluate the alert rules with the current values of the metrics. This is done periodically when the alerts are
+     * enabled.
+     */
+    public void evaluateAlerts() {
+        metricAlerts.evaluate();
+    }
+
+    @Override
+    public void addNotificationListener(NotificationListener listener, NotificationFilter filter, Object handback) {
+        notificationBroadcaster.addNotificationListener(listener, filter, handback);
+    }
+
+    @Override
+    public void removeNotificationListener(NotificationListener listener) throws ListenerNotFoundException {
+        notificationBroadcaster.removeNotificationListener(listener);
+    }
+
+    @Override
+    public void removeNotificationListener(NotificationListener listener, NotificationFilter filter,
+                                           Object handback) throws ListenerNotFoundException {
+        notificationBroadcaster.removeNotificationListener(listener, filter, handback);
+    }
+
+    @Override
+    public MBeanNotificationInfo[] getNotificationInfo() {
+        return notificationBroadcaster.getNotificationInfo();
+    }
+
     /**
      * Get or create a metric collection for a given path
      *
@@ -522,6 +1158,13 @@ public final class MetricService implements MetricManagerMXBean {
         T createMetric(String name, Level level);
 
         boolean isInstance(AbstractMetric metric);
+
+        /**
+         * The type name used for the overflow metric. The cardinality limiter is not applied, if this is null.
+         */
+        default String getType() {
+            return null;
+        }
     }
 
     /**
@@ -530,6 +1173,9 @@ public final class MetricService implements MetricManagerMXBean {
     private final MetricBuilder<MeterImpl> meterBuilder = new MetricBuilder<MeterImpl>() {
         @Override
         public MeterImpl createMetric(String name, Level level) {
+            if (isAggregationDeferred()) {
+                return new MeterImpl(name, level, metricRegistry.register(name, new AggregateMeter()));
+            }
             return new MeterImpl(name, level, metricRegistry.meter(name));
         }
 
@@ -537,6 +1183,11 @@ public final class MetricService implements MetricManagerMXBean {
         public boolean isInstance(AbstractMetric metric) {
             return MeterImpl.class.isInstance(metric);
         }
+
+        @Override
+        public String getType() {
+            return "meter";
+        }
     };
 
     /**
@@ -545,6 +1196,9 @@ public final class MetricService implements MetricManagerMXBean {
     private final MetricBuilder<CounterImpl> counterBuilder = new MetricBuilder<CounterImpl>() {
         @Override
         public CounterImpl createMetric(String name, Level level) {
+            if (isAggregationDeferred()) {
+                return new CounterImpl(name, level, metricRegistry.register(name, new AggregateCounter()));
+            }
             return new CounterImpl(name, level, metricRegistry.counter(name));
         }
 
@@ -552,6 +1206,11 @@ public final class MetricService implements MetricManagerMXBean {
         public boolean isInstance(AbstractMetric metric) {
             return CounterImpl.class.isInstance(metric);
         }
+
+        @Override
+        public String getType() {
+            return "counter";
+        }
     };
 
     /**
@@ -560,6 +1219,18 @@ public final class MetricService implements MetricManagerMXBean {
     private final MetricBuilder<TimerImpl> timerBuilder = new MetricBuilder<TimerImpl>() {
         @Override
         public TimerImpl createMetric(String name, Level level) {
+            int samplingRate = metricsLevelConfig.getSamplingRate(name);
+            double sketchAccuracy = metricsLevelConfig.getSketchAccuracy(name);
+            if (samplingRate > 1) {
+                Reservoir reservoir = sketchAccuracy > 0 ? createSketchReservoir(sketchAccuracy)
+                        : new ExponentiallyDecayingReservoir();
+                return new TimerImpl(name, level, metricRegistry.register(name,
+                        new SampledTimer(samplingRate, reservoir)));
+            }
+            if (sketchAccuracy > 0) {
+                return new TimerImpl(name, level, metricRegistry.register(name,
+                        new com.codahale.metrics.Timer(createSketchReservoir(sketchAccuracy))));
+            }
             return new TimerImpl(name, level, metricRegistry.timer(name));
         }
 
@@ -567,14 +1238,33 @@ public final class MetricService implements MetricManagerMXBean {
         public boolean isInstance(AbstractMetric metric) {
             return TimerImpl.class.isInstance(metric);
         }
+
+        @Override
+        public String getType() {
+            return "timer";
+        }
     };
 
+    private SketchReservoir createSketchReservoir(double sketchAccuracy) {
+        return new SketchReservoir(sketchAccuracy, metricsLevelConfig.getSketchWindow(), TimeUnit.SECONDS);
+    }
+
     /**
      * Default Metric Builder for {@code HistogramImpl}
      */
     private final MetricBuilder<HistogramImpl> histogramBuilder = new MetricBuilder<HistogramImpl>() {
         @Override
         public HistogramImpl createMetric(String name, Level level) {
+            double sketchAccuracy = metricsLevelConfig.getSketchAccuracy(name);
+            if (isAggregationDeferred()) {
+                Reservoir reservoir = sketchAccuracy > 0 ? createSketchReservoir(sketchAccuracy)
+                        : new ExponentiallyDecayingReservoir();
+                return new HistogramImpl(name, level, metricRegistry.register(name, new AggregateHistogram(reservoir)));
+            }
+            if (sketchAccuracy > 0) {
+                return new HistogramImpl(name, level, metricRegistry.register(name,
+                        new com.codahale.metrics.Histogram(createSketchReservoir(sketchAccuracy))));
+            }
             return new HistogramImpl(name, level, metricRegistry.histogram(name));
         }
 
@@ -582,6 +1272,11 @@ public final class MetricService implements MetricManagerMXBean {
         public boolean isInstance(AbstractMetric metric) {
             return HistogramImpl.class.isInstance(metric);
         }
+
+        @Override
+        public String getType() {
+            return "histogram";
+        }
     };
 
     /**
@@ -656,7 +1351,20 @@ public final class MetricService implements MetricManagerMXBean {
                 @Override
                 public Counter createMetricCollection(String[] names, Level[] levels,
                                                       MetricBuilder<CounterImpl> metricBuilder) {
-                    Counter parentCounter = getOrCreateMetric(names[0], levels[0], metricBuilder);
+                    CounterImpl parentCounter = getOrCreateMetric(names[0], levels[0], metricBuilder);
+                    com.codahale.metrics.Counter counter = parentCounter.getCounter();
+                    if (counter instanceof AggregateCounter) {
+                        // The aggregation is deferred. Only the first metric is updated.
+                        for (int i = 1; i < names.length; i++) {
+                            CounterImpl aggregateMetric = getOrCreateMetric(names[i], levels[i], metricBuilder);
+                            com.codahale.metrics.Counter aggregate = aggregateMetric.getCounter();
+                            if (aggregate instanceof AggregateCounter) {
+                                ((AggregateCounter) aggregate).addMember((AggregateCounter) counter);
+                                parentCounter.addAggregate(aggregateMetric);
+                            }
+                        }
+                        return parentCounter;
+                    }
                     List<Counter> childCounters = new ArrayList<>(names.length - 1);
                     for (int i = 1; i < names.length; i++) {
                         childCounters.add(getOrCreateMetric(names[i], levels[i], metricBuilder));
@@ -680,7 +1388,20 @@ public final class MetricService implements MetricManagerMXBean {
                 @Override
                 public Meter createMetricCollection(String[] names, Level[] levels,
                                                     MetricBuilder<MeterImpl> metricBuilder) {
-                    Meter parentMeter = getOrCreateMetric(names[0], levels[0], metricBuilder);
+                    MeterImpl parentMeter = getOrCreateMetric(names[0], levels[0], metricBuilder);
+                    com.codahale.metrics.Meter meter = parentMeter.getMeter();
+                    if (meter instanceof AggregateMeter) {
+                        // The aggregation is deferred. Only the first metric is updated.
+                        for (int i = 1; i < names.length; i++) {
+                            MeterImpl aggregateMetric = getOrCreateMetric(names[i], levels[i], metricBuilder);
+                            com.codahale.metrics.Meter aggregate = aggregateMetric.getMeter();
+                            if (aggregate instanceof AggregateMeter) {
+                                ((AggregateMeter) aggregate).addMember((AggregateMeter) meter);
+                                parentMeter.addAggregate(aggregateMetric);
+                            }
+                        }
+                        return parentMeter;
+                    }
                     List<Meter> childMeters = new ArrayList<>(names.length - 1);
                     for (int i = 1; i < names.length; i++) {
                         childMeters.add(getOrCreateMetric(names[i], levels[i], metricBuilder));
@@ -704,7 +1425,20 @@ public final class MetricService implements MetricManagerMXBean {
                 @Override
                 public Histogram createMetricCollection(String[] names, Level[] levels,
                                                         MetricBuilder<HistogramImpl> metricBuilder) {
-                    Histogram parentHistogram = getOrCreateMetric(names[0], levels[0], metricBuilder);
+                    HistogramImpl parentHistogram = getOrCreateMetric(names[0], levels[0], metricBuilder);
+                    com.codahale.metrics.Histogram histogram = parentHistogram.getHistogram();
+                    if (histogram instanceof AggregateHistogram) {
+                        // The aggregation is deferred. Only the first metric is updated.
+                        for (int i = 1; i < names.length; i++) {
+                            HistogramImpl aggregateMetric = getOrCreateMetric(names[i], levels[i], metricBuilder);
+                            com.codahale.metrics.Histogram aggregate = aggregateMetric.getHistogram();
+                            if (aggregate instanceof AggregateHistogram) {
+                                ((AggregateHistogram) aggregate).addMember((AggregateHistogram) histogram);
+                                parentHistogram.addAggregate(aggregateMetric);
+                            }
+                        }
+                        return parentHistogram;
+                    }
                     List<Histogram> childHistograms = new ArrayList<>(names.length - 1);
                     for (int i = 1; i < names.length; i++) {
                         childHistograms.add(getOrCreateMetric(names[i], levels[i], metricBuilder));
@@ -719,6 +1453,16 @@ public final class MetricService implements MetricManagerMXBean {
 
             };
 
+    /**
+     * When the aggregation is deferred, the counters, meters and histograms are created as aggregate metrics. A metric
+     * collection then updates only its first metric, which is added as a member to the other metrics in the
+     * collection. The values of the members are added when the other metrics are read. The first metric records the
+     * updates while it or any of the aggregated metrics is enabled, so that the levels of the metrics can differ.
+     */
+    private boolean isAggregationDeferred() {
+        return metricsConfig.getAggregation().isDeferred();
+    }
+
     private Level[] levels(Level level, Level[] levels) {
         Level[] levelArray = new Level[levels.length + 1];
         System.arraycopy(levels, 0, levelArray, 1, levels.length);
@@ -895,26 +1639,83 @@ public final class MetricService implements MetricManagerMXBean {
     private void registerJVMMetrics() {
         registerAllJVMMetrics(Level.INFO, "jvm.memory", new MemoryUsageGaugeSet());
         registerAllJVMMetrics(Level.INFO, "jvm.os", new OperatingSystemMetricSet());
+        registerAllJVMMetrics(Level.INFO, "jvm.container", new ContainerMetricSet());
         registerAllJVMMetrics(Level.INFO, "jvm.class-loading", new ClassLoadingGaugeSet());
         registerAllJVMMetrics(Level.DEBUG, "jvm.gc", new GarbageCollectorMetricSet());
+        if (isGarbageCollectionNotificationAvailable()) {
+            registerAllJVMMetrics(Level.DEBUG, "jvm.gc", new GarbageCollectionNotificationMetricSet());
+        }
         registerAllJVMMetrics(Level.DEBUG, "jvm.threads", new ThreadStatesGaugeSet());
+        registerAllJVMMetrics(Level.TRACE, "jvm.threads.usage", new ThreadUsageMetricSet());
         registerAllJVMMetrics(Level.TRACE, "jvm.buffers",
                 new BufferPoolMetricSet(ManagementFactory.getPlatformMBeanServer()));
     }
 
+    /**
+     * The garbage collection notifications require {@code com.sun.management}, which is an optional import. Only the
+     * polling garbage collector metrics are available without the notifications.
+     */
+    private static boolean isGarbageCollectionNotificationAvailable() {
+        try {
+            Class.forName("com.sun.management.GarbageCollectionNotificationInfo", false,
+                    MetricService.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Garbage Collection notifications are not available. Only the cumulative garbage "
+                        + "collector metrics are registered.");
+            }
+            return false;
+        }
+    }
+
     private void registerAllJVMMetrics(Level level, String prefix, MetricSet metrics) throws IllegalArgumentException {
+        if (metrics instanceof DynamicMetricSet) {
+            // Set the listener first. Registering the same metric twice is harmless.
+            ((DynamicMetricSet) metrics).setMetricAddedListener((name, metric) -> {
+                try {
+                    registerJVMMetric(level, prefix, name, metric);
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Error when registering the JVM metric " + name, e);
+                }
+            });
+        }
         for (Map.Entry<String, com.codahale.metrics.Metric> entry : metrics.getMetrics().entrySet()) {
-            if (filterJVMMetric(entry.getKey())) {
-                String name = MetricRegistry.name(prefix, entry.getKey());
-                com.codahale.metrics.Metric metric = entry.getValue();
-                if (metric instanceof com.codahale.metrics.Gauge) {
-                    com.codahale.metrics.Gauge<?> gauge = (com.codahale.metrics.Gauge<?>) metric;
-                    gauge(name, level, new JVMGaugeWrapper(gauge));
+            registerJVMMetric(level, prefix, entry.getKey(), entry.getValue());
+        }
+        if (metrics instanceof DynamicMetricSet) {
+            DynamicMetricSet dynamicMetricSet = (DynamicMetricSet) metrics;
+            MetricServiceFeature feature = MetricServiceFeature.of(dynamicMetricSet::start, dynamicMetricSet::stop);
+            synchronized (enabledLock) {
+                features.add(feature);
+                if (enabled) {
+                    feature.start();
                 }
             }
         }
     }
 
+    private void registerJVMMetric(Level level, String prefix, String metricName, com.codahale.metrics.Metric metric)
+            throws IllegalArgumentException {
+        if (filterJVMMetric(metricName)) {
+            String name = MetricRegistry.name(prefix, metricName);
+            if (metric instanceof com.codahale.metrics.Gauge) {
+                com.codahale.metrics.Gauge<?> gauge = (com.codahale.metrics.Gauge<?>) metric;
+                gauge(name, level, new JVMGaugeWrapper(gauge));
+            } else if (metric instanceof com.codahale.metrics.Histogram) {
+                getOrCreateMetric(name, level, new JVMHistogramBuilder((com.codahale.metrics.Histogram) metric));
+            } else if (metric instanceof com.codahale.metrics.Counter) {
+                getOrCreateMetric(name, level, new JVMCounterBuilder((com.codahale.metrics.Counter) metric));
+            } else if (metric instanceof com.codahale.metrics.Meter) {
+                getOrCreateMetric(name, level, new JVMMeterBuilder((com.codahale.metrics.Meter) metric));
+            }
+            MetricWrapper metricWrapper = metricsMap.get(name);
+            if (metricWrapper != null) {
+                metricWrapper.expirable = false;
+            }
+        }
+    }
+
     private boolean filterJVMMetric(String name) {
         // Remove "deadlocks" as it is a String Set.
         return !"deadlocks".equals(name);
@@ -935,12 +1736,83 @@ public final class MetricService implements MetricManagerMXBean {
 
     }
 
+    /**
+     * A Metric Builder for {@code HistogramImpl} wrapping a {@link com.codahale.metrics.Histogram} from a JVM metric
+     * set. The JVM metric set updates the histogram directly.
+     */
+    private class JVMHistogramBuilder implements MetricBuilder<HistogramImpl> {
+
+        private final com.codahale.metrics.Histogram histogram;
+
+        private JVMHistogramBuilder(com.codahale.metrics.Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public HistogramImpl createMetric(String name, Level level) {
+            return new HistogramImpl(name, level, metricRegistry.register(name, histogram));
+        }
+
+        @Override
+        public boolean isInstance(AbstractMetric metric) {
+            return HistogramImpl.class.isInstance(metric);
+        }
+    }
+
+    /**
+     * A Metric Builder for {@code CounterImpl} wrapping a {@link com.codahale.metrics.Counter} from a JVM metric set.
+     * The JVM metric set updates the counter directly.
+     */
+    private class JVMCounterBuilder implements MetricBuilder<CounterImpl> {
+
+        private final com.codahale.metrics.Counter counter;
+
+        private JVMCounterBuilder(com.codahale.metrics.Counter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public CounterImpl createMetric(String name, Level level) {
+            return new CounterImpl(name, level, metricRegistry.register(name, counter));
+        }
+
+        @Override
+        public boolean isInstance(AbstractMetric metric) {
+            return CounterImpl.class.isInstance(metric);
+        }
+    }
+
+    /**
+     * A Metric Builder for {@code MeterImpl} wrapping a {@link com.codahale.metrics.Meter} from a JVM metric set.
+     * The JVM metric set marks the meter directly.
+     */
+    private class JVMMeterBuilder implements MetricBuilder<MeterImpl> {
+
+        private final com.codahale.metrics.Meter meter;
+
+        private JVMMeterBuilder(com.codahale.metrics.Meter meter) {
+            this.meter = meter;
+        }
+
+        @Override
+        public MeterImpl createMetric(String name, Level level) {
+            return new MeterImpl(name, level, metricRegistry.register(name, meter));
+        }
+
+        @Override
+        public boolean isInstance(AbstractMetric metric) {
+            return MeterImpl.class.isInstance(metric);
+        }
+    }
+
     /**
      * Invoke report method of all scheduled reporters.
      */
     public void report() {
+        long startTime = System.nanoTime();
         reporterMap.values().stream().filter(reporter -> reporter instanceof ScheduledReporter)
                 .forEach(reporter -> ((ScheduledReporter) reporter).report());
+        metricGovernor.addReportingCost(System.nanoTime() - startTime);
     }
 
     private Reporter getReporter(String name) {
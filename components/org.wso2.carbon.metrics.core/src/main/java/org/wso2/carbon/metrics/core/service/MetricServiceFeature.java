@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+/**
+ * A part of the {@link MetricService}, which runs only while the Metrics feature is enabled. The service starts all
+ * features when the Metrics feature is enabled and stops them when it is disabled.
+ */
+interface MetricServiceFeature {
+
+    /**
+     * Start the feature. This is called again only after {@link #stop()}.
+     */
+    void start();
+
+    /**
+     * Stop the feature.
+     */
+    void stop();
+
+    /**
+     * Create a feature from the given actions
+     *
+     * @param start The action to start the feature
+     * @param stop  The action to stop the feature
+     * @return A new {@link MetricServiceFeature}
+     */
+    static MetricServiceFeature of(Runnable start, Runnable stop) {
+        return new MetricServiceFeature() {
+            @Override
+            public void start() {
+                start.run();
+            }
+
+            @Override
+            public void stop() {
+                stop.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformSnapshot;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared metric instances, which ignore all updates. A disabled metric uses one of these instances as the target of
+ * updates. The update methods of the metrics compare the target with these instances and skip the call, so that an
+ * update of a disabled metric costs a volatile read and a comparison.
+ */
+final class NoOpMetrics {
+
+    private NoOpMetrics() {
+    }
+
+    static final Reservoir NO_OP_RESERVOIR = new Reservoir() {
+
+        private final Snapshot snapshot = new UniformSnapshot(new long[0]);
+
+        @Override
+        public int size() {
+            return 0;
+        }
+
+        @Override
+        public void update(long value) {
+        }
+
+        @Override
+        public Snapshot getSnapshot() {
+            return snapshot;
+        }
+    };
+
+    static final Counter COUNTER = new Counter() {
+        @Override
+        public void inc() {
+        }
+
+        @Override
+        public void inc(long n) {
+        }
+
+        @Override
+        public void dec() {
+        }
+
+        @Override
+        public void dec(long n) {
+        }
+    };
+
+    static final Meter METER = new Meter() {
+        @Override
+        public void mark() {
+        }
+
+        @Override
+        public void mark(long n) {
+        }
+    };
+
+    static final Histogram HISTOGRAM = new Histogram(NO_OP_RESERVOIR) {
+        @Override
+        public void update(int value) {
+        }
+
+        @Override
+        public void update(long value) {
+        }
+    };
+
+    static final Timer TIMER = new Timer(NO_OP_RESERVOIR) {
+        @Override
+        public void update(long duration, TimeUnit unit) {
+        }
+
+        @Override
+        public <T> T time(Callable<T> event) throws Exception {
+            return null;
+        }
+    };
+
+    /**
+     * The context returned when a disabled timer is started
+     */
+    static final org.wso2.carbon.metrics.core.Timer.Context TIMER_CONTEXT =
+            new org.wso2.carbon.metrics.core.Timer.Context() {
+                @Override
+                public long stop() {
+                    return 0;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metric instances used as the update targets of expired metrics. The first update registers the expired metric again
+ * and the update is passed to the metric, which records the updates from then on. These are created only when a metric
+ * expires. Therefore the update path of registered metrics does not have any additional cost.
+ */
+final class RevivingMetrics {
+
+    private RevivingMetrics() {
+    }
+
+    static Counter counter(CounterImpl metric) {
+        return new Counter() {
+            @Override
+            public void inc() {
+                inc(1);
+            }
+
+            @Override
+            public void inc(long n) {
+                ((CounterImpl) metric.revive()).inc(n);
+            }
+
+            @Override
+            public void dec() {
+                dec(1);
+            }
+
+            @Override
+            public void dec(long n) {
+                ((CounterImpl) metric.revive()).dec(n);
+            }
+        };
+    }
+
+    static Meter meter(MeterImpl metric) {
+        return new Meter() {
+            @Override
+            public void mark() {
+                mark(1);
+            }
+
+            @Override
+            public void mark(long n) {
+                ((MeterImpl) metric.revive()).mark(n);
+            }
+        };
+    }
+
+    static Histogram histogram(HistogramImpl metric) {
+        return new Histogram(NoOpMetrics.NO_OP_RESERVOIR) {
+            @Override
+            public void update(int value) {
+                update((long) value);
+            }
+
+            @Override
+            public void update(long value) {
+                ((HistogramImpl) metric.revive()).update(value);
+            }
+        };
+    }
+
+    static RevivingTimer timer(TimerImpl metric) {
+        return new RevivingTimer(metric);
+    }
+
+    /**
+     * A timer registering the expired timer again when it is updated or started
+     */
+    static final class RevivingTimer extends Timer {
+
+        private final TimerImpl metric;
+
+        private RevivingTimer(TimerImpl metric) {
+            super(NoOpMetrics.NO_OP_RESERVOIR);
+            this.metric = metric;
+        }
+
+        @Override
+        public void update(long duration, TimeUnit unit) {
+            ((TimerImpl) metric.revive()).update(duration, unit);
+        }
+
+        @Override
+        public <T> T time(Callable<T> event) throws Exception {
+            return ((TimerImpl) metric.revive()).time(event);
+        }
+
+        org.wso2.carbon.metrics.core.Timer.Context start() {
+            return ((TimerImpl) metric.revive()).start();
+        }
+    }
+}
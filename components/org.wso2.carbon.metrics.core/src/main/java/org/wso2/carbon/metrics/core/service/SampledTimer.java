@@ -0,0 +1,255 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Timer} which measures the duration of only 1 in N invocations. Only the durations in the snapshot are
+ * sampled. All invocations are counted, so that the count is exact. An invocation, which is not sampled, only
+ * increments a striped counter without reading the clock. The counted invocations are marked in the meter when a
+ * sampled invocation is recorded or when the timer is read, so the rates follow the invocations in steps of about N.
+ * <p>
+ * The clock is not read for an invocation, which is not sampled, only when the invocation is timed via
+ * {@link #start()}, {@link #time(Callable)} or {@link #update(long, TimeUnit)}. The Dropwizard context returned by
+ * {@link #time()} always reads the clock.
+ */
+class SampledTimer extends Timer {
+
+    private final int samplingRate;
+
+    private final Meter meter;
+
+    private final Histogram histogram;
+
+    private final Clock clock;
+
+    /**
+     * The number of invocations, which were not sampled
+     */
+    private final LongAdder unsampledCount = new LongAdder();
+
+    /**
+     * The number of invocations, which were not sampled and already marked in the meter
+     */
+    private final AtomicLong markedUnsampledCount = new AtomicLong();
+
+    /**
+     * The context returned for invocations, which are not sampled
+     */
+    private final UnsampledContext unsampledContext = new UnsampledContext();
+
+    /**
+     * @param samplingRate The sampling rate. Only 1 in {@code samplingRate} invocations is timed
+     */
+    SampledTimer(int samplingRate) {
+        this(samplingRate, new ExponentiallyDecayingReservoir());
+    }
+
+    /**
+     * @param samplingRate The sampling rate. Only 1 in {@code samplingRate} invocations is timed
+     * @param reservoir    The reservoir for the durations of the sampled invocations
+     */
+    SampledTimer(int samplingRate, Reservoir reservoir) {
+        this(samplingRate, reservoir, Clock.defaultClock());
+    }
+
+    SampledTimer(int samplingRate, Reservoir reservoir, Clock clock) {
+        // The meter and the histogram in the super class are not used
+        super(NoOpMetrics.NO_OP_RESERVOIR, clock);
+        if (samplingRate < 1) {
+            throw new IllegalArgumentException("Sampling rate must be a positive number");
+        }
+        this.samplingRate = samplingRate;
+        this.meter = new Meter(clock);
+        this.histogram = new Histogram(reservoir);
+        this.clock = clock;
+    }
+
+    int getSamplingRate() {
+        return samplingRate;
+    }
+
+    private boolean isSampled() {
+        return samplingRate == 1 || ThreadLocalRandom.current().nextInt(samplingRate) == 0;
+    }
+
+    /**
+     * Mark the invocations, which were not sampled and not marked yet, in the meter
+     */
+    private void markUnsampled() {
+        long count = unsampledCount.sum();
+        long marked = markedUnsampledCount.get();
+        // Only the thread changing the marked count adds the difference to the meter
+        if (count > marked && markedUnsampledCount.compareAndSet(marked, count)) {
+            meter.mark(count - marked);
+        }
+    }
+
+    /**
+     * Mark a sampled invocation in the meter with the invocations, which were not sampled
+     */
+    private void markSampled() {
+        meter.mark();
+        markUnsampled();
+    }
+
+    /**
+     * Start timing an invocation. The clock is read only if the invocation is sampled.
+     *
+     * @return A context to stop timing
+     */
+    org.wso2.carbon.metrics.core.Timer.Context start() {
+        if (!isSampled()) {
+            return unsampledContext;
+        }
+        return new SampledContext(clock.getTick());
+    }
+
+    /**
+     * Start timing an invocation with a Dropwizard context. The Dropwizard context cannot be created outside the
+     * {@link Timer}, so the clock is read for every invocation. The invocation is sampled when the context is stopped
+     * and the duration is passed to {@link #update(long, TimeUnit)}.
+     *
+     * @return A Dropwizard context to stop timing
+     */
+    @Override
+    public Context time() {
+        return super.time();
+    }
+
+    @Override
+    public void update(long duration, TimeUnit unit) {
+        if (!isSampled()) {
+            unsampledCount.increment();
+            return;
+        }
+        markSampled();
+        if (duration >= 0) {
+            histogram.update(unit.toNanos(duration));
+        }
+    }
+
+    @Override
+    public <T> T time(Callable<T> event) throws Exception {
+        if (!isSampled()) {
+            try {
+                return event.call();
+            } finally {
+                unsampledCount.increment();
+            }
+        }
+        final long startTime = clock.getTick();
+        try {
+            return event.call();
+        } finally {
+            markSampled();
+            histogram.update(clock.getTick() - startTime);
+        }
+    }
+
+    @Override
+    public long getCount() {
+        markUnsampled();
+        return meter.getCount();
+    }
+
+    @Override
+    public double getFifteenMinuteRate() {
+        markUnsampled();
+        return meter.getFifteenMinuteRate();
+    }
+
+    @Override
+    public double getFiveMinuteRate() {
+        markUnsampled();
+        return meter.getFiveMinuteRate();
+    }
+
+    @Override
+    public double getMeanRate() {
+        markUnsampled();
+        return meter.getMeanRate();
+    }
+
+    @Override
+    public double getOneMinuteRate() {
+        markUnsampled();
+        return meter.getOneMinuteRate();
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        return histogram.getSnapshot();
+    }
+
+    /**
+     * Counts the invocation without reading the clock
+     */
+    private class UnsampledContext implements org.wso2.carbon.metrics.core.Timer.Context {
+
+        /**
+         * @return {@code 0}, since the duration is not measured
+         */
+        @Override
+        public long stop() {
+            unsampledCount.increment();
+            return 0;
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+
+    /**
+     * Marks the meter and records the duration
+     */
+    private class SampledContext implements org.wso2.carbon.metrics.core.Timer.Context {
+
+        private final long startTime;
+
+        private SampledContext(long startTime) {
+            this.startTime = startTime;
+        }
+
+        @Override
+        public long stop() {
+            long elapsed = clock.getTick() - startTime;
+            markSampled();
+            histogram.update(elapsed);
+            return elapsed;
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.task.ScheduledTask;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link MetricServiceFeature}, which runs an action periodically in a {@link ScheduledTask}
+ */
+final class ScheduledFeature implements MetricServiceFeature {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledFeature.class);
+
+    private final String name;
+
+    private final long period;
+
+    private final Runnable action;
+
+    private final String errorMessage;
+
+    private ScheduledTask task;
+
+    /**
+     * @param name         The name of the task
+     * @param period       The period in seconds
+     * @param action       The action to run periodically
+     * @param errorMessage The message to log when the action fails
+     */
+    ScheduledFeature(String name, long period, Runnable action, String errorMessage) {
+        this.name = name;
+        this.period = period;
+        this.action = action;
+        this.errorMessage = errorMessage;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (task == null) {
+            task = new ScheduledTask(name) {
+                @Override
+                public void run() {
+                    try {
+                        action.run();
+                    } catch (Throwable e) {
+                        logger.error(errorMessage, e);
+                    }
+                }
+            };
+            task.start(period, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (task != null) {
+            task.stop();
+            task = null;
+        }
+    }
+}
@@ -29,9 +29,35 @@ public class TimerImpl extends AbstractMetric implements Timer {
 
     private final com.codahale.metrics.Timer timer;
 
+    /**
+     * The timer used for updates. This is {@link #timer} when the metric is enabled and the shared no-op timer when the
+     * metric is disabled. Otherwise, this is a timer, which tracks the cost of updates or registers an expired metric
+     * again. The update methods compare the target with the first two by identity, so that the common cases do not
+     * depend on the type profile of a call site shared by all metrics. This field is volatile, so that a metric enabled
+     * or disabled at runtime is seen by all threads.
+     */
+    private volatile com.codahale.metrics.Timer updateTimer = NoOpMetrics.TIMER;
+
+    /**
+     * The timer if only some invocations are timed. Otherwise {@code null}.
+     */
+    private final SampledTimer sampledTimer;
+
     public TimerImpl(String name, Level level, com.codahale.metrics.Timer timer) {
         super(name, level);
         this.timer = timer;
+        this.sampledTimer = timer instanceof SampledTimer ? (SampledTimer) timer : null;
+    }
+
+    @Override
+    protected void enabledChanged(boolean enabled) {
+        if (isExpired()) {
+            updateTimer = RevivingMetrics.timer(this);
+        } else if (!enabled) {
+            updateTimer = NoOpMetrics.TIMER;
+        } else {
+            updateTimer = updateCost != null ? CostTrackingMetrics.timer(timer, this::startContext, updateCost) : timer;
+        }
     }
 
     private static class ContextImpl implements Context {
@@ -64,19 +90,6 @@ public class TimerImpl extends AbstractMetric implements Timer {
 
     }
 
-    private static class DummyContextImpl implements Context {
-
-        @Override
-        public long stop() {
-            return 0;
-        }
-
-        @Override
-        public void close() {
-        }
-
-    }
-
     /*
      * (non-Javadoc)
      *
@@ -84,8 +97,11 @@ public class TimerImpl extends AbstractMetric implements Timer {
      */
     @Override
     public void update(long duration, TimeUnit unit) {
-        if (isEnabled()) {
+        com.codahale.metrics.Timer target = updateTimer;
+        if (target == timer) {
             timer.update(duration, unit);
+        } else if (target != NoOpMetrics.TIMER) {
+            target.update(duration, unit);
         }
     }
 
@@ -96,11 +112,9 @@ public class TimerImpl extends AbstractMetric implements Timer {
      */
     @Override
     public <T> T time(Callable<T> event) throws Exception {
-        if (isEnabled()) {
-            return timer.time(event);
-        }
+        // The no-op timer does not call the event
         // TODO Should we throw an exception?
-        return null;
+        return updateTimer.time(event);
     }
 
     /*
@@ -110,10 +124,24 @@ public class TimerImpl extends AbstractMetric implements Timer {
      */
     @Override
     public Context start() {
-        if (isEnabled()) {
-            return new ContextImpl(timer.time());
+        com.codahale.metrics.Timer currentTimer = updateTimer;
+        if (currentTimer == NoOpMetrics.TIMER) {
+            return NoOpMetrics.TIMER_CONTEXT;
         }
-        return new DummyContextImpl();
+        if (currentTimer instanceof CostTrackingMetrics.TrackedTimer) {
+            return ((CostTrackingMetrics.TrackedTimer) currentTimer).start();
+        }
+        if (currentTimer instanceof RevivingMetrics.RevivingTimer) {
+            return ((RevivingMetrics.RevivingTimer) currentTimer).start();
+        }
+        return startContext();
+    }
+
+    private Context startContext() {
+        if (sampledTimer != null) {
+            return sampledTimer.start();
+        }
+        return new ContextImpl(timer.time());
     }
 
     /*
@@ -151,4 +179,7 @@ public class TimerImpl extends AbstractMetric implements Timer {
         return new SnapshotImpl(timer.getSnapshot());
     }
 
+    com.codahale.metrics.Timer getTimer() {
+        return timer;
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estimates the time spent on updating a metric. All updates are counted, but only 1 in N updates is timed. The
+ * estimated cost is the average time of the timed updates multiplied by the number of updates.
+ */
+final class UpdateCost {
+
+    private final int samplingRate;
+
+    private final LongAdder updates = new LongAdder();
+
+    private final LongAdder timedUpdates = new LongAdder();
+
+    private final LongAdder timedNanos = new LongAdder();
+
+    /**
+     * @param samplingRate The sampling rate. Only 1 in {@code samplingRate} updates is timed
+     */
+    UpdateCost(int samplingRate) {
+        if (samplingRate < 1) {
+            throw new IllegalArgumentException("Sampling rate must be a positive number");
+        }
+        this.samplingRate = samplingRate;
+    }
+
+    /**
+     * Count an update
+     *
+     * @return {@code true} if the update should be timed
+     */
+    boolean count() {
+        updates.increment();
+        return samplingRate == 1 || ThreadLocalRandom.current().nextInt(samplingRate) == 0;
+    }
+
+    /**
+     * Record the time of a timed update
+     *
+     * @param nanos The time spent on the update in nanoseconds
+     */
+    void record(long nanos) {
+        timedUpdates.increment();
+        timedNanos.add(nanos);
+    }
+
+    /**
+     * Get the estimated cost since the last call and start a new measurement
+     *
+     * @return The estimated time spent on updates in nanoseconds
+     */
+    long sumThenReset() {
+        long count = updates.sumThenReset();
+        long timedCount = timedUpdates.sumThenReset();
+        long nanos = timedNanos.sumThenReset();
+        if (timedCount == 0) {
+            return 0;
+        }
+        return (long) ((double) nanos / timedCount * count);
+    }
+}
@@ -0,0 +1,526 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * <p>A mergeable quantile sketch based on DDSketch. Values are counted in logarithmically sized bins, so that any
+ * quantile is estimated with a value within the configured relative accuracy of the exact value at that rank.</p>
+ * <p>Sketches with the same relative accuracy can be merged without any loss. A sketch merged from the sketches of
+ * many sources has the same accuracy as a sketch which counted all values directly. Therefore quantiles of a fleet can
+ * be calculated from the serialized sketches reported by each node, instead of averaging the quantiles of each
+ * node.</p>
+ * <p>The number of bins is limited to {@value #MAX_BINS} for each sign. If the limit is reached, the bins with the
+ * smallest magnitudes are collapsed. For a relative accuracy of 1%, the limit covers more than 17 orders of
+ * magnitude.</p>
+ */
+public final class QuantileSketch {
+
+    /**
+     * The minimum relative accuracy supported by the sketch
+     */
+    public static final double MIN_RELATIVE_ACCURACY = 1e-6;
+
+    /**
+     * The maximum number of bins for positive values and for negative values
+     */
+    static final int MAX_BINS = 2048;
+
+    private static final int INITIAL_BINS = 128;
+
+    private static final byte SERIAL_VERSION = 1;
+
+    private final double relativeAccuracy;
+
+    private final double gamma;
+
+    private final double multiplier;
+
+    /**
+     * Values with a smaller magnitude are counted as zero
+     */
+    private final double minIndexableValue;
+
+    private final double maxIndexableValue;
+
+    private final Bins positiveBins = new Bins();
+
+    private final Bins negativeBins = new Bins();
+
+    private long zeroCount;
+
+    private long count;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private double sum;
+
+    private double sumOfSquares;
+
+    /**
+     * @param relativeAccuracy The relative accuracy of the estimated quantiles. For example, {@code 0.01} means that
+     *                         any estimated quantile is within 1% of the exact value.
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy >= MIN_RELATIVE_ACCURACY && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be at least " + MIN_RELATIVE_ACCURACY
+                    + " and less than 1");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.multiplier = 1 / Math.log(gamma);
+        this.minIndexableValue = Math.max(Double.MIN_NORMAL * gamma, Math.exp((Integer.MIN_VALUE + 1) / multiplier));
+        this.maxIndexableValue = Math.min(Double.MAX_VALUE / gamma, Math.exp((Integer.MAX_VALUE - 1) / multiplier));
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Add a value to the sketch
+     *
+     * @param value The value
+     */
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Add a value multiple times to the sketch
+     *
+     * @param value The value
+     * @param times The number of times to add the value
+     */
+    public void add(double value, long times) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Value must be a finite number");
+        }
+        if (times < 0) {
+            throw new IllegalArgumentException("Number of times must not be negative");
+        }
+        if (times == 0) {
+            return;
+        }
+        // The logarithm is calculated before locking the sketch
+        int index = Math.abs(value) >= minIndexableValue ? index(Math.abs(value)) : 0;
+        synchronized (this) {
+            if (value >= minIndexableValue) {
+                positiveBins.add(index, times);
+            } else if (value <= -minIndexableValue) {
+                negativeBins.add(index, times);
+            } else {
+                zeroCount += times;
+            }
+            count += times;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value * times;
+            sumOfSquares += value * value * times;
+        }
+    }
+
+    /**
+     * Merge another sketch into this sketch. The other sketch is not modified.
+     *
+     * @param other The sketch to merge
+     * @throws IllegalArgumentException if the relative accuracy of the other sketch is different
+     */
+    public void merge(QuantileSketch other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot merge a sketch into itself");
+        }
+        if (Double.compare(relativeAccuracy, other.relativeAccuracy) != 0) {
+            throw new IllegalArgumentException(String.format("Cannot merge a sketch with relative accuracy %s into a "
+                    + "sketch with relative accuracy %s", other.relativeAccuracy, relativeAccuracy));
+        }
+        QuantileSketch copy = other.copy();
+        synchronized (this) {
+            if (copy.count == 0) {
+                return;
+            }
+            positiveBins.addAll(copy.positiveBins);
+            negativeBins.addAll(copy.negativeBins);
+            zeroCount += copy.zeroCount;
+            count += copy.count;
+            min = Math.min(min, copy.min);
+            max = Math.max(max, copy.max);
+            sum += copy.sum;
+            sumOfSquares += copy.sumOfSquares;
+        }
+    }
+
+    /**
+     * Get the estimated value at a given quantile
+     *
+     * @param quantile The quantile, between 0 and 1 (inclusive)
+     * @return The estimated value or {@code 0} if the sketch is empty
+     */
+    public synchronized double getValueAtQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1 || Double.isNaN(quantile)) {
+            throw new IllegalArgumentException(quantile + " is not in [0..1]");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        double rank = quantile * (count - 1);
+        long seen = 0;
+        for (int index = negativeBins.maxIndex; index >= negativeBins.minIndex; index--) {
+            seen += negativeBins.get(index);
+            if (seen > rank) {
+                return clamp(-value(index));
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return clamp(0);
+        }
+        for (int index = positiveBins.minIndex; index <= positiveBins.maxIndex; index++) {
+            seen += positiveBins.get(index);
+            if (seen > rank) {
+                return clamp(value(index));
+            }
+        }
+        return max;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The exact minimum value or {@code 0} if the sketch is empty
+     */
+    public synchronized double getMin() {
+        return count > 0 ? min : 0;
+    }
+
+    /**
+     * @return The exact maximum value or {@code 0} if the sketch is empty
+     */
+    public synchronized double getMax() {
+        return count > 0 ? max : 0;
+    }
+
+    public synchronized double getSum() {
+        return sum;
+    }
+
+    public synchronized double getMean() {
+        return count > 0 ? sum / count : 0;
+    }
+
+    /**
+     * @return The sample standard deviation of all values
+     */
+    public synchronized double getStdDev() {
+        if (count <= 1) {
+            return 0;
+        }
+        double mean = sum / count;
+        double variance = (sumOfSquares - mean * sum) / (count - 1);
+        return variance > 0 ? Math.sqrt(variance) : 0;
+    }
+
+    /**
+     * Get the estimated value of each non-empty bin in ascending order
+     *
+     * @return The values of the bins
+     */
+    synchronized double[] getBinValues() {
+        double[] values = new double[negativeBins.size() + (zeroCount > 0 ? 1 : 0) + positiveBins.size()];
+        int position = 0;
+        for (int index = negativeBins.maxIndex; index >= negativeBins.minIndex; index--) {
+            if (negativeBins.get(index) > 0) {
+                values[position++] = clamp(-value(index));
+            }
+        }
+        if (zeroCount > 0) {
+            values[position++] = 0;
+        }
+        for (int index = positiveBins.minIndex; index <= positiveBins.maxIndex; index++) {
+            if (positiveBins.get(index) > 0) {
+                values[position++] = clamp(value(index));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return A copy of this sketch
+     */
+    public synchronized QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch(relativeAccuracy);
+        copy.positiveBins.copyFrom(positiveBins);
+        copy.negativeBins.copyFrom(negativeBins);
+        copy.zeroCount = zeroCount;
+        copy.count = count;
+        copy.min = min;
+        copy.max = max;
+        copy.sum = sum;
+        copy.sumOfSquares = sumOfSquares;
+        return copy;
+    }
+
+    private int index(double value) {
+        if (value > maxIndexableValue) {
+            value = maxIndexableValue;
+        }
+        return (int) Math.ceil(Math.log(value) * multiplier);
+    }
+
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * <p>Serialize the sketch into a compact binary form. Only the non-empty bins are written. The bin indexes are
+     * delta encoded and all integers are written as variable length integers.</p>
+     *
+     * @return The serialized sketch
+     */
+    public synchronized byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 4 * (positiveBins.size() + negativeBins.size()));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(SERIAL_VERSION);
+            out.writeDouble(relativeAccuracy);
+            out.writeDouble(min);
+            out.writeDouble(max);
+            out.writeDouble(sum);
+            out.writeDouble(sumOfSquares);
+            writeVarLong(out, zeroCount);
+            writeBins(out, positiveBins);
+            writeBins(out, negativeBins);
+        } catch (IOException e) {
+            // Not expected when writing to a byte array
+            throw new IllegalStateException("Failed to serialize the sketch", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserialize a sketch from the binary form created by {@link #toByteArray()}
+     *
+     * @param bytes The serialized sketch
+     * @return A new sketch
+     * @throws IllegalArgumentException if the bytes do not contain a valid sketch
+     */
+    public static QuantileSketch fromByteArray(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != SERIAL_VERSION) {
+                throw new IllegalArgumentException("Unsupported sketch serialization version: " + version);
+            }
+            QuantileSketch sketch = new QuantileSketch(in.readDouble());
+            sketch.min = in.readDouble();
+            sketch.max = in.readDouble();
+            sketch.sum = in.readDouble();
+            sketch.sumOfSquares = in.readDouble();
+            sketch.zeroCount = readVarLong(in);
+            sketch.count = sketch.zeroCount + readBins(in, sketch.positiveBins) + readBins(in, sketch.negativeBins);
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Unexpected data after the sketch");
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid sketch data", e);
+        }
+    }
+
+    /**
+     * Merge serialized sketches from many sources into a new sketch
+     *
+     * @param serializedSketches The sketches serialized with {@link #toByteArray()}. All sketches must have the same
+     *                           relative accuracy.
+     * @return The merged sketch or {@code null} if there are no sketches
+     * @throws IllegalArgumentException if a sketch is invalid or the relative accuracies are different
+     */
+    public static QuantileSketch merge(Iterable<byte[]> serializedSketches) {
+        QuantileSketch merged = null;
+        for (byte[] bytes : serializedSketches) {
+            QuantileSketch sketch = fromByteArray(bytes);
+            if (merged == null) {
+                merged = sketch;
+            } else {
+                merged.merge(sketch);
+            }
+        }
+        return merged;
+    }
+
+    private static void writeBins(DataOutputStream out, Bins bins) throws IOException {
+        writeVarLong(out, bins.size());
+        int previousIndex = 0;
+        for (int index = bins.minIndex; index <= bins.maxIndex; index++) {
+            long binCount = bins.get(index);
+            if (binCount > 0) {
+                long delta = (long) index - previousIndex;
+                // Zigzag encoding for negative deltas
+                writeVarLong(out, (delta << 1) ^ (delta >> 63));
+                writeVarLong(out, binCount);
+                previousIndex = index;
+            }
+        }
+    }
+
+    private static long readBins(DataInputStream in, Bins bins) throws IOException {
+        long size = readVarLong(in);
+        long total = 0;
+        long index = 0;
+        for (long i = 0; i < size; i++) {
+            long zigzag = readVarLong(in);
+            index += (zigzag >>> 1) ^ -(zigzag & 1);
+            long binCount = readVarLong(in);
+            if (index < Integer.MIN_VALUE || index > Integer.MAX_VALUE || binCount <= 0) {
+                throw new IllegalArgumentException("Invalid bin in sketch data");
+            }
+            bins.add((int) index, binCount);
+            total += binCount;
+        }
+        return total;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid variable length integer in sketch data");
+    }
+
+    /**
+     * Counts for a contiguous range of bin indexes. If the range exceeds {@link #MAX_BINS}, the lowest bins are
+     * collapsed into the lowest bin within the limit.
+     */
+    private static final class Bins {
+
+        private long[] counts = new long[0];
+
+        /**
+         * The bin index of {@code counts[0]}
+         */
+        private int offset;
+
+        private int minIndex = 0;
+
+        private int maxIndex = -1;
+
+        private boolean isEmpty() {
+            return maxIndex < minIndex;
+        }
+
+        private long get(int index) {
+            return counts[index - offset];
+        }
+
+        private int size() {
+            int size = 0;
+            for (int index = minIndex; index <= maxIndex; index++) {
+                if (counts[index - offset] > 0) {
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        private void add(int index, long count) {
+            if (isEmpty()) {
+                if (index < offset || index >= offset + counts.length) {
+                    counts = new long[INITIAL_BINS];
+                    offset = index - INITIAL_BINS / 2;
+                }
+                minIndex = index;
+                maxIndex = index;
+            } else if (index < minIndex || index > maxIndex) {
+                int newMinIndex = Math.min(minIndex, index);
+                int newMaxIndex = Math.max(maxIndex, index);
+                if ((long) newMaxIndex - newMinIndex >= MAX_BINS) {
+                    newMinIndex = newMaxIndex - MAX_BINS + 1;
+                    index = Math.max(index, newMinIndex);
+                }
+                resize(newMinIndex, newMaxIndex);
+            }
+            counts[index - offset] += count;
+        }
+
+        /**
+         * Change the range of bins. Bins below the new minimum index are collapsed into the new minimum index.
+         */
+        private void resize(int newMinIndex, int newMaxIndex) {
+            long[] newCounts = counts;
+            int newOffset = offset;
+            if (newMinIndex < offset || newMaxIndex >= offset + counts.length) {
+                int length = Math.min(MAX_BINS, Math.max(newMaxIndex - newMinIndex + 1, 2 * counts.length));
+                newCounts = new long[length];
+                // Leave the free bins on the side the range is growing
+                newOffset = newMinIndex < minIndex ? newMaxIndex - length + 1 : newMinIndex;
+            }
+            for (int index = minIndex; index <= maxIndex; index++) {
+                long binCount = counts[index - offset];
+                if (binCount == 0 || (newCounts == counts && index >= newMinIndex)) {
+                    continue;
+                }
+                if (newCounts == counts) {
+                    counts[index - offset] = 0;
+                }
+                newCounts[Math.max(index, newMinIndex) - newOffset] += binCount;
+            }
+            counts = newCounts;
+            offset = newOffset;
+            minIndex = newMinIndex;
+            maxIndex = newMaxIndex;
+        }
+
+        private void addAll(Bins other) {
+            for (int index = other.minIndex; index <= other.maxIndex; index++) {
+                long binCount = other.get(index);
+                if (binCount > 0) {
+                    add(index, binCount);
+                }
+            }
+        }
+
+        private void copyFrom(Bins other) {
+            counts = other.counts.clone();
+            offset = other.offset;
+            minIndex = other.minIndex;
+            maxIndex = other.maxIndex;
+        }
+    }
+}
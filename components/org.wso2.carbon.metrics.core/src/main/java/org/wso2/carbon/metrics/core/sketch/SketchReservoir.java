@@ -0,0 +1,176 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.sketch;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A {@link Reservoir} counting the values of fixed time windows in {@link QuantileSketch}es. The snapshots are
+ * {@link SketchSnapshot}s of the last complete window, which can be serialized and merged with the snapshots from
+ * other sources and other windows without counting any value twice. The windows are aligned to the wall clock, so that
+ * a reporter reporting at the same period reports each window once.</p>
+ * <p>The values of a window are counted in several sketches selected by the updating thread, so that concurrent
+ * updates do not contend for the same sketch. The sketches are merged when the snapshot is taken.</p>
+ */
+public class SketchReservoir implements Reservoir {
+
+    /**
+     * The default length of a window in seconds
+     */
+    public static final long DEFAULT_WINDOW = 60;
+
+    private static final int STRIPES = stripes();
+
+    private final double relativeAccuracy;
+
+    private final long windowMillis;
+
+    private final Clock clock;
+
+    private volatile Window current;
+
+    /**
+     * The last complete window. This is {@code null} if no values were counted in the window before the current
+     * window.
+     */
+    private volatile Window previous;
+
+    /**
+     * @param relativeAccuracy The relative accuracy of the quantiles
+     */
+    public SketchReservoir(double relativeAccuracy) {
+        this(relativeAccuracy, DEFAULT_WINDOW, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param relativeAccuracy The relative accuracy of the quantiles
+     * @param window           The length of a window
+     * @param windowUnit       The unit of the window length
+     */
+    public SketchReservoir(double relativeAccuracy, long window, TimeUnit windowUnit) {
+        this(relativeAccuracy, window, windowUnit, Clock.defaultClock());
+    }
+
+    /**
+     * @param relativeAccuracy The relative accuracy of the quantiles
+     * @param window           The length of a window
+     * @param windowUnit       The unit of the window length
+     * @param clock            The clock used to find the current window
+     */
+    public SketchReservoir(double relativeAccuracy, long window, TimeUnit windowUnit, Clock clock) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.windowMillis = windowUnit.toMillis(window);
+        this.clock = clock;
+        this.current = new Window(windowStart(clock.getTime()) + windowMillis, relativeAccuracy);
+    }
+
+    private static int stripes() {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() && stripes < 16) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    @Override
+    public int size() {
+        rotate(clock.getTime());
+        Window window = previous;
+        return window != null ? (int) Math.min(window.getCount(), Integer.MAX_VALUE) : 0;
+    }
+
+    @Override
+    public void update(long value) {
+        long time = clock.getTime();
+        Window window = current;
+        if (time >= window.end) {
+            window = rotate(time);
+        }
+        window.add(value);
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        rotate(clock.getTime());
+        Window window = previous;
+        return new SketchSnapshot(window != null ? window.merge() : new QuantileSketch(relativeAccuracy));
+    }
+
+    /**
+     * Start a new window if the current window has ended
+     *
+     * @return The window, which counts the values at the given time
+     */
+    private synchronized Window rotate(long time) {
+        Window window = current;
+        if (time < window.end) {
+            return window;
+        }
+        long start = windowStart(time);
+        // The values of the ended window are reported only if the window is the one just before the new window
+        previous = window.end == start ? window : null;
+        current = new Window(start + windowMillis, relativeAccuracy);
+        return current;
+    }
+
+    private long windowStart(long time) {
+        return time - Math.floorMod(time, windowMillis);
+    }
+
+    /**
+     * The sketches of a window
+     */
+    private static final class Window {
+
+        private final long end;
+
+        private final QuantileSketch[] sketches = new QuantileSketch[STRIPES];
+
+        private Window(long end, double relativeAccuracy) {
+            this.end = end;
+            for (int i = 0; i < sketches.length; i++) {
+                sketches[i] = new QuantileSketch(relativeAccuracy);
+            }
+        }
+
+        private void add(long value) {
+            sketches[(int) Thread.currentThread().getId() & (STRIPES - 1)].add(value);
+        }
+
+        private long getCount() {
+            long count = 0;
+            for (QuantileSketch sketch : sketches) {
+                count += sketch.getCount();
+            }
+            return count;
+        }
+
+        private QuantileSketch merge() {
+            QuantileSketch merged = sketches[0].copy();
+            for (int i = 1; i < sketches.length; i++) {
+                merged.merge(sketches[i]);
+            }
+            return merged;
+        }
+    }
+}
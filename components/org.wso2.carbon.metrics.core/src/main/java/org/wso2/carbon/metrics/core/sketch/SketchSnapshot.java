@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.sketch;
+
+import com.codahale.metrics.Snapshot;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link Snapshot} of a {@link QuantileSketch}. The sketch does not keep the individual values. Therefore
+ * {@link #getValues()} returns the estimated value of each non-empty bin of the sketch.
+ */
+public class SketchSnapshot extends Snapshot {
+
+    private final QuantileSketch sketch;
+
+    /**
+     * @param sketch The sketch. The sketch must not be modified after creating the snapshot.
+     */
+    public SketchSnapshot(QuantileSketch sketch) {
+        this.sketch = sketch;
+    }
+
+    /**
+     * Serialize the snapshot of a histogram or a timer if it is backed by a sketch
+     *
+     * @param snapshot The snapshot
+     * @return The serialized sketch or {@code null} if the snapshot is not a {@link SketchSnapshot}
+     */
+    public static byte[] serialize(Snapshot snapshot) {
+        return snapshot instanceof SketchSnapshot ? ((SketchSnapshot) snapshot).toByteArray() : null;
+    }
+
+    /**
+     * @return A copy of the sketch
+     */
+    public QuantileSketch getSketch() {
+        return sketch.copy();
+    }
+
+    /**
+     * @return The serialized sketch. See {@link QuantileSketch#toByteArray()}
+     */
+    public byte[] toByteArray() {
+        return sketch.toByteArray();
+    }
+
+    @Override
+    public double getValue(double quantile) {
+        return sketch.getValueAtQuantile(quantile);
+    }
+
+    @Override
+    public long[] getValues() {
+        double[] binValues = sketch.getBinValues();
+        long[] values = new long[binValues.length];
+        for (int i = 0; i < binValues.length; i++) {
+            values[i] = Math.round(binValues[i]);
+        }
+        return values;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(sketch.getCount(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long getMax() {
+        return Math.round(sketch.getMax());
+    }
+
+    @Override
+    public double getMean() {
+        return sketch.getMean();
+    }
+
+    @Override
+    public long getMin() {
+        return Math.round(sketch.getMin());
+    }
+
+    @Override
+    public double getStdDev() {
+        return sketch.getStdDev();
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            for (long value : getValues()) {
+                out.printf("%d%n", value);
+            }
+        }
+    }
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.BiPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An append-only spool on disk for the records, which could not be sent to a reporting destination. The records are
+ * appended to segment files with sequential writes and they are replayed in the same order when the destination is
+ * available again. The number of records replayed at a time is limited, so that the destination is not overwhelmed
+ * after an outage. When the spool exceeds the maximum size, the oldest segment is discarded.
+ * <p>
+ * The position of the next record to replay is kept in a separate file, so that the spooled records are replayed
+ * after a restart.
+ */
+public class ReportSpool implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportSpool.class);
+
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("spool-(\\d+)\\.dat");
+
+    private static final String POSITION_FILE = "spool.pos";
+
+    private static final int SEGMENTS = 8;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte INTEGER = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte BYTES = 7;
+
+    private final File directory;
+
+    private final long maxSize;
+
+    private final long segmentSize;
+
+    private final int replayLimit;
+
+    /**
+     * The segment files by the sequence number
+     */
+    private final TreeMap<Long, File> segments = new TreeMap<>();
+
+    private final FileChannel positionChannel;
+
+    private final ByteBuffer positionBuffer = ByteBuffer.allocate(16);
+
+    private long size;
+
+    private long nextSequence;
+
+    // The current segment for appending records. This is null until a record is appended.
+    private FileChannel writeChannel;
+
+    private long writeSequence;
+
+    private long readSequence;
+
+    private long readPosition;
+
+    /**
+     * @param directory   The directory for the spool files
+     * @param maxSize     The maximum size of the spool in bytes. The spool is divided into a few segments.
+     * @param replayLimit The maximum number of records replayed at a time
+     * @throws IOException when the spool cannot be opened
+     */
+    public ReportSpool(File directory, long maxSize, int replayLimit) throws IOException {
+        this(directory, maxSize, Math.max(maxSize / SEGMENTS, 1), replayLimit);
+    }
+
+    /**
+     * @param directory   The directory for the spool files
+     * @param maxSize     The maximum size of the spool in bytes
+     * @param segmentSize The size of a segment file in bytes. A new segment is started when the current segment
+     *                    exceeds this size.
+     * @param replayLimit The maximum number of records replayed at a time
+     * @throws IOException when the spool cannot be opened
+     */
+    public ReportSpool(File directory, long maxSize, long segmentSize, int replayLimit) throws IOException {
+        if (maxSize <= 0 || segmentSize <= 0 || segmentSize > maxSize) {
+            throw new IllegalArgumentException("Segment size must be a positive number not larger than the maximum "
+                    + "size of the spool");
+        }
+        if (replayLimit <= 0) {
+            throw new IllegalArgumentException("Replay limit must be a positive number");
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.segmentSize = segmentSize;
+        this.replayLimit = replayLimit;
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Matcher matcher = SEGMENT_PATTERN.matcher(file.getName());
+                if (matcher.matches()) {
+                    segments.put(Long.parseLong(matcher.group(1)), file);
+                    size += file.length();
+                }
+            }
+        }
+        // Records are always appended to a new segment, so that a record partially written before a restart is
+        // at the end of a segment
+        nextSequence = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        positionChannel = FileChannel.open(new File(directory, POSITION_FILE).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (positionChannel.read(positionBuffer, 0) == positionBuffer.capacity()) {
+            positionBuffer.flip();
+            readSequence = positionBuffer.getLong();
+            readPosition = positionBuffer.getLong();
+        }
+        if (!segments.isEmpty() && !segments.containsKey(readSequence)) {
+            readSequence = segments.firstKey();
+            readPosition = 0;
+        }
+        while (!segments.isEmpty() && segments.firstKey() < readSequence) {
+            deleteSegment(segments.firstKey());
+        }
+        if (logger.isInfoEnabled() && !segments.isEmpty()) {
+            logger.info(String.format("Found %d bytes of spooled metrics in %s", size - readPosition,
+                    directory.getPath()));
+        }
+    }
+
+    /**
+     * Append records to the spool
+     *
+     * @param key     The key for the records. For example: the table or the stream of the records.
+     * @param records The records. The values can be strings, numbers, booleans, byte arrays or nulls. Any other
+     *                value is stored as a string.
+     */
+    public synchronized void append(String key, List<Object[]> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeUTF(key);
+            out.writeInt(records.size());
+            for (Object[] record : records) {
+                out.writeInt(record.length);
+                for (Object value : record) {
+                    writeValue(out, value);
+                }
+            }
+            out.flush();
+            ByteBuffer entry = ByteBuffer.wrap(bytes.toByteArray());
+            entry.putInt(0, entry.remaining() - 4);
+
+            if (writeChannel == null || writeChannel.size() >= segmentSize) {
+                startSegment();
+            }
+            long position = writeChannel.size();
+            while (entry.hasRemaining()) {
+                position += writeChannel.write(entry, position);
+            }
+            writeChannel.force(false);
+            size += entry.capacity();
+        } catch (IOException e) {
+            logger.error(String.format("Could not spool %d records for %s", records.size(), key), e);
+            // Records are appended to a new segment, as the current segment may have a partially written record
+            closeWriteChannel();
+            return;
+        }
+        while (size > maxSize && segments.size() > 1) {
+            long sequence = segments.firstKey();
+            if (logger.isWarnEnabled()) {
+                logger.warn(String.format("The spool in %s is full. Discarding the oldest spooled metrics",
+                        directory.getPath()));
+            }
+            deleteSegment(sequence);
+            if (sequence == readSequence) {
+                updatePosition(segments.firstKey(), 0);
+            }
+        }
+    }
+
+    /**
+     * Replay the spooled records in the same order. Records are read until the replay limit is reached or until the
+     * destination fails to accept the records. At least one batch of records is replayed even if it exceeds the limit.
+     *
+     * @param destination A function to send a batch of records with the same key to the destination. The function
+     *                    should return {@code false} if the records could not be sent. Those records will be replayed
+     *                    again.
+     */
+    public synchronized void replay(BiPredicate<String, List<Object[]>> destination) {
+        int replayed = 0;
+        while (replayed < replayLimit && !segments.isEmpty()) {
+            long sequence = readSequence;
+            boolean writing = writeChannel != null && sequence == writeSequence;
+            try (FileChannel channel = FileChannel.open(segments.get(sequence).toPath(), StandardOpenOption.READ)) {
+                ByteBuffer entry = readEntry(channel, readPosition);
+                if (entry != null) {
+                    DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.array()));
+                    String key = in.readUTF();
+                    int count = in.readInt();
+                    List<Object[]> records = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        Object[] record = new Object[in.readInt()];
+                        for (int j = 0; j < record.length; j++) {
+                            record[j] = readValue(in);
+                        }
+                        records.add(record);
+                    }
+                    if (!destination.test(key, records)) {
+                        return;
+                    }
+                    replayed += count;
+                    updatePosition(sequence, readPosition + 4 + entry.capacity());
+                    continue;
+                }
+            } catch (IOException e) {
+                logger.error(String.format("Could not read the spooled metrics in %s. Discarding the segment",
+                        segments.get(sequence).getPath()), e);
+            }
+            // All records in the segment are replayed. A partially written record at the end is discarded.
+            if (writing) {
+                closeWriteChannel();
+            }
+            deleteSegment(sequence);
+            updatePosition(segments.isEmpty() ? nextSequence : segments.firstKey(), 0);
+        }
+        if (logger.isDebugEnabled() && replayed > 0) {
+            logger.debug(String.format("Replayed %d spooled records from %s", replayed, directory.getPath()));
+        }
+    }
+
+    /**
+     * @return {@code true} if there are no records to replay
+     */
+    public synchronized boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeWriteChannel();
+        positionChannel.close();
+    }
+
+    private void startSegment() throws IOException {
+        closeWriteChannel();
+        writeSequence = nextSequence++;
+        File file = new File(directory, String.format("spool-%d.dat", writeSequence));
+        writeChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        if (segments.isEmpty()) {
+            updatePosition(writeSequence, 0);
+        }
+        segments.put(writeSequence, file);
+    }
+
+    private void closeWriteChannel() {
+        if (writeChannel != null) {
+            try {
+                writeChannel.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            writeChannel = null;
+        }
+    }
+
+    private void deleteSegment(long sequence) {
+        File file = segments.remove(sequence);
+        size -= file.length();
+        if (!file.delete() && logger.isWarnEnabled()) {
+            logger.warn(String.format("Could not delete the spool segment %s", file.getPath()));
+        }
+    }
+
+    private void updatePosition(long sequence, long position) {
+        readSequence = sequence;
+        readPosition = position;
+        positionBuffer.clear();
+        positionBuffer.putLong(sequence).putLong(position).flip();
+        try {
+            while (positionBuffer.hasRemaining()) {
+                positionChannel.write(positionBuffer, positionBuffer.position());
+            }
+        } catch (IOException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn(String.format("Could not save the spool position in %s", directory.getPath()), e);
+            }
+        }
+    }
+
+    /**
+     * Read a complete entry at the given position
+     *
+     * @return The entry without the length or {@code null} if there is no complete entry at the position
+     */
+    private static ByteBuffer readEntry(FileChannel channel, long position) throws IOException {
+        long available = channel.size() - position;
+        if (available < 4) {
+            return null;
+        }
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(channel, length, position);
+        int entryLength = length.getInt(0);
+        if (entryLength < 0) {
+            throw new IOException("Invalid entry length: " + entryLength);
+        }
+        if (available - 4 < entryLength) {
+            return null;
+        }
+        ByteBuffer entry = ByteBuffer.allocate(entryLength);
+        readFully(channel, entry, position + 4);
+        return entry;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the spool segment");
+            }
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else {
+            out.writeByte(STRING);
+            out.writeUTF(value.toString());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return in.readUTF();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case INTEGER:
+                return in.readInt();
+            case FLOAT:
+                return in.readFloat();
+            case BOOLEAN:
+                return in.readBoolean();
+            case BYTES:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return bytes;
+            default:
+                throw new IOException("Unknown value type: " + type);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core.task;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the threads used for reporting and for the scheduled tasks of Metrics. The IDs of the running threads are
+ * kept, so that the CPU time spent on reporting can be measured without listing all threads in the JVM.
+ */
+public final class MetricsThreads {
+
+    private static final Set<Long> THREAD_IDS = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private MetricsThreads() {
+    }
+
+    /**
+     * Create a daemon thread. The thread ID is kept while the thread is running.
+     *
+     * @param group    The thread group or {@code null} to use the group of the current thread
+     * @param runnable The runnable of the thread
+     * @param name     The name of the thread
+     * @return The new thread
+     */
+    public static Thread newThread(ThreadGroup group, Runnable runnable, String name) {
+        Thread thread = new Thread(group, () -> {
+            long threadId = Thread.currentThread().getId();
+            THREAD_IDS.add(threadId);
+            try {
+                runnable.run();
+            } finally {
+                THREAD_IDS.remove(threadId);
+            }
+        }, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * @return The IDs of the running threads created by {@link #newThread(ThreadGroup, Runnable, String)}
+     */
+    public static Set<Long> getThreadIds() {
+        return Collections.unmodifiableSet(THREAD_IDS);
+    }
+}
@@ -48,8 +48,7 @@ public abstract class ScheduledTask implements Closeable, Runnable {
 
         @Override
         public Thread newThread(Runnable r) {
-            final Thread t = new Thread(group, r, namePrefix + threadNumber.getAndIncrement(), 0);
-            t.setDaemon(true);
+            final Thread t = MetricsThreads.newThread(group, r, namePrefix + threadNumber.getAndIncrement());
             if (t.getPriority() != Thread.NORM_PRIORITY) {
                 t.setPriority(Thread.NORM_PRIORITY);
             }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.alert.AlertEvaluator;
+import org.wso2.carbon.metrics.core.alert.AlertEvent;
+import org.wso2.carbon.metrics.core.alert.AlertRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test Cases for {@link AlertRule} and {@link AlertEvaluator}
+ */
+public class AlertRuleTest {
+
+    @Test
+    public void testThreshold() {
+        AlertRule rule = AlertRule.compile("test", "test.timer", "p99 > 500 for 3 cycles");
+        Assert.assertEquals(rule.evaluate(600), AlertRule.State.UNCHANGED);
+        Assert.assertEquals(rule.evaluate(600), AlertRule.State.UNCHANGED);
+        Assert.assertEquals(rule.evaluate(600), AlertRule.State.FIRED);
+        Assert.assertEquals(rule.evaluate(700), AlertRule.State.UNCHANGED);
+        Assert.assertTrue(rule.isFiring());
+        // Missing values do not change the state
+        Assert.assertEquals(rule.evaluate(Double.NaN), AlertRule.State.UNCHANGED);
+        Assert.assertEquals(rule.evaluate(400), AlertRule.State.RESOLVED);
+        Assert.assertFalse(rule.isFiring());
+    }
+
+    @Test
+    public void testChange() {
+        AlertRule rule = AlertRule.compile("test", "test.meter", "rate drop > 50%");
+        Assert.assertEquals(rule.evaluate(100), AlertRule.State.UNCHANGED);
+        Assert.assertEquals(rule.evaluate(60), AlertRule.State.UNCHANGED);
+        Assert.assertEquals(rule.evaluate(20), AlertRule.State.FIRED);
+        Assert.assertEquals(rule.getLastValue(), 66.67, 0.01);
+        Assert.assertEquals(rule.evaluate(20), AlertRule.State.RESOLVED);
+    }
+
+    @Test
+    public void testInvalidConditions() {
+        for (String condition : Arrays.asList("p99 >", "p99 > 50%", "rate drop > 50", "unknown > 1",
+                "p99 > 1 for 0 cycles")) {
+            try {
+                AlertRule.compile("test", "test.metric", condition);
+                Assert.fail("Condition should be invalid: " + condition);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testEvaluator() {
+        MetricRegistry registry = new MetricRegistry();
+        AlertEvaluator evaluator = new AlertEvaluator(Arrays.asList(
+                AlertRule.compile("count", "test.counter", "count >= 2"),
+                AlertRule.compile("latency", "test.timer", "max > 100")), MetricFilter.ALL);
+        registry.addListener(evaluator);
+        List<AlertEvent> events = new ArrayList<>();
+        evaluator.addSink(events::add);
+
+        Counter counter = registry.counter("test.counter");
+        Timer timer = registry.timer("test.timer");
+        timer.update(200, TimeUnit.MILLISECONDS);
+        evaluator.evaluate(1000L);
+        Assert.assertEquals(events.size(), 1);
+        Assert.assertEquals(events.get(0).getRuleName(), "latency");
+        Assert.assertEquals(events.get(0).getValue(), 200, 0.001);
+        Assert.assertTrue(events.get(0).isFiring());
+
+        counter.inc(2);
+        evaluator.evaluate(2000L);
+        Assert.assertEquals(events.size(), 2);
+        Assert.assertEquals(events.get(1).getRuleName(), "count");
+
+        // The firing rules of removed metrics are resolved
+        registry.remove("test.counter");
+        evaluator.evaluate(3000L);
+        Assert.assertEquals(events.size(), 3);
+        Assert.assertEquals(events.get(2).getMetricName(), "test.counter");
+        Assert.assertFalse(events.get(2).isFiring());
+    }
+}
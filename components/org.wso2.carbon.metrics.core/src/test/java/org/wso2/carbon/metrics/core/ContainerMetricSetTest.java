@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.metric.ContainerMetricSet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test Cases for {@link ContainerMetricSet}
+ */
+public class ContainerMetricSetTest {
+
+    @Test
+    public void testCgroupV2() throws IOException {
+        Path root = Files.createTempDirectory("cgroup-v2");
+        write(root, "cgroup.controllers", "cpu memory io");
+        write(root, "cpu.max", "150000 100000");
+        write(root, "cpu.stat", "usage_usec 2000\nuser_usec 1500\nsystem_usec 500\nnr_periods 30\n"
+                + "nr_throttled 4\nthrottled_usec 700");
+        write(root, "memory.current", "1048576");
+        write(root, "memory.max", "max");
+        write(root, "memory.events", "low 0\nhigh 0\nmax 3\noom 1\noom_kill 1");
+        write(root, "cpu.pressure", "some avg10=1.50 avg60=0.25 avg300=0.00 total=100");
+        write(root, "memory.pressure", "some avg10=0.00 avg60=0.00 avg300=0.00 total=0\n"
+                + "full avg10=2.75 avg60=0.50 avg300=0.00 total=0");
+        Path procSelfCgroup = write(root, "self-cgroup", "0::/");
+
+        ContainerMetricSet metricSet = new ContainerMetricSet(root, procSelfCgroup, 0, TimeUnit.SECONDS);
+        Map<String, Metric> metrics = metricSet.getMetrics();
+        Assert.assertEquals(value(metrics, "cpu.quota"), 1.5D);
+        Assert.assertEquals(value(metrics, "cpu.usage.time"), 2000000L);
+        Assert.assertEquals(value(metrics, "cpu.period.count"), 30L);
+        Assert.assertEquals(value(metrics, "cpu.throttled.count"), 4L);
+        Assert.assertEquals(value(metrics, "cpu.throttled.time"), 700000L);
+        Assert.assertEquals(value(metrics, "memory.usage.size"), 1048576L);
+        Assert.assertEquals(value(metrics, "memory.limit.size"), -1L);
+        Assert.assertEquals(value(metrics, "memory.fail.count"), 3L);
+        Assert.assertEquals(value(metrics, "pressure.cpu.some.avg10"), 1.5D);
+        Assert.assertEquals(value(metrics, "pressure.memory.full.avg60"), 0.5D);
+        Assert.assertNull(metrics.get("pressure.io.some.avg10"));
+
+        // Values should be read again in the next sample
+        write(root, "memory.current", "2097152");
+        Assert.assertEquals(value(metrics, "memory.usage.size"), 2097152L);
+
+        // The gauges are created only once, so that the files are not opened again
+        Assert.assertSame(metricSet.getMetrics(), metrics);
+    }
+
+    @Test
+    public void testCgroupV1() throws IOException {
+        Path root = Files.createTempDirectory("cgroup-v1");
+        Files.createDirectories(root.resolve("cpu,cpuacct"));
+        Files.createDirectories(root.resolve("memory"));
+        write(root, "cpu,cpuacct/cpu.cfs_quota_us", "-1");
+        write(root, "cpu,cpuacct/cpu.cfs_period_us", "100000");
+        write(root, "cpu,cpuacct/cpu.stat", "nr_periods 10\nnr_throttled 2\nthrottled_time 5000");
+        write(root, "cpu,cpuacct/cpuacct.usage", "123456789");
+        write(root, "memory/memory.usage_in_bytes", "4096");
+        write(root, "memory/memory.limit_in_bytes", "9223372036854771712");
+        write(root, "memory/memory.failcnt", "7");
+        Path procSelfCgroup = write(root, "self-cgroup", "4:memory:/\n2:cpu,cpuacct:/");
+
+        Map<String, Metric> metrics = new ContainerMetricSet(root, procSelfCgroup, 0, TimeUnit.SECONDS).getMetrics();
+        Assert.assertEquals(value(metrics, "cpu.quota"), -1.0D);
+        Assert.assertEquals(value(metrics, "cpu.usage.time"), 123456789L);
+        Assert.assertEquals(value(metrics, "cpu.period.count"), 10L);
+        Assert.assertEquals(value(metrics, "cpu.throttled.count"), 2L);
+        Assert.assertEquals(value(metrics, "cpu.throttled.time"), 5000L);
+        Assert.assertEquals(value(metrics, "memory.usage.size"), 4096L);
+        Assert.assertEquals(value(metrics, "memory.limit.size"), -1L);
+        Assert.assertEquals(value(metrics, "memory.fail.count"), 7L);
+
+        write(root, "cpu,cpuacct/cpu.cfs_quota_us", "50000");
+        Assert.assertEquals(value(metrics, "cpu.quota"), 0.5D);
+    }
+
+    @Test
+    public void testNoCgroup() throws IOException {
+        Path root = Files.createTempDirectory("cgroup-none");
+        Map<String, Metric> metrics = new ContainerMetricSet(root.resolve("missing"), root.resolve("self-cgroup"), 0,
+                TimeUnit.SECONDS).getMetrics();
+        Assert.assertTrue(metrics.isEmpty());
+    }
+
+    private static Path write(Path root, String file, String content) throws IOException {
+        return Files.write(root.resolve(file), (content + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object value(Map<String, Metric> metrics, String name) {
+        Metric metric = metrics.get(name);
+        Assert.assertNotNull(metric, name + " is not available");
+        return ((Gauge<?>) metric).getValue();
+    }
+}
@@ -173,4 +173,31 @@ public class CounterTest extends BaseMetricTest {
         Assert.assertEquals(counter.getCount(), 0 - n);
     }
 
+    @Test
+    public void testReEnable() throws Exception {
+        Counter counter = MetricManager.counter(MetricManager.name(this.getClass(), "test-counter-re-enable"),
+                Level.INFO);
+        MetricManager.getMetricService().setRootLevel(Level.OFF);
+        // Keep updating from another thread while the counter is disabled and after it is enabled again
+        Thread updater = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                counter.inc();
+            }
+        });
+        updater.start();
+        try {
+            Thread.sleep(100);
+            Assert.assertEquals(counter.getCount(), 0L);
+
+            MetricManager.getMetricService().setRootLevel(Level.INFO);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (counter.getCount() == 0L && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertTrue(counter.getCount() > 0L, "The updates should be counted after enabling the counter");
+        } finally {
+            updater.interrupt();
+            updater.join();
+        }
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.csv.CsvFileWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Test Cases for {@link CsvFileWriter}
+ */
+public class CsvFileWriterTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private final File directory = new File("target/csv-writer-test");
+
+    @BeforeMethod
+    private void deleteFiles() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Assert.assertTrue(file.delete());
+            }
+        }
+        Assert.assertTrue(directory.isDirectory() || directory.mkdirs());
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        CsvFileWriter writer = new CsvFileWriter(directory, 2, 0, 0, false);
+        // More files than the maximum number of open files
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 4; j++) {
+                writer.write("test.counter." + j, "t,count", i + "," + j, i * MINUTE);
+            }
+        }
+        writer.close();
+        List<String> lines = Files.readAllLines(new File(directory, "test.counter.3.csv").toPath());
+        Assert.assertEquals(lines, Arrays.asList("t,count", "0,3", "1,3", "2,3"));
+        Assert.assertEquals(directory.list().length, 4);
+    }
+
+    @Test
+    public void testOpenFiles() throws IOException {
+        CsvFileWriter writer = new CsvFileWriter(directory, 2, 0, 0, false);
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 4; j++) {
+                writer.write("test.counter." + j, "t,count", i + "," + j, i * MINUTE);
+            }
+            Assert.assertEquals(writer.closeIdleFiles(i * MINUTE), 0);
+            // The files opened first stay open in every cycle
+            Assert.assertEquals(writer.getOpenFileCount(), 2);
+        }
+        // The files of the metrics, which are not reported, are closed at the end of the cycle
+        writer.write("test.counter.2", "t,count", "3,2", 3 * MINUTE);
+        writer.write("test.counter.3", "t,count", "3,3", 3 * MINUTE);
+        Assert.assertEquals(writer.closeIdleFiles(3 * MINUTE), 2);
+        Assert.assertEquals(writer.getOpenFileCount(), 0);
+        writer.write("test.counter.2", "t,count", "4,2", 4 * MINUTE);
+        writer.write("test.counter.3", "t,count", "4,3", 4 * MINUTE);
+        Assert.assertEquals(writer.getOpenFileCount(), 2);
+        writer.close();
+        Assert.assertEquals(Files.readAllLines(new File(directory, "test.counter.3.csv").toPath()),
+                Arrays.asList("t,count", "0,3", "1,3", "2,3", "3,3", "4,3"));
+    }
+
+    @Test
+    public void testRotation() throws IOException, InterruptedException {
+        CsvFileWriter writer = new CsvFileWriter(directory, 10, 20, 10 * MINUTE, true);
+        // Rotate by size
+        writer.write("test.meter", "t,count", "0,0123456789", 0);
+        writer.write("test.meter", "t,count", "60,0123456789", MINUTE);
+        // Rotate by time
+        writer.write("test.gauge", "t,value", "0,1", 0);
+        writer.write("test.gauge", "t,value", "600,2", 10 * MINUTE);
+        writer.close();
+
+        File compressedFile = new File(directory, "test.meter-0.csv.gz");
+        for (int i = 0; i < 50 && (!compressedFile.exists() || new File(directory, "test.meter-0.csv").exists());
+             i++) {
+            Thread.sleep(100);
+        }
+        Assert.assertTrue(compressedFile.exists(), "Rotated file should be compressed");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(compressedFile.toPath()));
+             Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            Assert.assertEquals(scanner.nextLine(), "t,count");
+            Assert.assertEquals(scanner.nextLine(), "0,0123456789");
+            Assert.assertFalse(scanner.hasNextLine());
+        }
+        Assert.assertEquals(Files.readAllLines(new File(directory, "test.meter.csv").toPath()),
+                Arrays.asList("t,count", "60,0123456789"));
+        Assert.assertEquals(Files.readAllLines(new File(directory, "test.gauge.csv").toPath()),
+                Arrays.asList("t,value", "600,2"));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.MetricRegistry;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.config.model.MetricsConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
+import org.wso2.carbon.metrics.core.service.MetricService;
+
+/**
+ * Test Cases for metric collections with deferred aggregation
+ */
+public class DeferredAggregationTest {
+
+    private MetricService metricService;
+
+    @BeforeClass
+    public void init() {
+        MetricsConfig metricsConfig = new MetricsConfig();
+        metricsConfig.getAggregation().setDeferred(true);
+        metricsConfig.getReporting().getJmx().setEnabled(false);
+        metricsConfig.getStartup().setJvmMetrics(false);
+        MetricsLevelConfig levelConfig = new MetricsLevelConfig();
+        levelConfig.setRootLevel(Level.INFO);
+        levelConfig.setSketchAccuracy("test.deferred.sketch.sub.histogram", 0.01);
+        levelConfig.setSketchAccuracy("test.deferred.sketch.histogram", 0.01);
+        levelConfig.setSketchWindow(1);
+        metricService = new MetricService(new MetricRegistry(), metricsConfig, levelConfig);
+    }
+
+    @Test
+    public void testCounter() {
+        Counter sub = metricService.counter("test.deferred.counter[+].sub.counter", Level.INFO, Level.INFO);
+        Counter sub1 = metricService.counter("test.deferred.counter.sub[+].sub1.counter", Level.INFO, Level.INFO);
+        Counter main = metricService.counter("test.deferred.counter.counter", Level.INFO);
+        sub.inc(3);
+        Assert.assertEquals(sub.getCount(), 3);
+        Assert.assertEquals(main.getCount(), 3);
+        sub1.inc(2);
+        // Only the counts of the members are aggregated
+        Assert.assertEquals(main.getCount(), 3);
+        Assert.assertEquals(sub.getCount(), 5);
+        Assert.assertEquals(sub1.getCount(), 2);
+        main.dec();
+        Assert.assertEquals(main.getCount(), 2);
+        // The same collection does not add the member again
+        metricService.counter("test.deferred.counter[+].sub.counter", Level.INFO, Level.INFO).inc();
+        Assert.assertEquals(main.getCount(), 3);
+    }
+
+    @Test
+    public void testMixedLevels() throws MetricNotFoundException {
+        // The most specific metric is disabled and the aggregated metric is enabled
+        Counter sub = metricService.counter("test.deferred.mixed[+].sub.counter", Level.DEBUG, Level.INFO);
+        Counter main = metricService.getCounter("test.deferred.mixed.counter");
+        sub.inc(3);
+        Assert.assertEquals(main.getCount(), 3);
+
+        // The updates are not recorded when all metrics are disabled
+        metricService.setMetricLevel("test.deferred.mixed.counter", Level.OFF);
+        sub.inc(2);
+        metricService.setMetricLevel("test.deferred.mixed.counter", Level.INFO);
+        Assert.assertEquals(main.getCount(), 3);
+        sub.inc();
+        Assert.assertEquals(main.getCount(), 4);
+
+        // The updates are not recorded for a removed metric
+        Assert.assertTrue(metricService.remove("test.deferred.mixed.sub.counter"));
+        sub.inc();
+        Assert.assertEquals(main.getCount(), 4);
+    }
+
+    @Test
+    public void testMeter() throws MetricNotFoundException {
+        Meter sub1 = metricService.meter("test.deferred.meter[+].sub1.meter", Level.INFO, Level.INFO);
+        Meter sub2 = metricService.meter("test.deferred.meter[+].sub2.meter", Level.INFO, Level.INFO);
+        sub1.mark(2);
+        sub2.mark(3);
+        Assert.assertEquals(sub1.getCount(), 2);
+        Assert.assertEquals(metricService.getMeter("test.deferred.meter.meter").getCount(), 5);
+    }
+
+    @Test
+    public void testHistogram() throws MetricNotFoundException {
+        Histogram sub1 = metricService.histogram("test.deferred.histogram[+].sub1.histogram", Level.INFO, Level.INFO);
+        Histogram sub2 = metricService.histogram("test.deferred.histogram[+].sub2.histogram", Level.INFO, Level.INFO);
+        sub1.update(1);
+        sub2.update(2);
+        sub2.update(3);
+        Histogram main = metricService.getHistogram("test.deferred.histogram.histogram");
+        Assert.assertEquals(main.getCount(), 3);
+        Assert.assertEquals(main.getSnapshot().size(), 3);
+        Assert.assertEquals(main.getSnapshot().getMax(), 3);
+        Assert.assertEquals(sub1.getSnapshot().size(), 1);
+    }
+
+    @Test
+    public void testWeightedHistogram() throws MetricNotFoundException {
+        Histogram sub1 = metricService.histogram("test.deferred.weighted[+].sub1.histogram", Level.INFO, Level.INFO);
+        Histogram sub2 = metricService.histogram("test.deferred.weighted[+].sub2.histogram", Level.INFO, Level.INFO);
+        // Both reservoirs keep a sample of the same size
+        for (int i = 0; i < 10000; i++) {
+            sub1.update(10);
+        }
+        for (int i = 0; i < 1100; i++) {
+            sub2.update(1000);
+        }
+        Snapshot snapshot = metricService.getHistogram("test.deferred.weighted.histogram").getSnapshot();
+        Assert.assertEquals(snapshot.get75thPercentile(), 10, 0.001);
+        Assert.assertEquals(snapshot.get99thPercentile(), 1000, 0.001);
+    }
+
+    @Test
+    public void testRemoveMember() throws MetricNotFoundException {
+        Counter sub1 = metricService.counter("test.deferred.remove[+].sub1.counter", Level.INFO, Level.INFO);
+        Counter sub2 = metricService.counter("test.deferred.remove[+].sub2.counter", Level.INFO, Level.INFO);
+        Counter main = metricService.getCounter("test.deferred.remove.counter");
+        sub1.inc(2);
+        sub2.inc(3);
+        Assert.assertTrue(metricService.remove("test.deferred.remove.sub1.counter"));
+        // The count of the removed member is kept
+        Assert.assertEquals(main.getCount(), 5);
+        sub1.inc();
+        sub2.inc();
+        Assert.assertEquals(main.getCount(), 6);
+    }
+
+    @Test
+    public void testSketchHistogram() throws MetricNotFoundException, InterruptedException {
+        Histogram sub = metricService.histogram("test.deferred.sketch[+].sub.histogram", Level.INFO, Level.INFO);
+        waitForNextWindow();
+        for (int i = 1; i <= 100; i++) {
+            sub.update(i);
+        }
+        // Only the complete windows of the sketches are reported
+        waitForNextWindow();
+        Snapshot snapshot = metricService.getHistogram("test.deferred.sketch.histogram").getSnapshot();
+        Assert.assertEquals(snapshot.getMax(), 100);
+        Assert.assertEquals(snapshot.getMedian(), 50, 1);
+    }
+
+    private static void waitForNextWindow() throws InterruptedException {
+        // The sketch windows are aligned to the clock
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 10);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Metric;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.metric.GarbageCollectionNotificationMetricSet;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.management.MBeanNotificationInfo;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+
+/**
+ * Test Cases for {@link GarbageCollectionNotificationMetricSet}
+ */
+public class GarbageCollectionNotificationMetricSetTest {
+
+    @Test
+    public void testStartStop() {
+        TestGarbageCollector garbageCollector = new TestGarbageCollector();
+        GarbageCollectionNotificationMetricSet metricSet =
+                new GarbageCollectionNotificationMetricSet(Collections.singletonList(garbageCollector));
+        Map<String, Metric> metrics = metricSet.getMetrics();
+        Assert.assertTrue(metrics.get("Test-Collector.pause") instanceof Histogram);
+        Assert.assertEquals(garbageCollector.listeners.size(), 0, "Listener should be added only when started");
+
+        metricSet.start();
+        metricSet.start();
+        Assert.assertEquals(garbageCollector.listeners.size(), 1);
+        metricSet.stop();
+        Assert.assertEquals(garbageCollector.listeners.size(), 0);
+        metricSet.start();
+        Assert.assertEquals(garbageCollector.listeners.size(), 1);
+        metricSet.stop();
+    }
+
+    @Test
+    public void testNotifications() throws InterruptedException {
+        GarbageCollectionNotificationMetricSet metricSet = new GarbageCollectionNotificationMetricSet();
+        Map<String, Metric> metrics = metricSet.getMetrics();
+        metricSet.start();
+        try {
+            System.gc();
+            long count = 0;
+            for (int i = 0; i < 100 && count == 0; i++) {
+                Thread.sleep(100);
+                count = pauseCount(metrics);
+            }
+            Assert.assertTrue(count > 0, "A collection should be recorded");
+        } finally {
+            metricSet.stop();
+        }
+        long count = pauseCount(metrics);
+        System.gc();
+        Thread.sleep(500);
+        Assert.assertEquals(pauseCount(metrics), count, "Collections should not be recorded after stopping");
+    }
+
+    @Test
+    public void testAllocationAcrossCollectors() {
+        System.gc();
+        GcInfo gcInfo = null;
+        for (GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (garbageCollector instanceof com.sun.management.GarbageCollectorMXBean) {
+                GcInfo lastGcInfo = ((com.sun.management.GarbageCollectorMXBean) garbageCollector).getLastGcInfo();
+                if (lastGcInfo != null) {
+                    gcInfo = lastGcInfo;
+                }
+            }
+        }
+        if (gcInfo == null) {
+            return;
+        }
+        long youngBefore = 0;
+        long youngAfter = 0;
+        for (Map.Entry<String, MemoryUsage> entry : gcInfo.getMemoryUsageBeforeGc().entrySet()) {
+            if (entry.getKey().contains("Eden")) {
+                youngBefore += entry.getValue().getUsed();
+                youngAfter += gcInfo.getMemoryUsageAfterGc().get(entry.getKey()).getUsed();
+            }
+        }
+        if (youngBefore == 0) {
+            // The collector does not have an Eden space
+            return;
+        }
+
+        GarbageCollectionNotificationMetricSet metricSet =
+                new GarbageCollectionNotificationMetricSet(Collections.emptyList());
+        Map<String, Metric> addedMetrics = new HashMap<>();
+        metricSet.setMetricAddedListener(addedMetrics::put);
+        metricSet.getMetrics();
+        // The young generation is shared by the collectors. The second collection should count only the bytes
+        // allocated after the first collection.
+        metricSet.handleNotification(notification("Collector A", gcInfo), null);
+        metricSet.handleNotification(notification("Collector B", gcInfo), null);
+
+        Counter allocated = (Counter) addedMetrics.get("cause.System-gc.allocated.bytes");
+        Assert.assertNotNull(allocated);
+        Assert.assertEquals(allocated.getCount(), youngBefore + Math.max(youngBefore - youngAfter, 0));
+    }
+
+    private static Notification notification(String gcName, GcInfo gcInfo) {
+        Notification notification = new Notification(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION,
+                gcName, 1L);
+        notification.setUserData(new GarbageCollectionNotificationInfo(gcName, "end of major GC", "System.gc()",
+                gcInfo).toCompositeData(null));
+        return notification;
+    }
+
+    private static long pauseCount(Map<String, Metric> metrics) {
+        long count = 0;
+        for (Metric metric : metrics.values()) {
+            if (metric instanceof Histogram) {
+                count += ((Histogram) metric).getCount();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A garbage collector, which keeps the notification listeners
+     */
+    private static class TestGarbageCollector implements GarbageCollectorMXBean, NotificationEmitter {
+
+        private final List<NotificationListener> listeners = new ArrayList<>();
+
+        @Override
+        public long getCollectionCount() {
+            return 0;
+        }
+
+        @Override
+        public long getCollectionTime() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "Test Collector";
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public String[] getMemoryPoolNames() {
+            return new String[0];
+        }
+
+        @Override
+        public ObjectName getObjectName() {
+            return null;
+        }
+
+        @Override
+        public void addNotificationListener(NotificationListener listener, NotificationFilter filter,
+                                            Object handback) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeNotificationListener(NotificationListener listener) {
+            listeners.remove(listener);
+        }
+
+        @Override
+        public void removeNotificationListener(NotificationListener listener, NotificationFilter filter,
+                                               Object handback) {
+            listeners.remove(listener);
+        }
+
+        @Override
+        public MBeanNotificationInfo[] getNotificationInfo() {
+            return new MBeanNotificationInfo[0];
+        }
+    }
+}
@@ -151,4 +151,16 @@ public class HistogramTest extends BaseMetricTest {
         testSnapshot(snapshot);
     }
 
+    @Test
+    public void testReEnable() {
+        Histogram histogram =
+                MetricManager.histogram(MetricManager.name(this.getClass(), "test-histogram-re-enable"), Level.INFO);
+        MetricManager.getMetricService().setRootLevel(Level.OFF);
+        histogram.update(random.nextInt());
+        Assert.assertEquals(histogram.getCount(), 0);
+
+        MetricManager.getMetricService().setRootLevel(Level.INFO);
+        histogram.update(random.nextInt());
+        Assert.assertEquals(histogram.getCount(), 1);
+    }
 }
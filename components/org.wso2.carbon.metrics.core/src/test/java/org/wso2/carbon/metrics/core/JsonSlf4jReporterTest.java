@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.json.JsonSlf4jReporter;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Test Cases for {@link JsonSlf4jReporter}
+ */
+public class JsonSlf4jReporterTest {
+
+    private final Clock clock = new Clock() {
+        @Override
+        public long getTick() {
+            return 0;
+        }
+
+        @Override
+        public long getTime() {
+            return 1000L;
+        }
+    };
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void testJsonEvents() {
+        List<String> events = new ArrayList<>();
+        SortedMap<String, Gauge> gauges = new TreeMap<>();
+        gauges.put("test.gauge.double", () -> 1.5D);
+        gauges.put("test.gauge.nan", () -> Double.NaN);
+        gauges.put("test.gauge.string", () -> "a \"quoted\"\n\u0001value");
+        SortedMap<String, Counter> counters = new TreeMap<>();
+        Counter counter = new Counter();
+        counter.inc(5);
+        counters.put("test.counter", counter);
+        SortedMap<String, Histogram> histograms = new TreeMap<>();
+        Histogram histogram = new Histogram(new ExponentiallyDecayingReservoir());
+        histogram.update(10);
+        histograms.put("test.histogram", histogram);
+        SortedMap<String, Meter> meters = new TreeMap<>();
+        meters.put("test.meter", new Meter());
+        SortedMap<String, Timer> timers = new TreeMap<>();
+
+        JsonSlf4jReporter reporter = JsonSlf4jReporter.forRegistry(new MetricRegistry()).outputTo(logger(events))
+                .withClock(clock).build();
+        reporter.report(gauges, counters, histograms, meters, timers);
+        Assert.assertEquals(events.size(), 1);
+        String event = events.get(0);
+        Assert.assertTrue(event.startsWith("{\"timestamp\":1000,\"rate_unit\":\"events/"), event);
+        Assert.assertTrue(event.endsWith("}]}"), event);
+        Assert.assertTrue(event.contains("{\"type\":\"GAUGE\",\"name\":\"test.gauge.double\",\"value\":1.5}"), event);
+        Assert.assertTrue(event.contains("{\"type\":\"GAUGE\",\"name\":\"test.gauge.nan\",\"value\":null}"), event);
+        Assert.assertTrue(event.contains("\"value\":\"a \\\"quoted\\\"\\n\\u0001value\"}"), event);
+        Assert.assertTrue(event.contains("{\"type\":\"COUNTER\",\"name\":\"test.counter\",\"count\":5}"), event);
+        Assert.assertTrue(event.contains("{\"type\":\"HISTOGRAM\",\"name\":\"test.histogram\",\"count\":1,"
+                + "\"min\":10.0,\"max\":10.0"), event);
+        Assert.assertTrue(event.contains("{\"type\":\"METER\",\"name\":\"test.meter\",\"count\":0,"), event);
+
+        events.clear();
+        reporter = JsonSlf4jReporter.forRegistry(new MetricRegistry()).outputTo(logger(events)).withClock(clock)
+                .withChunkSize(2).build();
+        reporter.report(gauges, counters, histograms, meters, timers);
+        Assert.assertEquals(events.size(), 3);
+        Assert.assertTrue(events.get(2).contains("\"metrics\":[{\"type\":\"HISTOGRAM\""), events.get(2));
+        for (String chunk : events) {
+            Assert.assertTrue(chunk.startsWith("{\"timestamp\":1000,"), chunk);
+            Assert.assertTrue(chunk.endsWith("}]}"), chunk);
+        }
+    }
+
+    /**
+     * Create a logger, which collects the messages logged at INFO level
+     */
+    private static Logger logger(List<String> events) {
+        return (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class[]{Logger.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("isInfoEnabled")) {
+                        return true;
+                    }
+                    if (method.getName().equals("info")) {
+                        events.add((String) args[args.length - 1]);
+                    }
+                    return method.getReturnType() == boolean.class ? false : null;
+                });
+    }
+}
@@ -143,4 +143,16 @@ public class MeterTest extends BaseMetricTest {
         Assert.assertTrue(meter.getFifteenMinuteRate() >= 0);
         Assert.assertTrue(meter.getMeanRate() >= 0);
     }
+
+    @Test
+    public void testReEnable() {
+        Meter meter = MetricManager.meter(MetricManager.name(this.getClass(), "test-meter-re-enable"), Level.INFO);
+        MetricManager.getMetricService().setRootLevel(Level.OFF);
+        meter.mark();
+        Assert.assertEquals(meter.getCount(), 0);
+
+        MetricManager.getMetricService().setRootLevel(Level.INFO);
+        meter.mark();
+        Assert.assertEquals(meter.getCount(), 1);
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.config.model.ConsoleReporterConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricsConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
+import org.wso2.carbon.metrics.core.history.MetricHistory;
+import org.wso2.carbon.metrics.core.history.MetricSeries;
+import org.wso2.carbon.metrics.core.reporter.ReporterBuildException;
+import org.wso2.carbon.metrics.core.service.MetricService;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test Cases for {@link MetricHistory}
+ */
+public class MetricHistoryTest {
+
+    @Test
+    public void testRingBuffer() {
+        MetricHistory history = new MetricHistory(3, 10);
+        Counter counter = new Counter();
+        Timer timer = new Timer();
+        for (int i = 1; i <= 5; i++) {
+            counter.inc();
+            timer.update(i, TimeUnit.MILLISECONDS);
+            history.record(i * 1000L, map(), map("test.counter", counter), map(), map(), map("test.timer", timer));
+        }
+        MetricSeries series = history.get("test.counter");
+        Assert.assertEquals(series.getType(), "counter");
+        // Only the last three values are kept
+        Assert.assertEquals(series.getTimestamps(), new long[]{3000L, 4000L, 5000L});
+        Assert.assertEquals(series.getValues("count"), new double[]{3, 4, 5});
+
+        series = history.get("test.timer");
+        Assert.assertEquals(series.getFields()[4], "max");
+        Assert.assertEquals(series.getValues("max")[2], 5.0, 0.001);
+
+        // Removed metrics are not kept
+        history.record(6000L, map(), map("test.counter", counter), map(), map(), map());
+        Assert.assertNull(history.get("test.timer"));
+        Assert.assertEquals(history.size(), 1);
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void testMaxMetrics() {
+        MetricHistory history = new MetricHistory(10, 1);
+        Gauge<Integer> gauge = () -> 1;
+        SortedMap<String, Gauge> gauges = new TreeMap<>();
+        gauges.put("test.gauge1", gauge);
+        gauges.put("test.gauge2", gauge);
+        history.record(1000L, gauges, map(), map(), map(), map());
+        history.record(2000L, gauges, map(), map(), map(), map());
+        Assert.assertEquals(history.size(), 1);
+        MetricSeries series = history.get("test.gauge1");
+        Assert.assertEquals(series.getValues("value"), new double[]{1, 1});
+        Assert.assertNull(history.get("test.gauge2"));
+    }
+
+    @Test
+    public void testReporterHistory() throws ReporterBuildException {
+        MetricsConfig metricsConfig = new MetricsConfig();
+        metricsConfig.getReporting().getJmx().setEnabled(false);
+        metricsConfig.getStartup().setJvmMetrics(false);
+        metricsConfig.getHistory().setEnabled(true);
+        metricsConfig.getHistory().setReporter("HistoryConsole");
+        MetricsLevelConfig levelConfig = new MetricsLevelConfig();
+        levelConfig.setRootLevel(Level.INFO);
+        MetricService metricService = new MetricService(new MetricRegistry(), metricsConfig, levelConfig);
+        try {
+            ConsoleReporterConfig reporterConfig = new ConsoleReporterConfig();
+            reporterConfig.setName("HistoryConsole");
+            reporterConfig.setEnabled(true);
+            reporterConfig.setPollingPeriod(600);
+            metricService.addReporter(reporterConfig);
+            metricService.startReporter("HistoryConsole");
+
+            org.wso2.carbon.metrics.core.Counter counter = metricService.counter("test.history.reporter", Level.INFO);
+            counter.inc();
+            Assert.assertNull(metricService.getHistory("test.history.reporter"));
+            // Each report is recorded in the history
+            metricService.report();
+            counter.inc();
+            metricService.report();
+            MetricSeries series = metricService.getHistory("test.history.reporter");
+            Assert.assertNotNull(series, "The reported metrics should be recorded");
+            Assert.assertEquals(series.getValues("count"), new double[]{1, 2});
+        } finally {
+            metricService.disable();
+        }
+    }
+
+    private <T> SortedMap<String, T> map() {
+        return new TreeMap<>();
+    }
+
+    private <T> SortedMap<String, T> map(String name, T metric) {
+        SortedMap<String, T> map = new TreeMap<>();
+        map.put(name, metric);
+        return map;
+    }
+}
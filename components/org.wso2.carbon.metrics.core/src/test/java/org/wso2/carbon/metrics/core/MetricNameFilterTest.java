@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.MetricFilter;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.reporter.MetricNameFilter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Test Cases for {@link MetricNameFilter}
+ */
+public class MetricNameFilterTest {
+
+    @Test
+    public void testPatterns() {
+        MetricNameFilter filter = new MetricNameFilter(MetricFilter.ALL,
+                Arrays.asList("jvm.*", "org.example.*.requests", "database.?"),
+                Collections.singletonList("jvm.threads*"));
+        Assert.assertTrue(filter.matches("jvm.memory.heap.used", null));
+        Assert.assertTrue(filter.matches("org.example.api.requests", null));
+        Assert.assertTrue(filter.matches("org.example.api.v1.requests", null));
+        Assert.assertTrue(filter.matches("database.1", null));
+        Assert.assertFalse(filter.matches("database.10", null));
+        Assert.assertFalse(filter.matches("org.example.api.errors", null));
+        Assert.assertFalse(filter.matches("jvm.threads.count", null));
+        Assert.assertFalse(filter.matches("jvm", null));
+
+        // All metrics are included if there are no include patterns
+        filter = new MetricNameFilter(MetricFilter.ALL, Collections.emptyList(), Collections.singletonList("*.test"));
+        Assert.assertTrue(filter.matches("jvm.memory", null));
+        Assert.assertFalse(filter.matches("jvm.test", null));
+    }
+
+    @Test
+    public void testEnabledFilter() {
+        AtomicBoolean enabled = new AtomicBoolean(true);
+        MetricNameFilter filter = new MetricNameFilter((name, metric) -> enabled.get(),
+                Collections.singletonList("jvm.*"), Collections.emptyList());
+        Assert.assertTrue(filter.matches("jvm.memory", null));
+        // The enabled status is not cached
+        enabled.set(false);
+        Assert.assertFalse(filter.matches("jvm.memory", null));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.MetricRegistry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.config.model.MetricsConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
+import org.wso2.carbon.metrics.core.service.MetricService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test Cases for starting the Metric Service asynchronously
+ */
+public class MetricServiceStartupTest {
+
+    @Test
+    public void testAsyncStartup() throws InterruptedException {
+        MetricsConfig metricsConfig = new MetricsConfig();
+        metricsConfig.getStartup().setAsync(true);
+        metricsConfig.getReporting().getJmx().setName("StartupJMX");
+        metricsConfig.getReporting().getJmx().setDomain("org.wso2.carbon.metrics.startup");
+        MetricsLevelConfig levelConfig = new MetricsLevelConfig();
+        levelConfig.setRootLevel(Level.INFO);
+        MetricService metricService = new MetricService(new MetricRegistry(), metricsConfig, levelConfig);
+
+        // Metrics can be used before the startup is complete
+        Counter counter = metricService.counter("test.startup.counter", Level.INFO);
+        counter.inc();
+        Assert.assertEquals(counter.getCount(), 1L);
+
+        Assert.assertTrue(metricService.awaitReady(30, TimeUnit.SECONDS), "The Metric Service should be ready");
+        Assert.assertTrue(metricService.isReady());
+        Assert.assertTrue(metricService.isReporterRunning("StartupJMX"));
+        Assert.assertTrue(metricService.getMetricsCount() > 1, "JVM metrics should be registered");
+        metricService.stopReporters();
+    }
+
+    @Test
+    public void testDisableDuringAsyncStartup() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            MetricsConfig metricsConfig = new MetricsConfig();
+            metricsConfig.getStartup().setAsync(true);
+            metricsConfig.getStartup().setJvmMetrics(false);
+            metricsConfig.getReporting().getJmx().setName("StartupDisableJMX");
+            metricsConfig.getReporting().getJmx().setDomain("org.wso2.carbon.metrics.startup.disable" + i);
+            MetricsLevelConfig levelConfig = new MetricsLevelConfig();
+            levelConfig.setRootLevel(Level.INFO);
+            MetricService metricService = new MetricService(new MetricRegistry(), metricsConfig, levelConfig);
+
+            // Race with the startup thread, which starts the reporters
+            metricService.disable();
+            metricService.enable();
+            metricService.disable();
+
+            Assert.assertTrue(metricService.awaitReady(30, TimeUnit.SECONDS), "The Metric Service should be ready");
+            Assert.assertFalse(metricService.isReporterRunning("StartupDisableJMX"),
+                    "The reporter should not be started after the Metric Service is disabled");
+        }
+    }
+}
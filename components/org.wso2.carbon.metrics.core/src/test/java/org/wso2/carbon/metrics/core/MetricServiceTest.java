@@ -15,11 +15,17 @@
  */
 package org.wso2.carbon.metrics.core;
 
+import com.codahale.metrics.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.config.model.MetricsConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
+import org.wso2.carbon.metrics.core.service.MetricService;
+
+import java.util.concurrent.TimeUnit;
 
 /**
  * Test Cases for MetricService
@@ -225,4 +231,208 @@ public class MetricServiceTest extends BaseMetricTest {
         meter.mark(100);
         Assert.assertEquals(meter.getCount(), 100);
     }
+
+    @Test
+    public void testRemoveMetric() throws MetricNotFoundException {
+        MetricManager.getMetricService().setRootLevel(Level.TRACE);
+        String name = MetricManager.name(this.getClass(), "test-remove");
+        Counter counter = MetricManager.counter(name, Level.INFO);
+        counter.inc();
+        Assert.assertEquals(counter.getCount(), 1);
+
+        Assert.assertTrue(MetricManager.remove(name), "Metric should be removed");
+        Assert.assertFalse(MetricManager.remove(name), "Metric should already be removed");
+        try {
+            MetricManager.getCounter(name);
+            Assert.fail("Counter should not be available");
+        } catch (MetricNotFoundException e) {
+            // Ignore
+        }
+
+        // Existing reference should be safe to use
+        counter.inc();
+        Assert.assertEquals(counter.getCount(), 1);
+
+        // A new metric can be created with the same name and a different type
+        Meter meter = MetricManager.meter(name, Level.DEBUG);
+        meter.mark();
+        Assert.assertEquals(meter.getCount(), 1);
+        Assert.assertEquals(counter.getCount(), 1);
+
+        // Level changes should not affect the removed metric
+        MetricManager.getMetricService().setRootLevel(Level.INFO);
+        MetricManager.getMetricService().setRootLevel(Level.TRACE);
+        counter.inc();
+        Assert.assertEquals(counter.getCount(), 1);
+    }
+
+    @Test
+    public void testRemoveMatching() throws MetricNotFoundException {
+        String prefix = MetricManager.name(this.getClass(), "test-remove-matching");
+        MetricManager.counter(MetricManager.name(prefix, "a"), Level.INFO);
+        MetricManager.meter(MetricManager.name(prefix, "b", "c"), Level.INFO);
+        MetricManager.meter(MetricManager.name(prefix, "parent[+]", "child", "d"), Level.INFO, Level.INFO);
+        String other = MetricManager.name(this.getClass(), "test-remove-matching-other");
+        MetricManager.counter(other, Level.INFO);
+
+        // Metrics: a, b.c, parent.d, parent.child.d and the collection
+        Assert.assertEquals(MetricManager.removeMatching(prefix), 5);
+        Assert.assertEquals(MetricManager.removeMatching(prefix), 0);
+        Assert.assertNotNull(MetricManager.getCounter(other));
+    }
+
+    @Test
+    public void testExpireIdleMetrics() throws MetricNotFoundException {
+        MetricManager.getMetricService().setRootLevel(Level.TRACE);
+        int idleCycles = MetricManager.getMetricService().getMetricsConfig().getExpiry().getIdleCycles();
+        String idleName = MetricManager.name(this.getClass(), "test-expiry-idle");
+        String activeName = MetricManager.name(this.getClass(), "test-expiry-active");
+        MetricManager.counter(idleName, Level.INFO).inc();
+        Counter active = MetricManager.counter(activeName, Level.INFO);
+
+        // First check records the current count
+        for (int i = 0; i <= idleCycles; i++) {
+            active.inc();
+            MetricManager.getMetricService().expireIdleMetrics();
+        }
+
+        Assert.assertNotNull(MetricManager.getCounter(activeName));
+        try {
+            MetricManager.getCounter(idleName);
+            Assert.fail("Idle counter should be expired");
+        } catch (MetricNotFoundException e) {
+            // Ignore
+        }
+        // Gauges are never expired
+        Assert.assertTrue(MetricManager.getMetricService().getMetricsCount() > 0);
+    }
+
+    @Test
+    public void testUpdateExpiredMetric() throws MetricNotFoundException {
+        MetricManager.getMetricService().setRootLevel(Level.TRACE);
+        String counterName = MetricManager.name(this.getClass(), "test-expiry-revive-counter");
+        String timerName = MetricManager.name(this.getClass(), "test-expiry-revive-timer");
+        Counter counter = MetricManager.counter(counterName, Level.INFO);
+        counter.inc();
+        Timer timer = MetricManager.timer(timerName, Level.INFO);
+        timer.update(1, TimeUnit.MILLISECONDS);
+        expire(counterName);
+
+        // The expired metric is registered again with the previous count
+        counter.inc();
+        Assert.assertEquals(MetricManager.getCounter(counterName).getCount(), 2);
+        timer.start().stop();
+        Assert.assertEquals(MetricManager.getTimer(timerName).getCount(), 2);
+
+        // The updates go to the metric created after the expiry
+        expire(counterName);
+        Counter newCounter = MetricManager.counter(counterName, Level.INFO);
+        counter.inc();
+        Assert.assertEquals(newCounter.getCount(), 1);
+        Assert.assertEquals(MetricManager.getCounter(counterName).getCount(), 1);
+    }
+
+    private void expire(String name) {
+        int idleCycles = MetricManager.getMetricService().getMetricsConfig().getExpiry().getIdleCycles();
+        for (int i = 0; i <= idleCycles; i++) {
+            MetricManager.getMetricService().expireIdleMetrics();
+        }
+        try {
+            MetricManager.getCounter(name);
+            Assert.fail("Idle counter should be expired");
+        } catch (MetricNotFoundException e) {
+            // Ignore
+        }
+    }
+
+    @Test
+    public void testCardinalityLimit() throws MetricNotFoundException {
+        MetricsConfig metricsConfig = new MetricsConfig();
+        metricsConfig.getCardinality().setEnabled(true);
+        metricsConfig.getCardinality().setDefaultLimit(2);
+        metricsConfig.getCardinality().getLimits().put("test.limited", 3);
+        MetricsLevelConfig metricsLevelConfig = new MetricsLevelConfig();
+        metricsLevelConfig.setRootLevel(Level.ALL);
+        MetricService metricService = new MetricService(new MetricRegistry(), metricsConfig, metricsLevelConfig);
+
+        // Default limit is applied to the parent name
+        metricService.counter("test.default.a", Level.INFO).inc();
+        metricService.counter("test.default.b", Level.INFO).inc();
+        Counter overflow = metricService.counter("test.default.c", Level.INFO);
+        overflow.inc();
+        Assert.assertSame(metricService.counter("test.default.d", Level.INFO), overflow);
+        Assert.assertEquals(metricService.getCounter("test.default.overflow.counter").getCount(), 1);
+        Assert.assertEquals(metricService.getCounter("metrics.cardinality.rejected").getCount(), 2);
+        // A rejected name is counted only once
+        for (int i = 0; i < 10; i++) {
+            Assert.assertSame(metricService.counter("test.default.d", Level.INFO), overflow);
+        }
+        Assert.assertEquals(metricService.getCounter("metrics.cardinality.rejected").getCount(), 2);
+        // Existing metrics are not affected
+        Assert.assertEquals(metricService.counter("test.default.a", Level.INFO).getCount(), 1);
+        // Each type has an overflow metric
+        metricService.meter("test.default.e", Level.INFO);
+        Assert.assertNotNull(metricService.getMeter("test.default.overflow.meter"));
+
+        // Configured limit is applied to all metrics under the prefix
+        metricService.counter("test.limited.a.b", Level.INFO);
+        metricService.counter("test.limited.c", Level.INFO);
+        metricService.counter("test.limited.d.e.f", Level.INFO);
+        metricService.counter("test.limited.g", Level.INFO);
+        Assert.assertNotNull(metricService.getCounter("test.limited.overflow.counter"));
+
+        // Removing a metric releases the budget
+        Assert.assertTrue(metricService.remove("test.default.a"));
+        metricService.counter("test.default.c", Level.INFO).inc();
+        Assert.assertEquals(metricService.getCounter("test.default.c").getCount(), 1);
+    }
+
+    @Test
+    public void testOverheadGovernor() throws MetricNotFoundException {
+        MetricsConfig metricsConfig = new MetricsConfig();
+        metricsConfig.getGovernor().setEnabled(true);
+        metricsConfig.getGovernor().setSamplingRate(1);
+        metricsConfig.getGovernor().setRecoveryCycles(2);
+        // Any update exceeds the budget
+        metricsConfig.getGovernor().setBudget(0);
+        MetricsLevelConfig metricsLevelConfig = new MetricsLevelConfig();
+        MetricService metricService = new MetricService(new MetricRegistry(), metricsConfig, metricsLevelConfig);
+        // The root level in the system properties is used when creating the service
+        metricService.setRootLevel(Level.ALL);
+
+        Counter info = metricService.counter("test.governor.info", Level.INFO);
+        Counter debug = metricService.counter("test.governor.debug", Level.DEBUG);
+        Counter trace = metricService.counter("test.governor.trace", Level.TRACE);
+        for (int i = 0; i < 1000; i++) {
+            info.inc();
+            debug.inc();
+            trace.inc();
+        }
+        Assert.assertTrue(metricService.checkOverhead());
+        Assert.assertTrue(metricService.getMetricsOverhead() > 0);
+        Assert.assertEquals(metricService.getGovernorAdjustments().get("test.governor"), Level.DEBUG.name());
+        Assert.assertEquals(metricService.getMetricLevel("test.governor.trace"), Level.DEBUG);
+        trace.inc();
+        Assert.assertEquals(trace.getCount(), 1000);
+
+        debug.inc();
+        Assert.assertTrue(metricService.checkOverhead());
+        Assert.assertEquals(metricService.getGovernorAdjustments().get("test.governor"), Level.INFO.name());
+        // INFO metrics are never disabled
+        info.inc();
+        Assert.assertFalse(metricService.checkOverhead());
+        Assert.assertEquals(info.getCount(), 1001);
+
+        // Adjustments are reverted in the reverse order
+        metricsConfig.getGovernor().setBudget(100);
+        Assert.assertFalse(metricService.checkOverhead());
+        Assert.assertTrue(metricService.checkOverhead());
+        Assert.assertNull(metricService.getMetricLevel("test.governor.debug"));
+        Assert.assertEquals(metricService.getMetricLevel("test.governor.trace"), Level.DEBUG);
+        metricService.checkOverhead();
+        Assert.assertTrue(metricService.checkOverhead());
+        Assert.assertTrue(metricService.getGovernorAdjustments().isEmpty());
+        trace.inc();
+        Assert.assertEquals(trace.getCount(), 1001);
+    }
 }
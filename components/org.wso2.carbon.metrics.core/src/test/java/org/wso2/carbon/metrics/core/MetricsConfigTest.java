@@ -24,6 +24,7 @@ import org.wso2.carbon.metrics.core.config.model.DasReporterConfig;
 import org.wso2.carbon.metrics.core.config.model.JdbcReporterConfig;
 import org.wso2.carbon.metrics.core.config.model.JmxReporterConfig;
 import org.wso2.carbon.metrics.core.config.model.MetricsConfig;
+import org.wso2.carbon.metrics.core.config.model.SegmentReporterConfig;
 import org.wso2.carbon.metrics.core.config.model.Slf4jReporterConfig;
 
 import java.io.File;
@@ -111,9 +112,21 @@ public class MetricsConfigTest extends BaseReporterTest {
                 + "data-agent-config.xml");
     }
 
+    @Test
+    public void testSegmentReporterConfigLoad() {
+        SegmentReporterConfig config = metricsConfig.getReporting().getSegment();
+        Assert.assertEquals(config.getName(), "Segment");
+        Assert.assertEquals(config.isEnabled(), true);
+        Assert.assertEquals(config.getPollingPeriod(), 600L);
+        Assert.assertEquals(config.getLocation(), "target/segments");
+        Assert.assertEquals(config.getSegmentSize(), 1);
+        Assert.assertEquals(config.getSegmentPeriod(), 60L);
+        Assert.assertEquals(config.getDaysToKeep(), 2);
+    }
+
     @Test
     public void testReporterCount() {
-        Assert.assertEquals(metricsConfig.getReporting().getReporterBuilders().size(), 6);
+        Assert.assertEquals(metricsConfig.getReporting().getReporterBuilders().size(), 7);
     }
 
 }
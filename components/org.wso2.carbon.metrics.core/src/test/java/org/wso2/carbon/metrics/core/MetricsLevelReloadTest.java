@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.MetricRegistry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.config.MetricsLevelConfigWatcher;
+import org.wso2.carbon.metrics.core.config.model.MetricsConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
+import org.wso2.carbon.metrics.core.service.MetricService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test Cases for reloading the Metrics Levels
+ */
+public class MetricsLevelReloadTest {
+
+    @Test
+    public void testReloadLevels() {
+        MetricsLevelConfig levelConfig = levelConfig(Level.INFO);
+        levelConfig.setLevel("test.reload.a", Level.INFO);
+        MetricService metricService = new MetricService(new MetricRegistry(), new MetricsConfig(), levelConfig);
+        Counter a = metricService.counter("test.reload.a", Level.DEBUG);
+        Counter b = metricService.counter("test.reload.b", Level.DEBUG);
+        a.inc();
+        Assert.assertEquals(a.getCount(), 0L);
+
+        MetricsLevelConfig reloadedConfig = levelConfig(Level.INFO);
+        reloadedConfig.setLevel("test.reload.a", Level.DEBUG);
+        Assert.assertEquals(metricService.reloadLevels(reloadedConfig), 1);
+        a.inc();
+        Assert.assertEquals(a.getCount(), 1L);
+
+        // Levels changed via JMX are kept if the file is not changed
+        metricService.setMetricLevel("test.reload.b", Level.DEBUG);
+        Assert.assertEquals(metricService.reloadLevels(reloadedConfig), 0);
+        b.inc();
+        Assert.assertEquals(b.getCount(), 1L);
+
+        // Removed levels are removed from the config
+        Assert.assertEquals(metricService.reloadLevels(levelConfig(Level.INFO)), 1);
+        Assert.assertNull(levelConfig.getLevel("test.reload.a"));
+        a.inc();
+        Assert.assertEquals(a.getCount(), 1L);
+    }
+
+    @Test
+    public void testWatcher() throws IOException, InterruptedException {
+        File directory = Files.createTempDirectory("metrics-level").toFile();
+        File file = new File(directory, "metrics.properties");
+        write(file, "metrics.rootLevel=INFO");
+        BlockingQueue<MetricsLevelConfig> configs = new LinkedBlockingQueue<>();
+        try (MetricsLevelConfigWatcher watcher = new MetricsLevelConfigWatcher(file, 100, configs::add)) {
+            write(file, "metrics.rootLevel=DEBUG\nmetric.level.test.watch=TRACE");
+            MetricsLevelConfig levelConfig = configs.poll(30, TimeUnit.SECONDS);
+            Assert.assertNotNull(levelConfig, "The file should be reloaded");
+            Assert.assertEquals(levelConfig.getRootLevel(), Level.DEBUG);
+            Assert.assertEquals(levelConfig.getLevel("test.watch"), Level.TRACE);
+        } finally {
+            Files.delete(file.toPath());
+            Files.delete(directory.toPath());
+        }
+    }
+
+    private MetricsLevelConfig levelConfig(Level rootLevel) {
+        MetricsLevelConfig levelConfig = new MetricsLevelConfig();
+        levelConfig.setRootLevel(rootLevel);
+        return levelConfig;
+    }
+
+    private void write(File file, String properties) throws IOException {
+        Files.write(file.toPath(), Collections.singletonList(properties), StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.config.MetricsLevelConfigBuilder;
+import org.wso2.carbon.metrics.core.config.model.MetricsConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
+import org.wso2.carbon.metrics.core.service.MetricService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * Test Cases for named Metric Services
+ */
+public class NamedMetricServiceTest {
+
+    @Test
+    public void testNamedMetricServices() {
+        MetricService tenant1 = MetricManager.createMetricService("tenant1", metricsConfig(), levelConfig(Level.INFO));
+        MetricService tenant2 = MetricManager.createMetricService("tenant2", metricsConfig(), levelConfig(Level.OFF));
+        try {
+            Assert.assertSame(MetricManager.getMetricService("tenant1"), tenant1);
+            Assert.assertTrue(MetricManager.getMetricServiceNames().contains("tenant2"));
+
+            Counter counter1 = tenant1.counter("test.named.counter", Level.INFO);
+            Counter counter2 = tenant2.counter("test.named.counter", Level.INFO);
+            counter1.inc();
+            counter2.inc();
+            Assert.assertEquals(counter1.getCount(), 1L);
+            // The levels are independent
+            Assert.assertEquals(counter2.getCount(), 0L);
+            Assert.assertEquals(tenant1.getMetricsCount(), 1);
+            Assert.assertEquals(tenant2.getMetricsCount(), 1);
+        } finally {
+            Assert.assertTrue(MetricManager.removeMetricService("tenant1"));
+            Assert.assertTrue(MetricManager.removeMetricService("tenant2"));
+        }
+        Assert.assertFalse(MetricManager.removeMetricService("tenant1"));
+        Assert.assertFalse(MetricManager.getMetricServiceNames().contains("tenant1"));
+    }
+
+    @Test
+    public void testLevelReload() throws IOException, InterruptedException {
+        File directory = Files.createTempDirectory("metrics-named-level").toFile();
+        File globalFile = new File(directory, "metrics.properties");
+        File tenantFile = new File(directory, "tenant-metrics.properties");
+        write(globalFile, "metrics.rootLevel=INFO");
+        write(tenantFile, "metrics.rootLevel=OFF");
+        String previousGlobalFile = System.setProperty("metrics.level.conf", globalFile.getPath());
+        MetricsConfig metricsConfig = metricsConfig();
+        metricsConfig.getLevelReload().setEnabled(true);
+        metricsConfig.getLevelReload().setDelay(100);
+        MetricService fromFile = MetricManager.createMetricService("reloadFromFile", metricsConfig,
+                MetricsLevelConfigBuilder.build(tenantFile));
+        MetricService fromCode = MetricManager.createMetricService("reloadFromCode", metricsConfig,
+                levelConfig(Level.INFO));
+        try {
+            Counter fileCounter = fromFile.counter("test.named.reload", Level.INFO);
+            Counter codeCounter = fromCode.counter("test.named.reload", Level.INFO);
+
+            // A change in the global file must not override the levels created in code
+            write(globalFile, "metrics.rootLevel=OFF");
+            write(tenantFile, "metrics.rootLevel=INFO");
+            long deadline = System.currentTimeMillis() + 30000;
+            while (fileCounter.getCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+                fileCounter.inc();
+            }
+            Assert.assertTrue(fileCounter.getCount() > 0, "The levels should be reloaded from the file of the service");
+            Thread.sleep(500);
+            codeCounter.inc();
+            Assert.assertEquals(codeCounter.getCount(), 1L);
+            Assert.assertEquals(fromCode.getRootLevel(), Level.INFO.name());
+        } finally {
+            MetricManager.removeMetricService("reloadFromFile");
+            MetricManager.removeMetricService("reloadFromCode");
+            if (previousGlobalFile != null) {
+                System.setProperty("metrics.level.conf", previousGlobalFile);
+            } else {
+                System.clearProperty("metrics.level.conf");
+            }
+            Files.delete(globalFile.toPath());
+            Files.delete(tenantFile.toPath());
+            Files.delete(directory.toPath());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDuplicateName() {
+        MetricManager.createMetricService("duplicate", metricsConfig(), levelConfig(Level.INFO));
+        try {
+            MetricManager.createMetricService("duplicate", metricsConfig(), levelConfig(Level.INFO));
+        } finally {
+            MetricManager.removeMetricService("duplicate");
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownName() {
+        MetricManager.getMetricService("unknown");
+    }
+
+    private MetricsConfig metricsConfig() {
+        MetricsConfig metricsConfig = new MetricsConfig();
+        metricsConfig.getReporting().getJmx().setEnabled(false);
+        metricsConfig.getStartup().setJvmMetrics(false);
+        return metricsConfig;
+    }
+
+    private MetricsLevelConfig levelConfig(Level rootLevel) {
+        MetricsLevelConfig levelConfig = new MetricsLevelConfig();
+        levelConfig.setRootLevel(rootLevel);
+        return levelConfig;
+    }
+
+    private void write(File file, String properties) throws IOException {
+        Files.write(file.toPath(), Collections.singletonList(properties), StandardCharsets.ISO_8859_1);
+    }
+}
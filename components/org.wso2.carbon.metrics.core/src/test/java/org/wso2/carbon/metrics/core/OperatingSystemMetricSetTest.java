@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.metric.OperatingSystemMetricSet;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test Cases for {@link OperatingSystemMetricSet}
+ */
+public class OperatingSystemMetricSetTest {
+
+    @Test
+    public void testProcFs() throws IOException {
+        Path proc = createProc();
+        OperatingSystemMetricSet metricSet = new OperatingSystemMetricSet(new BasicOperatingSystemMXBean(), proc, 0,
+                TimeUnit.SECONDS);
+        Map<String, Metric> metrics = metricSet.getMetrics();
+        Assert.assertEquals(value(metrics, "physical.memory.total.size"), 16000L * 1024);
+        Assert.assertEquals(value(metrics, "physical.memory.free.size"), 4000L * 1024);
+        Assert.assertEquals(value(metrics, "swap.space.total.size"), 2000L * 1024);
+        Assert.assertEquals(value(metrics, "swap.space.free.size"), 1000L * 1024);
+        Assert.assertEquals(value(metrics, "physical.memory.resident.size"), 300L * 1024);
+        Assert.assertEquals(value(metrics, "virtual.memory.committed.size"), 123456789L);
+        Assert.assertEquals(value(metrics, "system.load.average"), 1.0D);
+
+        // Values should be read again in the next sample
+        write(proc, "meminfo", "MemTotal:       16000 kB\nMemFree:         2000 kB\nSwapTotal:       2000 kB\n"
+                + "SwapFree:        1000 kB");
+        Assert.assertEquals(value(metrics, "physical.memory.free.size"), 2000L * 1024);
+
+        // The gauges are created only once, so that the files are not opened again
+        Assert.assertSame(metricSet.getMetrics(), metrics);
+    }
+
+    @Test
+    public void testMXBeanPreferred() throws IOException {
+        OperatingSystemMXBean mxBean = ManagementFactory.getOperatingSystemMXBean();
+        if (!(mxBean instanceof com.sun.management.OperatingSystemMXBean)) {
+            return;
+        }
+        Map<String, Metric> metrics = new OperatingSystemMetricSet(mxBean, createProc(), 0, TimeUnit.SECONDS)
+                .getMetrics();
+        // The container aware MXBean value should be used instead of the host value in /proc/meminfo
+        Assert.assertEquals(value(metrics, "physical.memory.total.size"),
+                ((com.sun.management.OperatingSystemMXBean) mxBean).getTotalPhysicalMemorySize());
+        // The resident size is available only from /proc
+        Assert.assertEquals(value(metrics, "physical.memory.resident.size"), 300L * 1024);
+    }
+
+    @Test
+    public void testNoProcFs() throws IOException {
+        Path proc = Files.createTempDirectory("proc-none");
+        Map<String, Metric> metrics = new OperatingSystemMetricSet(new BasicOperatingSystemMXBean(), proc, 0,
+                TimeUnit.SECONDS).getMetrics();
+        Assert.assertNull(metrics.get("physical.memory.total.size"));
+        Assert.assertNull(metrics.get("physical.memory.resident.size"));
+        Assert.assertNotNull(metrics.get("system.load.average"));
+    }
+
+    private static Path createProc() throws IOException {
+        Path proc = Files.createTempDirectory("proc");
+        Files.createDirectories(proc.resolve("self"));
+        write(proc, "meminfo", "MemTotal:       16000 kB\nMemFree:         4000 kB\nMemAvailable:    8000 kB\n"
+                + "SwapTotal:       2000 kB\nSwapFree:        1000 kB");
+        write(proc, "self/status", "Name:\tjava\nVmPeak:\t  500 kB\nVmRSS:\t     300 kB\nThreads:\t10");
+        // The command name may contain spaces and parenthesis
+        write(proc, "self/stat", "42 (java (main) x) S 1 42 42 0 -1 4194304 100 0 0 0 5 3 0 0 20 0 10 0 100 "
+                + "123456789 75 18446744073709551615");
+        return proc;
+    }
+
+    private static void write(Path root, String file, String content) throws IOException {
+        Files.write(root.resolve(file), (content + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Object value(Map<String, Metric> metrics, String name) {
+        Metric metric = metrics.get(name);
+        Assert.assertNotNull(metric, name + " is not available");
+        return ((Gauge<?>) metric).getValue();
+    }
+
+    /**
+     * An {@link OperatingSystemMXBean} without the platform specific attributes
+     */
+    private static class BasicOperatingSystemMXBean implements OperatingSystemMXBean {
+
+        @Override
+        public String getName() {
+            return "Linux";
+        }
+
+        @Override
+        public String getArch() {
+            return "amd64";
+        }
+
+        @Override
+        public String getVersion() {
+            return "1";
+        }
+
+        @Override
+        public int getAvailableProcessors() {
+            return 1;
+        }
+
+        @Override
+        public double getSystemLoadAverage() {
+            return 1.0D;
+        }
+
+        @Override
+        public javax.management.ObjectName getObjectName() {
+            return null;
+        }
+    }
+}
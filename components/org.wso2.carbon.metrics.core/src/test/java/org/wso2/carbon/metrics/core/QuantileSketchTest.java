@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.Clock;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.sketch.QuantileSketch;
+import org.wso2.carbon.metrics.core.sketch.SketchReservoir;
+import org.wso2.carbon.metrics.core.sketch.SketchSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test Cases for {@link QuantileSketch}
+ */
+public class QuantileSketchTest {
+
+    private static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double[] QUANTILES = {0, 0.1, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1};
+
+    @Test
+    public void testQuantiles() {
+        Random random = new Random(1);
+        QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+        double[] values = new double[10000];
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal values similar to latencies
+            values[i] = Math.exp(random.nextGaussian() * 2 + 10);
+            sketch.add(values[i]);
+        }
+        sketch.add(0);
+        sketch.add(-5);
+        Assert.assertEquals(sketch.getCount(), values.length + 2);
+        Assert.assertEquals(sketch.getMin(), -5.0);
+        Assert.assertEquals(sketch.getValueAtQuantile(0), -5.0);
+
+        QuantileSketch positiveSketch = new QuantileSketch(RELATIVE_ACCURACY);
+        Arrays.stream(values).forEach(positiveSketch::add);
+        assertQuantiles(positiveSketch, values);
+    }
+
+    @Test
+    public void testMergeAndSerialization() {
+        Random random = new Random(2);
+        List<byte[]> serializedSketches = new ArrayList<>();
+        QuantileSketch expected = new QuantileSketch(RELATIVE_ACCURACY);
+        double[] values = new double[20000];
+        int index = 0;
+        for (int node = 0; node < 4; node++) {
+            QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+            for (int i = 0; i < values.length / 4; i++) {
+                // Each node has a different distribution
+                values[index] = random.nextInt(1000 * (node + 1)) + 1;
+                sketch.add(values[index]);
+                expected.add(values[index]);
+                index++;
+            }
+            serializedSketches.add(sketch.toByteArray());
+        }
+
+        QuantileSketch merged = QuantileSketch.merge(serializedSketches);
+        Assert.assertEquals(merged.getCount(), expected.getCount());
+        Assert.assertEquals(merged.getSum(), expected.getSum(), 0.001);
+        for (double quantile : QUANTILES) {
+            Assert.assertEquals(merged.getValueAtQuantile(quantile), expected.getValueAtQuantile(quantile));
+        }
+        assertQuantiles(merged, values);
+        Assert.assertEquals(QuantileSketch.fromByteArray(merged.toByteArray()).toByteArray(), merged.toByteArray());
+
+        try {
+            merged.merge(new QuantileSketch(0.05));
+            Assert.fail("Sketches with different accuracies should not be merged");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            QuantileSketch.fromByteArray(Arrays.copyOf(merged.toByteArray(), 10));
+            Assert.fail("Truncated sketch should not be deserialized");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testSketchReservoir() {
+        ManualClock clock = new ManualClock();
+        SketchReservoir reservoir = new SketchReservoir(RELATIVE_ACCURACY, 60, TimeUnit.SECONDS, clock);
+        for (int i = 1; i <= 100; i++) {
+            reservoir.update(i);
+        }
+        // Only the complete windows are reported
+        Assert.assertEquals(reservoir.getSnapshot().size(), 0);
+        clock.add(60);
+        SketchSnapshot snapshot = (SketchSnapshot) reservoir.getSnapshot();
+        Assert.assertEquals(snapshot.size(), 100);
+        Assert.assertEquals(snapshot.getMin(), 1);
+        Assert.assertEquals(snapshot.getMax(), 100);
+        Assert.assertEquals(snapshot.getMean(), 50.5, 0.001);
+        Assert.assertEquals(snapshot.get99thPercentile(), 99, 99 * RELATIVE_ACCURACY);
+        Assert.assertEquals(SketchSnapshot.serialize(snapshot), snapshot.toByteArray());
+        // The snapshot is not affected by later updates
+        reservoir.update(1000);
+        Assert.assertEquals(snapshot.getMax(), 100);
+    }
+
+    @Test
+    public void testSketchReservoirWindows() throws InterruptedException {
+        ManualClock clock = new ManualClock();
+        SketchReservoir reservoir = new SketchReservoir(RELATIVE_ACCURACY, 60, TimeUnit.SECONDS, clock);
+        reservoir.update(1000);
+        clock.add(60);
+        reservoir.update(1);
+        reservoir.update(2);
+        Assert.assertEquals(reservoir.getSnapshot().getMax(), 1000);
+
+        // Each window is counted separately
+        clock.add(30);
+        Assert.assertEquals(reservoir.getSnapshot().getMax(), 1000);
+        clock.add(30);
+        Assert.assertEquals(reservoir.size(), 2);
+        Assert.assertEquals(reservoir.getSnapshot().getMax(), 2);
+
+        // A window without values is empty
+        clock.add(120);
+        Assert.assertEquals(reservoir.getSnapshot().size(), 0);
+
+        // Values from many threads are merged
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 1; j <= 1000; j++) {
+                    reservoir.update(j);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        clock.add(60);
+        com.codahale.metrics.Snapshot snapshot = reservoir.getSnapshot();
+        Assert.assertEquals(snapshot.size(), 4000);
+        Assert.assertEquals(snapshot.getMedian(), 500, 500 * RELATIVE_ACCURACY);
+    }
+
+    private void assertQuantiles(QuantileSketch sketch, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double quantile : QUANTILES) {
+            double exact = sorted[(int) Math.floor(quantile * (sorted.length - 1))];
+            Assert.assertEquals(sketch.getValueAtQuantile(quantile), exact, exact * RELATIVE_ACCURACY,
+                    "Quantile " + quantile);
+        }
+    }
+
+    private static class ManualClock extends Clock {
+
+        private final AtomicLong time = new AtomicLong(TimeUnit.DAYS.toMillis(1));
+
+        private void add(long seconds) {
+            time.addAndGet(TimeUnit.SECONDS.toMillis(seconds));
+        }
+
+        @Override
+        public long getTick() {
+            return TimeUnit.MILLISECONDS.toNanos(time.get());
+        }
+
+        @Override
+        public long getTime() {
+            return time.get();
+        }
+    }
+}
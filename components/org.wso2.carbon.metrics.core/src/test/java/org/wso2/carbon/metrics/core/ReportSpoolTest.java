@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.spool.ReportSpool;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test Cases for {@link ReportSpool}
+ */
+public class ReportSpoolTest {
+
+    private final File directory = new File("target/spool-test");
+
+    @BeforeMethod
+    private void deleteFiles() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Assert.assertTrue(file.delete());
+            }
+        }
+        Assert.assertTrue(directory.isDirectory() || directory.mkdirs());
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        ReportSpool spool = new ReportSpool(directory, 1024 * 1024, 256, 3);
+        for (long i = 0; i < 5; i++) {
+            spool.append("counter", Collections.singletonList(new Object[]{"test", i, 1.5, null, new byte[]{1}}));
+        }
+        List<Long> replayed = new ArrayList<>();
+        // The destination is not available
+        spool.replay((key, records) -> false);
+        // Only three records are replayed at a time
+        spool.replay((key, records) -> {
+            Assert.assertEquals(key, "counter");
+            Object[] record = records.get(0);
+            Assert.assertEquals(record[0], "test");
+            Assert.assertEquals(record[2], 1.5);
+            Assert.assertNull(record[3]);
+            Assert.assertEquals((byte[]) record[4], new byte[]{1});
+            replayed.add((Long) record[1]);
+            return true;
+        });
+        Assert.assertEquals(replayed.size(), 3);
+        spool.close();
+
+        // The remaining records are replayed after opening the spool again
+        spool = new ReportSpool(directory, 1024 * 1024, 256, 3);
+        Assert.assertFalse(spool.isEmpty());
+        spool.replay((key, records) -> replayed.add((Long) records.get(0)[1]));
+        Assert.assertEquals(replayed.toString(), "[0, 1, 2, 3, 4]");
+        Assert.assertTrue(spool.isEmpty());
+        spool.close();
+    }
+
+    @Test
+    public void testMaxSize() throws IOException {
+        ReportSpool spool = new ReportSpool(directory, 200, 100, 100);
+        String name = "0123456789012345678901234567890123456789";
+        for (long i = 0; i < 10; i++) {
+            spool.append("gauge", Collections.singletonList(new Object[]{name, i}));
+        }
+        List<Long> replayed = new ArrayList<>();
+        spool.replay((key, records) -> replayed.add((Long) records.get(0)[1]));
+        spool.close();
+        // The oldest records are discarded
+        Assert.assertTrue(replayed.size() < 10);
+        Assert.assertEquals(replayed.get(replayed.size() - 1), Long.valueOf(9));
+    }
+}
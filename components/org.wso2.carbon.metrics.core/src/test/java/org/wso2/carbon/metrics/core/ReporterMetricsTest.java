@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.config.model.ConsoleReporterConfig;
+import org.wso2.carbon.metrics.core.reporter.ReporterBuildException;
+import org.wso2.carbon.metrics.core.reporter.ReporterMetrics;
+import org.wso2.carbon.metrics.core.reporter.ReportingSchedule;
+import org.wso2.carbon.metrics.core.reporter.impl.AbstractScheduledReporter;
+import org.wso2.carbon.metrics.core.reporter.impl.ConsoleReporter;
+
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test Cases for {@link ReporterMetrics}
+ */
+public class ReporterMetricsTest extends BaseMetricTest {
+
+    @Test
+    public void testReport() {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        metricRegistry.counter("test.reporter.counter").inc();
+        metricRegistry.timer("test.reporter.timer");
+        ConsoleReporter reporter = new ConsoleReporter("Test", metricRegistry, MetricFilter.ALL, 600);
+        ReporterMetrics reporterMetrics = new ReporterMetrics(MetricManager.timer("test.reporter.report", Level.INFO),
+                MetricManager.timer("test.reporter.collection", Level.INFO),
+                MetricManager.timer("test.reporter.serialization", Level.INFO),
+                MetricManager.timer("test.reporter.write", Level.INFO),
+                MetricManager.counter("test.reporter.items", Level.INFO),
+                MetricManager.counter("test.reporter.errors", Level.INFO),
+                MetricManager.counter("test.reporter.dropped", Level.INFO));
+        reporter.setReporterMetrics(reporterMetrics);
+        reporter.start();
+        try {
+            reporter.report();
+            reporter.report();
+        } finally {
+            reporter.stop();
+        }
+        Assert.assertEquals(MetricManager.timer("test.reporter.report", Level.INFO).getCount(), 2L);
+        Assert.assertEquals(MetricManager.timer("test.reporter.collection", Level.INFO).getCount(), 2L);
+        Assert.assertEquals(MetricManager.timer("test.reporter.write", Level.INFO).getCount(), 2L);
+        Assert.assertEquals(MetricManager.counter("test.reporter.items", Level.INFO).getCount(), 4L);
+        Assert.assertEquals(MetricManager.counter("test.reporter.errors", Level.INFO).getCount(), 0L);
+        Assert.assertTrue(reporterMetrics.getLag() < 60000L);
+    }
+
+    @Test
+    public void testFailedReport() throws InterruptedException {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        metricRegistry.counter("test.reporter.failed.counter").inc();
+        FailingReporter reporter = new FailingReporter(metricRegistry);
+        ReporterMetrics reporterMetrics = new ReporterMetrics(
+                MetricManager.timer("test.reporter.failed.report", Level.INFO),
+                MetricManager.timer("test.reporter.failed.collection", Level.INFO),
+                MetricManager.timer("test.reporter.failed.serialization", Level.INFO),
+                MetricManager.timer("test.reporter.failed.write", Level.INFO),
+                MetricManager.counter("test.reporter.failed.items", Level.INFO),
+                MetricManager.counter("test.reporter.failed.errors", Level.INFO),
+                MetricManager.counter("test.reporter.failed.dropped", Level.INFO));
+        reporter.setReporterMetrics(reporterMetrics);
+        reporter.start();
+        try {
+            reporter.report();
+            long lag = reporterMetrics.getLag();
+            Thread.sleep(20);
+            // The reporter handles the error itself and notifies the dropped records
+            reporter.dropped = 3;
+            reporter.report();
+            reporter.report();
+            Assert.assertTrue(reporterMetrics.getLag() > lag, "A failed report should not reset the lag");
+        } finally {
+            reporter.stop();
+        }
+        Assert.assertEquals(MetricManager.timer("test.reporter.failed.report", Level.INFO).getCount(), 3L);
+        Assert.assertEquals(MetricManager.counter("test.reporter.failed.items", Level.INFO).getCount(), 1L);
+        Assert.assertEquals(MetricManager.counter("test.reporter.failed.errors", Level.INFO).getCount(), 2L);
+        Assert.assertEquals(MetricManager.counter("test.reporter.failed.dropped", Level.INFO).getCount(), 6L);
+    }
+
+    @Test
+    public void testRegistration() throws ReporterBuildException, MetricNotFoundException {
+        ConsoleReporterConfig config = new ConsoleReporterConfig();
+        config.setName("ReporterMetricsTest");
+        config.setEnabled(true);
+        MetricManager.getMetricService().addReporter(config);
+        Assert.assertNotNull(MetricManager.getTimer("metrics.reporter.reportermetricstest.report"));
+        Assert.assertNotNull(MetricManager.getCounter("metrics.reporter.reportermetricstest.items"));
+
+        Assert.assertTrue(MetricManager.getMetricService().removeReporter("ReporterMetricsTest"));
+        try {
+            MetricManager.getTimer("metrics.reporter.reportermetricstest.report");
+            Assert.fail("The metrics of a removed reporter should be removed");
+        } catch (MetricNotFoundException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * A reporter, which drops the given number of records in each report
+     */
+    private static class FailingReporter extends AbstractScheduledReporter {
+
+        private volatile long dropped = -1;
+
+        private com.codahale.metrics.ScheduledReporter failingReporter;
+
+        private FailingReporter(MetricRegistry metricRegistry) {
+            super("Failing", metricRegistry, MetricFilter.ALL, new ReportingSchedule(600));
+        }
+
+        @Override
+        public void report() {
+            if (failingReporter != null) {
+                report(failingReporter);
+            }
+        }
+
+        @Override
+        public void startReporter() {
+            failingReporter = new com.codahale.metrics.ScheduledReporter(getMetricRegistry(), "failing-reporter",
+                    getMetricFilter(), TimeUnit.SECONDS, TimeUnit.MILLISECONDS) {
+                @SuppressWarnings("rawtypes")
+                @Override
+                public void report(SortedMap<String, com.codahale.metrics.Gauge> gauges,
+                                   SortedMap<String, com.codahale.metrics.Counter> counters,
+                                   SortedMap<String, com.codahale.metrics.Histogram> histograms,
+                                   SortedMap<String, com.codahale.metrics.Meter> meters,
+                                   SortedMap<String, com.codahale.metrics.Timer> timers) {
+                    if (dropped >= 0) {
+                        recordFailure(dropped);
+                    }
+                }
+            };
+            schedule(failingReporter);
+        }
+
+        @Override
+        public void stopReporter() {
+            if (failingReporter != null) {
+                unschedule(failingReporter);
+                failingReporter = null;
+            }
+        }
+    }
+}
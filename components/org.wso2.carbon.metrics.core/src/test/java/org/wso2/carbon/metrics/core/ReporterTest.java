@@ -28,14 +28,19 @@ import org.wso2.carbon.metrics.core.config.model.DasReporterConfig;
 import org.wso2.carbon.metrics.core.config.model.JdbcReporterConfig;
 import org.wso2.carbon.metrics.core.config.model.JmxReporterConfig;
 import org.wso2.carbon.metrics.core.config.model.MetricsConfig;
+import org.wso2.carbon.metrics.core.config.model.SegmentReporterConfig;
 import org.wso2.carbon.metrics.core.config.model.Slf4jReporterConfig;
 import org.wso2.carbon.metrics.core.jmx.MetricManagerMXBean;
 import org.wso2.carbon.metrics.core.reporter.ReporterBuildException;
 import org.wso2.carbon.metrics.core.reporter.ReporterBuilder;
+import org.wso2.carbon.metrics.core.segment.SegmentReader;
+import org.wso2.carbon.metrics.core.segment.SegmentRecord;
 import org.wso2.carbon.metrics.core.service.MetricService;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
@@ -144,6 +149,55 @@ public class ReporterTest extends BaseReporterTest {
         Assert.assertFalse(metricService.isReporterRunning("CSV"));
     }
 
+    @Test
+    public void testCSVReporterPersistentWriter() throws ReporterBuildException, IOException {
+        String name = "CSV-WRITER";
+        CsvReporterConfig csvReporterConfig = new CsvReporterConfig();
+        csvReporterConfig.setName(name);
+        csvReporterConfig.setEnabled(true);
+        csvReporterConfig.setLocation("target/metrics-writer");
+        csvReporterConfig.getWriter().setEnabled(true);
+        metricService.addReporter(csvReporterConfig);
+        metricService.startReporter(name);
+        Assert.assertTrue(metricService.isReporterRunning(name));
+        String meterName = MetricManager.name(this.getClass(), "test-csv-writer-meter");
+        Meter meter = metricService.meter(meterName, Level.INFO);
+        meter.mark();
+
+        metricService.report();
+        metricService.report();
+        File meterFile = new File("target/metrics-writer", meterName + ".csv");
+        Assert.assertTrue(meterFile.exists(), "Meter CSV file should be created");
+        List<String> lines = Files.readAllLines(meterFile.toPath());
+        Assert.assertEquals(lines.size(), 3);
+        Assert.assertEquals(lines.get(0), "t,count,mean_rate,m1_rate,m5_rate,m15_rate,rate_unit");
+        metricService.stopReporter(name);
+        Assert.assertFalse(metricService.isReporterRunning(name));
+        Assert.assertTrue(metricService.removeReporter(name));
+    }
+
+    @Test
+    public void testSegmentReporter() throws IOException {
+        metricService.startReporter("Segment");
+        Assert.assertTrue(metricService.isReporterRunning("Segment"));
+        String meterName = MetricManager.name(this.getClass(), "test-segment-meter");
+        Meter meter = metricService.meter(meterName, Level.INFO);
+        meter.mark();
+        String gaugeName = MetricManager.name(this.getClass(), "test-segment-gauge");
+        metricService.gauge(gaugeName, Level.INFO, gauge);
+
+        metricService.report();
+        SegmentReader segmentReader = new SegmentReader(new File("target/segments"));
+        List<SegmentRecord> meterRecords = segmentReader.read(meterName, 0, Long.MAX_VALUE);
+        Assert.assertEquals(meterRecords.size(), 1);
+        Assert.assertEquals(meterRecords.get(0).getCount(), 1L);
+        List<SegmentRecord> gaugeRecords = segmentReader.read(gaugeName, 0, Long.MAX_VALUE);
+        Assert.assertEquals(gaugeRecords.size(), 1);
+        Assert.assertEquals(gaugeRecords.get(0).getValue("value"), 1.0D);
+        metricService.stopReporter("Segment");
+        Assert.assertFalse(metricService.isReporterRunning("Segment"));
+    }
+
     @Test
     public void testConsoleReporter() {
         metricService.startReporter("Console");
@@ -419,12 +473,35 @@ public class ReporterTest extends BaseReporterTest {
         addReporter(csvReporterConfig);
     }
 
+    @Test
+    public void testSegmentReporterValidations() {
+        SegmentReporterConfig segmentReporterConfig = new SegmentReporterConfig();
+        segmentReporterConfig.setEnabled(true);
+        segmentReporterConfig.setLocation("");
+        addReporter(segmentReporterConfig);
+
+        segmentReporterConfig.setLocation(TEST_RESOURCES_DIR + File.separator + "log4j2.xml");
+        addReporter(segmentReporterConfig);
+
+        segmentReporterConfig.setLocation("target/segments");
+        segmentReporterConfig.setSegmentSize(0);
+        addReporter(segmentReporterConfig);
+    }
+
     @Test
     public void testSlf4jReporterValidations() {
         Slf4jReporterConfig slf4jReporterConfig = new Slf4jReporterConfig();
         slf4jReporterConfig.setEnabled(true);
         slf4jReporterConfig.setLoggerName("");
         addReporter(slf4jReporterConfig);
+
+        slf4jReporterConfig.setLoggerName("metrics.test");
+        slf4jReporterConfig.setFormat("xml");
+        addReporter(slf4jReporterConfig);
+
+        slf4jReporterConfig.setFormat("json");
+        slf4jReporterConfig.setChunkSize(-1);
+        addReporter(slf4jReporterConfig);
     }
 
     @Test
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.reporter.ReportingSchedule;
+
+/**
+ * Test Cases for {@link ReportingSchedule}
+ */
+public class ReportingScheduleTest {
+
+    @Test
+    public void testAlignedSchedule() {
+        ReportingSchedule schedule = new ReportingSchedule(60, true, 10);
+        long boundary = 1_000_000_020_000L;
+        Assert.assertEquals(boundary % 60_000L, 0L);
+
+        Assert.assertEquals(schedule.getDelay(boundary + 15_000L, 0L), 45_000L);
+        Assert.assertEquals(schedule.getDelay(boundary, 0L), 60_000L);
+        Assert.assertEquals(schedule.getAlignedTime(boundary + 15_000L, 0L), boundary);
+
+        // Reporting is delayed by the offset, but the time is still rounded to the boundary
+        Assert.assertEquals(schedule.getDelay(boundary + 2_000L, 5_000L), 3_000L);
+        Assert.assertEquals(schedule.getAlignedTime(boundary + 5_000L, 5_000L), boundary);
+        Assert.assertEquals(schedule.getAlignedTime(boundary + 4_999L, 5_000L), boundary - 60_000L);
+
+        long offset = schedule.getOffset("node1:JDBC");
+        Assert.assertEquals(schedule.getOffset("node1:JDBC"), offset);
+        Assert.assertTrue(offset >= 0 && offset < 10_000L, "Offset should be within the jitter");
+        Assert.assertEquals(new ReportingSchedule(60, false, 10).getOffset("node1:JDBC"), 0L);
+    }
+
+    @Test
+    public void testInvalidSchedule() {
+        try {
+            new ReportingSchedule(0);
+            Assert.fail("Polling period should be positive");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new ReportingSchedule(60, true, 60);
+            Assert.fail("Jitter should be less than the polling period");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.segment.SegmentBlock;
+import org.wso2.carbon.metrics.core.segment.SegmentReader;
+import org.wso2.carbon.metrics.core.segment.SegmentRecord;
+import org.wso2.carbon.metrics.core.segment.SegmentWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test Cases for segment files
+ */
+public class SegmentTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private final File directory = new File("target/segment-test");
+
+    @BeforeMethod
+    private void deleteSegments() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Assert.assertTrue(file.delete());
+            }
+        }
+        Assert.assertTrue(directory.isDirectory() || directory.mkdirs());
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        try (SegmentWriter writer = new SegmentWriter(directory, 1024 * 1024, 10 * MINUTE, 60 * MINUTE)) {
+            for (int i = 0; i < 5; i++) {
+                SegmentBlock block = new SegmentBlock(i * MINUTE);
+                block.add(SegmentRecord.Type.COUNTER, "test.counter", i);
+                block.add(SegmentRecord.Type.GAUGE, "test.gauge", 0, i * 1.5);
+                block.add(SegmentRecord.Type.METER, "test.meter." + i, i, 1, 2, 3, 4);
+                writer.write(block);
+            }
+            SegmentReader reader = new SegmentReader(directory);
+            // Blocks are visible before the segment is closed
+            Assert.assertEquals(reader.read("test.counter", 0, Long.MAX_VALUE).size(), 5);
+        }
+        SegmentReader reader = new SegmentReader(directory);
+        Assert.assertEquals(reader.getSegments().size(), 1);
+
+        List<SegmentRecord> counterRecords = reader.read("test.counter", MINUTE, 3 * MINUTE);
+        Assert.assertEquals(counterRecords.size(), 3);
+        Assert.assertEquals(counterRecords.get(0).getTimestamp(), MINUTE);
+        Assert.assertEquals(counterRecords.get(2).getCount(), 3L);
+
+        List<SegmentRecord> gaugeRecords = reader.read("test.gauge", 4 * MINUTE, 4 * MINUTE);
+        Assert.assertEquals(gaugeRecords.size(), 1);
+        Assert.assertEquals(gaugeRecords.get(0).getValue("value"), 6.0D);
+
+        List<SegmentRecord> meterRecords = new ArrayList<>();
+        reader.read(name -> name.startsWith("test.meter."), 0, Long.MAX_VALUE, meterRecords::add);
+        Assert.assertEquals(meterRecords.size(), 5);
+        Assert.assertEquals(meterRecords.get(4).getName(), "test.meter.4");
+        Assert.assertEquals(meterRecords.get(4).getValue("m15_rate"), 4.0D);
+        try {
+            meterRecords.get(0).getValue("p99");
+            Assert.fail("Meters should not have percentiles");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testRolloverAndRetention() throws IOException {
+        try (SegmentWriter writer = new SegmentWriter(directory, 4096, 10 * MINUTE, 30 * MINUTE)) {
+            // Roll over by the segment period
+            for (int i = 0; i < 30; i++) {
+                SegmentBlock block = new SegmentBlock(i * MINUTE);
+                block.add(SegmentRecord.Type.COUNTER, "test.counter", i);
+                writer.write(block);
+            }
+            Assert.assertEquals(new SegmentReader(directory).getSegments().size(), 3);
+
+            // Roll over by the segment size. The block is larger than the segment size.
+            SegmentBlock block = new SegmentBlock(30 * MINUTE);
+            for (int i = 0; i < 500; i++) {
+                block.add(SegmentRecord.Type.COUNTER, "test.counter." + i, i);
+            }
+            writer.write(block);
+            Assert.assertEquals(new SegmentReader(directory).getSegments().size(), 4);
+
+            // The first segment has values until 10 minutes and it is deleted after 40 minutes
+            block = new SegmentBlock(60 * MINUTE);
+            block.add(SegmentRecord.Type.COUNTER, "test.counter", 60);
+            writer.write(block);
+        }
+        SegmentReader reader = new SegmentReader(directory);
+        List<File> segments = reader.getSegments();
+        Assert.assertEquals(segments.size(), 3);
+        Assert.assertTrue(segments.get(0).getName().endsWith("-" + 20 * MINUTE + ".seg"));
+
+        List<SegmentRecord> records = reader.read("test.counter", 0, Long.MAX_VALUE);
+        Assert.assertEquals(records.size(), 11);
+        Assert.assertEquals(records.get(0).getCount(), 20L);
+        Assert.assertEquals(records.get(10).getCount(), 60L);
+        Assert.assertEquals(reader.read("test.counter.499", 30 * MINUTE, 30 * MINUTE).get(0).getCount(), 499L);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.core;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+import org.wso2.carbon.metrics.core.metric.ThreadUsageMetricSet;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test Cases for {@link ThreadUsageMetricSet}
+ */
+public class ThreadUsageMetricSetTest {
+
+    private static final String PREFIX = "usage-test-busy";
+
+    @Test
+    public void testCpuUsageWithBatches() throws InterruptedException {
+        ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+        if (!mxBean.isThreadCpuTimeSupported() || !mxBean.isThreadCpuTimeEnabled()) {
+            throw new SkipException("Thread CPU time is not available");
+        }
+        Thread busyThread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                // Use the CPU until interrupted
+            }
+        }, PREFIX + "-1");
+        busyThread.setDaemon(true);
+        busyThread.start();
+        try {
+            // Read only two threads in each sample, so that the busy thread is not read in most samples
+            ThreadUsageMetricSet metricSet = new ThreadUsageMetricSet(mxBean, 2, 1000, 10, TimeUnit.MILLISECONDS);
+            Map<String, Metric> metrics = new ConcurrentHashMap<>();
+            metricSet.setMetricAddedListener(metrics::put);
+            metrics.putAll(metricSet.getMetrics());
+
+            // Any gauge triggers a sample
+            Gauge<?> anyGauge = metrics.entrySet().stream().filter(entry -> entry.getKey().endsWith(".count"))
+                    .map(entry -> (Gauge<?>) entry.getValue()).findFirst().orElse(null);
+            Assert.assertNotNull(anyGauge, "Thread count gauge should be available");
+
+            // Wait until the busy thread is read twice
+            double usage = 0.0D;
+            long deadline = System.currentTimeMillis() + 30000;
+            while (usage <= 0.0D && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+                anyGauge.getValue();
+                usage = getCpuUsage(metrics);
+            }
+            Assert.assertTrue(usage > 0.0D, "CPU usage should be measured for the busy thread");
+
+            // The usage must not drop to zero in the samples, which do not read the busy thread
+            for (int i = 0; i < 20; i++) {
+                Thread.sleep(20);
+                usage = getCpuUsage(metrics);
+                Assert.assertTrue(usage > 0.05D, "CPU usage of a busy thread should be measured in each sample");
+                Assert.assertTrue(usage < 1.5D, "CPU usage of one thread should not exceed one processor");
+            }
+        } finally {
+            busyThread.interrupt();
+            busyThread.join();
+        }
+    }
+
+    private double getCpuUsage(Map<String, Metric> metrics) {
+        Metric metric = metrics.get(PREFIX + ".cpu.usage");
+        return metric != null ? (Double) ((Gauge<?>) metric).getValue() : 0.0D;
+    }
+}
@@ -15,9 +15,13 @@
  */
 package org.wso2.carbon.metrics.core;
 
+import com.codahale.metrics.MetricRegistry;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import org.wso2.carbon.metrics.core.Timer.Context;
+import org.wso2.carbon.metrics.core.config.model.MetricsConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
+import org.wso2.carbon.metrics.core.service.MetricService;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
@@ -66,6 +70,55 @@ public class TimerTest extends BaseMetricTest {
         context.close();
     }
 
+    @Test
+    public void testSampledTimer() throws Exception {
+        MetricsLevelConfig metricsLevelConfig = new MetricsLevelConfig();
+        metricsLevelConfig.setRootLevel(Level.ALL);
+        metricsLevelConfig.setSamplingRate("test.sampled", 10);
+        MetricService metricService = new MetricService(new MetricRegistry(), new MetricsConfig(),
+                metricsLevelConfig);
+
+        // The sampling rate is inherited from the parent name
+        Timer timer = metricService.timer("test.sampled.timer", Level.INFO);
+        for (int i = 0; i < 1000; i++) {
+            timer.start().stop();
+        }
+        timer.update(1, TimeUnit.SECONDS);
+        Assert.assertEquals(timer.time(() -> "value"), "value");
+        // The count is exact, but only some durations are recorded
+        Assert.assertEquals(timer.getCount(), 1002);
+        Assert.assertTrue(timer.getSnapshot().size() < 1002, "All invocations should not be timed");
+
+        Timer other = metricService.timer("test.other.timer", Level.INFO);
+        for (int i = 0; i < 100; i++) {
+            other.update(1, TimeUnit.MILLISECONDS);
+        }
+        Assert.assertEquals(other.getSnapshot().size(), 100);
+    }
+
+    @Test
+    public void testUnsampledInvocations() throws Exception {
+        MetricsLevelConfig metricsLevelConfig = new MetricsLevelConfig();
+        metricsLevelConfig.setRootLevel(Level.ALL);
+        // Practically no invocation is sampled
+        metricsLevelConfig.setSamplingRate("test.unsampled", Integer.MAX_VALUE);
+        MetricService metricService = new MetricService(new MetricRegistry(), new MetricsConfig(),
+                metricsLevelConfig);
+
+        Timer timer = metricService.timer("test.unsampled.timer", Level.INFO);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(timer.start().stop(), 0, "The duration should not be measured");
+        }
+        timer.update(1, TimeUnit.SECONDS);
+        Assert.assertEquals(timer.time(() -> "value"), "value");
+
+        // The invocations, which were not sampled, are marked in the meter when the timer is read
+        Assert.assertEquals(timer.getCount(), 102);
+        Assert.assertEquals(timer.getCount(), 102);
+        Assert.assertTrue(timer.getMeanRate() > 0, "The rate should include the invocations");
+        Assert.assertEquals(timer.getSnapshot().size(), 0);
+    }
+
     @Test
     public void testTimerUpdateCount() {
         Timer timer = MetricManager.timer(MetricManager.name(this.getClass(), "test-timer-update"), Level.INFO);
@@ -116,4 +169,21 @@ public class TimerTest extends BaseMetricTest {
         Assert.assertTrue(timer.getMeanRate() >= 0);
     }
 
+    @Test
+    public void testReEnable() {
+        Timer timer = MetricManager.timer(MetricManager.name(this.getClass(), "test-timer-re-enable"), Level.INFO);
+        MetricManager.getMetricService().setRootLevel(Level.OFF);
+        Context context = timer.start();
+        // A disabled timer does not create a context for each invocation
+        Assert.assertSame(timer.start(), context);
+        Assert.assertEquals(context.stop(), 0);
+        timer.update(1, TimeUnit.SECONDS);
+        Assert.assertEquals(timer.getCount(), 0);
+
+        MetricManager.getMetricService().setRootLevel(Level.INFO);
+        context = timer.start();
+        Assert.assertTrue(context.stop() > 0, "Timer value should be greater than zero");
+        timer.update(1, TimeUnit.SECONDS);
+        Assert.assertEquals(timer.getCount(), 2);
+    }
 }
@@ -37,9 +37,16 @@ import org.wso2.carbon.databridge.commons.Event;
 import org.wso2.carbon.databridge.commons.exception.TransportException;
 import org.wso2.carbon.databridge.commons.utils.DataBridgeCommonsUtils;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 /**
  * Reporting the measurements for each metric to Data Analytics Server (DAS)
@@ -66,6 +73,9 @@ public class DasReporter extends ScheduledReporter {
         private TimeUnit durationUnit;
         private Clock clock;
         private MetricFilter filter;
+        private BiConsumer<String, List<Object[]>> spool;
+        private Consumer<BiPredicate<String, List<Object[]>>> spoolReplayer;
+        private LongConsumer failureListener;
 
         private Builder(MetricRegistry registry) {
             this.registry = registry;
@@ -119,6 +129,37 @@ public class DasReporter extends ScheduledReporter {
             return this;
         }
 
+        /**
+         * Keep the events, which could not be published, in a spool and replay them when the DAS Receiver is
+         * available again. When a spool is used, events are not published if the queue of the Data Publisher is full.
+         * The spooled events are replayed after each successful report.
+         *
+         * @param spool         a function to spool the events for a stream. The stream ID is given as the key and each
+         *                      record has the timestamp followed by the payload of the event.
+         * @param spoolReplayer a function to replay the spooled events in order to the given destination. The
+         *                      destination returns {@code false} if the events could not be published.
+         * @return {@code this}
+         */
+        public Builder withSpool(BiConsumer<String, List<Object[]>> spool,
+                                 Consumer<BiPredicate<String, List<Object[]>>> spoolReplayer) {
+            this.spool = spool;
+            this.spoolReplayer = spoolReplayer;
+            return this;
+        }
+
+        /**
+         * Notify the given listener after each report, which could not publish all events. This is used only with a
+         * spool, as the Data Publisher waits for space in its queue otherwise. The listener is given the number of
+         * events, which were dropped, which is always {@code 0} as the unpublished events are kept in the spool.
+         *
+         * @param failureListener a function to be notified of a failed report
+         * @return {@code this}
+         */
+        public Builder withFailureListener(LongConsumer failureListener) {
+            this.failureListener = failureListener;
+            return this;
+        }
+
         /**
          * Builds a {@link DasReporter} with the given properties to report metrics to DAS
          *
@@ -134,7 +175,7 @@ public class DasReporter extends ScheduledReporter {
         public DasReporter build(String source, String type, String receiverURL, String authURL, String username,
                                  String password, String dataAgentConfigPath) {
             return new DasReporter(registry, source, type, receiverURL, authURL, username, password,
-                    dataAgentConfigPath, rateUnit, durationUnit, clock, filter);
+                    dataAgentConfigPath, rateUnit, durationUnit, clock, filter, spool, spoolReplayer, failureListener);
         }
     }
 
@@ -143,6 +184,12 @@ public class DasReporter extends ScheduledReporter {
     private final Clock clock;
     private final String source;
     private final DataPublisher dataPublisher;
+    private final BiConsumer<String, List<Object[]>> spool;
+    private final Consumer<BiPredicate<String, List<Object[]>>> spoolReplayer;
+    private final LongConsumer failureListener;
+
+    // The events, which could not be published in the current report, for each stream
+    private final Map<String, List<Object[]>> unpublishedEvents = new LinkedHashMap<>();
 
     private static final String GAUGE_STREAM = "org.wso2.carbon.metrics.gauge";
     private static final String COUNTER_STREAM = "org.wso2.carbon.metrics.counter";
@@ -168,10 +215,18 @@ public class DasReporter extends ScheduledReporter {
 
     private DasReporter(MetricRegistry registry, String source, String type, String receiverURL, String authURL,
                         String username, String password, String dataAgentConfigPath, TimeUnit rateUnit,
-                        TimeUnit durationUnit, Clock clock, MetricFilter filter) {
+                        TimeUnit durationUnit, Clock clock, MetricFilter filter,
+                        BiConsumer<String, List<Object[]>> spool,
+                        Consumer<BiPredicate<String, List<Object[]>>> spoolReplayer, LongConsumer failureListener) {
         super(registry, "das-reporter", filter, rateUnit, durationUnit);
         this.source = source;
         this.clock = clock;
+        this.spool = spool;
+        this.spoolReplayer = spoolReplayer;
+        this.failureListener = failureListener;
+        if ((spool == null) != (spoolReplayer == null)) {
+            throw new IllegalArgumentException("Both spool and spool replayer must be specified");
+        }
         if (source == null || source.trim().isEmpty()) {
             throw new IllegalArgumentException("Source cannot be null or empty");
         }
@@ -215,6 +270,7 @@ public class DasReporter extends ScheduledReporter {
                        SortedMap<String, Timer> timers) {
         // Report time in milliseconds
         final long timestamp = clock.getTime();
+        boolean spooled = false;
 
         if (!gauges.isEmpty()) {
             reportGauges(timestamp, gauges);
@@ -231,6 +287,50 @@ public class DasReporter extends ScheduledReporter {
         if (!timers.isEmpty()) {
             reportTimers(timestamp, timers);
         }
+        if (spool != null) {
+            if (unpublishedEvents.isEmpty()) {
+                spoolReplayer.accept(this::replay);
+            } else {
+                unpublishedEvents.forEach(spool);
+                unpublishedEvents.clear();
+                spooled = true;
+            }
+        }
+        if (spooled && failureListener != null) {
+            failureListener.accept(0);
+        }
+    }
+
+    /**
+     * Publish an event. If a spool is used and the event could not be published, the event and all remaining events
+     * in the current report are spooled. Otherwise the Data Publisher waits until the event can be queued.
+     */
+    private void publish(String streamId, long timestamp, Object[] meta, Object[] payload) {
+        Event event = new Event(streamId, timestamp, meta, null, payload);
+        if (spool == null) {
+            dataPublisher.publish(event);
+        } else if (!unpublishedEvents.isEmpty() || !dataPublisher.tryPublish(event)) {
+            Object[] record = new Object[payload.length + 1];
+            record[0] = timestamp;
+            System.arraycopy(payload, 0, record, 1, payload.length);
+            unpublishedEvents.computeIfAbsent(streamId, k -> new ArrayList<>()).add(record);
+        }
+    }
+
+    /**
+     * Publish spooled events. Some of the events may be published again if the Data Publisher fails to accept an
+     * event in the middle.
+     */
+    private boolean replay(String streamId, List<Object[]> records) {
+        for (Object[] record : records) {
+            long timestamp = (Long) record[0];
+            Object[] payload = new Object[record.length - 1];
+            System.arraycopy(record, 1, payload, 0, payload.length);
+            if (!dataPublisher.tryPublish(new Event(streamId, timestamp, new Object[]{timestamp}, null, payload))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @SuppressWarnings("rawtypes")
@@ -243,8 +343,7 @@ public class DasReporter extends ScheduledReporter {
             payload[0] = source;
             payload[1] = name;
             payload[2] = convertToDouble(gauge.getValue());
-            Event event = new Event(GAUGE_STREAM_ID, timestamp, meta, null, payload);
-            dataPublisher.publish(event);
+            publish(GAUGE_STREAM_ID, timestamp, meta, payload);
         }
     }
 
@@ -271,8 +370,7 @@ public class DasReporter extends ScheduledReporter {
             payload[0] = source;
             payload[1] = name;
             payload[2] = counter.getCount();
-            Event event = new Event(COUNTER_STREAM_ID, timestamp, meta, null, payload);
-            dataPublisher.publish(event);
+            publish(COUNTER_STREAM_ID, timestamp, meta, payload);
         }
     }
 
@@ -296,8 +394,7 @@ public class DasReporter extends ScheduledReporter {
             payload[10] = snapshot.get98thPercentile();
             payload[11] = snapshot.get99thPercentile();
             payload[12] = snapshot.get999thPercentile();
-            Event event = new Event(HISTOGRAM_STREAM_ID, timestamp, meta, null, payload);
-            dataPublisher.publish(event);
+            publish(HISTOGRAM_STREAM_ID, timestamp, meta, payload);
         }
     }
 
@@ -315,8 +412,7 @@ public class DasReporter extends ScheduledReporter {
             payload[5] = convertRate(meter.getFiveMinuteRate());
             payload[6] = convertRate(meter.getFifteenMinuteRate());
             payload[7] = String.format("events/%s", getRateUnit());
-            Event event = new Event(METER_STREAM_ID, timestamp, meta, null, payload);
-            dataPublisher.publish(event);
+            publish(METER_STREAM_ID, timestamp, meta, payload);
         }
     }
 
@@ -346,8 +442,7 @@ public class DasReporter extends ScheduledReporter {
             payload[16] = convertRate(timer.getFifteenMinuteRate());
             payload[17] = String.format("calls/%s", getRateUnit());
             payload[18] = getDurationUnit();
-            Event event = new Event(TIMER_STREAM_ID, timestamp, meta, null, payload);
-            dataPublisher.publish(event);
+            publish(TIMER_STREAM_ID, timestamp, meta, payload);
         }
     }
 }
@@ -31,9 +31,17 @@ import org.slf4j.LoggerFactory;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 import javax.sql.DataSource;
 
 /**
@@ -62,6 +70,10 @@ public class JdbcReporter extends ScheduledReporter {
         private Clock clock;
         private MetricFilter filter;
         private TimeUnit timestampUnit;
+        private Function<Snapshot, byte[]> snapshotSerializer;
+        private BiConsumer<String, List<Object[]>> spool;
+        private Consumer<BiPredicate<String, List<Object[]>>> spoolReplayer;
+        private LongConsumer failureListener;
 
         private Builder(MetricRegistry registry) {
             this.registry = registry;
@@ -127,6 +139,49 @@ public class JdbcReporter extends ScheduledReporter {
             return this;
         }
 
+        /**
+         * Serialize the snapshots of histograms and timers with the given function and store them in the
+         * METRIC_SKETCH table. The function should return {@code null} for snapshots, which cannot be serialized.
+         * Snapshots of timers are serialized in nanoseconds.
+         *
+         * @param snapshotSerializer a function to serialize snapshots
+         * @return {@code this}
+         */
+        public Builder withSnapshotSerializer(Function<Snapshot, byte[]> snapshotSerializer) {
+            this.snapshotSerializer = snapshotSerializer;
+            return this;
+        }
+
+        /**
+         * Keep the records, which could not be inserted to the database, in a spool and replay them when the database
+         * is available again. The spooled records are replayed before each report until the spool is empty. If the
+         * database does not accept the spooled records, the records of the report are spooled after them.
+         *
+         * @param spool         a function to spool the records for a table. The table is given as the key.
+         * @param spoolReplayer a function to replay the spooled records in order to the given destination. The
+         *                      destination returns {@code false} if the records could not be inserted. The function
+         *                      is called again while it replays any records.
+         * @return {@code this}
+         */
+        public Builder withSpool(BiConsumer<String, List<Object[]>> spool,
+                                 Consumer<BiPredicate<String, List<Object[]>>> spoolReplayer) {
+            this.spool = spool;
+            this.spoolReplayer = spoolReplayer;
+            return this;
+        }
+
+        /**
+         * Notify the given listener after each report, which could not insert all records to the database. The
+         * listener is given the number of records, which were dropped. The records kept in the spool are not counted.
+         *
+         * @param failureListener a function to be notified of a failed report
+         * @return {@code this}
+         */
+        public Builder withFailureListener(LongConsumer failureListener) {
+            this.failureListener = failureListener;
+            return this;
+        }
+
         /**
          * Builds a {@link JdbcReporter} with the given properties to report metrics to a database
          *
@@ -135,7 +190,8 @@ public class JdbcReporter extends ScheduledReporter {
          * @return a {@link JdbcReporter}
          */
         public JdbcReporter build(String source, DataSource dataSource) {
-            return new JdbcReporter(registry, source, dataSource, rateUnit, durationUnit, timestampUnit, clock, filter);
+            return new JdbcReporter(registry, source, dataSource, rateUnit, durationUnit, timestampUnit, clock, filter,
+                    snapshotSerializer, spool, spoolReplayer, failureListener);
         }
     }
 
@@ -145,6 +201,10 @@ public class JdbcReporter extends ScheduledReporter {
     private final String source;
     private final DataSource dataSource;
     private final TimeUnit timestampUnit;
+    private final Function<Snapshot, byte[]> snapshotSerializer;
+    private final BiConsumer<String, List<Object[]>> spool;
+    private final Consumer<BiPredicate<String, List<Object[]>>> spoolReplayer;
+    private final LongConsumer failureListener;
 
     private static final String INSERT_GAUGE_QUERY =
             "INSERT INTO METRIC_GAUGE (SOURCE, TIMESTAMP, NAME, VALUE) VALUES (?,?,?,?)";
@@ -160,20 +220,52 @@ public class JdbcReporter extends ScheduledReporter {
             "INSERT INTO METRIC_TIMER (SOURCE,TIMESTAMP,NAME,COUNT,MAX,MEAN,MIN,STDDEV,P50,P75,P95,P98,P99,P999,"
                     + "MEAN_RATE,M1_RATE,M5_RATE,M15_RATE,RATE_UNIT,DURATION_UNIT) "
                     + "VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+    private static final String INSERT_SKETCH_QUERY =
+            "INSERT INTO METRIC_SKETCH (SOURCE, TIMESTAMP, NAME, SKETCH) VALUES (?,?,?,?)";
+
+    /**
+     * The tables for each metric type. The name of the table is used as the key for spooled records.
+     */
+    private enum Table {
+        METRIC_GAUGE(INSERT_GAUGE_QUERY, "gauges"),
+        METRIC_COUNTER(INSERT_COUNTER_QUERY, "counters"),
+        METRIC_HISTOGRAM(INSERT_HISTOGRAM_QUERY, "histograms"),
+        METRIC_METER(INSERT_METER_QUERY, "meters"),
+        METRIC_TIMER(INSERT_TIMER_QUERY, "timers"),
+        METRIC_SKETCH(INSERT_SKETCH_QUERY, "sketches");
+
+        private final String query;
+
+        private final String description;
+
+        Table(String query, String description) {
+            this.query = query;
+            this.description = description;
+        }
+    }
 
     private JdbcReporter(MetricRegistry registry, String source, DataSource dataSource, TimeUnit rateUnit,
-                         TimeUnit durationUnit, TimeUnit timestampUnit, Clock clock, MetricFilter filter) {
+                         TimeUnit durationUnit, TimeUnit timestampUnit, Clock clock, MetricFilter filter,
+                         Function<Snapshot, byte[]> snapshotSerializer, BiConsumer<String, List<Object[]>> spool,
+                         Consumer<BiPredicate<String, List<Object[]>>> spoolReplayer, LongConsumer failureListener) {
         super(registry, "jdbc-reporter", filter, rateUnit, durationUnit);
         this.source = source;
         this.dataSource = dataSource;
         this.timestampUnit = timestampUnit;
         this.clock = clock;
+        this.snapshotSerializer = snapshotSerializer;
+        this.spool = spool;
+        this.spoolReplayer = spoolReplayer;
+        this.failureListener = failureListener;
         if (source == null || source.trim().isEmpty()) {
             throw new IllegalArgumentException("Source cannot be null or empty");
         }
         if (dataSource == null) {
             throw new IllegalArgumentException("Data source cannot be null");
         }
+        if ((spool == null) != (spoolReplayer == null)) {
+            throw new IllegalArgumentException("Both spool and spool replayer must be specified");
+        }
     }
 
     @SuppressWarnings("rawtypes")
@@ -182,211 +274,209 @@ public class JdbcReporter extends ScheduledReporter {
                        SortedMap<String, Histogram> histograms, SortedMap<String, Meter> meters,
                        SortedMap<String, Timer> timers) {
         final long timestamp = timestampUnit.convert(clock.getTime(), TimeUnit.MILLISECONDS);
+        // Serialized snapshots of histograms and timers
+        final Map<String, byte[]> sketches = new LinkedHashMap<>();
+        // The number of records, which could not be inserted
+        long failed = 0;
+        // The spooled records are inserted first to keep the order. If the database does not accept them, the records
+        // of this report are spooled after them without trying to insert.
+        final boolean available = replaySpool();
 
         if (!gauges.isEmpty()) {
-            reportGauges(timestamp, gauges);
+            failed += report(Table.METRIC_GAUGE, gaugeRecords(timestamp, gauges), available);
         }
         if (!counters.isEmpty()) {
-            reportCounters(timestamp, counters);
+            failed += report(Table.METRIC_COUNTER, counterRecords(timestamp, counters), available);
         }
         if (!histograms.isEmpty()) {
-            reportHistograms(timestamp, histograms);
+            failed += report(Table.METRIC_HISTOGRAM, histogramRecords(timestamp, histograms, sketches), available);
         }
         if (!meters.isEmpty()) {
-            reportMeters(timestamp, meters);
+            failed += report(Table.METRIC_METER, meterRecords(timestamp, meters), available);
         }
         if (!timers.isEmpty()) {
-            reportTimers(timestamp, timers);
+            failed += report(Table.METRIC_TIMER, timerRecords(timestamp, timers, sketches), available);
+        }
+        if (!sketches.isEmpty()) {
+            failed += report(Table.METRIC_SKETCH, sketchRecords(timestamp, sketches), available);
+        }
+        if (failed > 0 && failureListener != null) {
+            failureListener.accept(spool != null ? 0 : failed);
         }
     }
 
-    @Override
-    protected String getRateUnit() {
-        return super.getRateUnit();
+    /**
+     * Replay the spooled records until the spool is empty or until the database does not accept the records
+     *
+     * @return {@code false} if the database did not accept the spooled records
+     */
+    private boolean replaySpool() {
+        if (spoolReplayer == null) {
+            return true;
+        }
+        SpoolReplay replay = new SpoolReplay();
+        do {
+            replay.replayed = 0;
+            spoolReplayer.accept(replay);
+        } while (!replay.failed && replay.replayed > 0);
+        return !replay.failed;
     }
 
-    @SuppressWarnings("rawtypes")
-    private void reportGauges(final long timestamp, final SortedMap<String, Gauge> gauges) {
-        Connection connection = null;
-        PreparedStatement ps = null;
+    /**
+     * The destination of the spooled records. The replayer stops at the first failure.
+     */
+    private class SpoolReplay implements BiPredicate<String, List<Object[]>> {
 
-        try {
-            connection = dataSource.getConnection();
-            connection.setAutoCommit(false);
-            ps = connection.prepareStatement(INSERT_GAUGE_QUERY);
+        private int replayed;
 
-            for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
-                String name = entry.getKey();
-                Gauge gauge = entry.getValue();
-                reportGauge(timestamp, ps, name, gauge);
-                ps.addBatch();
-            }
+        private boolean failed;
 
-            ps.executeBatch();
-            connection.commit();
-            ps.close();
-            ps = null;
-            connection.close();
-            connection = null;
-        } catch (SQLException e) {
-            rollbackTransaction(connection);
-            logger.error("Error when reporting gauges", e);
-        } finally {
-            closeQuietly(connection, ps);
+        @Override
+        public boolean test(String key, List<Object[]> records) {
+            if (!replay(key, records)) {
+                failed = true;
+                return false;
+            }
+            replayed += records.size();
+            return true;
         }
     }
 
-    @SuppressWarnings("rawtypes")
-    private void reportGauge(final long timestamp, PreparedStatement ps, String name, Gauge gauge) throws SQLException {
-        ps.setString(1, source);
-        ps.setLong(2, timestamp);
-        ps.setString(3, name);
-        ps.setObject(4, gauge.getValue());
+    @Override
+    protected String getRateUnit() {
+        return super.getRateUnit();
     }
 
-    private void reportCounters(final long timestamp, final SortedMap<String, Counter> counters) {
-        Connection connection = null;
-        PreparedStatement ps = null;
-
-        try {
-            connection = dataSource.getConnection();
-            connection.setAutoCommit(false);
-            ps = connection.prepareStatement(INSERT_COUNTER_QUERY);
-
-            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
-                String name = entry.getKey();
-                Counter counter = entry.getValue();
-                reportCounter(timestamp, ps, name, counter);
-                ps.addBatch();
-            }
+    @SuppressWarnings("rawtypes")
+    private List<Object[]> gaugeRecords(final long timestamp, final SortedMap<String, Gauge> gauges) {
+        List<Object[]> records = new ArrayList<>(gauges.size());
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            records.add(new Object[]{source, timestamp, entry.getKey(), entry.getValue().getValue()});
+        }
+        return records;
+    }
 
-            ps.executeBatch();
-            connection.commit();
-            ps.close();
-            ps = null;
-            connection.close();
-            connection = null;
-        } catch (SQLException e) {
-            rollbackTransaction(connection);
-            logger.error("Error when reporting counters", e);
-        } finally {
-            closeQuietly(connection, ps);
+    private List<Object[]> counterRecords(final long timestamp, final SortedMap<String, Counter> counters) {
+        List<Object[]> records = new ArrayList<>(counters.size());
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            records.add(new Object[]{source, timestamp, entry.getKey(), entry.getValue().getCount()});
         }
+        return records;
     }
 
-    private void reportCounter(final long timestamp, PreparedStatement ps, String name, Counter counter)
-            throws SQLException {
-        ps.setString(1, source);
-        ps.setLong(2, timestamp);
-        ps.setString(3, name);
-        ps.setLong(4, counter.getCount());
+    private List<Object[]> histogramRecords(final long timestamp, final SortedMap<String, Histogram> histograms,
+                                            final Map<String, byte[]> sketches) {
+        List<Object[]> records = new ArrayList<>(histograms.size());
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            String name = entry.getKey();
+            Histogram histogram = entry.getValue();
+            Snapshot snapshot = histogram.getSnapshot();
+            records.add(new Object[]{source, timestamp, name, histogram.getCount(), (double) snapshot.getMax(),
+                    snapshot.getMean(), (double) snapshot.getMin(), snapshot.getStdDev(), snapshot.getMedian(),
+                    snapshot.get75thPercentile(), snapshot.get95thPercentile(), snapshot.get98thPercentile(),
+                    snapshot.get99thPercentile(), snapshot.get999thPercentile()});
+            addSketch(sketches, name, snapshot);
+        }
+        return records;
     }
 
-    private void reportHistograms(final long timestamp, final SortedMap<String, Histogram> histograms) {
-        Connection connection = null;
-        PreparedStatement ps = null;
+    private List<Object[]> meterRecords(final long timestamp, final SortedMap<String, Meter> meters) {
+        List<Object[]> records = new ArrayList<>(meters.size());
+        for (Map.Entry<String, Meter> entry : meters.entrySet()) {
+            Meter meter = entry.getValue();
+            records.add(new Object[]{source, timestamp, entry.getKey(), meter.getCount(),
+                    convertRate(meter.getMeanRate()), convertRate(meter.getOneMinuteRate()),
+                    convertRate(meter.getFiveMinuteRate()), convertRate(meter.getFifteenMinuteRate()),
+                    String.format("events/%s", getRateUnit())});
+        }
+        return records;
+    }
 
-        try {
-            connection = dataSource.getConnection();
-            connection.setAutoCommit(false);
-            ps = connection.prepareStatement(INSERT_HISTOGRAM_QUERY);
+    private List<Object[]> timerRecords(final long timestamp, final SortedMap<String, Timer> timers,
+                                        final Map<String, byte[]> sketches) {
+        List<Object[]> records = new ArrayList<>(timers.size());
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            String name = entry.getKey();
+            Timer timer = entry.getValue();
+            Snapshot snapshot = timer.getSnapshot();
+            records.add(new Object[]{source, timestamp, name, timer.getCount(), convertDuration(snapshot.getMax()),
+                    convertDuration(snapshot.getMean()), convertDuration(snapshot.getMin()),
+                    convertDuration(snapshot.getStdDev()), convertDuration(snapshot.getMedian()),
+                    convertDuration(snapshot.get75thPercentile()), convertDuration(snapshot.get95thPercentile()),
+                    convertDuration(snapshot.get98thPercentile()), convertDuration(snapshot.get99thPercentile()),
+                    convertDuration(snapshot.get999thPercentile()), convertRate(timer.getMeanRate()),
+                    convertRate(timer.getOneMinuteRate()), convertRate(timer.getFiveMinuteRate()),
+                    convertRate(timer.getFifteenMinuteRate()), String.format("calls/%s", getRateUnit()),
+                    getDurationUnit()});
+            addSketch(sketches, name, snapshot);
+        }
+        return records;
+    }
 
-            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
-                String name = entry.getKey();
-                Histogram histogram = entry.getValue();
-                reportHistogram(timestamp, ps, name, histogram);
-                ps.addBatch();
+    private void addSketch(Map<String, byte[]> sketches, String name, Snapshot snapshot) {
+        // An empty sketch does not add anything when the sketches are merged
+        if (snapshotSerializer != null && snapshot.size() > 0) {
+            byte[] sketch = snapshotSerializer.apply(snapshot);
+            if (sketch != null) {
+                sketches.put(name, sketch);
             }
-
-            ps.executeBatch();
-            connection.commit();
-            ps.close();
-            ps = null;
-            connection.close();
-            connection = null;
-        } catch (SQLException e) {
-            rollbackTransaction(connection);
-            logger.error("Error when reporting histograms", e);
-        } finally {
-            closeQuietly(connection, ps);
         }
     }
 
-    private void reportHistogram(final long timestamp, PreparedStatement ps, String name, Histogram histogram)
-            throws SQLException {
-        final Snapshot snapshot = histogram.getSnapshot();
-
-        ps.setString(1, source);
-        ps.setLong(2, timestamp);
-        ps.setString(3, name);
-        ps.setLong(4, histogram.getCount());
-        ps.setDouble(5, snapshot.getMax());
-        ps.setDouble(6, snapshot.getMean());
-        ps.setDouble(7, snapshot.getMin());
-        ps.setDouble(8, snapshot.getStdDev());
-        ps.setDouble(9, snapshot.getMedian());
-        ps.setDouble(10, snapshot.get75thPercentile());
-        ps.setDouble(11, snapshot.get95thPercentile());
-        ps.setDouble(12, snapshot.get98thPercentile());
-        ps.setDouble(13, snapshot.get99thPercentile());
-        ps.setDouble(14, snapshot.get999thPercentile());
+    private List<Object[]> sketchRecords(final long timestamp, final Map<String, byte[]> sketches) {
+        List<Object[]> records = new ArrayList<>(sketches.size());
+        for (Map.Entry<String, byte[]> entry : sketches.entrySet()) {
+            records.add(new Object[]{source, timestamp, entry.getKey(), entry.getValue()});
+        }
+        return records;
     }
 
-    private void reportMeters(final long timestamp, final SortedMap<String, Meter> meters) {
-        Connection connection = null;
-        PreparedStatement ps = null;
+    /**
+     * Insert the records to the table and spool them if the insert fails
+     *
+     * @param available {@code false} to spool the records without trying to insert
+     * @return The number of records, which could not be inserted
+     */
+    private int report(Table table, List<Object[]> records, boolean available) {
+        if (available && insert(table, records)) {
+            return 0;
+        }
+        if (spool != null) {
+            spool.accept(table.name(), records);
+        }
+        return records.size();
+    }
 
+    private boolean replay(String key, List<Object[]> records) {
+        final Table table;
         try {
-            connection = dataSource.getConnection();
-            connection.setAutoCommit(false);
-            ps = connection.prepareStatement(INSERT_METER_QUERY);
-
-            for (Map.Entry<String, Meter> entry : meters.entrySet()) {
-                String name = entry.getKey();
-                Meter meter = entry.getValue();
-                reportMeter(timestamp, ps, name, meter);
-                ps.addBatch();
+            table = Table.valueOf(key);
+        } catch (IllegalArgumentException e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn(String.format("Discarding %d spooled records for unknown table %s", records.size(), key));
             }
-
-            ps.executeBatch();
-            connection.commit();
-            ps.close();
-            ps = null;
-            connection.close();
-            connection = null;
-        } catch (SQLException e) {
-            rollbackTransaction(connection);
-            logger.error("Error when reporting meters", e);
-        } finally {
-            closeQuietly(connection, ps);
+            return true;
         }
+        return insert(table, records);
     }
 
-    private void reportMeter(final long timestamp, PreparedStatement ps, String name, Meter meter) throws SQLException {
-        ps.setString(1, source);
-        ps.setLong(2, timestamp);
-        ps.setString(3, name);
-        ps.setLong(4, meter.getCount());
-        ps.setDouble(5, convertRate(meter.getMeanRate()));
-        ps.setDouble(6, convertRate(meter.getOneMinuteRate()));
-        ps.setDouble(7, convertRate(meter.getFiveMinuteRate()));
-        ps.setDouble(8, convertRate(meter.getFifteenMinuteRate()));
-        ps.setString(9, String.format("events/%s", getRateUnit()));
-    }
-
-    private void reportTimers(final long timestamp, final SortedMap<String, Timer> timers) {
+    private boolean insert(Table table, List<Object[]> records) {
         Connection connection = null;
         PreparedStatement ps = null;
 
         try {
             connection = dataSource.getConnection();
             connection.setAutoCommit(false);
-            ps = connection.prepareStatement(INSERT_TIMER_QUERY);
-
-            for (Map.Entry<String, Timer> entry : timers.entrySet()) {
-                String name = entry.getKey();
-                Timer timer = entry.getValue();
-                reportTimer(timestamp, ps, name, timer);
+            ps = connection.prepareStatement(table.query);
+
+            for (Object[] record : records) {
+                for (int i = 0; i < record.length; i++) {
+                    if (record[i] instanceof byte[]) {
+                        ps.setBytes(i + 1, (byte[]) record[i]);
+                    } else {
+                        ps.setObject(i + 1, record[i]);
+                    }
+                }
                 ps.addBatch();
             }
 
@@ -396,39 +486,16 @@ public class JdbcReporter extends ScheduledReporter {
             ps = null;
             connection.close();
             connection = null;
+            return true;
         } catch (SQLException e) {
             rollbackTransaction(connection);
-            logger.error("Error when reporting timers", e);
+            logger.error("Error when reporting " + table.description, e);
+            return false;
         } finally {
             closeQuietly(connection, ps);
         }
     }
 
-    private void reportTimer(final long timestamp, PreparedStatement ps, String name, Timer timer) throws SQLException {
-        final Snapshot snapshot = timer.getSnapshot();
-
-        ps.setString(1, source);
-        ps.setLong(2, timestamp);
-        ps.setString(3, name);
-        ps.setLong(4, timer.getCount());
-        ps.setDouble(5, convertDuration(snapshot.getMax()));
-        ps.setDouble(6, convertDuration(snapshot.getMean()));
-        ps.setDouble(7, convertDuration(snapshot.getMin()));
-        ps.setDouble(8, convertDuration(snapshot.getStdDev()));
-        ps.setDouble(9, convertDuration(snapshot.getMedian()));
-        ps.setDouble(10, convertDuration(snapshot.get75thPercentile()));
-        ps.setDouble(11, convertDuration(snapshot.get95thPercentile()));
-        ps.setDouble(12, convertDuration(snapshot.get98thPercentile()));
-        ps.setDouble(13, convertDuration(snapshot.get99thPercentile()));
-        ps.setDouble(14, convertDuration(snapshot.get999thPercentile()));
-        ps.setDouble(15, convertRate(timer.getMeanRate()));
-        ps.setDouble(16, convertRate(timer.getOneMinuteRate()));
-        ps.setDouble(17, convertRate(timer.getFiveMinuteRate()));
-        ps.setDouble(18, convertRate(timer.getFifteenMinuteRate()));
-        ps.setString(19, String.format("calls/%s", getRateUnit()));
-        ps.setString(20, getDurationUnit());
-    }
-
     private void rollbackTransaction(Connection connection) {
         if (connection != null) {
             try {
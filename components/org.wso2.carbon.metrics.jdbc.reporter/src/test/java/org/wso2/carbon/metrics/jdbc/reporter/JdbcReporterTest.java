@@ -35,11 +35,14 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeSuite;
 import org.testng.annotations.Test;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
 import javax.sql.DataSource;
 
 import static org.mockito.Mockito.mock;
@@ -128,6 +131,65 @@ public class JdbcReporterTest {
         Assert.assertEquals(result.get(0).get("TIMESTAMP"), timestamp);
     }
 
+    @Test
+    public void reportsSpooledValues() throws Exception {
+        final List<Object[]> spool = new ArrayList<>();
+        final DataSource unavailableDataSource = mock(DataSource.class);
+        when(unavailableDataSource.getConnection()).thenThrow(new SQLException("Database is not available"));
+        final Counter counter = mock(Counter.class);
+        when(counter.getCount()).thenReturn(1L, 2L, 3L);
+
+        JdbcReporter unavailableReporter = JdbcReporter.forRegistry(registry).withClock(clock)
+                .withSpool((key, records) -> spool.addAll(records), destination -> replay(spool, 1, destination))
+                .build(SOURCE, unavailableDataSource);
+        unavailableReporter.report(map(), map("test.counter", counter), map(), map(), map());
+        unavailableReporter.report(map(), map("test.counter", counter), map(), map(), map());
+        Assert.assertEquals(spool.size(), 2);
+
+        JdbcReporter.forRegistry(registry).withClock(clock)
+                .withSpool((key, records) -> Assert.fail("Should not spool"),
+                        destination -> replay(spool, 1, destination))
+                .build(SOURCE, dataSource)
+                .report(map(), map("test.counter", counter), map(), map(), map());
+        Assert.assertTrue(spool.isEmpty());
+
+        // All spooled values are replayed in batches before the current value
+        List<Map<String, Object>> result = template.queryForList("SELECT * FROM METRIC_COUNTER ORDER BY ID");
+        Assert.assertEquals(result.size(), 3);
+        Assert.assertEquals(result.get(0).get("COUNT"), 1L);
+        Assert.assertEquals(result.get(1).get("COUNT"), 2L);
+        Assert.assertEquals(result.get(2).get("COUNT"), 3L);
+    }
+
+    @Test
+    public void spoolsValuesAfterFailedReplay() throws Exception {
+        final List<Object[]> spool = new ArrayList<>();
+        spool.add(new Object[]{SOURCE, 1L, "test.counter", 1L});
+        final DataSource unavailableDataSource = mock(DataSource.class);
+        when(unavailableDataSource.getConnection()).thenThrow(new SQLException("Database is not available"));
+        final Counter counter = mock(Counter.class);
+        when(counter.getCount()).thenReturn(2L);
+
+        JdbcReporter.forRegistry(registry).withClock(clock)
+                .withSpool((key, records) -> spool.addAll(records), destination -> replay(spool, 10, destination))
+                .build(SOURCE, unavailableDataSource)
+                .report(map(), map("test.counter", counter), map(), map(), map());
+
+        Assert.assertEquals(spool.size(), 2);
+        Assert.assertEquals(spool.get(0)[3], 1L);
+        Assert.assertEquals(spool.get(1)[3], 2L);
+    }
+
+    /**
+     * Replay up to the given number of counter records from the spool, in the same way as a spool with a replay limit
+     */
+    private static void replay(List<Object[]> spool, int limit, BiPredicate<String, List<Object[]>> destination) {
+        List<Object[]> records = new ArrayList<>(spool.subList(0, Math.min(limit, spool.size())));
+        if (!records.isEmpty() && destination.test("METRIC_COUNTER", records)) {
+            spool.subList(0, records.size()).clear();
+        }
+    }
+
     @SuppressWarnings("rawtypes")
     @Test
     public void reportsHistogramValues() throws Exception {
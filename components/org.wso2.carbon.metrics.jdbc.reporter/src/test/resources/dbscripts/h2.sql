@@ -85,8 +85,17 @@ CREATE TABLE IF NOT EXISTS METRIC_TIMER (
     DURATION_UNIT VARCHAR(50) NOT NULL
 );
 
+CREATE TABLE IF NOT EXISTS METRIC_SKETCH (
+    ID BIGINT AUTO_INCREMENT PRIMARY KEY,
+    SOURCE VARCHAR(255) NOT NULL,
+    TIMESTAMP BIGINT NOT NULL,
+    NAME VARCHAR(255) NOT NULL,
+    SKETCH BLOB NOT NULL
+);
+
 CREATE INDEX IDX_TIMESTAMP_GAUGE ON METRIC_GAUGE (TIMESTAMP);
 CREATE INDEX IDX_TIMESTAMP_COUNTER ON METRIC_COUNTER (TIMESTAMP);
 CREATE INDEX IDX_TIMESTAMP_METER ON METRIC_METER (TIMESTAMP);
 CREATE INDEX IDX_TIMESTAMP_HISTOGRAM ON METRIC_HISTOGRAM (TIMESTAMP);
 CREATE INDEX IDX_TIMESTAMP_TIMER ON METRIC_TIMER (TIMESTAMP);
+CREATE INDEX IDX_TIMESTAMP_SKETCH ON METRIC_SKETCH (TIMESTAMP);
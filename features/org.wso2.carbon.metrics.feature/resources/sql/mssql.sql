@@ -90,8 +90,18 @@ CREATE TABLE METRIC_TIMER (
     DURATION_UNIT VARCHAR(50) NOT NULL
 );
 
+IF NOT EXISTS (SELECT * FROM SYS.OBJECTS WHERE OBJECT_ID = OBJECT_ID(N'[DBO].[METRIC_SKETCH]') AND TYPE IN (N'U'))
+CREATE TABLE METRIC_SKETCH (
+    ID INTEGER IDENTITY PRIMARY KEY,
+    SOURCE VARCHAR(255) NOT NULL,
+    TIMESTAMP BIGINT NOT NULL,
+    NAME VARCHAR(255) NOT NULL,
+    SKETCH VARBINARY(MAX) NOT NULL,
+);
+
 CREATE INDEX IDX_TIMESTAMP_GAUGE ON METRIC_GAUGE (TIMESTAMP);
 CREATE INDEX IDX_TIMESTAMP_COUNTER ON METRIC_COUNTER (TIMESTAMP);
 CREATE INDEX IDX_TIMESTAMP_METER ON METRIC_METER (TIMESTAMP);
 CREATE INDEX IDX_TIMESTAMP_HISTOGRAM ON METRIC_HISTOGRAM (TIMESTAMP);
 CREATE INDEX IDX_TIMESTAMP_TIMER ON METRIC_TIMER (TIMESTAMP);
+CREATE INDEX IDX_TIMESTAMP_SKETCH ON METRIC_SKETCH (TIMESTAMP);
@@ -145,6 +145,26 @@ CREATE OR REPLACE TRIGGER METRIC_TIMER_TRIGGER
             END;
 /
 
+CREATE TABLE METRIC_SKETCH (
+    ID NUMBER(20) PRIMARY KEY,
+    SOURCE VARCHAR(255) NOT NULL,
+    TIMESTAMP NUMBER(20) NOT NULL,
+    NAME VARCHAR(255) NOT NULL,
+    SKETCH BLOB NOT NULL
+)
+/
+CREATE SEQUENCE METRIC_SKETCH_SEQUENCE START WITH 1 INCREMENT BY 1 NOCACHE
+/
+CREATE OR REPLACE TRIGGER METRIC_SKETCH_TRIGGER
+            BEFORE INSERT
+            ON METRIC_SKETCH
+            REFERENCING NEW AS NEW
+            FOR EACH ROW
+            BEGIN
+                SELECT METRIC_SKETCH_SEQUENCE.nextval INTO :NEW.ID FROM dual;
+            END;
+/
+
 CREATE INDEX IDX_TIMESTAMP_GAUGE ON METRIC_GAUGE (TIMESTAMP)
 /
 CREATE INDEX IDX_TIMESTAMP_COUNTER ON METRIC_COUNTER (TIMESTAMP)
@@ -155,3 +175,5 @@ CREATE INDEX IDX_TIMESTAMP_HISTOGRAM ON METRIC_HISTOGRAM (TIMESTAMP)
 /
 CREATE INDEX IDX_TIMESTAMP_TIMER ON METRIC_TIMER (TIMESTAMP)
 /
+CREATE INDEX IDX_TIMESTAMP_SKETCH ON METRIC_SKETCH (TIMESTAMP)
+/
@@ -95,8 +95,18 @@ CREATE TABLE METRIC_TIMER (
     DURATION_UNIT VARCHAR(50) NOT NULL
 );
 
+CREATE SEQUENCE METRIC_SKETCH_SEQUENCE START WITH 1 INCREMENT BY 1;
+CREATE TABLE METRIC_SKETCH (
+    ID BIGINT DEFAULT nextval('METRIC_SKETCH_SEQUENCE') PRIMARY KEY,
+    SOURCE VARCHAR(255) NOT NULL,
+    TIMESTAMP BIGINT NOT NULL,
+    NAME VARCHAR(255) NOT NULL,
+    SKETCH BYTEA NOT NULL
+);
+
 CREATE INDEX IDX_TIMESTAMP_GAUGE ON METRIC_GAUGE (TIMESTAMP);
 CREATE INDEX IDX_TIMESTAMP_COUNTER ON METRIC_COUNTER (TIMESTAMP);
 CREATE INDEX IDX_TIMESTAMP_METER ON METRIC_METER (TIMESTAMP);
 CREATE INDEX IDX_TIMESTAMP_HISTOGRAM ON METRIC_HISTOGRAM (TIMESTAMP);
 CREATE INDEX IDX_TIMESTAMP_TIMER ON METRIC_TIMER (TIMESTAMP);
+CREATE INDEX IDX_TIMESTAMP_SKETCH ON METRIC_SKETCH (TIMESTAMP);
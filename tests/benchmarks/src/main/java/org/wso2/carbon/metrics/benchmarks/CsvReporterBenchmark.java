@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.benchmarks;
+
+import com.codahale.metrics.CsvReporter;
+import com.codahale.metrics.MetricRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.metrics.core.csv.CsvFileReporter;
+import org.wso2.carbon.metrics.core.csv.CsvFileWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares one reporting cycle of the codahale CSV reporter, which opens and closes a file for each metric, with the
+ * {@link CsvFileReporter}, which keeps up to the maximum number of files open. The maximum number of open files must
+ * be within the limit of open file descriptors of the process.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvReporterBenchmark {
+
+    @Param({"1000", "10000"})
+    private int metrics;
+
+    @Param({"256", "4096"})
+    private int maxOpenFiles;
+
+    private Path directory;
+
+    private CsvReporter csvReporter;
+
+    private CsvFileReporter csvFileReporter;
+
+    @Setup
+    public void setup() throws IOException {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        for (int i = 0; i < metrics; i++) {
+            metricRegistry.counter("benchmark.counter." + i).inc(i);
+        }
+        directory = Files.createTempDirectory("metrics-csv-benchmark");
+        File codahaleDirectory = directory.resolve("codahale").toFile();
+        File writerDirectory = directory.resolve("writer").toFile();
+        if (!codahaleDirectory.mkdir() || !writerDirectory.mkdir()) {
+            throw new IOException("Could not create the CSV directories in " + directory);
+        }
+        csvReporter = CsvReporter.forRegistry(metricRegistry).formatFor(Locale.US).build(codahaleDirectory);
+        csvFileReporter = CsvFileReporter.forRegistry(metricRegistry).formatFor(Locale.US)
+                .build(new CsvFileWriter(writerDirectory, maxOpenFiles, 0, 0, false));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        csvReporter.stop();
+        csvFileReporter.stop();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public void codahaleCsvReporter() {
+        csvReporter.report();
+    }
+
+    @Benchmark
+    public void csvFileReporter() {
+        csvFileReporter.report();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 WSO2 Inc. (http://wso2.org)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.metrics.benchmarks;
+
+import com.codahale.metrics.MetricRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.metrics.core.Counter;
+import org.wso2.carbon.metrics.core.Histogram;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.Meter;
+import org.wso2.carbon.metrics.core.Timer;
+import org.wso2.carbon.metrics.core.config.model.MetricsConfig;
+import org.wso2.carbon.metrics.core.config.model.MetricsLevelConfig;
+import org.wso2.carbon.metrics.core.service.MetricService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of updating enabled and disabled metrics. A disabled metric sends its updates to a shared no-op
+ * metric, so the disabled updates should cost about the same as the empty baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetricUpdateBenchmark {
+
+    @Param({"true", "false"})
+    private boolean enabled;
+
+    private MetricService metricService;
+
+    private Counter counter;
+
+    private Meter meter;
+
+    private Histogram histogram;
+
+    private Timer timer;
+
+    @Setup
+    public void setup() {
+        MetricsConfig metricsConfig = new MetricsConfig();
+        metricsConfig.getStartup().setJvmMetrics(false);
+        MetricsLevelConfig metricsLevelConfig = new MetricsLevelConfig();
+        metricsLevelConfig.setRootLevel(enabled ? Level.INFO : Level.OFF);
+        metricService = new MetricService(new MetricRegistry(), metricsConfig, metricsLevelConfig);
+        counter = metricService.counter("benchmark.counter", Level.INFO);
+        meter = metricService.meter("benchmark.meter", Level.INFO);
+        histogram = metricService.histogram("benchmark.histogram", Level.INFO);
+        timer = metricService.timer("benchmark.timer", Level.INFO);
+    }
+
+    @TearDown
+    public void tearDown() {
+        metricService.disable();
+    }
+
+    @Benchmark
+    public void baseline() {
+    }
+
+    @Benchmark
+    public void counterInc() {
+        counter.inc();
+    }
+
+    @Benchmark
+    public void meterMark() {
+        meter.mark();
+    }
+
+    @Benchmark
+    public void histogramUpdate() {
+        histogram.update(42L);
+    }
+
+    @Benchmark
+    public long timerStartStop() {
+        return timer.start().stop();
+    }
+}